@@ -9,4 +9,787 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Query query = new Query();
+
+    private final QueryGuard queryGuard = new QueryGuard();
+
+    private final ChangeFeed changeFeed = new ChangeFeed();
+
+    private final Batch batch = new Batch();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Ingest ingest = new Ingest();
+
+    private final StatementImport statementImport = new StatementImport();
+
+    private final CategoryNames categoryNames = new CategoryNames();
+
+    private final BulkLoad bulkLoad = new BulkLoad();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Audit audit = new Audit();
+
+    private final Partitioning partitioning = new Partitioning();
+
+    private final Archive archive = new Archive();
+
+    private final Merchants merchants = new Merchants();
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public QueryGuard getQueryGuard() {
+        return queryGuard;
+    }
+
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public Ingest getIngest() {
+        return ingest;
+    }
+
+    public StatementImport getStatementImport() {
+        return statementImport;
+    }
+
+    public CategoryNames getCategoryNames() {
+        return categoryNames;
+    }
+
+    public BulkLoad getBulkLoad() {
+        return bulkLoad;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public Merchants getMerchants() {
+        return merchants;
+    }
+
+    public static class Query {
+
+        /**
+         * Run the content and the count queries of paged listings concurrently, on separate read-only connections.
+         */
+        private boolean concurrentCount = false;
+
+        /**
+         * Load the entities of listings, counts and exports read-only in read-only transactions, and detach them once
+         * mapped, so that the persistence context neither keeps their snapshots nor grows with the page.
+         */
+        private boolean statelessReads = true;
+
+        private int poolSize = 4;
+
+        private int queueCapacity = 100;
+
+        public boolean isConcurrentCount() {
+            return concurrentCount;
+        }
+
+        public void setConcurrentCount(boolean concurrentCount) {
+            this.concurrentCount = concurrentCount;
+        }
+
+        public boolean isStatelessReads() {
+            return statelessReads;
+        }
+
+        public void setStatelessReads(boolean statelessReads) {
+            this.statelessReads = statelessReads;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class QueryGuard {
+
+        private boolean enabled = true;
+
+        /**
+         * Page sizes above this are capped, for paged listings.
+         */
+        private int maxPageSize = 200;
+
+        /**
+         * Page sizes above this are capped, for JSON exports.
+         */
+        private int maxExportPageSize = 10000;
+
+        /**
+         * Queries estimated to read more rows than this run in the slow lane.
+         */
+        private long slowLaneCost = 100_000;
+
+        /**
+         * Queries estimated to read more rows than this, once rewritten, are rejected.
+         */
+        private long rejectCost = 2_000_000;
+
+        /**
+         * Number of queries running concurrently in the slow lane.
+         */
+        private int slowLanePermits = 2;
+
+        /**
+         * Time a query waits for the slow lane before being rejected.
+         */
+        private long slowLaneTimeoutMillis = 2000;
+
+        /**
+         * Lower date bound added to costly text searches without one.
+         */
+        private int textSearchWindowDays = 365;
+
+        /**
+         * Time during which the per-user row counts used for the estimates are cached.
+         */
+        private long statisticsTtlSeconds = 300;
+
+        /**
+         * Number of per-user row counts cached on each node, the least recently used are evicted beyond.
+         */
+        private int statisticsMaxSize = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+
+        public int getMaxExportPageSize() {
+            return maxExportPageSize;
+        }
+
+        public void setMaxExportPageSize(int maxExportPageSize) {
+            this.maxExportPageSize = maxExportPageSize;
+        }
+
+        public long getSlowLaneCost() {
+            return slowLaneCost;
+        }
+
+        public void setSlowLaneCost(long slowLaneCost) {
+            this.slowLaneCost = slowLaneCost;
+        }
+
+        public long getRejectCost() {
+            return rejectCost;
+        }
+
+        public void setRejectCost(long rejectCost) {
+            this.rejectCost = rejectCost;
+        }
+
+        public int getSlowLanePermits() {
+            return slowLanePermits;
+        }
+
+        public void setSlowLanePermits(int slowLanePermits) {
+            this.slowLanePermits = slowLanePermits;
+        }
+
+        public long getSlowLaneTimeoutMillis() {
+            return slowLaneTimeoutMillis;
+        }
+
+        public void setSlowLaneTimeoutMillis(long slowLaneTimeoutMillis) {
+            this.slowLaneTimeoutMillis = slowLaneTimeoutMillis;
+        }
+
+        public int getTextSearchWindowDays() {
+            return textSearchWindowDays;
+        }
+
+        public void setTextSearchWindowDays(int textSearchWindowDays) {
+            this.textSearchWindowDays = textSearchWindowDays;
+        }
+
+        public long getStatisticsTtlSeconds() {
+            return statisticsTtlSeconds;
+        }
+
+        public void setStatisticsTtlSeconds(long statisticsTtlSeconds) {
+            this.statisticsTtlSeconds = statisticsTtlSeconds;
+        }
+
+        public int getStatisticsMaxSize() {
+            return statisticsMaxSize;
+        }
+
+        public void setStatisticsMaxSize(int statisticsMaxSize) {
+            this.statisticsMaxSize = statisticsMaxSize;
+        }
+    }
+
+    public static class ChangeFeed {
+
+        /**
+         * Time after which a change feed connection is closed, clients then reconnect.
+         */
+        private long timeoutMillis = 30 * 60 * 1000L;
+
+        /**
+         * Time during which a stream ticket can open a change feed connection, once.
+         */
+        private long ticketTtlSeconds = 30;
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public long getTicketTtlSeconds() {
+            return ticketTtlSeconds;
+        }
+
+        public void setTicketTtlSeconds(long ticketTtlSeconds) {
+            this.ticketTtlSeconds = ticketTtlSeconds;
+        }
+    }
+
+    public static class Batch {
+
+        /**
+         * Maximum number of items of a batch request.
+         */
+        private int maxSize = 5000;
+
+        /**
+         * Number of entities inserted between two flushes of the persistence context, a multiple of the JDBC batch size.
+         */
+        private int flushSize = 500;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+    }
+
+    public static class Idempotency {
+
+        /**
+         * Time during which the response to a request with an idempotency key is replayed to its retries.
+         */
+        private long ttlSeconds = 24 * 60 * 60;
+
+        /**
+         * Time after which a request still running no longer blocks its retries, in case its node has crashed.
+         */
+        private long pendingTtlSeconds = 60;
+
+        /**
+         * Time a retry waits for the original request to complete before being answered with a conflict.
+         */
+        private long waitTimeoutMillis = 5000;
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public long getPendingTtlSeconds() {
+            return pendingTtlSeconds;
+        }
+
+        public void setPendingTtlSeconds(long pendingTtlSeconds) {
+            this.pendingTtlSeconds = pendingTtlSeconds;
+        }
+
+        public long getWaitTimeoutMillis() {
+            return waitTimeoutMillis;
+        }
+
+        public void setWaitTimeoutMillis(long waitTimeoutMillis) {
+            this.waitTimeoutMillis = waitTimeoutMillis;
+        }
+    }
+
+    public static class Ingest {
+
+        /**
+         * Number of transactions the ingest buffer holds, requests which do not fit are answered with 429.
+         */
+        private int queueCapacity = 20000;
+
+        /**
+         * Maximum number of transactions written in one database transaction.
+         */
+        private int commitSize = 1000;
+
+        /**
+         * Time the writer waits for more transactions before committing a partial group.
+         */
+        private long maxDelayMillis = 20;
+
+        /**
+         * Time during which the status of an ingest ticket can be read.
+         */
+        private long ticketTtlSeconds = 60 * 60;
+
+        /**
+         * Time given to the writer to commit the buffered transactions on shutdown.
+         */
+        private long drainTimeoutMillis = 30000;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getCommitSize() {
+            return commitSize;
+        }
+
+        public void setCommitSize(int commitSize) {
+            this.commitSize = commitSize;
+        }
+
+        public long getMaxDelayMillis() {
+            return maxDelayMillis;
+        }
+
+        public void setMaxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+        }
+
+        public long getTicketTtlSeconds() {
+            return ticketTtlSeconds;
+        }
+
+        public void setTicketTtlSeconds(long ticketTtlSeconds) {
+            this.ticketTtlSeconds = ticketTtlSeconds;
+        }
+
+        public long getDrainTimeoutMillis() {
+            return drainTimeoutMillis;
+        }
+
+        public void setDrainTimeoutMillis(long drainTimeoutMillis) {
+            this.drainTimeoutMillis = drainTimeoutMillis;
+        }
+    }
+
+    public static class StatementImport {
+
+        /**
+         * Number of statement rows parsed and inserted together, in one database transaction.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Number of threads parsing the chunks of statements.
+         */
+        private int parallelism = 4;
+
+        /**
+         * Number of chunks of a statement read ahead of the inserted one, which bounds the memory used by an import.
+         */
+        private int maxChunksInFlight = 8;
+
+        /**
+         * Maximum number of rejected rows reported in the status of an import.
+         */
+        private int maxErrors = 100;
+
+        /**
+         * Time during which the status of an import can be read.
+         */
+        private long jobTtlSeconds = 24 * 60 * 60;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getMaxChunksInFlight() {
+            return maxChunksInFlight;
+        }
+
+        public void setMaxChunksInFlight(int maxChunksInFlight) {
+            this.maxChunksInFlight = maxChunksInFlight;
+        }
+
+        public int getMaxErrors() {
+            return maxErrors;
+        }
+
+        public void setMaxErrors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        public long getJobTtlSeconds() {
+            return jobTtlSeconds;
+        }
+
+        public void setJobTtlSeconds(long jobTtlSeconds) {
+            this.jobTtlSeconds = jobTtlSeconds;
+        }
+    }
+
+    public static class CategoryNames {
+
+        /**
+         * Time during which the id of a category is cached under its name, when the category is not renamed.
+         */
+        private long ttlSeconds = 60 * 60;
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+    public static class BulkLoad {
+
+        /**
+         * Rows validated and written together by a bulk load, which bounds the memory it holds.
+         */
+        private int chunkSize = 10000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Outbox {
+
+        /**
+         * Delay between the end of a drain of the outbox and the start of the next one.
+         */
+        private long pollIntervalMillis = 1000;
+
+        /**
+         * Events locked, published and deleted per database transaction.
+         */
+        private int batchSize = 500;
+
+        private boolean hazelcastTopicEnabled = true;
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public boolean isHazelcastTopicEnabled() {
+            return hazelcastTopicEnabled;
+        }
+
+        public void setHazelcastTopicEnabled(boolean hazelcastTopicEnabled) {
+            this.hazelcastTopicEnabled = hazelcastTopicEnabled;
+        }
+    }
+
+    public static class Audit {
+
+        /**
+         * How the Envers audit rows of the entities are written.
+         */
+        public enum Mode {
+            /**
+             * By Envers, in the transaction of the change.
+             */
+            SYNC,
+            /**
+             * From a queue of the changes, written in the transaction of the change, by a background writer. The native
+             * write paths queue their changes too.
+             */
+            ASYNC,
+            /**
+             * Not written, by Envers nor by the native write paths.
+             */
+            DISABLED,
+        }
+
+        private Mode mode = Mode.SYNC;
+
+        /**
+         * Delay between the end of a drain of the audit queue and the start of the next one.
+         */
+        private long pollIntervalMillis = 1000;
+
+        /**
+         * Queue entries locked, written and deleted per database transaction.
+         */
+        private int batchSize = 1000;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Partitioning {
+
+        /**
+         * When the partitions are created and detached.
+         */
+        private String cron = "0 0 3 * * *";
+
+        /**
+         * Number of monthly partitions of the transaction table created ahead of the current month.
+         */
+        private int monthsAhead = 3;
+
+        /**
+         * Age in months after which a partition is archived then detached from the transaction table, 0 to keep all the
+         * partitions.
+         */
+        private int detachAfterMonths = 0;
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getMonthsAhead() {
+            return monthsAhead;
+        }
+
+        public void setMonthsAhead(int monthsAhead) {
+            this.monthsAhead = monthsAhead;
+        }
+
+        public int getDetachAfterMonths() {
+            return detachAfterMonths;
+        }
+
+        public void setDetachAfterMonths(int detachAfterMonths) {
+            this.detachAfterMonths = detachAfterMonths;
+        }
+    }
+
+    public static class Archive {
+
+        /**
+         * Whether the old transactions are archived.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the segment files, shared by all the nodes.
+         */
+        private String directory = "archive";
+
+        /**
+         * Age in years after which the transactions of a whole year are archived.
+         */
+        private int ageYears = 3;
+
+        /**
+         * When the old transactions are archived.
+         */
+        private String cron = "0 30 3 * * *";
+
+        /**
+         * Number of transactions of a compressed block of a segment file.
+         */
+        private int blockSize = 512;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getAgeYears() {
+            return ageYears;
+        }
+
+        public void setAgeYears(int ageYears) {
+            this.ageYears = ageYears;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(int blockSize) {
+            this.blockSize = blockSize;
+        }
+    }
+
+    public static class Merchants {
+
+        /**
+         * Time during which the id of a merchant is cached under its key.
+         */
+        private long ttlSeconds = 60 * 60;
+
+        /**
+         * Distinct details of transactions without merchant resolved by a transaction of the backfill.
+         */
+        private int backfillBatchSize = 1000;
+
+        /**
+         * Delay between two runs of the backfill, which stops once all the transactions have a merchant.
+         */
+        private long backfillIntervalMillis = 60000;
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public int getBackfillBatchSize() {
+            return backfillBatchSize;
+        }
+
+        public void setBackfillBatchSize(int backfillBatchSize) {
+            this.backfillBatchSize = backfillBatchSize;
+        }
+
+        public long getBackfillIntervalMillis() {
+            return backfillIntervalMillis;
+        }
+
+        public void setBackfillIntervalMillis(long backfillIntervalMillis) {
+            this.backfillIntervalMillis = backfillIntervalMillis;
+        }
+    }
+}
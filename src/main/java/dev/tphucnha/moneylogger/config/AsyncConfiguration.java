@@ -1,6 +1,7 @@
 package dev.tphucnha.moneylogger.config;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
@@ -23,8 +24,11 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, ApplicationProperties applicationProperties) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -39,6 +43,39 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Bounded executor running the content and count queries of paged listings concurrently.
+     * When it is saturated, the caller runs the query itself, which falls back to serial execution.
+     */
+    @Bean(name = "queryExecutor")
+    public ThreadPoolTaskExecutor queryExecutor() {
+        log.debug("Creating Query Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.getQuery().getPoolSize());
+        executor.setMaxPoolSize(applicationProperties.getQuery().getPoolSize());
+        executor.setQueueCapacity(applicationProperties.getQuery().getQueueCapacity());
+        executor.setThreadNamePrefix("moneylogger-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Executor parsing the chunks of imported statements. Imports never have more than
+     * {@code application.statement-import.max-chunks-in-flight} chunks submitted, and run them themselves when it is
+     * saturated.
+     */
+    @Bean(name = "importExecutor")
+    public ThreadPoolTaskExecutor importExecutor() {
+        log.debug("Creating Import Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.getStatementImport().getParallelism());
+        executor.setMaxPoolSize(applicationProperties.getStatementImport().getParallelism());
+        executor.setQueueCapacity(applicationProperties.getStatementImport().getMaxChunksInFlight());
+        executor.setThreadNamePrefix("moneylogger-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
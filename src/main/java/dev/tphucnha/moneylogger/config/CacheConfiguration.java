@@ -3,6 +3,7 @@ package dev.tphucnha.moneylogger.config;
 import com.hazelcast.config.*;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import dev.tphucnha.moneylogger.service.QueryCostGuard;
 import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,7 +65,7 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         log.debug("Configuring Hazelcast");
         HazelcastInstance hazelCastInstance = Hazelcast.getHazelcastInstanceByName("moneylogger");
         if (hazelCastInstance != null) {
@@ -107,6 +108,7 @@ public class CacheConfiguration {
         config.setManagementCenterConfig(new ManagementCenterConfig());
         config.addMapConfig(initializeDefaultMapConfig(jHipsterProperties));
         config.addMapConfig(initializeDomainMapConfig(jHipsterProperties));
+        config.addMapConfig(initializeQueryGuardStatisticsMapConfig(applicationProperties));
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -146,6 +148,18 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
+    private MapConfig initializeQueryGuardStatisticsMapConfig(ApplicationProperties applicationProperties) {
+        MapConfig mapConfig = new MapConfig(QueryCostGuard.STATISTICS_MAP_NAME);
+        mapConfig.setTimeToLiveSeconds((int) applicationProperties.getQueryGuard().getStatisticsTtlSeconds());
+        // One entry per user and entity, the least recently used are evicted beyond the size of each node
+        mapConfig
+            .getEvictionConfig()
+            .setEvictionPolicy(EvictionPolicy.LRU)
+            .setMaxSizePolicy(MaxSizePolicy.PER_NODE)
+            .setSize(applicationProperties.getQueryGuard().getStatisticsMaxSize());
+        return mapConfig;
+    }
+
     @Autowired(required = false)
     public void setGitProperties(GitProperties gitProperties) {
         this.gitProperties = gitProperties;
@@ -1,8 +1,13 @@
 package dev.tphucnha.moneylogger.config;
 
+import dev.tphucnha.moneylogger.repository.AuditCaptureIntegrator;
 import java.sql.SQLException;
+import java.util.Collections;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -23,8 +28,36 @@ public class DatabaseConfiguration {
 
     private final Environment env;
 
-    public DatabaseConfiguration(Environment env) {
+    private final ApplicationProperties applicationProperties;
+
+    public DatabaseConfiguration(Environment env, ApplicationProperties applicationProperties) {
         this.env = env;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Apply {@code application.audit.mode}: unless the audit is synchronous, the Envers listeners are not registered,
+     * while its metadata still serves the audit queries. When it is asynchronous, the changes are captured by the
+     * {@link AuditCaptureIntegrator} instead.
+     *
+     * @return the customizer of the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer auditModeHibernatePropertiesCustomizer() {
+        ApplicationProperties.Audit.Mode mode = applicationProperties.getAudit().getMode();
+        return hibernateProperties -> {
+            if (mode == ApplicationProperties.Audit.Mode.SYNC) {
+                return;
+            }
+            log.info("Audit mode: {}", mode);
+            hibernateProperties.put("hibernate.envers.autoRegisterListeners", "false");
+            if (mode == ApplicationProperties.Audit.Mode.ASYNC) {
+                hibernateProperties.put(
+                    EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> Collections.singletonList(new AuditCaptureIntegrator())
+                );
+            }
+        };
     }
 
     /**
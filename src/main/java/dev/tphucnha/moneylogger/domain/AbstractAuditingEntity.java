@@ -6,6 +6,7 @@ import java.time.Instant;
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -15,9 +16,15 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 /**
  * Base abstract class for entities which will hold definitions for created, last modified, created by,
  * last modified by attributes.
+ * <p>
+ * Every write also stamps the entity with a new change sequence (see {@link ChangeSequenceListener}), which lets
+ * clients ask for what changed since the last sequence they have seen.
+ * <p>
+ * The version counts the writes of each entity: Hibernate checks and increments it, and so do the native statements
+ * writing the entities. Clients send it back in {@code If-Match} so that concurrent edits are not lost.
  */
 @MappedSuperclass
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({ AuditingEntityListener.class, ChangeSequenceListener.class })
 public abstract class AbstractAuditingEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -38,6 +45,14 @@ public abstract class AbstractAuditingEntity implements Serializable {
     @Column(name = "last_modified_date")
     private Instant lastModifiedDate = Instant.now();
 
+    @JsonIgnore
+    @Column(name = "change_sequence")
+    private Long changeSequence;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public String getCreatedBy() {
         return createdBy;
     }
@@ -69,4 +84,20 @@ public abstract class AbstractAuditingEntity implements Serializable {
     public void setLastModifiedDate(Instant lastModifiedDate) {
         this.lastModifiedDate = lastModifiedDate;
     }
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
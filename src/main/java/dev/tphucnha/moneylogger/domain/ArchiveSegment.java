@@ -0,0 +1,188 @@
+package dev.tphucnha.moneylogger.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * An ArchiveSegment, registering the segment file holding the archived transactions of a user for a year.
+ * <p>
+ * A segment is registered in the transaction deleting its transactions from the {@code transaction} table, so a
+ * transaction is either in the table or in a registered segment. Segment files which are not registered are ignored.
+ * The amount and the count of the transactions of the segment are kept here, so that the aggregates do not read the
+ * segment file.
+ */
+@Entity
+@Table(
+    name = "archive_segment",
+    uniqueConstraints = @UniqueConstraint(name = "ux_archive_segment_created_by_year", columnNames = { "created_by", "archive_year" })
+)
+public class ArchiveSegment implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "archiveSegmentGenerator")
+    @SequenceGenerator(name = "archiveSegmentGenerator", sequenceName = "archive_segment_sequence", allocationSize = 1)
+    private Long id;
+
+    @NotNull
+    @Column(name = "created_by", length = 50, nullable = false)
+    private String createdBy;
+
+    @NotNull
+    @Column(name = "archive_year", nullable = false)
+    private Integer year;
+
+    @NotNull
+    @Column(name = "first_date", nullable = false)
+    private Instant firstDate;
+
+    @NotNull
+    @Column(name = "last_date", nullable = false)
+    private Instant lastDate;
+
+    @NotNull
+    @Column(name = "row_count", nullable = false)
+    private Integer rowCount;
+
+    @NotNull
+    @Column(name = "total_amount", precision = 21, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    /**
+     * The name of the segment file, relative to {@code application.archive.directory}.
+     */
+    @NotNull
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate = Instant.now();
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public ArchiveSegment createdBy(String createdBy) {
+        this.createdBy = createdBy;
+        return this;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public ArchiveSegment year(Integer year) {
+        this.year = year;
+        return this;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public Instant getFirstDate() {
+        return firstDate;
+    }
+
+    public void setFirstDate(Instant firstDate) {
+        this.firstDate = firstDate;
+    }
+
+    public Instant getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(Instant lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public Integer getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(Integer rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ArchiveSegment)) {
+            return false;
+        }
+        return id != null && id.equals(((ArchiveSegment) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ArchiveSegment{" +
+            "id=" + getId() +
+            ", createdBy='" + getCreatedBy() + "'" +
+            ", year=" + getYear() +
+            ", rowCount=" + getRowCount() +
+            ", fileName='" + getFileName() + "'" +
+            "}";
+    }
+}
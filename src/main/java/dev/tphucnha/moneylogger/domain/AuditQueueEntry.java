@@ -0,0 +1,224 @@
+package dev.tphucnha.moneylogger.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * An AuditQueueEntry, the change of an audited entity captured at flush time when the audit is asynchronous, until it
+ * is written as an Envers audit row.
+ * <p>
+ * The entries of a database transaction share its id and its capture sequence, and become one Envers revision. An entry holds the audited
+ * state of a {@link Transaction} ({@code amount}, {@code details}, {@code date}, {@code categoryId}, {@code createdBy}) or of a
+ * {@link Category} ({@code name}), and the category of a transaction before the database transaction, so that the
+ * categories whose transactions change get a revision too, as with the synchronous audit.
+ */
+@Entity
+@Table(name = "audit_queue")
+public class AuditQueueEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String SEQUENCE_NAME = "audit_queue_sequence";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auditQueueGenerator")
+    @SequenceGenerator(name = "auditQueueGenerator", sequenceName = SEQUENCE_NAME, allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(name = "transaction_id", length = 36, nullable = false)
+    private String transactionId;
+
+    @NotNull
+    @Column(name = "captured_date", nullable = false)
+    private Instant capturedDate;
+
+    /**
+     * The order of the database transaction, taken from a sequence once its changes are written and locked: a database
+     * transaction changing an entity after another one has a greater capture sequence. The ids of the entries are
+     * allocated in blocks per node, so do not give that order.
+     */
+    @Column(name = "capture_sequence")
+    private Long captureSequence;
+
+    @NotNull
+    @Column(name = "entity_name", length = 50, nullable = false)
+    private String entityName;
+
+    @NotNull
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    /**
+     * The Envers revision type: 0 for an insert, 1 for an update, 2 for a delete.
+     */
+    @NotNull
+    @Column(name = "revision_type", nullable = false)
+    private Integer revisionType;
+
+    @Column(name = "amount", precision = 21, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "details")
+    private String details;
+
+    @Column(name = "date")
+    private Instant date;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "previous_category_id")
+    private Long previousCategoryId;
+
+    @Column(name = "created_by", length = 50)
+    private String createdBy;
+
+    @Column(name = "name")
+    private String name;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Instant getCapturedDate() {
+        return capturedDate;
+    }
+
+    public void setCapturedDate(Instant capturedDate) {
+        this.capturedDate = capturedDate;
+    }
+
+    public Long getCaptureSequence() {
+        return captureSequence;
+    }
+
+    public void setCaptureSequence(Long captureSequence) {
+        this.captureSequence = captureSequence;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Integer getRevisionType() {
+        return revisionType;
+    }
+
+    public void setRevisionType(Integer revisionType) {
+        this.revisionType = revisionType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public void setDetails(String details) {
+        this.details = details;
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public void setDate(Instant date) {
+        this.date = date;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getPreviousCategoryId() {
+        return previousCategoryId;
+    }
+
+    public void setPreviousCategoryId(Long previousCategoryId) {
+        this.previousCategoryId = previousCategoryId;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AuditQueueEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((AuditQueueEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AuditQueueEntry{" +
+            "id=" + getId() +
+            ", transactionId='" + getTransactionId() + "'" +
+            ", captureSequence=" + getCaptureSequence() +
+            ", entityName='" + getEntityName() + "'" +
+            ", entityId=" + getEntityId() +
+            ", revisionType=" + getRevisionType() +
+            "}";
+    }
+}
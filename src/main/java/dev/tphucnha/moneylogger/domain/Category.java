@@ -3,33 +3,60 @@ package dev.tphucnha.moneylogger.domain;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
+import org.hibernate.envers.NotAudited;
 
 /**
  * A Category.
+ * <p>
+ * The owner is also stored as its {@link UserKey}, which the owner predicates and indexes use instead of the login.
  */
 @Entity
-@Table(name = "category")
+@Table(
+    name = "category",
+    indexes = {
+        @Index(name = "idx_category_owner_change_seq", columnList = "owner_id, change_sequence"),
+        @Index(name = "idx_category_owner_name", columnList = "owner_id, name"),
+    },
+    uniqueConstraints = @UniqueConstraint(name = "ux_category_owner_name_key", columnNames = { "owner_id", "name_key" })
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Audited
-public class Category extends AbstractAuditingEntity implements Serializable {
+@EntityListeners(OwnerKeyListener.class)
+public class Category extends AbstractAuditingEntity implements OwnerKeyed, Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator", sequenceName = "sequence_generator", allocationSize = 50)
     private Long id;
 
     @NotNull
     @Column(name = "name", nullable = false)
     private String name;
 
+    /**
+     * The name compared without case, unique per user: the schema is generated from the entities, which cannot declare
+     * an index on {@code lower(name)}, so the key is stored.
+     */
+    @NotAudited
+    @Column(name = "name_key")
+    private String nameKey;
+
+    /**
+     * The {@link UserKey} of the owner, set by {@link OwnerKeyListener}.
+     */
+    @NotAudited
+    @Column(name = "owner_id", updatable = false)
+    private Integer ownerId;
+
     @OneToMany(mappedBy = "category")
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(value = { "category" }, allowSetters = true)
@@ -62,6 +89,28 @@ public class Category extends AbstractAuditingEntity implements Serializable {
         this.name = name;
     }
 
+    public String getNameKey() {
+        return this.nameKey;
+    }
+
+    /**
+     * @param name the name of a category.
+     * @return the key under which the name is unique for a user.
+     */
+    public static String nameKey(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public Integer getOwnerId() {
+        return this.ownerId;
+    }
+
+    @Override
+    public void setOwnerId(Integer ownerId) {
+        this.ownerId = ownerId;
+    }
+
     public Set<Transaction> getTransactions() {
         return this.transactions;
     }
@@ -121,8 +170,9 @@ public class Category extends AbstractAuditingEntity implements Serializable {
                 "}";
     }
 
-    @PreRemove
-    public void preRemove() {
-        this.transactions.forEach(i -> i.setCategory(null));
+    @PrePersist
+    @PreUpdate
+    public void updateNameKey() {
+        this.nameKey = nameKey(this.name);
     }
 }
@@ -0,0 +1,26 @@
+package dev.tphucnha.moneylogger.domain;
+
+import dev.tphucnha.moneylogger.repository.ChangeSequenceGenerator;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * Entity listener stamping every inserted or updated {@link AbstractAuditingEntity} with a new change sequence of its
+ * owner. It runs after the {@code AuditingEntityListener}, which sets the owner of new entities.
+ * <p>
+ * It is instantiated by Hibernate through the Spring bean container, so its dependencies are injected.
+ */
+public class ChangeSequenceListener {
+
+    private final ChangeSequenceGenerator changeSequenceGenerator;
+
+    public ChangeSequenceListener(ChangeSequenceGenerator changeSequenceGenerator) {
+        this.changeSequenceGenerator = changeSequenceGenerator;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void touch(AbstractAuditingEntity entity) {
+        entity.setChangeSequence(changeSequenceGenerator.next(entity.getCreatedBy()));
+    }
+}
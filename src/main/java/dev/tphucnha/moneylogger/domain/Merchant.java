@@ -0,0 +1,137 @@
+package dev.tphucnha.moneylogger.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A Merchant, an entry of the dictionary of the counterparts of the transactions of a user.
+ * <p>
+ * Transactions whose details have the same key, see {@link #nameKey(String)}, reference the same merchant, so that
+ * they are grouped and searched on an integer instead of their free-form details, which remain what is displayed.
+ * Merchants are created on first use and never change.
+ */
+@Entity
+@Table(
+    name = "merchant",
+    uniqueConstraints = @UniqueConstraint(name = "ux_merchant_created_by_name_key", columnNames = { "created_by", "name_key" })
+)
+public class Merchant implements Serializable {
+
+    public static final String SEQUENCE_NAME = "merchant_sequence";
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern NOT_LETTERS = Pattern.compile("[^\\p{L}]+");
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "merchantGenerator")
+    @SequenceGenerator(name = "merchantGenerator", sequenceName = SEQUENCE_NAME, allocationSize = 1)
+    private Long id;
+
+    @NotNull
+    @Column(name = "created_by", length = 50, nullable = false)
+    private String createdBy;
+
+    /**
+     * The details of the first transaction of the merchant.
+     */
+    @NotNull
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @NotNull
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate = Instant.now();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public void setNameKey(String nameKey) {
+        this.nameKey = nameKey;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    /**
+     * The key of the merchant of the details of a transaction: the words of the details in lower case, without the
+     * digits and punctuation which vary between the transactions of a merchant (store numbers, references, dates).
+     * Details made of digits and punctuation only are their own key.
+     *
+     * @param details the details of a transaction.
+     * @return the key of its merchant.
+     */
+    public static String nameKey(String details) {
+        if (details == null) {
+            return null;
+        }
+        String lowerCase = details.toLowerCase(Locale.ROOT);
+        String key = NOT_LETTERS.matcher(lowerCase).replaceAll(" ").trim();
+        return key.isEmpty() ? lowerCase.trim() : key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Merchant)) {
+            return false;
+        }
+        return id != null && id.equals(((Merchant) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "Merchant{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", nameKey='" + getNameKey() + "'" +
+            "}";
+    }
+}
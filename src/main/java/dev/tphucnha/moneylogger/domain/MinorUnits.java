@@ -0,0 +1,92 @@
+package dev.tphucnha.moneylogger.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts as a {@code long} number of minor units (cents), the scale of {@link Transaction#getAmount()}.
+ * <p>
+ * Adding and comparing minor units allocates nothing, where every {@link BigDecimal} operation allocates a result.
+ * The amount column holds up to 19 integer digits, more than a {@code long} of minor units: amounts which do not fit,
+ * see {@link #fits(BigDecimal)}, and sums which overflow remain {@link BigDecimal}s.
+ */
+public final class MinorUnits {
+
+    /**
+     * The scale of the amounts, the number of minor units digits.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * The largest absolute amount converted to minor units by SQL queries, as the bound of a {@code numeric} compare.
+     */
+    public static final String SQL_BOUND = "90000000000000000";
+
+    private MinorUnits() {}
+
+    /**
+     * @param amount an amount.
+     * @return whether the amount has no more than {@link #SCALE} decimals and its minor units fit in a {@code long}.
+     */
+    public static boolean fits(BigDecimal amount) {
+        if (amount.scale() > SCALE && amount.stripTrailingZeros().scale() > SCALE) {
+            return false;
+        }
+        BigDecimal scaled = amount.setScale(SCALE);
+        // Below 19 digits, the unscaled value is less than 10^18
+        return scaled.precision() < 19 || scaled.unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    /**
+     * @param amount an amount which {@link #fits(BigDecimal)}.
+     * @return the amount in minor units.
+     * @throws ArithmeticException if the amount does not fit.
+     */
+    public static long of(BigDecimal amount) {
+        return amount.setScale(SCALE).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @param minorUnits an amount in minor units.
+     * @return the amount, with a scale of {@link #SCALE}.
+     */
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * A sum of amounts, in minor units until it overflows a {@code long}, then in a {@link BigDecimal}.
+     * Not thread safe.
+     */
+    public static final class Sum {
+
+        private long minorUnits;
+
+        private BigDecimal overflow;
+
+        public Sum add(long amount) {
+            if (overflow == null) {
+                long sum = minorUnits + amount;
+                // Overflow if both operands have the sign opposite to the one of the sum
+                if (((minorUnits ^ sum) & (amount ^ sum)) >= 0) {
+                    minorUnits = sum;
+                    return this;
+                }
+                overflow = MinorUnits.toBigDecimal(minorUnits);
+            }
+            overflow = overflow.add(MinorUnits.toBigDecimal(amount));
+            return this;
+        }
+
+        public Sum add(BigDecimal amount) {
+            if (overflow == null && fits(amount)) {
+                return add(of(amount));
+            }
+            overflow = (overflow != null ? overflow : MinorUnits.toBigDecimal(minorUnits)).add(amount);
+            return this;
+        }
+
+        public BigDecimal toBigDecimal() {
+            return overflow != null ? overflow : MinorUnits.toBigDecimal(minorUnits);
+        }
+    }
+}
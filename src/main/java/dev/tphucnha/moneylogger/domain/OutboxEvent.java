@@ -0,0 +1,157 @@
+package dev.tphucnha.moneylogger.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * An OutboxEvent, recording a change of a synchronized entity in the transaction of the change, until it has been
+ * published to the downstream consumers.
+ */
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outboxEventGenerator")
+    @SequenceGenerator(name = "outboxEventGenerator", sequenceName = "outbox_event_sequence", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(name = "entity_name", length = 50, nullable = false)
+    private String entityName;
+
+    /**
+     * The id of the changed entity, {@code null} for a change of many entities at once.
+     */
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @NotNull
+    @Column(name = "created_by", length = 50, nullable = false)
+    private String createdBy;
+
+    @NotNull
+    @Column(name = "change_type", length = 10, nullable = false)
+    private String changeType;
+
+    @Column(name = "change_sequence")
+    private Long changeSequence;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate = Instant.now();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public OutboxEvent entityName(String entityName) {
+        this.entityName = entityName;
+        return this;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public OutboxEvent entityId(Long entityId) {
+        this.entityId = entityId;
+        return this;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public OutboxEvent createdBy(String createdBy) {
+        this.createdBy = createdBy;
+        return this;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public OutboxEvent changeType(String changeType) {
+        this.changeType = changeType;
+        return this;
+    }
+
+    public void setChangeType(String changeType) {
+        this.changeType = changeType;
+    }
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public OutboxEvent changeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+        return this;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OutboxEvent)) {
+            return false;
+        }
+        return id != null && id.equals(((OutboxEvent) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+            "id=" + getId() +
+            ", entityName='" + getEntityName() + "'" +
+            ", entityId=" + getEntityId() +
+            ", changeType='" + getChangeType() + "'" +
+            ", changeSequence=" + getChangeSequence() +
+            "}";
+    }
+}
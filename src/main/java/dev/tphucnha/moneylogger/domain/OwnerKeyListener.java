@@ -0,0 +1,26 @@
+package dev.tphucnha.moneylogger.domain;
+
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
+import javax.persistence.PrePersist;
+
+/**
+ * Entity listener stamping every inserted {@link OwnerKeyed} entity with the {@link UserKey} of its owner.
+ * <p>
+ * It runs after the auditing listener of {@link AbstractAuditingEntity}, which sets the owner. As
+ * {@link ChangeSequenceListener}, it is instantiated by Hibernate through the Spring bean container.
+ */
+public class OwnerKeyListener {
+
+    private final UserKeyStore userKeyStore;
+
+    public OwnerKeyListener(UserKeyStore userKeyStore) {
+        this.userKeyStore = userKeyStore;
+    }
+
+    @PrePersist
+    public void stamp(OwnerKeyed entity) {
+        if (entity.getOwnerId() == null && entity.getCreatedBy() != null) {
+            entity.setOwnerId(userKeyStore.getOrCreate(entity.getCreatedBy()));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dev.tphucnha.moneylogger.domain;
+
+/**
+ * An entity owned by a user, which stores the {@link UserKey} of its owner along with the login, so that the owner
+ * predicates and indexes compare integers.
+ */
+public interface OwnerKeyed {
+    /**
+     * @return the login of the owner.
+     */
+    String getCreatedBy();
+
+    /**
+     * @return the {@link UserKey} of the owner, set by {@link OwnerKeyListener}.
+     */
+    Integer getOwnerId();
+
+    void setOwnerId(Integer ownerId);
+}
@@ -0,0 +1,146 @@
+package dev.tphucnha.moneylogger.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A SyncTombstone, recording the deletion of a synchronized entity so that offline clients can remove it too.
+ * <p>
+ * Its identifier is taken from the change sequence shared with {@link AbstractAuditingEntity#getChangeSequence()}. Its
+ * owner is also stored as its {@link UserKey}, which the owner predicates and indexes use instead of the login.
+ */
+@Entity
+@Table(
+    name = "sync_tombstone",
+    indexes = { @Index(name = "idx_sync_tombstone_owner_change_seq", columnList = "owner_id, change_sequence") }
+)
+@EntityListeners(OwnerKeyListener.class)
+public class SyncTombstone implements OwnerKeyed, Serializable {
+
+    public static final String CHANGE_SEQUENCE_NAME = "change_sequence_generator";
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "changeSequenceGenerator")
+    @SequenceGenerator(name = "changeSequenceGenerator", sequenceName = CHANGE_SEQUENCE_NAME, allocationSize = 1)
+    @Column(name = "change_sequence")
+    private Long changeSequence;
+
+    @NotNull
+    @Column(name = "entity_name", length = 50, nullable = false)
+    private String entityName;
+
+    @NotNull
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @NotNull
+    @Column(name = "created_by", length = 50, nullable = false)
+    private String createdBy;
+
+    /**
+     * The {@link UserKey} of the owner, set by {@link OwnerKeyListener}.
+     */
+    @Column(name = "owner_id", updatable = false)
+    private Integer ownerId;
+
+    @NotNull
+    @Column(name = "deleted_date", nullable = false)
+    private Instant deletedDate = Instant.now();
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public SyncTombstone entityName(String entityName) {
+        this.entityName = entityName;
+        return this;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public SyncTombstone entityId(Long entityId) {
+        this.entityId = entityId;
+        return this;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public SyncTombstone createdBy(String createdBy) {
+        this.createdBy = createdBy;
+        return this;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    @Override
+    public Integer getOwnerId() {
+        return ownerId;
+    }
+
+    @Override
+    public void setOwnerId(Integer ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Instant getDeletedDate() {
+        return deletedDate;
+    }
+
+    public void setDeletedDate(Instant deletedDate) {
+        this.deletedDate = deletedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SyncTombstone)) {
+            return false;
+        }
+        return changeSequence != null && changeSequence.equals(((SyncTombstone) o).changeSequence);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncTombstone{" +
+                "changeSequence=" + getChangeSequence() +
+                ", entityName='" + getEntityName() + "'" +
+                ", entityId=" + getEntityId() +
+                ", deletedDate='" + getDeletedDate() + "'" +
+                "}";
+    }
+}
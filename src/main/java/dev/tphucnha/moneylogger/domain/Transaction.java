@@ -8,22 +8,39 @@ import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.envers.AuditOverride;
 import org.hibernate.envers.Audited;
+import org.hibernate.envers.NotAudited;
 
 /**
  * A Transaction.
+ * <p>
+ * Its owner is audited too, so that the history of the changes of a user can be read from the audit table alone.
+ * <p>
+ * The owner is also stored as its {@link UserKey}, which the owner predicates and indexes use instead of the login.
  */
 @Entity
-@Table(name = "transaction")
+@Table(
+    name = "transaction",
+    indexes = {
+        @Index(name = "idx_transaction_owner_change_seq", columnList = "owner_id, change_sequence"),
+        @Index(name = "idx_transaction_owner_date", columnList = "owner_id, date"),
+        @Index(name = "idx_transaction_owner_merchant", columnList = "owner_id, merchant_id"),
+        @Index(name = "idx_transaction_owner_category", columnList = "owner_id, category_id"),
+    }
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Audited
-public class Transaction extends AbstractAuditingEntity implements Serializable {
+@AuditOverride(forClass = AbstractAuditingEntity.class, name = "createdBy")
+@EntityListeners(OwnerKeyListener.class)
+public class Transaction extends AbstractAuditingEntity implements OwnerKeyed, Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
+    // Pooled allocation: one sequence call per 50 ids, so that batch inserts do not wait for the sequence
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator", sequenceName = "sequence_generator", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -42,6 +59,21 @@ public class Transaction extends AbstractAuditingEntity implements Serializable
     @JsonIgnoreProperties(value = { "transactions" }, allowSetters = true)
     private Category category;
 
+    /**
+     * The id of the {@link Merchant} of the details, derived from them on every write; {@code null} until the
+     * transactions written before the merchants are backfilled.
+     */
+    @NotAudited
+    @Column(name = "merchant_id")
+    private Long merchantId;
+
+    /**
+     * The {@link UserKey} of the owner, set by {@link OwnerKeyListener}.
+     */
+    @NotAudited
+    @Column(name = "owner_id", updatable = false)
+    private Integer ownerId;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -108,6 +140,29 @@ public class Transaction extends AbstractAuditingEntity implements Serializable
         this.category = category;
     }
 
+    public Long getMerchantId() {
+        return this.merchantId;
+    }
+
+    public Transaction merchantId(Long merchantId) {
+        this.merchantId = merchantId;
+        return this;
+    }
+
+    public void setMerchantId(Long merchantId) {
+        this.merchantId = merchantId;
+    }
+
+    @Override
+    public Integer getOwnerId() {
+        return this.ownerId;
+    }
+
+    @Override
+    public void setOwnerId(Integer ownerId) {
+        this.ownerId = ownerId;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
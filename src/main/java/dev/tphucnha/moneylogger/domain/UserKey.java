@@ -0,0 +1,71 @@
+package dev.tphucnha.moneylogger.domain;
+
+import java.io.Serializable;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A UserKey, the compact integer standing for the login of a user in the rows and indexes of the hot tables.
+ * <p>
+ * Keys are created on the first write of a user, and never change: see
+ * {@link dev.tphucnha.moneylogger.repository.UserKeyStore}.
+ */
+@Entity
+@Table(name = "user_key", uniqueConstraints = @UniqueConstraint(name = "ux_user_key_login", columnNames = "login"))
+public class UserKey implements Serializable {
+
+    public static final String SEQUENCE_NAME = "user_key_sequence";
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "userKeyGenerator")
+    @SequenceGenerator(name = "userKeyGenerator", sequenceName = SEQUENCE_NAME, allocationSize = 1)
+    private Integer id;
+
+    @NotNull
+    @Column(name = "login", length = 50, nullable = false)
+    private String login;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserKey)) {
+            return false;
+        }
+        return id != null && id.equals(((UserKey) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserKey{" +
+            "id=" + getId() +
+            ", login='" + getLogin() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,298 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.AuditQueueEntry;
+import dev.tphucnha.moneylogger.domain.SyncTombstone;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+/**
+ * Base class of the repositories writing audited entities with native statements, bypassing the persistence context.
+ * <p>
+ * Such statements must be synchronized on the tables they write so that Hibernate evicts the matching second level
+ * cache regions, and audit their changes themselves, as {@code application.audit.mode} requires: as Envers audit rows
+ * in the revision of the current transaction when the audit is synchronous, as entries of the audit queue when it is
+ * asynchronous, not at all when it is disabled. The columns of the audit rows are those Envers maps, see
+ * {@link AuditTable}.
+ */
+abstract class AbstractNativeWriteRepository {
+
+    protected static final String AUDIT_QUEUE_TABLE = "audit_queue";
+
+    /**
+     * The audited values of the audit queue, in the order of {@link #queueChanges}.
+     */
+    private static final List<String> QUEUE_COLUMNS = Arrays.asList(
+        "amount",
+        "details",
+        "date",
+        "category_id",
+        "previous_category_id",
+        "created_by",
+        "name"
+    );
+
+    protected final EntityManager em;
+
+    protected final DatabasePlatform databasePlatform;
+
+    private final ApplicationProperties.Audit.Mode auditMode;
+
+    private final Map<Class<?>, AuditTable> auditTables = new ConcurrentHashMap<>();
+
+    /**
+     * For the repositories writing no audited change, or writing audit rows whatever the audit mode.
+     */
+    protected AbstractNativeWriteRepository(EntityManager em, DatabasePlatform databasePlatform) {
+        this(em, databasePlatform, ApplicationProperties.Audit.Mode.SYNC);
+    }
+
+    protected AbstractNativeWriteRepository(
+        EntityManager em,
+        DatabasePlatform databasePlatform,
+        ApplicationProperties applicationProperties
+    ) {
+        this(em, databasePlatform, applicationProperties.getAudit().getMode());
+    }
+
+    private AbstractNativeWriteRepository(EntityManager em, DatabasePlatform databasePlatform, ApplicationProperties.Audit.Mode auditMode) {
+        this.em = em;
+        this.databasePlatform = databasePlatform;
+        this.auditMode = auditMode;
+    }
+
+    /**
+     * @return whether the changes are audited as Envers audit rows of the current revision, see {@link #currentRevision()}.
+     */
+    protected boolean auditInRevision() {
+        return auditMode == ApplicationProperties.Audit.Mode.SYNC;
+    }
+
+    /**
+     * @return whether the changes are audited as entries of the audit queue, see {@link #queueChanges}.
+     */
+    protected boolean auditInQueue() {
+        return auditMode == ApplicationProperties.Audit.Mode.ASYNC;
+    }
+
+    /**
+     * @return the Envers revision of the current transaction, created if needed.
+     */
+    protected int currentRevision() {
+        int revision = AuditReaderFactory.get(em).getCurrentRevision(DefaultRevisionEntity.class, true).getId();
+        // The revision must be written before the audit rows referencing it
+        em.flush();
+        return revision;
+    }
+
+    /**
+     * @param entityClass an audited entity.
+     * @return the audit table of the entity.
+     */
+    protected AuditTable auditTable(Class<?> entityClass) {
+        return auditTables.computeIfAbsent(entityClass, audited -> AuditTable.of(em.getEntityManagerFactory(), audited));
+    }
+
+    /**
+     * The statement writing the update audit rows, in the revision {@code :rev}, of the rows of an entity that are
+     * not changed but must be audited in the revision, such as the owning side of an association changed on the other
+     * side. Rows already audited in the revision are skipped.
+     *
+     * @param entityClass the audited entity.
+     * @param table       the table of the entity, aliased {@code alias} in the condition.
+     * @param alias       the alias of the table.
+     * @param condition   the condition the audited rows match.
+     * @return the statement.
+     */
+    protected String auditUnchangedRows(Class<?> entityClass, String table, String alias, String condition) {
+        AuditTable audit = auditTable(entityClass);
+        return (
+            audit.insertInto() +
+            "select " +
+            audit.select(alias, ":rev", 1, Collections.emptyMap()) +
+            " from " +
+            table +
+            " " +
+            alias +
+            " where (" +
+            condition +
+            ") and " +
+            audit.notAuditedIn(alias, ":rev")
+        );
+    }
+
+    /**
+     * The statement queueing the changes of entity rows in the audit queue, as {@code AuditCaptureIntegrator} queues
+     * those of the entities: they are written as audit rows later, by {@code AuditQueueService}. Its capture parameters
+     * are bound with {@link #newCapture()}.
+     *
+     * @param entityName   the name of the entity in the queue, see {@link AuditCaptureIntegrator}.
+     * @param alias        the alias of the entity rows, selected by the {@code from} clause which follows the statement.
+     * @param revisionType the revision type.
+     * @param expressions  the expressions of the queued values, by column: {@code amount}, {@code details}, {@code date},
+     *                     {@code category_id}, {@code previous_category_id} and {@code created_by} for a transaction,
+     *                     {@code name} for a category. The values without expression are {@code null}.
+     * @return the statement, up to its {@code from} clause.
+     */
+    protected String queueChanges(String entityName, String alias, int revisionType, Map<String, String> expressions) {
+        return (
+            "insert into " +
+            AUDIT_QUEUE_TABLE +
+            " (id, transaction_id, captured_date, capture_sequence, entity_name, entity_id, revision_type, " +
+            String.join(", ", QUEUE_COLUMNS) +
+            ") select " +
+            databasePlatform.nextValue(AuditQueueEntry.SEQUENCE_NAME) +
+            ", :captureId, :capturedDate, :captureSequence, '" +
+            entityName +
+            "', " +
+            alias +
+            ".id, " +
+            revisionType +
+            ", " +
+            QUEUE_COLUMNS.stream().map(column -> expressions.getOrDefault(column, "null")).collect(Collectors.joining(", ")) +
+            " "
+        );
+    }
+
+    /**
+     * The parameters of the {@link #queueChanges} statements of one write, whose entries become one revision. The capture
+     * sequence is taken once the owner of the changes is locked, see {@link ChangeSequenceGenerator#lockOwner(String)},
+     * so after those of the earlier transactions changing the same rows.
+     *
+     * @return the parameters, by name.
+     */
+    protected Map<String, Object> newCapture() {
+        String nextValue = "select " + databasePlatform.nextValue(SyncTombstone.CHANGE_SEQUENCE_NAME);
+        Map<String, Object> capture = new HashMap<>();
+        capture.put("captureId", UUID.randomUUID().toString());
+        capture.put("capturedDate", Instant.now());
+        capture.put("captureSequence", ((Number) em.createNativeQuery(nextValue).getSingleResult()).longValue());
+        return capture;
+    }
+
+    /**
+     * The values of an audit row, for the statements of {@link AuditTable#insertInto()}.
+     *
+     * @param entityClass  the audited entity.
+     * @param id           the id of the entity.
+     * @param revision     the revision.
+     * @param revisionType the revision type.
+     * @param row          the values of the entity row, by column, which must hold every audited column.
+     * @return the values of the audit row, in the order of {@link AuditTable#insertInto()}.
+     * @throws IllegalStateException if the value of an audited column is missing.
+     */
+    protected List<SqlParameterValue> auditRow(
+        Class<?> entityClass,
+        long id,
+        int revision,
+        int revisionType,
+        Map<String, SqlParameterValue> row
+    ) {
+        List<SqlParameterValue> values = new ArrayList<>();
+        values.add(new SqlParameterValue(Types.BIGINT, id));
+        values.add(new SqlParameterValue(Types.INTEGER, revision));
+        values.add(new SqlParameterValue(Types.TINYINT, revisionType));
+        auditTable(entityClass).values(row).forEach(value -> values.add((SqlParameterValue) value));
+        return values;
+    }
+
+    /**
+     * Bind the parameters of a JDBC statement, in order.
+     *
+     * @param statement the statement.
+     * @param values    the values of the parameters, with their SQL type.
+     * @throws SQLException if a value cannot be bound.
+     */
+    protected static void bind(PreparedStatement statement, Collection<SqlParameterValue> values) throws SQLException {
+        int index = 1;
+        for (SqlParameterValue value : values) {
+            StatementCreatorUtils.setParameterValue(statement, index++, value, value.getValue());
+        }
+    }
+
+    /**
+     * Evict the second level cache regions of the tables written by a native statement read as a query, such as an
+     * {@code update ... returning}, as Hibernate does for the statements executed as updates, see {@link #query}.
+     *
+     * @param querySpaces the tables written by the statement.
+     */
+    protected void evictCacheRegions(String... querySpaces) {
+        EventSource session = em.unwrap(EventSource.class);
+        session.getActionQueue().addAction(new BulkOperationCleanupAction(session, new HashSet<>(Arrays.asList(querySpaces))));
+    }
+
+    /**
+     * Keep the persistence context in step with a row written by a native statement: an instance of the entity already
+     * loaded in the current session is refreshed, or detached when its row was deleted.
+     *
+     * @param entityClass the class of the written entity.
+     * @param id          the id of the written entity.
+     * @param deleted     whether the row was deleted.
+     */
+    protected void refreshPersistenceContext(Class<?> entityClass, Serializable id, boolean deleted) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityClass);
+        Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+        if (managed == null) {
+            return;
+        }
+        if (deleted) {
+            em.detach(managed);
+        } else {
+            em.refresh(managed);
+        }
+    }
+
+    /**
+     * Create a native statement, with the parameters of the {@code where} clause bound.
+     *
+     * @param sql        the statement.
+     * @param where      the {@code where} clause used in the statement.
+     * @param querySpace the table written by the statement, or {@code null} when the caller synchronizes it on an entity.
+     * @return the statement.
+     */
+    @SuppressWarnings("unchecked")
+    protected NativeQuery<?> query(String sql, SqlWhereBuilder where, String querySpace) {
+        NativeQuery<?> query = em.createNativeQuery(sql).unwrap(NativeQuery.class);
+        if (querySpace != null) {
+            // Without query space, Hibernate would evict all the second level cache regions
+            query.addSynchronizedQuerySpace(querySpace);
+        }
+        where
+            .getParameterValues()
+            .forEach(
+                (name, value) -> {
+                    if (value instanceof Collection) {
+                        query.setParameterList(name, (Collection<?>) value);
+                    } else {
+                        query.setParameter(name, value);
+                    }
+                }
+            );
+        return query;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.ArchiveSegment;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the ArchiveSegment entity.
+ */
+@Repository
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+    Optional<ArchiveSegment> findByCreatedByAndYear(String createdBy, Integer year);
+
+    /**
+     * @return the segments of a user holding dates between {@code from} and {@code to}, by year.
+     */
+    @Query(
+        "select s from ArchiveSegment s where s.createdBy = :username and s.lastDate >= :from and s.firstDate <= :to order by s.year"
+    )
+    List<ArchiveSegment> findOverlapping(@Param("username") String username, @Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select sum(s.totalAmount) from ArchiveSegment s where s.createdBy = :username")
+    BigDecimal getTotalAmountByUser(@Param("username") String username);
+}
@@ -0,0 +1,92 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.MinorUnits;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A transaction moved out of the database to a {@link TransactionSegmentFile}, with the fields it is queried on.
+ * <p>
+ * The amount is held in {@link MinorUnits}, unless it does not fit in them.
+ */
+public final class ArchivedTransaction {
+
+    private final long id;
+
+    private final long amountMinorUnits;
+
+    /**
+     * The amount, only when it does not fit in {@link #amountMinorUnits}.
+     */
+    private final BigDecimal decimalAmount;
+
+    private final String details;
+
+    private final Instant date;
+
+    private final Long categoryId;
+
+    public ArchivedTransaction(long id, BigDecimal amount, String details, Instant date, Long categoryId) {
+        this.id = id;
+        boolean fits = MinorUnits.fits(amount);
+        this.amountMinorUnits = fits ? MinorUnits.of(amount) : 0;
+        this.decimalAmount = fits ? null : amount;
+        this.details = details;
+        this.date = date;
+        this.categoryId = categoryId;
+    }
+
+    public ArchivedTransaction(long id, long amountMinorUnits, String details, Instant date, Long categoryId) {
+        this.id = id;
+        this.amountMinorUnits = amountMinorUnits;
+        this.decimalAmount = null;
+        this.details = details;
+        this.date = date;
+        this.categoryId = categoryId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public BigDecimal getAmount() {
+        return decimalAmount != null ? decimalAmount : MinorUnits.toBigDecimal(amountMinorUnits);
+    }
+
+    /**
+     * @return whether the amount is held in minor units, see {@link #getAmountMinorUnits()}.
+     */
+    public boolean hasAmountMinorUnits() {
+        return decimalAmount == null;
+    }
+
+    /**
+     * @return the amount in minor units, only meaningful if {@link #hasAmountMinorUnits()}.
+     */
+    public long getAmountMinorUnits() {
+        return amountMinorUnits;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ArchivedTransaction{" +
+            "id=" + getId() +
+            ", amount=" + getAmount() +
+            ", date='" + getDate() + "'" +
+            ", categoryId=" + getCategoryId() +
+            "}";
+    }
+}
@@ -0,0 +1,209 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.AuditQueueEntry;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.SyncTombstone;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Hibernate integrator of the asynchronous audit, registered instead of the Envers listeners when
+ * {@code application.audit.mode} is {@code async}.
+ * <p>
+ * The inserts, updates and deletes of {@link Transaction}s and {@link Category}s are captured as they are flushed,
+ * and merged per entity as Envers merges them: the first change gives the revision type, the last one the state, and
+ * an entity inserted then deleted leaves nothing. Just before the database transaction commits, its changes are
+ * persisted as {@link AuditQueueEntry}s, which share one narrow table instead of the revision and audit tables, with
+ * a capture sequence ordering the database transactions changing the same entities. They
+ * are committed or rolled back with the changes, and written as audit rows later by
+ * {@code AuditQueueService}. The native write paths, which bypass these listeners, queue their changes themselves, see
+ * {@link AbstractNativeWriteRepository}.
+ */
+public class AuditCaptureIntegrator implements Integrator {
+
+    public static final String TRANSACTION = "transaction";
+
+    public static final String CATEGORY = "category";
+
+    static final int ADD = 0;
+
+    static final int MOD = 1;
+
+    static final int DEL = 2;
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        AuditCaptureListener listener = new AuditCaptureListener();
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        // Nothing to release
+    }
+
+    static class AuditCaptureListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Map<org.hibernate.Transaction, Capture> captures = new ConcurrentHashMap<>();
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            AuditQueueEntry entry = entry(event.getEntity(), event.getId(), ADD);
+            if (entry != null) {
+                capture(event.getSession(), entry);
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            AuditQueueEntry entry = entry(event.getEntity(), event.getId(), MOD);
+            if (entry != null) {
+                entry.setPreviousCategoryId(categoryId(event.getPersister(), event.getOldState(), entry.getCategoryId()));
+                capture(event.getSession(), entry);
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            AuditQueueEntry entry = entry(event.getEntity(), event.getId(), DEL);
+            if (entry != null) {
+                entry.setPreviousCategoryId(categoryId(event.getPersister(), event.getDeletedState(), entry.getCategoryId()));
+                // As with Envers, the audit row of a delete holds no data but its owner
+                entry.setAmount(null);
+                entry.setDetails(null);
+                entry.setDate(null);
+                entry.setCategoryId(null);
+                entry.setName(null);
+                capture(event.getSession(), entry);
+            }
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+
+        private void capture(EventSource session, AuditQueueEntry entry) {
+            org.hibernate.Transaction transaction = session.accessTransaction();
+            captures
+                .computeIfAbsent(
+                    transaction,
+                    key -> {
+                        Capture capture = new Capture();
+                        session.getActionQueue().registerProcess(capture);
+                        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> captures.remove(key));
+                        return capture;
+                    }
+                )
+                .add(entry);
+        }
+
+        private static AuditQueueEntry entry(Object entity, Serializable id, int revisionType) {
+            AuditQueueEntry entry = new AuditQueueEntry();
+            if (entity instanceof Transaction) {
+                Transaction transaction = (Transaction) entity;
+                entry.setEntityName(TRANSACTION);
+                entry.setAmount(transaction.getAmount());
+                entry.setDetails(transaction.getDetails());
+                entry.setDate(transaction.getDate());
+                entry.setCategoryId(transaction.getCategory() != null ? transaction.getCategory().getId() : null);
+                entry.setCreatedBy(transaction.getCreatedBy());
+            } else if (entity instanceof Category) {
+                entry.setEntityName(CATEGORY);
+                entry.setName(((Category) entity).getName());
+            } else {
+                return null;
+            }
+            entry.setEntityId((Long) id);
+            entry.setRevisionType(revisionType);
+            return entry;
+        }
+
+        /**
+         * @return the category of a transaction in a state loaded from the database, or the default when unknown.
+         */
+        private static Long categoryId(EntityPersister persister, Object[] state, Long defaultCategoryId) {
+            if (state == null || !(persister.getMappedClass() == Transaction.class)) {
+                return defaultCategoryId;
+            }
+            Object category = state[persister.getEntityMetamodel().getPropertyIndex("category")];
+            return category != null ? ((Category) category).getId() : null;
+        }
+    }
+
+    /**
+     * The changes of one database transaction, persisted as queue entries before it commits.
+     */
+    static class Capture implements BeforeTransactionCompletionProcess {
+
+        private final Map<String, AuditQueueEntry> entries = new LinkedHashMap<>();
+
+        void add(AuditQueueEntry entry) {
+            String key = entry.getEntityName() + ':' + entry.getEntityId();
+            AuditQueueEntry previous = entries.get(key);
+            if (previous == null) {
+                entries.put(key, entry);
+                return;
+            }
+            if (previous.getRevisionType() == ADD && entry.getRevisionType() == DEL) {
+                entries.remove(key);
+                return;
+            }
+            if (previous.getRevisionType() == ADD) {
+                entry.setRevisionType(ADD);
+            } else if (previous.getRevisionType() == DEL && entry.getRevisionType() == ADD) {
+                entry.setRevisionType(MOD);
+            }
+            // The category before the database transaction is the one of its first change
+            entry.setPreviousCategoryId(previous.getPreviousCategoryId());
+            entries.put(key, entry);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (entries.isEmpty()) {
+                return;
+            }
+            String transactionId = UUID.randomUUID().toString();
+            Instant now = Instant.now();
+            // Taken after the changes were flushed, while their rows are locked
+            String nextValue = session.getJdbcServices().getDialect().getSequenceNextValString(SyncTombstone.CHANGE_SEQUENCE_NAME);
+            long captureSequence = ((Number) session.createNativeQuery(nextValue).getSingleResult()).longValue();
+            for (AuditQueueEntry entry : entries.values()) {
+                entry.setTransactionId(transactionId);
+                entry.setCapturedDate(now);
+                entry.setCaptureSequence(captureSequence);
+                session.persist(entry);
+            }
+            // The final flush of the transaction has already run
+            session.flush();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.AuditQueueEntry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the AuditQueueEntry entity.
+ */
+@Repository
+public interface AuditQueueEntryRepository extends JpaRepository<AuditQueueEntry, Long> {
+    /**
+     * Lock the first entries in capture order not locked by another transaction, see
+     * {@link OutboxEventRepository#findNextForUpdate}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select e from AuditQueueEntry e order by coalesce(e.captureSequence, 0), e.id")
+    List<AuditQueueEntry> findNextForUpdate(Pageable pageable);
+
+    @Query("select min(e.capturedDate) from AuditQueueEntry e")
+    Optional<Instant> findOldestCapturedDate();
+}
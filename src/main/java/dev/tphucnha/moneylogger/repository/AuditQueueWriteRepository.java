@@ -0,0 +1,139 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.AuditQueueEntry;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository writing the Envers audit rows of {@link AuditQueueEntry}s, captured when the audit is asynchronous.
+ * <p>
+ * The entries of a database transaction become one revision, timestamped when they were captured, holding the rows
+ * Envers would have written: one per changed transaction or category, and one for every category whose transactions
+ * changed. The rows are written with JDBC batches on the connection of the current transaction, so must be written
+ * in a transaction.
+ */
+@Repository
+public class AuditQueueWriteRepository extends AbstractNativeWriteRepository {
+
+    public AuditQueueWriteRepository(EntityManager em, DatabasePlatform databasePlatform) {
+        super(em, databasePlatform);
+    }
+
+    /**
+     * Write the audit rows of queue entries.
+     *
+     * @param entries the entries, in the order they were captured.
+     */
+    public void write(List<AuditQueueEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> revisions = new HashMap<>();
+        for (AuditQueueEntry entry : entries) {
+            revisions.computeIfAbsent(entry.getTransactionId(), transactionId -> newRevision(entry.getCapturedDate()));
+        }
+        // The revisions must be written before the audit rows referencing them
+        em.flush();
+
+        em.unwrap(Session.class).doWork(connection -> writeAuditRows(connection, entries, revisions));
+    }
+
+    private int newRevision(Instant capturedDate) {
+        DefaultRevisionEntity revision = new DefaultRevisionEntity();
+        revision.setTimestamp(capturedDate.toEpochMilli());
+        em.persist(revision);
+        return revision.getId();
+    }
+
+    private void writeAuditRows(Connection connection, List<AuditQueueEntry> entries, Map<String, Integer> revisions)
+        throws SQLException {
+        // The revisions of the categories whose transactions changed, per revision
+        Map<Integer, Set<Long>> touchedCategories = new LinkedHashMap<>();
+        AuditTable transactionAudit = auditTable(Transaction.class);
+        AuditTable categoryAudit = auditTable(Category.class);
+        try (
+            PreparedStatement transactionInsert = connection.prepareStatement(
+                transactionAudit.insertInto() + transactionAudit.valuesParameters()
+            );
+            PreparedStatement categoryInsert = connection.prepareStatement(categoryAudit.insertInto() + categoryAudit.valuesParameters())
+        ) {
+            for (AuditQueueEntry entry : entries) {
+                int revision = revisions.get(entry.getTransactionId());
+                if (AuditCaptureIntegrator.TRANSACTION.equals(entry.getEntityName())) {
+                    Map<String, SqlParameterValue> row = new HashMap<>();
+                    row.put("amount", new SqlParameterValue(Types.NUMERIC, entry.getAmount()));
+                    row.put("details", new SqlParameterValue(Types.VARCHAR, entry.getDetails()));
+                    row.put("date", new SqlParameterValue(Types.TIMESTAMP, toTimestamp(entry.getDate())));
+                    row.put("category_id", new SqlParameterValue(Types.BIGINT, entry.getCategoryId()));
+                    row.put("created_by", new SqlParameterValue(Types.VARCHAR, entry.getCreatedBy()));
+                    bind(transactionInsert, auditRow(Transaction.class, entry.getEntityId(), revision, entry.getRevisionType(), row));
+                    transactionInsert.addBatch();
+                    if (!Objects.equals(entry.getCategoryId(), entry.getPreviousCategoryId())) {
+                        Set<Long> categoryIds = touchedCategories.computeIfAbsent(revision, key -> new LinkedHashSet<>());
+                        if (entry.getCategoryId() != null) {
+                            categoryIds.add(entry.getCategoryId());
+                        }
+                        if (entry.getPreviousCategoryId() != null) {
+                            categoryIds.add(entry.getPreviousCategoryId());
+                        }
+                    }
+                } else {
+                    Map<String, SqlParameterValue> row = new HashMap<>();
+                    row.put("name", new SqlParameterValue(Types.VARCHAR, entry.getName()));
+                    bind(categoryInsert, auditRow(Category.class, entry.getEntityId(), revision, entry.getRevisionType(), row));
+                    categoryInsert.addBatch();
+                }
+            }
+            transactionInsert.executeBatch();
+            categoryInsert.executeBatch();
+        }
+        if (touchedCategories.isEmpty()) {
+            return;
+        }
+        // Categories changed themselves in the revision already have their row, and deleted ones get none
+        try (
+            PreparedStatement insert = connection.prepareStatement(
+                categoryAudit.insertInto() +
+                "select " +
+                categoryAudit.select("c", "?", 1, Collections.emptyMap()) +
+                " from category c where c.id = ? and " +
+                categoryAudit.notAuditedIn("c", "?")
+            )
+        ) {
+            for (Map.Entry<Integer, Set<Long>> touched : touchedCategories.entrySet()) {
+                for (Long categoryId : touched.getValue()) {
+                    insert.setInt(1, touched.getKey());
+                    insert.setLong(2, categoryId);
+                    insert.setInt(3, touched.getKey());
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return instant == null ? null : Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+}
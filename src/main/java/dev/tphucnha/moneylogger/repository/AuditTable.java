@@ -0,0 +1,205 @@
+package dev.tphucnha.moneylogger.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.envers.boot.internal.EnversService;
+import org.hibernate.envers.configuration.internal.AuditEntitiesConfiguration;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+/**
+ * The columns of the Envers audit table of an entity, read from the mapping Envers generates for it, so that the
+ * native writers of audit rows write every audited column: a column added to the entity and audited is written without
+ * changing the writers.
+ * <p>
+ * Writers copying the audited columns from the row of the entity use {@link #select}. Writers binding the values of
+ * each row use {@link #values}, which fails when a value of an audited column is missing.
+ */
+public final class AuditTable {
+
+    private final String name;
+
+    private final String idColumn;
+
+    private final String revisionColumn;
+
+    private final String revisionTypeColumn;
+
+    private final List<String> columns;
+
+    private AuditTable(String name, String idColumn, String revisionColumn, String revisionTypeColumn, List<String> columns) {
+        this.name = name;
+        this.idColumn = idColumn;
+        this.revisionColumn = revisionColumn;
+        this.revisionTypeColumn = revisionTypeColumn;
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Read the audit table of an entity from the Envers metadata.
+     *
+     * @param entityManagerFactory the entity manager factory.
+     * @param entityClass          the audited entity.
+     * @return the audit table.
+     */
+    static AuditTable of(EntityManagerFactory entityManagerFactory, Class<?> entityClass) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        AuditEntitiesConfiguration configuration = sessionFactory
+            .getServiceRegistry()
+            .getService(EnversService.class)
+            .getAuditEntitiesConfiguration();
+        AbstractEntityPersister entity = (AbstractEntityPersister) sessionFactory.getMetamodel().entityPersister(entityClass);
+        String idColumn = entity.getIdentifierColumnNames()[0];
+        AbstractEntityPersister audit = (AbstractEntityPersister) sessionFactory
+            .getMetamodel()
+            .entityPersister(configuration.getAuditEntityName(entityClass.getName()));
+
+        // The identifier of the audit rows is the id of the entity and the revision
+        String revisionColumn = Arrays
+            .stream(audit.getIdentifierColumnNames())
+            .filter(column -> !column.equals(idColumn))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No revision column in " + audit.getTableName()));
+        String revisionTypeColumn = null;
+        List<String> columns = new ArrayList<>();
+        String[] propertyNames = audit.getPropertyNames();
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyNames[i].equals(configuration.getRevisionTypePropName())) {
+                revisionTypeColumn = audit.getPropertyColumnNames(i)[0];
+            } else {
+                columns.addAll(Arrays.asList(audit.getPropertyColumnNames(i)));
+            }
+        }
+        if (revisionTypeColumn == null) {
+            throw new IllegalStateException("No revision type column in " + audit.getTableName());
+        }
+        return new AuditTable(audit.getTableName(), idColumn, revisionColumn, revisionTypeColumn, columns);
+    }
+
+    /**
+     * @return the name of the audit table.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the audited columns, without the id, the revision and the revision type.
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the statement inserting audit rows, up to the list of its columns: the id, the revision, the revision
+     * type, then the audited columns.
+     */
+    public String insertInto() {
+        return "insert into " + name + " (" + columnList() + ") ";
+    }
+
+    /**
+     * @return the list of the columns of the audit rows, in the order of {@link #insertInto()}.
+     */
+    public String columnList() {
+        return Stream.concat(Stream.of(idColumn, revisionColumn, revisionTypeColumn), columns.stream()).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * @return the {@code values} clause of {@link #insertInto()}, with one parameter per column.
+     */
+    public String valuesParameters() {
+        return "values (" + String.join(", ", Collections.nCopies(columns.size() + 3, "?")) + ")";
+    }
+
+    /**
+     * The {@code select} list of the audit rows of the entity rows selected under an alias.
+     *
+     * @param alias        the alias of the table of the entity, whose columns are copied.
+     * @param revision     the expression of the revision.
+     * @param revisionType the revision type.
+     * @param expressions  the expressions replacing the copied columns, by column.
+     * @return the {@code select} list, in the order of {@link #insertInto()}.
+     */
+    public String select(String alias, String revision, int revisionType, Map<String, String> expressions) {
+        return Stream
+            .concat(
+                Stream.of(alias + "." + idColumn, revision, String.valueOf(revisionType)),
+                columns.stream().map(column -> expressions.getOrDefault(column, alias + "." + column))
+            )
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * The {@code select} list of the delete audit rows of the entity rows selected under an alias: as those Envers
+     * writes, without the values of the audited columns but those kept.
+     *
+     * @param alias    the alias of the table of the entity.
+     * @param revision the expression of the revision.
+     * @param kept     the audited columns whose value is kept.
+     * @return the {@code select} list, in the order of {@link #insertInto()}.
+     */
+    public String selectDeleted(String alias, String revision, Collection<String> kept) {
+        Map<String, String> expressions = new HashMap<>();
+        columns.stream().filter(column -> !kept.contains(column)).forEach(column -> expressions.put(column, "null"));
+        return select(alias, revision, 2, expressions);
+    }
+
+    /**
+     * @param alias    the alias of the table of the entity.
+     * @param revision the expression of the revision.
+     * @return the condition that the entity row has no audit row in the revision yet.
+     */
+    public String notAuditedIn(String alias, String revision) {
+        return (
+            "not exists (select 1 from " +
+            name +
+            " a where a." +
+            idColumn +
+            " = " +
+            alias +
+            "." +
+            idColumn +
+            " and a." +
+            revisionColumn +
+            " = " +
+            revision +
+            ")"
+        );
+    }
+
+    /**
+     * @param id       the expression of the id of the entity.
+     * @param revision the expression of the revision.
+     * @return the statement deleting the audit row of the entity in the revision.
+     */
+    public String deleteRow(String id, String revision) {
+        return "delete from " + name + " where " + idColumn + " = " + id + " and " + revisionColumn + " = " + revision;
+    }
+
+    /**
+     * The values of the audited columns, in the order of {@link #insertInto()}.
+     *
+     * @param row the values of the entity row, by column, which must hold every audited column.
+     * @return the values.
+     * @throws IllegalStateException if the value of an audited column is missing.
+     */
+    public List<Object> values(Map<String, ?> row) {
+        List<Object> values = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            if (!row.containsKey(column)) {
+                throw new IllegalStateException("The audited column " + column + " of " + name + " is not written");
+            }
+            values.add(row.get(column));
+        }
+        return values;
+    }
+}
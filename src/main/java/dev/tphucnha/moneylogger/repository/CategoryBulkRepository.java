@@ -0,0 +1,184 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.Category;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StringType;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository writing the {@link Category} entity with native statements, guarded by the owner, so that writes need
+ * no prior read.
+ * <p>
+ * As in {@link TransactionBulkRepository}, the statements are synchronized on the {@code category} table, and audit
+ * their changes as {@code application.audit.mode} requires. Must be called in a transaction.
+ * <p>
+ * The name key of {@link Category#nameKey(String)} is written along with the name, and its unique constraint decides
+ * between concurrent creations of the same name.
+ */
+@Repository
+public class CategoryBulkRepository extends AbstractNativeWriteRepository {
+
+    private final UserKeyStore userKeyStore;
+
+    public CategoryBulkRepository(
+        EntityManager em,
+        DatabasePlatform databasePlatform,
+        ApplicationProperties applicationProperties,
+        UserKeyStore userKeyStore
+    ) {
+        super(em, databasePlatform, applicationProperties);
+        this.userKeyStore = userKeyStore;
+    }
+
+    /**
+     * Update one category of the given owner, in one statement, without loading it.
+     *
+     * @param id             the id of the category.
+     * @param owner          the login of the user making the change, who must own the category.
+     * @param name           the new name of the category.
+     * @param partial        whether a {@code null} name leaves the column unchanged, as for a merge patch.
+     * @param version        the version the category must have, or {@code null} to update it whatever its version.
+     * @param changeSequence the change sequence of the update.
+     * @return the number of updated categories: 0 when the category is not found, belongs to another user, or has
+     * another version.
+     */
+    public int update(Long id, String owner, String name, boolean partial, Long version, long changeSequence) {
+        SqlWhereBuilder where = new SqlWhereBuilder().equal("c.id", id).equal("c.owner_id", userKeyStore.find(owner));
+        if (version != null) {
+            where.equal("c.version", version);
+        }
+        TypedParameterValue nameValue = new TypedParameterValue(StringType.INSTANCE, name);
+        // A partial update leaves the name columns out when it does not change them
+        boolean writeName = !partial || name != null;
+
+        // The audit row has the written name, and the values of the row for the other audited columns
+        Map<String, String> written = writeName ? Collections.singletonMap("name", ":name") : Collections.emptyMap();
+        NativeQuery<?> audit = null;
+        if (auditInRevision()) {
+            AuditTable categoryAudit = auditTable(Category.class);
+            audit =
+                query(
+                    categoryAudit.insertInto() +
+                    "select " +
+                    categoryAudit.select("c", ":rev", 1, written) +
+                    " from category c where " +
+                    where.toSql(),
+                    where,
+                    categoryAudit.getName()
+                )
+                    .setParameter("rev", currentRevision());
+        } else if (auditInQueue()) {
+            Map<String, String> queued = Collections.singletonMap("name", written.getOrDefault("name", "c.name"));
+            audit =
+                query(
+                    queueChanges(AuditCaptureIntegrator.CATEGORY, "c", 1, queued) +
+                    "from category c where " +
+                    where.toSql(),
+                    where,
+                    AUDIT_QUEUE_TABLE
+                );
+            newCapture().forEach(audit::setParameter);
+        }
+        if (audit != null) {
+            if (writeName) {
+                audit.setParameter("name", nameValue);
+            }
+            audit.executeUpdate();
+        }
+
+        NativeQuery<?> update = query(
+            "update category c set " +
+            (writeName ? "name = :name, name_key = :nameKey, " : "") +
+            "version = c.version + 1, change_sequence = :changeSequence, last_modified_by = :owner, last_modified_date = :now where " +
+            where.toSql(),
+            where,
+            null
+        )
+            .addSynchronizedEntityClass(Category.class)
+            .setParameter("changeSequence", changeSequence)
+            .setParameter("owner", owner)
+            .setParameter("now", Instant.now());
+        if (writeName) {
+            update.setParameter("name", nameValue).setParameter("nameKey", Category.nameKey(name));
+        }
+        int updated = update.executeUpdate();
+        if (updated > 0) {
+            refreshPersistenceContext(Category.class, id, false);
+        }
+        return updated;
+    }
+
+    /**
+     * Create a category of the given owner, unless the owner already has a category of that name, whatever its case.
+     * <p>
+     * The row is inserted only if no committed category has the name key. A category of that name being created by a
+     * concurrent transaction is left to the unique constraint: on PostgreSQL, the insert waits for the other transaction
+     * and does nothing if it commits; on other databases, it fails with a constraint violation.
+     *
+     * @param owner          the login of the user creating the category.
+     * @param name           the name of the category.
+     * @param changeSequence the change sequence of the creation.
+     * @return the id of the created category, or empty if the owner already has a category of that name.
+     */
+    public Optional<Long> insertIfAbsent(String owner, String name, long changeSequence) {
+        // Hibernate allocates the ids up to each value of the pooled sequence it reads, so a value read here is never one of them
+        String nextId = "select " + databasePlatform.nextValue("sequence_generator");
+        Long id = ((Number) em.createNativeQuery(nextId).getSingleResult()).longValue();
+        Instant now = Instant.now();
+
+        int inserted = query(
+            "insert into category (id, name, name_key, created_by, owner_id, created_date, last_modified_by, last_modified_date, " +
+            "change_sequence, version) select :id, :name, :nameKey, :owner, :ownerKey, :now, :owner, :now, :changeSequence, 0 " +
+            "where not exists (select 1 from category c where c.owner_id = :ownerKey and c.name_key = :nameKey)" +
+            (databasePlatform.isPostgreSQL() ? " on conflict (owner_id, name_key) do nothing" : ""),
+            new SqlWhereBuilder(),
+            null
+        )
+            .addSynchronizedEntityClass(Category.class)
+            .setParameter("id", id)
+            .setParameter("name", name)
+            .setParameter("nameKey", Category.nameKey(name))
+            .setParameter("owner", owner)
+            .setParameter("ownerKey", userKeyStore.getOrCreate(owner))
+            .setParameter("now", now)
+            .setParameter("changeSequence", changeSequence)
+            .executeUpdate();
+        if (inserted == 0) {
+            return Optional.empty();
+        }
+
+        // The creation audit row copies the inserted row
+        if (auditInRevision()) {
+            AuditTable categoryAudit = auditTable(Category.class);
+            query(
+                categoryAudit.insertInto() +
+                "select " +
+                categoryAudit.select("c", ":rev", 0, Collections.emptyMap()) +
+                " from category c where c.id = :id",
+                new SqlWhereBuilder(),
+                categoryAudit.getName()
+            )
+                .setParameter("id", id)
+                .setParameter("rev", currentRevision())
+                .executeUpdate();
+        } else if (auditInQueue()) {
+            NativeQuery<?> queue = query(
+                queueChanges(AuditCaptureIntegrator.CATEGORY, "c", 0, Collections.singletonMap("name", "c.name")) +
+                "from category c where c.id = :id",
+                new SqlWhereBuilder(),
+                AUDIT_QUEUE_TABLE
+            )
+                .setParameter("id", id);
+            newCapture().forEach(queue::setParameter);
+            queue.executeUpdate();
+        }
+        return Optional.of(id);
+    }
+}
@@ -1,12 +1,45 @@
 package dev.tphucnha.moneylogger.repository;
 
 import dev.tphucnha.moneylogger.domain.Category;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data SQL repository for the Category entity.
+ * <p>
+ * As for {@link TransactionRepository}, the categories of a user are found through the
+ * {@link dev.tphucnha.moneylogger.domain.UserKey} of the login, so that the queries use the {@code owner_id} indexes.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long>, JpaSpecificationExecutor<Category> {}
+public interface CategoryRepository extends JpaRepository<Category, Long>, JpaSpecificationExecutor<Category> {
+    String OWNED_BY = "c.ownerId = (select k.id from UserKey k where k.login = :owner)";
+
+    @Query("select count(c) from Category c where " + OWNED_BY)
+    long countByOwner(@Param("owner") String owner);
+
+    @Query("select c.createdBy from Category c where c.id = :id")
+    Optional<String> findCreatedByById(@Param("id") Long id);
+
+    @Query("select c.id from Category c where c.id in :ids and " + OWNED_BY)
+    Set<Long> findIdsByIdInAndOwner(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Query("select c from Category c where " + OWNED_BY + " and c.nameKey in :nameKeys")
+    List<Category> findByOwnerAndNameKeyIn(@Param("owner") String owner, @Param("nameKeys") Collection<String> nameKeys);
+
+    @Query("select c.id from Category c where " + OWNED_BY + " and c.nameKey = :nameKey")
+    Optional<Long> findIdByOwnerAndNameKey(@Param("owner") String owner, @Param("nameKey") String nameKey);
+
+    @Query("select c from Category c where " + OWNED_BY + " and c.changeSequence > :changeSequence order by c.changeSequence asc")
+    List<Category> findByOwnerAndChangeSequenceGreaterThanOrderByChangeSequenceAsc(
+        @Param("owner") String owner,
+        @Param("changeSequence") Long changeSequence,
+        Pageable pageable
+    );
+}
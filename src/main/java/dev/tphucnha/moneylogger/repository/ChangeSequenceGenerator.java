@@ -0,0 +1,146 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.SyncTombstone;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Allocates values from the {@code change_sequence_generator} database sequence.
+ * <p>
+ * The sequence is shared by all the synchronized entities and by the {@link SyncTombstone}s, so that every change
+ * of a user gets a distinct, increasing value. Values are fetched on the connection of the current transaction.
+ * <p>
+ * Values are allocated before the transaction commits, so a transaction may commit a smaller value after another one
+ * committed a greater value, and a client which synchronized in between would skip it. Values are therefore only
+ * allocated for an owner once the {@code user_key} row of the owner is locked, until the end of the transaction: the
+ * changes of a user commit in the order of their change sequences, and a client reading them from one snapshot never
+ * sees a value before a smaller one is committed. Writes of another user are not blocked.
+ * <p>
+ * Batch writes {@link #reserve} the values they need in a single round trip; the values are then handed out by
+ * {@link #next} until the end of the transaction.
+ */
+@Repository
+public class ChangeSequenceGenerator {
+
+    private final DataSource dataSource;
+
+    private final DatabasePlatform databasePlatform;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final UserKeyStore userKeyStore;
+
+    private volatile DataFieldMaxValueIncrementer incrementer;
+
+    public ChangeSequenceGenerator(DataSource dataSource, DatabasePlatform databasePlatform, UserKeyStore userKeyStore) {
+        this.dataSource = dataSource;
+        this.databasePlatform = databasePlatform;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.userKeyStore = userKeyStore;
+    }
+
+    /**
+     * @param owner the login of the user owning the change.
+     * @return a new change sequence for a change of the owner.
+     */
+    public long next(String owner) {
+        lockOwner(owner);
+        State state = state();
+        if (state != null && !state.reserved.isEmpty()) {
+            return state.reserved.poll();
+        }
+        return incrementer().nextLongValue();
+    }
+
+    /**
+     * Fetch values from the sequence in one query, to be returned by {@link #next} in the current transaction.
+     * Does nothing outside of a transaction.
+     *
+     * @param owner the login of the user owning the changes.
+     * @param count the number of values to fetch.
+     */
+    public void reserve(String owner, int count) {
+        if (count <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        lockOwner(owner);
+        String sql =
+            "select " +
+            databasePlatform.nextValue(SyncTombstone.CHANGE_SEQUENCE_NAME) +
+            (databasePlatform.isPostgreSQL() ? " from generate_series(1, ?)" : " from system_range(1, ?)");
+        state().reserved.addAll(jdbcTemplate.queryForList(sql, Long.class, count));
+    }
+
+    /**
+     * Lock the changes of an owner until the end of the current transaction, once per transaction. Must be called
+     * before any value is taken from the sequence for the owner, by the statements inlining the next value of the
+     * sequence too. Does nothing outside of a transaction.
+     *
+     * @param owner the login of the user owning the changes.
+     */
+    public void lockOwner(String owner) {
+        if (owner == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        State state = state();
+        if (state.lockedOwners.contains(owner)) {
+            return;
+        }
+        // "for no key update" does not block the foreign key checks of the rows referencing the key
+        jdbcTemplate.queryForList(
+            "select k.id from user_key k where k.id = ? for " + (databasePlatform.isPostgreSQL() ? "no key update" : "update"),
+            Integer.class,
+            userKeyStore.getOrCreate(owner)
+        );
+        state.lockedOwners.add(owner);
+    }
+
+    private State state() {
+        State state = (State) TransactionSynchronizationManager.getResource(this);
+        if (state == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            state = new State();
+            TransactionSynchronizationManager.bindResource(this, state);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(ChangeSequenceGenerator.this);
+                    }
+                }
+            );
+        }
+        return state;
+    }
+
+    private DataFieldMaxValueIncrementer incrementer() {
+        DataFieldMaxValueIncrementer result = incrementer;
+        if (result == null) {
+            result =
+                databasePlatform.isPostgreSQL()
+                    ? new PostgresSequenceMaxValueIncrementer(dataSource, SyncTombstone.CHANGE_SEQUENCE_NAME)
+                    : new H2SequenceMaxValueIncrementer(dataSource, SyncTombstone.CHANGE_SEQUENCE_NAME);
+            incrementer = result;
+        }
+        return result;
+    }
+
+    /**
+     * What is kept for the current transaction.
+     */
+    private static final class State {
+
+        private final Deque<Long> reserved = new ArrayDeque<>();
+
+        private final Set<String> lockedOwners = new HashSet<>();
+    }
+}
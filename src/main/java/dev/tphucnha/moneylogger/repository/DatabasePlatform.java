@@ -0,0 +1,47 @@
+package dev.tphucnha.moneylogger.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Detects the database the application runs on, for the few code paths using database specific SQL.
+ * PostgreSQL is used in production, H2 in development and tests.
+ */
+@Component
+public class DatabasePlatform {
+
+    private final DataSource dataSource;
+
+    private volatile Boolean postgreSQL;
+
+    public DatabasePlatform(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public boolean isPostgreSQL() {
+        Boolean result = postgreSQL;
+        if (result == null) {
+            result = "PostgreSQL".equals(getDatabaseProductName());
+            postgreSQL = result;
+        }
+        return result;
+    }
+
+    /**
+     * @param sequenceName the name of a sequence.
+     * @return the SQL expression returning the next value of the sequence, once per row.
+     */
+    public String nextValue(String sequenceName) {
+        return isPostgreSQL() ? "nextval('" + sequenceName + "')" : "next value for " + sequenceName;
+    }
+
+    private String getDatabaseProductName() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to detect the database type", e);
+        }
+    }
+}
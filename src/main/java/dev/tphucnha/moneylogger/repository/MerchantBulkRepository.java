@@ -0,0 +1,99 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.Merchant;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository writing the {@link Merchant} dictionary, and the merchant of the {@link Transaction}s written before it,
+ * with native statements. Must be called in a transaction.
+ * <p>
+ * Merchants are not audited, and the merchant of a transaction is not part of its history: the backfill writes no
+ * audit row, and does not change the version nor the change sequence of the transactions. It is synchronized on the
+ * {@code transaction} table, so that Hibernate evicts the cached transactions.
+ */
+@Repository
+public class MerchantBulkRepository extends AbstractNativeWriteRepository {
+
+    public MerchantBulkRepository(EntityManager em, DatabasePlatform databasePlatform) {
+        super(em, databasePlatform);
+    }
+
+    /**
+     * Create a merchant of the given owner, unless the owner already has a merchant of that key. As for
+     * {@link CategoryBulkRepository#insertIfAbsent(String, String, long)}, a concurrent creation of the same key is left
+     * to the unique constraint.
+     *
+     * @param owner   the login of the user.
+     * @param name    the details the merchant is created from.
+     * @param nameKey the key of the merchant, see {@link Merchant#nameKey(String)}.
+     * @return the id of the created merchant, or empty if the owner already has a merchant of that key.
+     */
+    public Optional<Long> insertIfAbsent(String owner, String name, String nameKey) {
+        String nextId = "select " + databasePlatform.nextValue(Merchant.SEQUENCE_NAME);
+        Long id = ((Number) em.createNativeQuery(nextId).getSingleResult()).longValue();
+
+        int inserted = query(
+            "insert into merchant (id, created_by, name, name_key, created_date) select :id, :owner, :name, :nameKey, :now " +
+            "where not exists (select 1 from merchant m where m.created_by = :owner and m.name_key = :nameKey)" +
+            (databasePlatform.isPostgreSQL() ? " on conflict (created_by, name_key) do nothing" : ""),
+            new SqlWhereBuilder(),
+            null
+        )
+            .addSynchronizedEntityClass(Merchant.class)
+            .setParameter("id", id)
+            .setParameter("owner", owner)
+            .setParameter("name", name)
+            .setParameter("nameKey", nameKey)
+            .setParameter("now", Instant.now())
+            .executeUpdate();
+        return inserted > 0 ? Optional.of(id) : Optional.empty();
+    }
+
+    /**
+     * @param limit the maximum number of rows to return.
+     * @return distinct owners and details of transactions without merchant, as {@code [owner, details]} pairs.
+     */
+    public List<String[]> findDetailsWithoutMerchant(int limit) {
+        List<?> rows = em
+            .createNativeQuery(
+                "select distinct t.created_by, t.details from transaction t where t.merchant_id is null and t.owner_id is not null"
+            )
+            .setMaxResults(limit)
+            .getResultList();
+        return rows
+            .stream()
+            .map(Object[].class::cast)
+            .map(row -> new String[] { (String) row[0], (String) row[1] })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Set the merchant of the transactions of an owner having one of the given details and no merchant yet.
+     *
+     * @param owner      the login of the owner of the transactions.
+     * @param details    the details of the transactions.
+     * @param merchantId the id of their merchant.
+     * @return the number of updated transactions.
+     */
+    public int setMerchant(String owner, Collection<String> details, Long merchantId) {
+        return query(
+            "update transaction t set merchant_id = :merchantId " +
+            "where t.owner_id = (select k.id from user_key k where k.login = :owner) and t.details in (:details) " +
+            "and t.merchant_id is null",
+            new SqlWhereBuilder(),
+            null
+        )
+            .addSynchronizedEntityClass(Transaction.class)
+            .setParameter("merchantId", merchantId)
+            .setParameter("owner", owner)
+            .setParameterList("details", details)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,39 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.Merchant;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the Merchant entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface MerchantRepository extends JpaRepository<Merchant, Long> {
+    List<Merchant> findByCreatedByAndNameKeyIn(String createdBy, Collection<String> nameKeys);
+
+    List<Merchant> findByIdInAndCreatedBy(Collection<Long> ids, String createdBy);
+
+    /**
+     * The number and total amount of the transactions of each merchant of a user, grouped on the merchant id.
+     */
+    @Query(
+        "select t.merchantId as merchantId, count(t) as count, sum(t.amount) as totalAmount from Transaction t " +
+        "where t.ownerId = (select k.id from UserKey k where k.login = :owner) and t.merchantId is not null " +
+        "group by t.merchantId order by count(t) desc, t.merchantId"
+    )
+    List<MerchantTotal> findTotalsByOwner(@Param("owner") String owner, Pageable pageable);
+
+    interface MerchantTotal {
+        Long getMerchantId();
+
+        long getCount();
+
+        BigDecimal getTotalAmount();
+    }
+}
@@ -0,0 +1,133 @@
+package dev.tphucnha.moneylogger.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Builds the SQL {@code where} clause of the JDBC repositories from JHipster {@link Filter}s.
+ * <p>
+ * The predicates follow the ones of {@link tech.jhipster.service.QueryService}: {@code equals} then {@code in} take
+ * precedence over the other operators, and {@code contains} is case insensitive. All the predicates are AND-ed.
+ */
+public class SqlWhereBuilder {
+
+    private final List<String> predicates = new ArrayList<>();
+
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    public SqlWhereBuilder equal(String column, Object value) {
+        predicates.add(column + " = " + bind(value));
+        return this;
+    }
+
+    public <T> SqlWhereBuilder filter(String column, Filter<T> filter) {
+        if (filter == null) {
+            return this;
+        }
+        if (filter.getEquals() != null) {
+            return equal(column, filter.getEquals());
+        }
+        if (filter.getIn() != null) {
+            predicates.add(column + " in (" + bind(filter.getIn()) + ")");
+            return this;
+        }
+        if (filter.getNotEquals() != null) {
+            predicates.add(column + " <> " + bind(filter.getNotEquals()));
+        }
+        if (filter.getNotIn() != null) {
+            predicates.add(column + " not in (" + bind(filter.getNotIn()) + ")");
+        }
+        if (filter.getSpecified() != null) {
+            predicates.add(column + (filter.getSpecified() ? " is not null" : " is null"));
+        }
+        return this;
+    }
+
+    public <T extends Comparable<? super T>> SqlWhereBuilder rangeFilter(String column, RangeFilter<T> filter) {
+        if (filter == null || filter.getEquals() != null || filter.getIn() != null) {
+            return filter(column, filter);
+        }
+        filter(column, filter);
+        if (filter.getGreaterThan() != null) {
+            predicates.add(column + " > " + bind(filter.getGreaterThan()));
+        }
+        if (filter.getGreaterThanOrEqual() != null) {
+            predicates.add(column + " >= " + bind(filter.getGreaterThanOrEqual()));
+        }
+        if (filter.getLessThan() != null) {
+            predicates.add(column + " < " + bind(filter.getLessThan()));
+        }
+        if (filter.getLessThanOrEqual() != null) {
+            predicates.add(column + " <= " + bind(filter.getLessThanOrEqual()));
+        }
+        return this;
+    }
+
+    public SqlWhereBuilder stringFilter(String column, StringFilter filter) {
+        if (filter == null || filter.getEquals() != null || filter.getIn() != null) {
+            return filter(column, filter);
+        }
+        if (filter.getContains() != null) {
+            predicates.add("upper(" + column + ") like " + bind(wrapLikeQuery(filter.getContains())));
+        }
+        if (filter.getDoesNotContain() != null) {
+            predicates.add("upper(" + column + ") not like " + bind(wrapLikeQuery(filter.getDoesNotContain())));
+        }
+        return filter(column, filter);
+    }
+
+    /**
+     * @return the SQL predicate, to be appended after {@code where}.
+     */
+    public String toSql() {
+        return predicates.isEmpty() ? "1 = 1" : String.join(" and ", predicates);
+    }
+
+    /**
+     * @return the parameters of the predicate, for JDBC: instants are converted to UTC timestamps.
+     */
+    public MapSqlParameterSource getParameters() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        values.forEach((name, value) -> parameters.addValue(name, toJdbcValue(value)));
+        return parameters;
+    }
+
+    /**
+     * @return the parameters of the predicate, as given, for Hibernate native queries which convert them.
+     */
+    public Map<String, Object> getParameterValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    private String bind(Object value) {
+        String name = "p" + values.size();
+        values.put(name, value);
+        return ":" + name;
+    }
+
+    private Object toJdbcValue(Object value) {
+        if (value instanceof Instant) {
+            // Instants are stored as UTC timestamps without time zone, see hibernate.jdbc.time_zone
+            return LocalDateTime.ofInstant((Instant) value, ZoneOffset.UTC);
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).stream().map(this::toJdbcValue).collect(Collectors.toList());
+        }
+        return value;
+    }
+
+    private static String wrapLikeQuery(String txt) {
+        return "%" + txt.toUpperCase() + '%';
+    }
+}
@@ -0,0 +1,30 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.SyncTombstone;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the SyncTombstone entity.
+ * <p>
+ * As for {@link TransactionRepository}, the tombstones of a user are found through the
+ * {@link dev.tphucnha.moneylogger.domain.UserKey} of the login.
+ */
+@Repository
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+    String OWNED_BY = "s.ownerId = (select k.id from UserKey k where k.login = :owner)";
+
+    @Query("select s from SyncTombstone s where " + OWNED_BY + " and s.changeSequence > :changeSequence order by s.changeSequence asc")
+    List<SyncTombstone> findByOwnerAndChangeSequenceGreaterThanOrderByChangeSequenceAsc(
+        @Param("owner") String owner,
+        @Param("changeSequence") Long changeSequence,
+        Pageable pageable
+    );
+
+    @Query("select max(s.changeSequence) from SyncTombstone s where " + OWNED_BY)
+    Long getLastChangeSequenceByUser(@Param("owner") String owner);
+}
@@ -0,0 +1,122 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.domain.MinorUnits;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository moving the {@link Transaction}s of a user out of the {@code transaction} table, to be archived.
+ * <p>
+ * Archiving is not a change of the transactions: no audit row and no tombstone are written, and the history of the
+ * archived transactions remains. The delete is synchronized on the {@code transaction} table, so Hibernate evicts the
+ * {@code Transaction} and {@code Category.transactions} second level cache regions.
+ * Must be called in a transaction.
+ */
+@Repository
+public class TransactionArchiveRepository extends AbstractNativeWriteRepository {
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    public TransactionArchiveRepository(EntityManager em, DatabasePlatform databasePlatform) {
+        super(em, databasePlatform);
+    }
+
+    /**
+     * @param before the date before which transactions are archived.
+     * @return the date of the oldest transaction before {@code before} of every user having one.
+     */
+    public Map<String, Instant> findOldestDatesBefore(Instant before) {
+        return em
+            .createQuery(
+                "select t.createdBy, min(t.date) from Transaction t where t.date < :before group by t.createdBy",
+                Object[].class
+            )
+            .setParameter("before", before)
+            .getResultStream()
+            .collect(Collectors.toMap(row -> (String) row[0], row -> (Instant) row[1], (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * @param from the first date, inclusive.
+     * @param to   the last date, exclusive.
+     * @return the users having transactions between the two dates.
+     */
+    public List<String> findOwnersBetween(Instant from, Instant to) {
+        return em
+            .createQuery("select distinct t.createdBy from Transaction t where t.date >= :from and t.date < :to", String.class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getResultList();
+    }
+
+    /**
+     * Read the transactions of a user between two dates, and lock them until the end of the transaction.
+     * <p>
+     * The amounts are read in {@link MinorUnits} computed by the database, the {@code numeric} is only read for the
+     * amounts which do not fit in them.
+     *
+     * @param owner the login of the user.
+     * @param from  the first date, inclusive.
+     * @param to    the last date, exclusive.
+     * @return the transactions, sorted by date then id.
+     */
+    public List<ArchivedTransaction> findForArchive(String owner, Instant from, Instant to) {
+        List<?> rows = em
+            .createNativeQuery(
+                "select t.id, " +
+                "case when abs(t.amount) < " + MinorUnits.SQL_BOUND + " then cast(t.amount * 100 as bigint) end, " +
+                "case when abs(t.amount) < " + MinorUnits.SQL_BOUND + " then null else t.amount end, " +
+                "t.details, t.date, t.category_id from transaction t " +
+                "where t.owner_id = (select k.id from user_key k where k.login = :owner) and t.date >= :from and t.date < :to " +
+                "order by t.date, t.id for update"
+            )
+            .setParameter("owner", owner)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getResultList();
+        return rows
+            .stream()
+            .map(Object[].class::cast)
+            .map(TransactionArchiveRepository::toArchivedTransaction)
+            .collect(Collectors.toList());
+    }
+
+    private static ArchivedTransaction toArchivedTransaction(Object[] row) {
+        long id = ((Number) row[0]).longValue();
+        String details = (String) row[3];
+        Instant date = ((Timestamp) row[4]).toLocalDateTime().toInstant(ZoneOffset.UTC);
+        Long categoryId = row[5] != null ? ((Number) row[5]).longValue() : null;
+        return row[1] != null
+            ? new ArchivedTransaction(id, ((Number) row[1]).longValue(), details, date, categoryId)
+            : new ArchivedTransaction(id, (BigDecimal) row[2], details, date, categoryId);
+    }
+
+    /**
+     * Delete archived transactions.
+     *
+     * @param ids the ids of the transactions, locked by {@link #findForArchive(String, Instant, Instant)}.
+     * @return the number of deleted transactions.
+     */
+    public int delete(List<Long> ids) {
+        int deleted = 0;
+        for (int start = 0; start < ids.size(); start += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + DELETE_CHUNK_SIZE, ids.size()));
+            deleted +=
+                query("delete from transaction t where t.id in (:ids)", new SqlWhereBuilder(), null)
+                    .setParameterList("ids", chunk)
+                    .addSynchronizedEntityClass(Transaction.class)
+                    .executeUpdate();
+            chunk.forEach(id -> refreshPersistenceContext(Transaction.class, id, true));
+        }
+        return deleted;
+    }
+}
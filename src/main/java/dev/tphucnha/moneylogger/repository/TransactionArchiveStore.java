@@ -0,0 +1,97 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository of the {@link TransactionSegmentFile}s of the archived transactions, in the
+ * {@code application.archive.directory} directory.
+ * <p>
+ * The segments of a user are in a sub-directory named after the hexadecimal encoding of their login, which is safe on
+ * every file system. A segment is never modified: an archived year gets a new file, with a new name, every time it is
+ * rewritten, so that the mapped segments can be kept open and shared by the readers.
+ */
+@Repository
+public class TransactionArchiveStore {
+
+    private final Path directory;
+
+    private final int blockSize;
+
+    private final Map<String, TransactionSegmentFile> openSegments = new ConcurrentHashMap<>();
+
+    public TransactionArchiveStore(ApplicationProperties applicationProperties) {
+        this.directory = Paths.get(applicationProperties.getArchive().getDirectory());
+        this.blockSize = applicationProperties.getArchive().getBlockSize();
+    }
+
+    /**
+     * Write a new segment file.
+     *
+     * @param owner the login of the owner of the transactions.
+     * @param year  the year of the transactions.
+     * @param rows  the transactions, sorted by date then id.
+     * @return the name of the segment file, relative to the archive directory.
+     */
+    public String write(String owner, int year, List<ArchivedTransaction> rows) {
+        String fileName = ownerDirectory(owner) + '/' + year + '-' + UUID.randomUUID() + ".seg";
+        try {
+            Path path = directory.resolve(fileName);
+            Files.createDirectories(path.getParent());
+            TransactionSegmentFile.write(path, rows, blockSize);
+            return fileName;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param fileName the name of the segment file, relative to the archive directory.
+     * @return the mapped segment.
+     */
+    public TransactionSegmentFile open(String fileName) {
+        return openSegments.computeIfAbsent(
+            fileName,
+            name -> {
+                try {
+                    return TransactionSegmentFile.open(directory.resolve(name));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        );
+    }
+
+    /**
+     * Delete a segment file, once no longer referenced.
+     *
+     * @param fileName the name of the segment file, relative to the archive directory.
+     */
+    public void delete(String fileName) {
+        // Readers still holding the mapping can finish their reads
+        openSegments.remove(fileName);
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String ownerDirectory(String owner) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : owner.getBytes(StandardCharsets.UTF_8)) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,278 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository loading large numbers of new {@link Transaction}s, for migrations and big imports.
+ * <p>
+ * On PostgreSQL, the rows are streamed with {@code COPY ... FROM STDIN} in CSV format, which skips the parsing and
+ * planning of one {@code INSERT} per row. Other databases, H2 in development and tests, get the same rows through JDBC
+ * batches.
+ * <p>
+ * The rows are written as Hibernate would write them: ids are allocated from {@code sequence_generator} in the blocks
+ * of its pooled optimizer, the auditing columns and the owner key are set for the owner, and the Envers audit rows of
+ * the transactions and of their categories are written in the current revision, or the transactions queued in the
+ * audit queue when the audit is asynchronous. The statements are written on the connection of the current
+ * transaction, so must be called in a transaction.
+ */
+@Repository
+public class TransactionBulkLoadRepository extends AbstractNativeWriteRepository {
+
+    /**
+     * The allocation size of the {@code sequenceGenerator} of the entities, by which the sequence is incremented.
+     */
+    static final int ID_BLOCK_SIZE = 50;
+
+    private static final String ID_SEQUENCE_NAME = "sequence_generator";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final UserKeyStore userKeyStore;
+
+    public TransactionBulkLoadRepository(
+        EntityManager em,
+        DatabasePlatform databasePlatform,
+        ApplicationProperties applicationProperties,
+        UserKeyStore userKeyStore
+    ) {
+        super(em, databasePlatform, applicationProperties);
+        this.userKeyStore = userKeyStore;
+    }
+
+    /**
+     * Insert new transactions of the given owner. Their ids are set by this method.
+     *
+     * @param owner        the login of the user creating the transactions.
+     * @param transactions the transactions, with their change sequence set, and their category if any owned by the owner.
+     */
+    public void insert(String owner, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Long> ids = allocateIds(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            transactions.get(i).setId(ids.get(i));
+        }
+        int ownerKey = userKeyStore.getOrCreate(owner);
+        int revision = auditInRevision() ? currentRevision() : 0;
+        Instant now = Instant.now();
+        List<Map<String, SqlParameterValue>> rows = transactions
+            .stream()
+            .map(transaction -> row(transaction, owner, ownerKey, now))
+            .collect(Collectors.toList());
+
+        em
+            .unwrap(Session.class)
+            .doWork(
+                connection -> {
+                    if (databasePlatform.isPostgreSQL()) {
+                        copy(connection, rows, revision);
+                    } else {
+                        insertBatches(connection, rows, revision);
+                    }
+                }
+            );
+
+        Set<Long> categoryIds = transactions
+            .stream()
+            .map(Transaction::getCategory)
+            .filter(Objects::nonNull)
+            .map(Category::getId)
+            .collect(Collectors.toSet());
+        if (auditInQueue()) {
+            // The queue entries copy the inserted rows, their categories get an audit row when they are written
+            Map<String, String> inserted = new HashMap<>();
+            for (String column : Arrays.asList("amount", "details", "date", "category_id", "created_by")) {
+                inserted.put(column, "t." + column);
+            }
+            NativeQuery<?> queue = query(
+                queueChanges(AuditCaptureIntegrator.TRANSACTION, "t", 0, inserted) + "from transaction t where t.id in (:ids)",
+                new SqlWhereBuilder(),
+                AUDIT_QUEUE_TABLE
+            )
+                .setParameterList("ids", ids);
+            newCapture().forEach(queue::setParameter);
+            queue.executeUpdate();
+        }
+        if (!categoryIds.isEmpty() && auditInRevision()) {
+            // Synchronized on the transaction table too, so that Hibernate evicts the cached Category.transactions
+            query(
+                auditUnchangedRows(Category.class, "category", "c", "c.id in (:categoryIds)"),
+                new SqlWhereBuilder(),
+                auditTable(Category.class).getName()
+            )
+                .addSynchronizedQuerySpace("transaction")
+                .setParameter("rev", revision)
+                .setParameterList("categoryIds", categoryIds)
+                .executeUpdate();
+        } else if (!categoryIds.isEmpty()) {
+            evictCacheRegions("transaction");
+        }
+    }
+
+    /**
+     * Allocate ids as the pooled optimizer of Hibernate does: each value V read from the sequence reserves the block
+     * {@code [V - 49, V]}, so the ids never collide with those of Hibernate, which reads its own values.
+     */
+    private List<Long> allocateIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            String sql =
+                "select " +
+                databasePlatform.nextValue(ID_SEQUENCE_NAME) +
+                (databasePlatform.isPostgreSQL() ? " from generate_series(1, :blocks)" : " from system_range(1, :blocks)");
+            for (Object value : em.createNativeQuery(sql).setParameter("blocks", blocks).getResultList()) {
+                long last = ((Number) value).longValue();
+                // The first value of a new sequence starts no block of its own
+                for (long id = Math.max(1, last - ID_BLOCK_SIZE + 1); id <= last && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return the values of the row of a transaction, by column, as Hibernate would write them.
+     */
+    private static Map<String, SqlParameterValue> row(Transaction transaction, String owner, int ownerKey, Instant now) {
+        Map<String, SqlParameterValue> row = new LinkedHashMap<>();
+        row.put("id", new SqlParameterValue(Types.BIGINT, transaction.getId()));
+        row.put("amount", new SqlParameterValue(Types.NUMERIC, transaction.getAmount()));
+        row.put("details", new SqlParameterValue(Types.VARCHAR, transaction.getDetails()));
+        row.put("date", new SqlParameterValue(Types.TIMESTAMP, toTimestamp(transaction.getDate())));
+        row.put("category_id", new SqlParameterValue(Types.BIGINT, categoryId(transaction)));
+        row.put("merchant_id", new SqlParameterValue(Types.BIGINT, transaction.getMerchantId()));
+        row.put("owner_id", new SqlParameterValue(Types.INTEGER, ownerKey));
+        row.put("created_by", new SqlParameterValue(Types.VARCHAR, owner));
+        row.put("created_date", new SqlParameterValue(Types.TIMESTAMP, toTimestamp(now)));
+        row.put("last_modified_by", new SqlParameterValue(Types.VARCHAR, owner));
+        row.put("last_modified_date", new SqlParameterValue(Types.TIMESTAMP, toTimestamp(now)));
+        row.put("change_sequence", new SqlParameterValue(Types.BIGINT, transaction.getChangeSequence()));
+        row.put("version", new SqlParameterValue(Types.INTEGER, 0));
+        return row;
+    }
+
+    private void copy(Connection connection, List<Map<String, SqlParameterValue>> rows, int revision) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        AuditTable transactionAudit = auditTable(Transaction.class);
+        try {
+            try (Writer writer = copyWriter(pgConnection, "transaction", String.join(", ", rows.get(0).keySet()))) {
+                for (Map<String, SqlParameterValue> row : rows) {
+                    writeCsv(writer, row.values());
+                }
+            }
+            if (!auditInRevision()) {
+                return;
+            }
+            try (Writer writer = copyWriter(pgConnection, transactionAudit.getName(), transactionAudit.columnList())) {
+                for (Map<String, SqlParameterValue> row : rows) {
+                    writeCsv(writer, auditRow(Transaction.class, (Long) row.get("id").getValue(), revision, 0, row));
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("Unable to copy the transactions", e);
+        }
+    }
+
+    private static Writer copyWriter(PGConnection connection, String table, String columns) throws SQLException {
+        String sql = "copy " + table + " (" + columns + ") from stdin with (format csv)";
+        return new BufferedWriter(
+            new OutputStreamWriter(new PGCopyOutputStream(connection, sql, COPY_BUFFER_SIZE), StandardCharsets.UTF_8),
+            COPY_BUFFER_SIZE
+        );
+    }
+
+    /**
+     * Write a CSV record. Text is quoted, and {@code null} is written unquoted and empty, which {@code COPY} reads as
+     * {@code NULL}.
+     */
+    private static void writeCsv(Writer writer, Collection<SqlParameterValue> values) throws IOException {
+        boolean first = true;
+        for (SqlParameterValue value : values) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            if (value.getValue() instanceof String) {
+                writer.write('"' + ((String) value.getValue()).replace("\"", "\"\"") + '"');
+            } else if (value.getValue() instanceof BigDecimal) {
+                writer.write(((BigDecimal) value.getValue()).toPlainString());
+            } else if (value.getValue() != null) {
+                writer.write(value.getValue().toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void insertBatches(Connection connection, List<Map<String, SqlParameterValue>> rows, int revision) throws SQLException {
+        Set<String> columns = rows.get(0).keySet();
+        String values = "values (" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        String sql = "insert into transaction (" + String.join(", ", columns) + ") " + values;
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (Map<String, SqlParameterValue> row : rows) {
+                bind(insert, row.values());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        if (!auditInRevision()) {
+            return;
+        }
+        AuditTable transactionAudit = auditTable(Transaction.class);
+        try (PreparedStatement insert = connection.prepareStatement(transactionAudit.insertInto() + transactionAudit.valuesParameters())) {
+            for (Map<String, SqlParameterValue> row : rows) {
+                bind(insert, auditRow(Transaction.class, (Long) row.get("id").getValue(), revision, 0, row));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static Long categoryId(Transaction transaction) {
+        return transaction.getCategory() != null ? transaction.getCategory().getId() : null;
+    }
+
+    /**
+     * @return the instant as a timestamp without time zone in UTC, as written by Hibernate with
+     * {@code hibernate.jdbc.time_zone} set to UTC.
+     */
+    private static Timestamp toTimestamp(Instant instant) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+}
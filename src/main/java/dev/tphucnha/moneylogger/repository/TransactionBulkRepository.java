@@ -0,0 +1,602 @@
+package dev.tphucnha.moneylogger.repository;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.SyncTombstone;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BigDecimalType;
+import org.hibernate.type.InstantType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository executing set-based writes on the {@link Transaction} entity, one statement for all the matching rows.
+ * Single transactions are written the same way, guarded by their owner, so that writes need no prior read.
+ * <p>
+ * The statements bypass the persistence context, so this repository keeps in step what Hibernate would otherwise
+ * maintain:
+ * <ul>
+ *     <li>the statements are synchronized on the {@code transaction} table, so Hibernate evicts the {@code Transaction}
+ *     and {@code Category.transactions} second level cache regions, as for JPQL bulk statements;</li>
+ *     <li>the Envers audit rows of the transactions, and of the categories whose transactions change, are written in
+ *     the current revision, before the change: the criteria may filter on the category being replaced. When the audit
+ *     is asynchronous, the changes of the transactions are queued instead, their previous category included, and
+ *     when it is disabled they are not audited;</li>
+ *     <li>updated rows get a new change sequence, and deleted rows a {@link SyncTombstone}.</li>
+ * </ul>
+ * Must be called in a transaction.
+ */
+@Repository
+public class TransactionBulkRepository extends AbstractNativeWriteRepository {
+
+    private static final String SYNC_TOMBSTONE_TABLE = "sync_tombstone";
+
+    /**
+     * The {@code select} list reading back a written transaction, aliased {@code u}, and its category, aliased {@code c}.
+     */
+    private static final String READ =
+        "select u.id, u.amount, u.details, u.date, u.merchant_id, u.version, u.change_sequence, u.category_id, " +
+        "c.name as category_name, c.version as category_version from ";
+
+    private final ChangeSequenceGenerator changeSequenceGenerator;
+
+    private final UserKeyStore userKeyStore;
+
+    public TransactionBulkRepository(
+        EntityManager em,
+        DatabasePlatform databasePlatform,
+        ApplicationProperties applicationProperties,
+        ChangeSequenceGenerator changeSequenceGenerator,
+        UserKeyStore userKeyStore
+    ) {
+        super(em, databasePlatform, applicationProperties);
+        this.changeSequenceGenerator = changeSequenceGenerator;
+        this.userKeyStore = userKeyStore;
+    }
+
+    /**
+     * Set the category of the matching transactions. Transactions already in the category are left untouched.
+     *
+     * @param where      the filters the transactions should match, the owner included.
+     * @param categoryId the new category, or {@code null} to remove the category.
+     * @param modifiedBy the login of the user making the change, who owns the transactions.
+     * @return the number of updated transactions.
+     */
+    public int updateCategory(SqlWhereBuilder where, Long categoryId, String modifiedBy) {
+        changeSequenceGenerator.lockOwner(modifiedBy);
+        TypedParameterValue category = new TypedParameterValue(LongType.INSTANCE, categoryId);
+        String matching = "from transaction t where " + where.toSql() + " and t.category_id is distinct from :categoryId";
+        if (auditInRevision()) {
+            int revision = currentRevision();
+            AuditTable transactionAudit = auditTable(Transaction.class);
+            query(
+                transactionAudit.insertInto() +
+                "select " +
+                transactionAudit.select("t", ":rev", 1, Collections.singletonMap("category_id", ":categoryId")) +
+                " " +
+                matching,
+                where,
+                transactionAudit.getName()
+            )
+                .setParameter("rev", revision)
+                .setParameter("categoryId", category)
+                .executeUpdate();
+            query(
+                auditUnchangedRows(
+                    Category.class,
+                    "category",
+                    "c",
+                    "c.id = :categoryId or c.id in (select t.category_id " + matching + ")"
+                ),
+                where,
+                auditTable(Category.class).getName()
+            )
+                .setParameter("rev", revision)
+                .setParameter("categoryId", category)
+                .executeUpdate();
+        } else if (auditInQueue()) {
+            Map<String, String> queued = queuedTransaction("t", Collections.singletonMap("category_id", ":categoryId"));
+            NativeQuery<?> queue = query(
+                queueChanges(AuditCaptureIntegrator.TRANSACTION, "t", 1, queued) + matching,
+                where,
+                AUDIT_QUEUE_TABLE
+            )
+                .setParameter("categoryId", category);
+            newCapture().forEach(queue::setParameter);
+            queue.executeUpdate();
+        }
+
+        return query(
+            "update transaction t set category_id = :categoryId, version = t.version + 1, " +
+            "change_sequence = " +
+            databasePlatform.nextValue(SyncTombstone.CHANGE_SEQUENCE_NAME) +
+            ", " +
+            "last_modified_by = :modifiedBy, last_modified_date = :now " +
+            "where " +
+            where.toSql() +
+            " and t.category_id is distinct from :categoryId",
+            where,
+            null
+        )
+            .addSynchronizedEntityClass(Transaction.class)
+            .setParameter("categoryId", category)
+            .setParameter("modifiedBy", modifiedBy)
+            .setParameter("now", Instant.now())
+            .executeUpdate();
+    }
+
+    /**
+     * Move the transactions of a category being deleted to another category, or out of any category, in one statement
+     * instead of loading them. Must be called before the category is removed in the same transaction.
+     * <p>
+     * The deleted category gets its delete audit row from Envers in the current revision, so the update audit row
+     * written for it by {@link #updateCategory(SqlWhereBuilder, Long, String)} is removed: when the audit is
+     * asynchronous, a deleted category gets no update audit row. The transactions already loaded in the persistence
+     * context are refreshed, so that none references it anymore.
+     *
+     * @param categoryId       the category being deleted.
+     * @param owner            the login of the user making the change, who owns the category.
+     * @param targetCategoryId the category the transactions are moved to, or {@code null} to remove their category.
+     * @return the number of updated transactions.
+     */
+    public int detachCategory(Long categoryId, String owner, Long targetCategoryId) {
+        int updated = updateCategory(
+            // Matched by the owner key, so that the owner_id, category_id index is used
+            new SqlWhereBuilder().equal("t.owner_id", userKeyStore.find(owner)).equal("t.category_id", categoryId),
+            targetCategoryId,
+            owner
+        );
+        if (updated == 0) {
+            return 0;
+        }
+        if (auditInRevision()) {
+            AuditTable categoryAudit = auditTable(Category.class);
+            query(categoryAudit.deleteRow(":id", ":rev"), new SqlWhereBuilder(), categoryAudit.getName())
+                .setParameter("id", categoryId)
+                .setParameter("rev", currentRevision())
+                .executeUpdate();
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Transaction> loaded = Arrays
+            .stream(session.getPersistenceContextInternal().reentrantSafeEntityEntries())
+            .map(Map.Entry::getKey)
+            .filter(Transaction.class::isInstance)
+            .map(Transaction.class::cast)
+            .filter(transaction -> transaction.getCategory() != null && categoryId.equals(transaction.getCategory().getId()))
+            .collect(Collectors.toList());
+        loaded.forEach(transaction -> refreshPersistenceContext(Transaction.class, transaction.getId(), false));
+        return updated;
+    }
+
+    /**
+     * Insert one transaction of the given owner, in one statement guarded by the owner of its category, and read it back
+     * from the insert statement.
+     * <p>
+     * The id is taken from {@code sequence_generator} by the statement itself: Hibernate allocates the ids up to each
+     * value of the pooled sequence it reads, so a value read here is never one of them. As for
+     * {@link #update(Long, String, Transaction, boolean)}, the audit rows, or the queue entry, are written by the insert
+     * statement on PostgreSQL, and in statements of their own, after the insert, on other databases.
+     *
+     * @param owner  the login of the user creating the transaction, who must own its category.
+     * @param values the values of the transaction.
+     * @return the transaction as inserted, with the id, the name and the version of its category, its version and its
+     * change sequence: empty when its category is not found, or belongs to another user.
+     */
+    public Optional<Transaction> insert(String owner, Transaction values) {
+        changeSequenceGenerator.lockOwner(owner);
+        TypedParameterValue category = new TypedParameterValue(
+            LongType.INSTANCE,
+            values.getCategory() != null ? values.getCategory().getId() : null
+        );
+        int ownerKey = userKeyStore.getOrCreate(owner);
+        int revision = auditInRevision() ? currentRevision() : 0;
+        Map<String, Object> capture = auditInQueue() ? newCapture() : Collections.emptyMap();
+        AuditTable transactionAudit = auditTable(Transaction.class);
+        Map<String, String> inserted = new HashMap<>();
+        for (String column : Arrays.asList("amount", "details", "date", "category_id", "created_by")) {
+            inserted.put(column, "u." + column);
+        }
+
+        String insert =
+            "insert into transaction (id, amount, details, date, category_id, merchant_id, owner_id, created_by, created_date, " +
+            "last_modified_by, last_modified_date, change_sequence, version) select " +
+            databasePlatform.nextValue("sequence_generator") +
+            ", :amount, :details, :date, :categoryId, :merchantId, :ownerKey, :owner, :now, :owner, :now, " +
+            databasePlatform.nextValue(SyncTombstone.CHANGE_SEQUENCE_NAME) +
+            ", 0 where (:categoryId is null or exists (select 1 from category o where o.id = :categoryId and o.owner_id = :ownerKey))";
+        String categoryAudit = auditUnchangedRows(Category.class, "category", "c", "c.id = :categoryId");
+        String sql;
+        if (databasePlatform.isPostgreSQL()) {
+            String audited = " ";
+            if (auditInRevision()) {
+                // The audit rows copy the inserted row, its category gets one if the row is inserted
+                audited =
+                    ", audited as (" +
+                    transactionAudit.insertInto() +
+                    "select " +
+                    transactionAudit.select("u", ":rev", 0, Collections.emptyMap()) +
+                    " from inserted u)" +
+                    (
+                        values.getCategory() != null
+                            ? ", audited_categories as (" + categoryAudit + " and exists (select 1 from inserted)) "
+                            : " "
+                    );
+            } else if (auditInQueue()) {
+                audited =
+                    ", queued as (" + queueChanges(AuditCaptureIntegrator.TRANSACTION, "u", 0, inserted) + "from inserted u) ";
+            }
+            sql =
+                "with inserted as (" +
+                insert +
+                " returning *)" +
+                audited +
+                READ +
+                "inserted u left join category c on c.id = u.category_id";
+        } else {
+            sql = READ + "final table (" + insert + ") u left join category c on c.id = u.category_id";
+        }
+
+        NativeQuery<?> query = readBack(query(sql, new SqlWhereBuilder(), null))
+            .setParameter("amount", new TypedParameterValue(BigDecimalType.INSTANCE, values.getAmount()))
+            .setParameter("details", new TypedParameterValue(StringType.INSTANCE, values.getDetails()))
+            .setParameter("date", new TypedParameterValue(InstantType.INSTANCE, values.getDate()))
+            .setParameter("categoryId", category)
+            .setParameter("merchantId", new TypedParameterValue(LongType.INSTANCE, values.getMerchantId()))
+            .setParameter("ownerKey", ownerKey)
+            .setParameter("owner", owner)
+            .setParameter("now", Instant.now());
+        if (databasePlatform.isPostgreSQL() && auditInRevision()) {
+            query.setParameter("rev", revision);
+        } else if (databasePlatform.isPostgreSQL() && auditInQueue()) {
+            capture.forEach(query::setParameter);
+        }
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Transaction transaction = toTransaction((Object[]) rows.get(0));
+
+        if (!databasePlatform.isPostgreSQL() && auditInRevision()) {
+            query(
+                transactionAudit.insertInto() +
+                "select " +
+                transactionAudit.select("u", ":rev", 0, Collections.emptyMap()) +
+                " from transaction u where u.id = :id",
+                new SqlWhereBuilder(),
+                transactionAudit.getName()
+            )
+                .setParameter("rev", revision)
+                .setParameter("id", transaction.getId())
+                .executeUpdate();
+            if (transaction.getCategory() != null) {
+                query(categoryAudit, new SqlWhereBuilder(), auditTable(Category.class).getName())
+                    .setParameter("rev", revision)
+                    .setParameter("categoryId", transaction.getCategory().getId())
+                    .executeUpdate();
+            }
+        } else if (!databasePlatform.isPostgreSQL() && auditInQueue()) {
+            NativeQuery<?> queue = query(
+                queueChanges(AuditCaptureIntegrator.TRANSACTION, "u", 0, inserted) + "from transaction u where u.id = :id",
+                new SqlWhereBuilder(),
+                AUDIT_QUEUE_TABLE
+            )
+                .setParameter("id", transaction.getId());
+            capture.forEach(queue::setParameter);
+            queue.executeUpdate();
+        }
+        // Read as a select, so the second level cache is evicted as Hibernate does for insert statements
+        evictCacheRegions("transaction", transactionAudit.getName(), auditTable(Category.class).getName());
+        return Optional.of(transaction);
+    }
+
+    /**
+     * Update one transaction of the given owner without loading it, and read it back from the update statement.
+     * <p>
+     * A partial update only writes the columns it changes. When the values have a version, the transaction is only
+     * updated if it still has that version, as an optimistic lock checked by the statement itself.
+     * <p>
+     * On PostgreSQL the audit rows, or the queue entry, are written by the update statement, as data-modifying common
+     * table expressions, which see the rows as they were before the update. Other databases write them in statements of
+     * their own, before the update. Besides the update, the owner is locked as by
+     * {@link ChangeSequenceGenerator#lockOwner(String)}, and the revision is written if this is the first change of the
+     * transaction.
+     *
+     * @param id      the id of the transaction.
+     * @param owner   the login of the user making the change, who must own the transaction and its category.
+     * @param values  the new values of the transaction, and its expected version if any.
+     * @param partial whether {@code null} values leave the columns unchanged, as for a merge patch.
+     * @return the transaction as updated, with the id, the name and the version of its category, its new version and
+     * its change sequence: empty when the transaction or its category is not found, belongs to another user, or has
+     * another version.
+     */
+    public Optional<Transaction> update(Long id, String owner, Transaction values, boolean partial) {
+        changeSequenceGenerator.lockOwner(owner);
+        TypedParameterValue category = new TypedParameterValue(
+            LongType.INSTANCE,
+            values.getCategory() != null ? values.getCategory().getId() : null
+        );
+        int ownerKey = userKeyStore.find(owner);
+        SqlWhereBuilder where = new SqlWhereBuilder().equal("t.id", id).equal("t.owner_id", ownerKey);
+        if (values.getVersion() != null) {
+            where.equal("t.version", values.getVersion());
+        }
+        String guard =
+            where.toSql() +
+            " and (:categoryId is null or exists (select 1 from category o where o.id = :categoryId and o.owner_id = :ownerKey))";
+        Map<String, TypedParameterValue> columns = columnValues(values, category, partial);
+        // The previous and the new categories get an audit row when the category changes
+        boolean auditCategories = values.getCategory() != null || !partial;
+        String categoryAudit = auditUnchangedRows(
+            Category.class,
+            "category",
+            "c",
+            "exists (select 1 from transaction t where " +
+            guard +
+            " and t.category_id is distinct from :categoryId and c.id in (t.category_id, :categoryId))"
+        );
+        int revision = auditInRevision() ? currentRevision() : 0;
+        Map<String, Object> capture = auditInQueue() ? newCapture() : Collections.emptyMap();
+        AuditTable transactionAudit = auditTable(Transaction.class);
+        // The audited values written by the update, the values of the row for the other audited columns
+        Map<String, String> written = columns
+            .keySet()
+            .stream()
+            .filter(transactionAudit.getColumns()::contains)
+            .collect(Collectors.toMap(Function.identity(), column -> ":" + column));
+
+        String update =
+            "update transaction t set " +
+            columns.keySet().stream().map(column -> column + " = :" + column + ", ").collect(Collectors.joining()) +
+            "version = t.version + 1, change_sequence = " +
+            databasePlatform.nextValue(SyncTombstone.CHANGE_SEQUENCE_NAME) +
+            ", last_modified_by = :owner, last_modified_date = :now where " +
+            guard;
+        String sql;
+        if (databasePlatform.isPostgreSQL()) {
+            String audited = " ";
+            if (auditInRevision()) {
+                // The audit row copies the updated row
+                audited =
+                    ", audited as (" +
+                    transactionAudit.insertInto() +
+                    "select " +
+                    transactionAudit.select("u", ":rev", 1, Collections.emptyMap()) +
+                    " from updated u)" +
+                    (auditCategories ? ", audited_categories as (" + categoryAudit + ") " : " ");
+            } else if (auditInQueue()) {
+                // The queue entry copies the updated row, and the category of the row before the update
+                audited =
+                    ", queued as (" +
+                    queueChanges(AuditCaptureIntegrator.TRANSACTION, "u", 1, queuedTransaction("u", Collections.emptyMap())) +
+                    "from updated u join transaction t on t.id = u.id) ";
+            }
+            sql =
+                "with updated as (" +
+                update +
+                " returning t.*)" +
+                audited +
+                READ +
+                "updated u left join category c on c.id = u.category_id";
+        } else {
+            if (auditInRevision()) {
+                NativeQuery<?> audit = query(
+                    transactionAudit.insertInto() +
+                    "select " +
+                    transactionAudit.select("t", ":rev", 1, written) +
+                    " from transaction t where " +
+                    guard,
+                    where,
+                    transactionAudit.getName()
+                )
+                    .setParameter("rev", revision)
+                    .setParameter("categoryId", category)
+                    .setParameter("ownerKey", ownerKey);
+                written.keySet().forEach(column -> audit.setParameter(column, columns.get(column)));
+                audit.executeUpdate();
+                if (auditCategories) {
+                    query(categoryAudit, where, auditTable(Category.class).getName())
+                        .setParameter("rev", revision)
+                        .setParameter("categoryId", category)
+                        .setParameter("ownerKey", ownerKey)
+                        .executeUpdate();
+                }
+            } else if (auditInQueue()) {
+                NativeQuery<?> queue = query(
+                    queueChanges(AuditCaptureIntegrator.TRANSACTION, "t", 1, queuedTransaction("t", written)) +
+                    "from transaction t where " +
+                    guard,
+                    where,
+                    AUDIT_QUEUE_TABLE
+                )
+                    .setParameter("categoryId", category)
+                    .setParameter("ownerKey", ownerKey);
+                written.keySet().forEach(column -> queue.setParameter(column, columns.get(column)));
+                capture.forEach(queue::setParameter);
+                queue.executeUpdate();
+            }
+            sql = READ + "final table (" + update + ") u left join category c on c.id = u.category_id";
+        }
+
+        NativeQuery<?> query = readBack(query(sql, where, null))
+            .setParameter("categoryId", category)
+            .setParameter("ownerKey", ownerKey)
+            .setParameter("owner", owner)
+            .setParameter("now", Instant.now());
+        if (databasePlatform.isPostgreSQL() && auditInRevision()) {
+            query.setParameter("rev", revision);
+        } else if (databasePlatform.isPostgreSQL() && auditInQueue()) {
+            capture.forEach(query::setParameter);
+        }
+        columns.forEach(query::setParameter);
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        // Read as a select, so the second level cache is evicted as Hibernate does for update statements
+        evictCacheRegions("transaction", transactionAudit.getName(), auditTable(Category.class).getName());
+        refreshPersistenceContext(Transaction.class, id, false);
+        return Optional.of(toTransaction((Object[]) rows.get(0)));
+    }
+
+    /**
+     * Delete the matching transactions.
+     *
+     * @param where the filters the transactions should match, the owner included.
+     * @param owner the login of the user making the change, who owns the transactions.
+     * @return the number of deleted transactions.
+     */
+    public int delete(SqlWhereBuilder where, String owner) {
+        changeSequenceGenerator.lockOwner(owner);
+        return delete(where, databasePlatform.nextValue(SyncTombstone.CHANGE_SEQUENCE_NAME), null);
+    }
+
+    /**
+     * Delete one transaction of the given owner, in one statement, without loading it.
+     *
+     * @param id             the id of the transaction.
+     * @param owner          the login of the user making the change, who must own the transaction.
+     * @param changeSequence the change sequence of the tombstone of the transaction.
+     * @return the number of deleted transactions: 0 when the transaction is not found, or belongs to another user.
+     */
+    public int delete(Long id, String owner, long changeSequence) {
+        SqlWhereBuilder where = new SqlWhereBuilder().equal("t.id", id).equal("t.owner_id", userKeyStore.find(owner));
+        int deleted = delete(where, ":changeSequence", changeSequence);
+        if (deleted > 0) {
+            refreshPersistenceContext(Transaction.class, id, true);
+        }
+        return deleted;
+    }
+
+    private int delete(SqlWhereBuilder where, String tombstoneChangeSequence, Long changeSequence) {
+        String matching = "from transaction t where " + where.toSql();
+        if (auditInRevision()) {
+            int revision = currentRevision();
+            AuditTable transactionAudit = auditTable(Transaction.class);
+            // The owner is kept in the audit row of a delete, for the history of the user
+            query(
+                transactionAudit.insertInto() +
+                "select " +
+                transactionAudit.selectDeleted("t", ":rev", Collections.singleton("created_by")) +
+                " " +
+                matching,
+                where,
+                transactionAudit.getName()
+            )
+                .setParameter("rev", revision)
+                .executeUpdate();
+            query(
+                auditUnchangedRows(Category.class, "category", "c", "c.id in (select t.category_id " + matching + ")"),
+                where,
+                auditTable(Category.class).getName()
+            )
+                .setParameter("rev", revision)
+                .executeUpdate();
+        } else if (auditInQueue()) {
+            // As for the captured deletes, the entry holds no data but the owner, and the category the transaction leaves
+            Map<String, String> deleted = new HashMap<>();
+            deleted.put("created_by", "t.created_by");
+            deleted.put("previous_category_id", "t.category_id");
+            NativeQuery<?> queue = query(
+                queueChanges(AuditCaptureIntegrator.TRANSACTION, "t", 2, deleted) + matching,
+                where,
+                AUDIT_QUEUE_TABLE
+            );
+            newCapture().forEach(queue::setParameter);
+            queue.executeUpdate();
+        }
+        NativeQuery<?> tombstones = query(
+            "insert into sync_tombstone (change_sequence, entity_name, entity_id, created_by, owner_id, deleted_date) " +
+            "select " +
+            tombstoneChangeSequence +
+            ", 'transaction', t.id, t.created_by, t.owner_id, :now " +
+            matching,
+            where,
+            SYNC_TOMBSTONE_TABLE
+        );
+        if (changeSequence != null) {
+            tombstones.setParameter("changeSequence", changeSequence);
+        }
+        tombstones.setParameter("now", Instant.now()).executeUpdate();
+
+        return query("delete " + matching, where, null).addSynchronizedEntityClass(Transaction.class).executeUpdate();
+    }
+
+    /**
+     * @return the queued values of the changed transactions, selected under an alias: the values of the row but the
+     * written ones, and the category of the row before the change, aliased {@code t}, as the previous category.
+     */
+    private static Map<String, String> queuedTransaction(String alias, Map<String, String> written) {
+        Map<String, String> expressions = new HashMap<>();
+        for (String column : Arrays.asList("amount", "details", "date", "category_id", "created_by")) {
+            expressions.put(column, written.getOrDefault(column, alias + "." + column));
+        }
+        expressions.put("previous_category_id", "t.category_id");
+        return expressions;
+    }
+
+    /**
+     * @return the query, reading the columns of {@link #READ}.
+     */
+    private static NativeQuery<?> readBack(NativeQuery<?> query) {
+        return query
+            .addScalar("id", LongType.INSTANCE)
+            .addScalar("amount", BigDecimalType.INSTANCE)
+            .addScalar("details", StringType.INSTANCE)
+            .addScalar("date", InstantType.INSTANCE)
+            .addScalar("merchant_id", LongType.INSTANCE)
+            .addScalar("version", LongType.INSTANCE)
+            .addScalar("change_sequence", LongType.INSTANCE)
+            .addScalar("category_id", LongType.INSTANCE)
+            .addScalar("category_name", StringType.INSTANCE)
+            .addScalar("category_version", LongType.INSTANCE);
+    }
+
+    private static Transaction toTransaction(Object[] row) {
+        Transaction transaction = new Transaction()
+            .id((Long) row[0])
+            .amount((BigDecimal) row[1])
+            .details((String) row[2])
+            .date((Instant) row[3])
+            .merchantId((Long) row[4]);
+        transaction.setVersion((Long) row[5]);
+        transaction.setChangeSequence((Long) row[6]);
+        if (row[7] != null) {
+            Category category = new Category().id((Long) row[7]).name((String) row[8]);
+            category.setVersion((Long) row[9]);
+            transaction.setCategory(category);
+        }
+        return transaction;
+    }
+
+    /**
+     * @return the values of the columns written by an update, by column: the non {@code null} ones for a partial update.
+     */
+    private static Map<String, TypedParameterValue> columnValues(Transaction values, TypedParameterValue category, boolean partial) {
+        Map<String, TypedParameterValue> columns = new LinkedHashMap<>();
+        columns.put("amount", new TypedParameterValue(BigDecimalType.INSTANCE, values.getAmount()));
+        columns.put("details", new TypedParameterValue(StringType.INSTANCE, values.getDetails()));
+        columns.put("date", new TypedParameterValue(InstantType.INSTANCE, values.getDate()));
+        columns.put("category_id", category);
+        columns.put("merchant_id", new TypedParameterValue(LongType.INSTANCE, values.getMerchantId()));
+        if (partial) {
+            columns.values().removeIf(value -> value.getValue() == null);
+        }
+        return columns;
+    }
+}
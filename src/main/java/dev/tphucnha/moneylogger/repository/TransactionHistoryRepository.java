@@ -0,0 +1,194 @@
+package dev.tphucnha.moneylogger.repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository reading the Envers history of the {@link dev.tphucnha.moneylogger.domain.Transaction} entity.
+ * <p>
+ * The revisions are read from {@code transaction_aud} joined to {@code revinfo}, with only the audited columns: no
+ * entity is instantiated, and the categories are not loaded. They are paged by keyset, newest first, so that a page
+ * costs the same at any depth: the history of a transaction through the primary key {@code (id, rev)} of the audit
+ * table, and the history of a user through the {@code (created_by, rev, id)} index.
+ */
+@Repository
+public class TransactionHistoryRepository {
+
+    private static final String SELECT =
+        "select a.rev, r.revtstmp, a.revtype, a.id, a.amount, a.details, a.date, a.category_id " +
+        "from transaction_aud a join revinfo r on r.rev = a.rev ";
+
+    static final String OWNER_INDEX = "idx_transaction_aud_created_by_rev";
+
+    private static final RowMapper<Revision> REVISION_MAPPER = TransactionHistoryRepository::toRevision;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public TransactionHistoryRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Create the {@code (created_by, rev, id)} index of the audit table, if it does not exist. Hibernate does not create
+     * indexes on the audit tables, and Liquibase runs before Hibernate creates them on a new database.
+     */
+    public void createOwnerIndexIfAbsent() {
+        jdbcTemplate.getJdbcTemplate().execute("create index if not exists " + OWNER_INDEX + " on transaction_aud (created_by, rev, id)");
+    }
+
+    /**
+     * Find the revisions of a transaction of the given owner, newest first.
+     *
+     * @param id             the id of the transaction.
+     * @param owner          the owner of the transaction.
+     * @param beforeRevision only the revisions before this one are returned, {@code null} for the newest.
+     * @param limit          the maximum number of revisions.
+     * @return the revisions.
+     */
+    public List<Revision> findByTransaction(Long id, String owner, Integer beforeRevision, int limit) {
+        return jdbcTemplate.query(
+            SELECT + "where a.id = :id and a.created_by = :owner and a.rev < :beforeRevision order by a.rev desc limit :limit",
+            new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("owner", owner)
+                .addValue("beforeRevision", beforeRevision != null ? beforeRevision : Integer.MAX_VALUE)
+                .addValue("limit", limit),
+            REVISION_MAPPER
+        );
+    }
+
+    /**
+     * Find the revisions of all the transactions of the given owner, newest first.
+     *
+     * @param owner          the owner of the transactions.
+     * @param beforeRevision with {@code beforeId}, the last revision of the previous page: only the revisions before it
+     *                       are returned. {@code null} for the newest.
+     * @param beforeId       the transaction of the last revision of the previous page.
+     * @param limit          the maximum number of revisions.
+     * @return the revisions.
+     */
+    public List<Revision> findByOwner(String owner, Integer beforeRevision, Long beforeId, int limit) {
+        // The redundant bound on rev alone keeps the scan of the index a range scan
+        return jdbcTemplate.query(
+            SELECT +
+            "where a.created_by = :owner and a.rev <= :beforeRevision and (a.rev < :beforeRevision or a.id < :beforeId) " +
+            "order by a.rev desc, a.id desc limit :limit",
+            new MapSqlParameterSource()
+                .addValue("owner", owner)
+                .addValue("beforeRevision", beforeRevision != null ? beforeRevision : Integer.MAX_VALUE)
+                .addValue("beforeId", beforeRevision != null && beforeId != null ? beforeId : Long.MAX_VALUE)
+                .addValue("limit", limit),
+            REVISION_MAPPER
+        );
+    }
+
+    private static Revision toRevision(ResultSet rs, int rowNum) throws SQLException {
+        long categoryId = rs.getLong("category_id");
+        boolean withoutCategory = rs.wasNull();
+        return new Revision(
+            rs.getInt("rev"),
+            Instant.ofEpochMilli(rs.getLong("revtstmp")),
+            rs.getInt("revtype"),
+            rs.getLong("id"),
+            rs.getBigDecimal("amount"),
+            rs.getString("details"),
+            toInstant(rs.getTimestamp("date")),
+            withoutCategory ? null : categoryId
+        );
+    }
+
+    /**
+     * @return the timestamp without time zone in UTC, as written by Hibernate with {@code hibernate.jdbc.time_zone}
+     * set to UTC, as an instant.
+     */
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+    }
+
+    /**
+     * A revision of a transaction, with its audited columns.
+     */
+    public static class Revision {
+
+        private final int revision;
+
+        private final Instant timestamp;
+
+        private final int revisionType;
+
+        private final long transactionId;
+
+        private final BigDecimal amount;
+
+        private final String details;
+
+        private final Instant date;
+
+        private final Long categoryId;
+
+        Revision(
+            int revision,
+            Instant timestamp,
+            int revisionType,
+            long transactionId,
+            BigDecimal amount,
+            String details,
+            Instant date,
+            Long categoryId
+        ) {
+            this.revision = revision;
+            this.timestamp = timestamp;
+            this.revisionType = revisionType;
+            this.transactionId = transactionId;
+            this.amount = amount;
+            this.details = details;
+            this.date = date;
+            this.categoryId = categoryId;
+        }
+
+        public int getRevision() {
+            return revision;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the Envers revision type: 0 for an insert, 1 for an update, 2 for a delete.
+         */
+        public int getRevisionType() {
+            return revisionType;
+        }
+
+        public long getTransactionId() {
+            return transactionId;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public String getDetails() {
+            return details;
+        }
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package dev.tphucnha.moneylogger.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the {@link dev.tphucnha.moneylogger.domain.Transaction} entity, for the paths where
+ * Hibernate is too costly.
+ * <p>
+ * {@link #writeJson} renders the transactions as JSON in PostgreSQL. Each row is built with {@code json_build_object}
+ * and streamed as it is fetched, rather than aggregated with {@code json_agg}, which would materialize the whole
+ * array in the database. The shape is the one of {@code TransactionDTO}:
+ * {@code {"id", "amount", "details", "date", "category": {"id", "name", "version"} | null, "version"}}, in the same order and with the
+ * same JSON types. The only difference is in formatting: {@code date} always has microseconds
+ * (e.g. {@code 2021-05-13T06:37:21.000000Z} where Jackson writes {@code 2021-05-13T06:37:21Z}), which ISO-8601
+ * parsers read as the same instant.
+ */
+@Repository
+public class TransactionJdbcRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    static final String JSON_SELECT =
+        "select json_build_object(" +
+        "'id', t.id, " +
+        "'amount', t.amount, " +
+        "'details', t.details, " +
+        "'date', to_char(t.date, 'YYYY-MM-DD\"T\"HH24:MI:SS.US\"Z\"'), " +
+        "'category', case when c.id is null then null else json_build_object('id', c.id, 'name', c.name, 'version', c.version) end, " +
+        "'version', t.version" +
+        ")::text " +
+        "from transaction t left join category c on c.id = t.category_id";
+
+    /**
+     * The sortable properties of {@code TransactionDTO} and their columns.
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+        "id",
+        "t.id",
+        "amount",
+        "t.amount",
+        "details",
+        "t.details",
+        "date",
+        "t.date",
+        "category.id",
+        "t.category_id",
+        "category.name",
+        "c.name"
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public TransactionJdbcRepository(DataSource dataSource) {
+        JdbcTemplate streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // Fetch rows in chunks from a cursor instead of loading the whole result
+        streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(streamingJdbcTemplate);
+    }
+
+    /**
+     * Check that a sort only uses properties the JDBC queries can sort on.
+     *
+     * @param sort the sort to check.
+     * @throws IllegalArgumentException if a property is not sortable.
+     */
+    public static void checkSortable(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORT_COLUMNS.containsKey(order.getProperty())) {
+                throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            }
+        }
+    }
+
+    /**
+     * Write the matching transactions as a JSON array, rendered by PostgreSQL.
+     * Must be called in a transaction, for the rows to be fetched from a cursor.
+     *
+     * @param where    the filters the transactions should match.
+     * @param pageable the page to write.
+     * @param writer   the writer to write to, which is flushed but not closed.
+     * @throws IOException if the JSON cannot be written.
+     */
+    public void writeJson(SqlWhereBuilder where, Pageable pageable, Writer writer) throws IOException {
+        checkSortable(pageable.getSort());
+        StringBuilder sql = new StringBuilder(JSON_SELECT).append(" where ").append(where.toSql());
+        if (pageable.getSort().isSorted()) {
+            sql.append(" order by ").append(toOrderBy(pageable.getSort()));
+        }
+        MapSqlParameterSource parameters = where.getParameters();
+        if (pageable.isPaged()) {
+            sql.append(" limit :limit offset :offset");
+            parameters.addValue("limit", pageable.getPageSize()).addValue("offset", pageable.getOffset());
+        }
+
+        writer.write('[');
+        boolean[] first = { true };
+        try {
+            jdbcTemplate.query(
+                sql.toString(),
+                parameters,
+                (RowCallbackHandler) rs -> {
+                    try {
+                        if (!first[0]) {
+                            writer.write(',');
+                        }
+                        first[0] = false;
+                        writer.write(rs.getString(1));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.write(']');
+        writer.flush();
+    }
+
+    private static String toOrderBy(Sort sort) {
+        return sort
+            .stream()
+            .map(order -> SORT_COLUMNS.get(order.getProperty()) + (order.isAscending() ? " asc" : " desc"))
+            .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,122 @@
+package dev.tphucnha.moneylogger.repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository managing the monthly partitions of the {@code transaction} table on PostgreSQL, created by the
+ * {@code 20211105000000_partitioned_transaction} changelog.
+ * <p>
+ * A month is held by the {@code transaction_YYYY_MM} partition, and the dates outside of all the months by
+ * {@code transaction_default}. The statements run on the connection of the current transaction.
+ */
+@Repository
+public class TransactionPartitionRepository {
+
+    static final String DEFAULT_PARTITION = "transaction_default";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("transaction_(\\d{4}_\\d{2})");
+
+    /**
+     * Key of the advisory lock taken by the node managing the partitions.
+     */
+    private static final long LOCK_KEY = 0x7472616e73L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionPartitionRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * @return whether the {@code transaction} table is partitioned.
+     */
+    public boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+            "select count(*) from pg_partitioned_table where partrelid = to_regclass('transaction')",
+            Integer.class
+        );
+        return count != null && count > 0;
+    }
+
+    /**
+     * Take the lock of the partition management until the end of the current transaction, if no other node holds it.
+     *
+     * @return whether the lock was taken.
+     */
+    public boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY));
+    }
+
+    /**
+     * @return the partitions of the {@code transaction} table by month, the default partition excluded.
+     */
+    public Map<YearMonth, String> findMonthlyPartitions() {
+        List<String> names = jdbcTemplate.queryForList(
+            "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid where i.inhparent = 'transaction'::regclass",
+            String.class
+        );
+        return names
+            .stream()
+            .map(NAME_PATTERN::matcher)
+            .filter(Matcher::matches)
+            .collect(Collectors.toMap(matcher -> YearMonth.parse(matcher.group(1), NAME_FORMAT), Matcher::group));
+    }
+
+    /**
+     * Create the partition of a month. The transactions of the month held by the default partition are moved to it.
+     *
+     * @param month the month.
+     */
+    public void createPartition(YearMonth month) {
+        String name = "transaction_" + month.format(NAME_FORMAT);
+        // Both bounds are generated, so can be written in the statements, which cannot bind them
+        String from = toLiteral(month.atDay(1).atStartOfDay());
+        String to = toLiteral(month.plusMonths(1).atDay(1).atStartOfDay());
+        jdbcTemplate.execute("create table " + name + " (like transaction including defaults including constraints)");
+        jdbcTemplate.update(
+            "with moved as (delete from " +
+            DEFAULT_PARTITION +
+            " where date >= " +
+            from +
+            " and date < " +
+            to +
+            " returning *) insert into " +
+            name +
+            " select * from moved"
+        );
+        // The indexes of the partitioned table are created on the partition as it is attached
+        jdbcTemplate.execute("alter table transaction attach partition " + name + " for values from (" + from + ") to (" + to + ")");
+    }
+
+    private static String toLiteral(LocalDateTime dateTime) {
+        return "timestamp '" + dateTime + "'";
+    }
+
+    /**
+     * Detach a partition if it holds no transaction, such as once its month is archived. The {@code transaction} table
+     * is locked first, as the detach would, so that no transaction lands in the partition once checked.
+     *
+     * @param name the name of the partition.
+     * @return whether the partition was detached.
+     */
+    public boolean detachPartitionIfEmpty(String name) {
+        jdbcTemplate.execute("lock table transaction in access exclusive mode");
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("select exists (select 1 from " + name + ")", Boolean.class))) {
+            return false;
+        }
+        jdbcTemplate.execute("alter table transaction detach partition " + name);
+        return true;
+    }
+}
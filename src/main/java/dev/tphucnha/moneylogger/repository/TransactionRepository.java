@@ -1,6 +1,7 @@
 package dev.tphucnha.moneylogger.repository;
 
 import dev.tphucnha.moneylogger.domain.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -8,13 +9,40 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data SQL repository for the Transaction entity.
+ * <p>
+ * The transactions of a user are found through the {@link dev.tphucnha.moneylogger.domain.UserKey} of the login, so
+ * that the queries use the {@code owner_id} indexes.
  */
 @SuppressWarnings("unused")
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
-    @Query("select sum(amount) from Transaction where createdBy = :username")
-    BigDecimal getTotalAmountByUser(@Param("username") String username);
+    String OWNED_BY = "t.ownerId = (select k.id from UserKey k where k.login = :owner)";
+
+    @Query("select sum(t.amount) from Transaction t where " + OWNED_BY)
+    BigDecimal getTotalAmountByUser(@Param("owner") String owner);
+
+    @Query("select min(t.date) from Transaction t where " + OWNED_BY)
+    Instant getOldestDateByUser(@Param("owner") String owner);
+
+    @Query("select count(t) from Transaction t where " + OWNED_BY)
+    long countByOwner(@Param("owner") String owner);
+
+    @Query("select t.createdBy from Transaction t where t.id = :id")
+    Optional<String> findCreatedByById(@Param("id") Long id);
+
+    @Query("select max(t.changeSequence) from Transaction t where " + OWNED_BY)
+    Long getLastChangeSequenceByUser(@Param("owner") String owner);
+
+    @Query("select t from Transaction t where " + OWNED_BY + " and t.changeSequence > :changeSequence order by t.changeSequence asc")
+    List<Transaction> findByOwnerAndChangeSequenceGreaterThanOrderByChangeSequenceAsc(
+        @Param("owner") String owner,
+        @Param("changeSequence") Long changeSequence,
+        Pageable pageable
+    );
 }
@@ -0,0 +1,303 @@
+package dev.tphucnha.moneylogger.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable segment file of {@link ArchivedTransaction}s, sorted by date then id, read through a memory mapping.
+ * <p>
+ * The rows are stored in deflated blocks of at most {@code blockSize} rows, followed by a sparse index holding the
+ * range of dates of every block, so that a read of a range of dates only inflates the blocks overlapping it:
+ * <pre>
+ * header: magic (int), version (short), row count (int), block count (int), index offset (long)
+ * blocks: deflated rows
+ * index:  per block, first and last date in epoch seconds (long, long), offset (long), deflated and inflated
+ *         lengths (int, int), row count (int)
+ * row:    id (long), date in epoch seconds and nanoseconds (long, int), amount, details (modified UTF-8),
+ *         category flag (byte) then category id (long)
+ * amount: {@link #MINOR_UNITS} (byte) then minor units (long), or scale (byte), length and bytes of the unscaled value
+ * </pre>
+ * Version 1 files, whose amounts are all scale and unscaled value, are still read.
+ * A segment is written to a temporary file, then moved into place atomically: a segment file is either complete or
+ * absent. Instances are safe for concurrent reads.
+ */
+public final class TransactionSegmentFile {
+
+    static final int MAGIC = 0x4d4c5347;
+
+    static final short VERSION = 2;
+
+    private static final int HEADER_SIZE = 22;
+
+    private static final int INDEX_ENTRY_SIZE = 36;
+
+    private static final int HAS_CATEGORY = 1;
+
+    /**
+     * The scale marking an amount stored as a long of minor units, never the scale of an amount.
+     */
+    private static final int MINOR_UNITS = Byte.MIN_VALUE;
+
+    private final Path path;
+
+    private final ByteBuffer buffer;
+
+    private final int rowCount;
+
+    private final long[] firstSeconds;
+
+    private final long[] lastSeconds;
+
+    private final int[] offsets;
+
+    private final int[] lengths;
+
+    private final int[] inflatedLengths;
+
+    private TransactionSegmentFile(Path path, ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) > VERSION) {
+            throw new IllegalStateException("Not a transaction segment file: " + path);
+        }
+        this.rowCount = buffer.getInt(6);
+        int blockCount = buffer.getInt(10);
+        int indexOffset = Math.toIntExact(buffer.getLong(14));
+        this.firstSeconds = new long[blockCount];
+        this.lastSeconds = new long[blockCount];
+        this.offsets = new int[blockCount];
+        this.lengths = new int[blockCount];
+        this.inflatedLengths = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            int entry = indexOffset + i * INDEX_ENTRY_SIZE;
+            firstSeconds[i] = buffer.getLong(entry);
+            lastSeconds[i] = buffer.getLong(entry + 8);
+            offsets[i] = Math.toIntExact(buffer.getLong(entry + 16));
+            lengths[i] = buffer.getInt(entry + 24);
+            inflatedLengths[i] = buffer.getInt(entry + 28);
+        }
+    }
+
+    /**
+     * Map a segment file in memory.
+     *
+     * @param path the segment file.
+     * @return the segment.
+     * @throws IOException if the file cannot be read.
+     */
+    public static TransactionSegmentFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping remains valid once the channel is closed
+            return new TransactionSegmentFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write a segment file, replacing the file at {@code path} atomically.
+     *
+     * @param path      the segment file.
+     * @param rows      the rows of the segment, sorted by date then id.
+     * @param blockSize the maximum number of rows of a block.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path path, List<ArchivedTransaction> rows, int blockSize) throws IOException {
+        Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                int blockCount = (rows.size() + blockSize - 1) / blockSize;
+                ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+                long offset = HEADER_SIZE;
+                channel.position(offset);
+                for (int start = 0; start < rows.size(); start += blockSize) {
+                    List<ArchivedTransaction> block = rows.subList(start, Math.min(start + blockSize, rows.size()));
+                    byte[] inflated = encode(block);
+                    ByteBuffer deflated = ByteBuffer.wrap(deflate(inflated));
+                    index
+                        .putLong(block.get(0).getDate().getEpochSecond())
+                        .putLong(block.get(block.size() - 1).getDate().getEpochSecond())
+                        .putLong(offset)
+                        .putInt(deflated.remaining())
+                        .putInt(inflated.length)
+                        .putInt(block.size());
+                    offset += deflated.remaining();
+                    writeFully(channel, deflated);
+                }
+                writeFully(channel, index.flip());
+                ByteBuffer header = ByteBuffer
+                    .allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putInt(rows.size())
+                    .putInt(blockCount)
+                    .putLong(offset);
+                channel.position(0);
+                writeFully(channel, header.flip());
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Read the rows of the blocks which may hold dates between {@code from} and {@code to}, in the order of the
+     * segment. The blocks are selected on their range of dates in seconds, so some rows may be out of the range.
+     *
+     * @param from     the first date, or {@code null} for the first row.
+     * @param to       the last date, or {@code null} for the last row.
+     * @param consumer the consumer of the rows.
+     */
+    public void scan(Instant from, Instant to, Consumer<ArchivedTransaction> consumer) {
+        long fromSeconds = from != null ? from.getEpochSecond() : Long.MIN_VALUE;
+        long toSeconds = to != null ? to.getEpochSecond() : Long.MAX_VALUE;
+        for (int block = firstBlockEndingFrom(fromSeconds); block < offsets.length && firstSeconds[block] <= toSeconds; block++) {
+            decode(inflate(block), consumer);
+        }
+    }
+
+    /**
+     * @return all the rows of the segment, sorted by date then id.
+     */
+    public List<ArchivedTransaction> readAll() {
+        List<ArchivedTransaction> rows = new ArrayList<>(rowCount);
+        scan(null, null, rows::add);
+        return rows;
+    }
+
+    /**
+     * @return the first block whose last date is not before {@code fromSeconds}, found in the sparse index.
+     */
+    private int firstBlockEndingFrom(long fromSeconds) {
+        int low = 0;
+        int high = lastSeconds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lastSeconds[middle] < fromSeconds) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private byte[] inflate(int block) {
+        ByteBuffer deflated = buffer.duplicate();
+        deflated.position(offsets[block]).limit(offsets[block] + lengths[block]);
+        byte[] inflated = new byte[inflatedLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            // Inflated straight from the mapped pages
+            inflater.setInput(deflated);
+            int length = 0;
+            while (length < inflated.length && !inflater.finished()) {
+                length += inflater.inflate(inflated, length, inflated.length - length);
+            }
+            return inflated;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted transaction segment file: " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] encode(List<ArchivedTransaction> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (ArchivedTransaction row : rows) {
+                out.writeLong(row.getId());
+                out.writeLong(row.getDate().getEpochSecond());
+                out.writeInt(row.getDate().getNano());
+                if (row.hasAmountMinorUnits()) {
+                    out.writeByte(MINOR_UNITS);
+                    out.writeLong(row.getAmountMinorUnits());
+                } else {
+                    byte[] unscaled = row.getAmount().unscaledValue().toByteArray();
+                    out.writeByte(row.getAmount().scale());
+                    out.writeByte(unscaled.length);
+                    out.write(unscaled);
+                }
+                out.writeUTF(row.getDetails());
+                out.writeByte(row.getCategoryId() != null ? HAS_CATEGORY : 0);
+                if (row.getCategoryId() != null) {
+                    out.writeLong(row.getCategoryId());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] block, Consumer<ArchivedTransaction> consumer) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(block))) {
+            while (in.available() > 0) {
+                long id = in.readLong();
+                Instant date = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                int scale = in.readByte();
+                long amountMinorUnits = 0;
+                BigDecimal decimalAmount = null;
+                if (scale == MINOR_UNITS) {
+                    amountMinorUnits = in.readLong();
+                } else {
+                    byte[] unscaled = new byte[in.readUnsignedByte()];
+                    in.readFully(unscaled);
+                    decimalAmount = new BigDecimal(new BigInteger(unscaled), scale);
+                }
+                String details = in.readUTF();
+                Long categoryId = (in.readByte() & HAS_CATEGORY) != 0 ? in.readLong() : null;
+                consumer.accept(
+                    decimalAmount != null
+                        ? new ArchivedTransaction(id, decimalAmount, details, date, categoryId)
+                        : new ArchivedTransaction(id, amountMinorUnits, details, date, categoryId)
+                );
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] inflated) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(inflated.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(inflated);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dev.tphucnha.moneylogger.repository;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.domain.UserKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Resolves the {@link UserKey} of a login, which the hot tables store and index instead of the login.
+ * <p>
+ * A key is looked up at most once per HTTP request, in the request attributes, then in a Hazelcast map shared by the
+ * nodes of the cluster, and only then in the {@code user_key} table. Keys never change, so are cached without time to
+ * live, once the transaction which read or created them has committed. The statements run on the connection of the
+ * current transaction, as for {@link ChangeSequenceGenerator}, so that it can be used from entity listeners.
+ */
+@Repository
+public class UserKeyStore {
+
+    /**
+     * A key no user has, matching no row.
+     */
+    public static final int NONE = 0;
+
+    static final String MAP_NAME = "user-keys-by-login";
+
+    private static final String REQUEST_ATTRIBUTE = UserKeyStore.class.getName() + ".keys";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DatabasePlatform databasePlatform;
+
+    private final IMap<String, Integer> keys;
+
+    public UserKeyStore(DataSource dataSource, DatabasePlatform databasePlatform, HazelcastInstance hazelcastInstance) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.databasePlatform = databasePlatform;
+        this.keys = hazelcastInstance.getMap(MAP_NAME);
+    }
+
+    /**
+     * @param login the login of a user.
+     * @return the key of the user, or {@link #NONE} if the user has never written anything, so that the predicates on
+     * the key match no row.
+     */
+    public int find(String login) {
+        return lookup(login).orElse(NONE);
+    }
+
+    /**
+     * @param login the login of a user.
+     * @return the key of the user, created if needed.
+     */
+    public int getOrCreate(String login) {
+        return lookup(login).orElseGet(() -> create(login));
+    }
+
+    private Optional<Integer> lookup(String login) {
+        Map<String, Integer> requestKeys = requestKeys();
+        Integer key = requestKeys != null ? requestKeys.get(login) : null;
+        if (key == null) {
+            key = keys.get(login);
+        }
+        if (key == null) {
+            key = select(login);
+            if (key != null) {
+                cache(login, key);
+            }
+        }
+        if (key != null && requestKeys != null) {
+            requestKeys.put(login, key);
+        }
+        return Optional.ofNullable(key);
+    }
+
+    private int create(String login) {
+        // A key being created by a concurrent transaction is left to the unique constraint, as for the categories
+        jdbcTemplate.update(
+            "insert into user_key (id, login) select " +
+            databasePlatform.nextValue(UserKey.SEQUENCE_NAME) +
+            ", ? where not exists (select 1 from user_key k where k.login = ?)" +
+            (databasePlatform.isPostgreSQL() ? " on conflict (login) do nothing" : ""),
+            login,
+            login
+        );
+        Integer key = select(login);
+        if (key == null) {
+            throw new IllegalStateException("Unable to create the key of " + login);
+        }
+        // Not kept in the request, where it would outlive a rollback
+        cache(login, key);
+        return key;
+    }
+
+    private Integer select(String login) {
+        List<Integer> found = jdbcTemplate.queryForList("select k.id from user_key k where k.login = ?", Integer.class, login);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private void cache(String login, Integer key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            keys.set(login, key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keys.set(login, key);
+                }
+            }
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Integer> requestKeys() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Integer> requestKeys = (Map<String, Integer>) attributes.getAttribute(
+            REQUEST_ATTRIBUTE,
+            RequestAttributes.SCOPE_REQUEST
+        );
+        if (requestKeys == null) {
+            requestKeys = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, requestKeys, RequestAttributes.SCOPE_REQUEST);
+        }
+        return requestKeys;
+    }
+}
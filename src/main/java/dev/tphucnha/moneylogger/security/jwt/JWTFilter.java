@@ -14,15 +14,25 @@ import org.springframework.web.filter.GenericFilterBean;
 /**
  * Filters incoming requests and installs a Spring Security principal if a header corresponding to a valid user is
  * found.
+ * <p>
+ * Browsers' {@code EventSource} cannot send headers, so the server-sent events stream is authenticated by a single-use
+ * {@code ticket} request parameter instead, see {@link StreamTicketProvider}.
  */
 public class JWTFilter extends GenericFilterBean {
 
     public static final String AUTHORIZATION_HEADER = "Authorization";
 
+    public static final String TICKET_PARAMETER = "ticket";
+
+    public static final String EVENT_STREAM_PATH = "/api/changes/stream";
+
     private final TokenProvider tokenProvider;
 
-    public JWTFilter(TokenProvider tokenProvider) {
+    private final StreamTicketProvider streamTicketProvider;
+
+    public JWTFilter(TokenProvider tokenProvider, StreamTicketProvider streamTicketProvider) {
         this.tokenProvider = tokenProvider;
+        this.streamTicketProvider = streamTicketProvider;
     }
 
     @Override
@@ -33,6 +43,11 @@ public class JWTFilter extends GenericFilterBean {
         if (StringUtils.hasText(jwt) && this.tokenProvider.validateToken(jwt)) {
             Authentication authentication = this.tokenProvider.getAuthentication(jwt);
             SecurityContextHolder.getContext().setAuthentication(authentication);
+        } else if (isEventStream(httpServletRequest)) {
+            String ticket = httpServletRequest.getParameter(TICKET_PARAMETER);
+            if (StringUtils.hasText(ticket)) {
+                streamTicketProvider.redeem(ticket).ifPresent(SecurityContextHolder.getContext()::setAuthentication);
+            }
         }
         filterChain.doFilter(servletRequest, servletResponse);
     }
@@ -44,4 +59,8 @@ public class JWTFilter extends GenericFilterBean {
         }
         return null;
     }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        return EVENT_STREAM_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
 }
@@ -0,0 +1,65 @@
+package dev.tphucnha.moneylogger.security.jwt;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues the tickets opening the server-sent events stream.
+ * <p>
+ * Browsers' {@code EventSource} cannot send headers, so the stream is authenticated by a request parameter. A JWT
+ * would be logged with the URL by proxies and kept in the browser history while still valid, so the parameter is an
+ * opaque ticket instead, redeemed once within a few seconds. Tickets are kept in a Hazelcast map, the stream may be
+ * opened on another node of the cluster.
+ */
+@Component
+public class StreamTicketProvider {
+
+    static final String MAP_NAME = "change-feed-stream-tickets";
+
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final IMap<String, Authentication> tickets;
+
+    private final ApplicationProperties.ChangeFeed properties;
+
+    public StreamTicketProvider(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties) {
+        this.tickets = hazelcastInstance.getMap(MAP_NAME);
+        this.properties = applicationProperties.getChangeFeed();
+    }
+
+    /**
+     * @param authentication the authentication of the user opening the stream.
+     * @return a new ticket authenticating the user, once.
+     */
+    public String createTicket(Authentication authentication) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        // The credentials are not kept
+        tickets.set(
+            ticket,
+            new UsernamePasswordAuthenticationToken(authentication.getPrincipal(), null, authentication.getAuthorities()),
+            properties.getTicketTtlSeconds(),
+            TimeUnit.SECONDS
+        );
+        return ticket;
+    }
+
+    /**
+     * @param ticket a ticket.
+     * @return the authentication of the ticket, or empty if it is unknown, expired, or was already redeemed.
+     */
+    public Optional<Authentication> redeem(String ticket) {
+        return Optional.ofNullable(tickets.remove(ticket));
+    }
+}
@@ -0,0 +1,136 @@
+package dev.tphucnha.moneylogger.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.AuditQueueEntry;
+import dev.tphucnha.moneylogger.repository.AuditQueueEntryRepository;
+import dev.tphucnha.moneylogger.repository.AuditQueueWriteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service writing the Envers audit rows from the audit queue, when {@code application.audit.mode} is {@code async}.
+ * <p>
+ * The changes of the audited entities are captured in the {@code audit_queue} table by the transaction changing them,
+ * so the queue holds exactly the committed changes, and survives a crash of the node. The queue is drained every
+ * {@code application.audit.poll-interval-millis}, in batches of {@code batch-size} entries in capture order: the
+ * audit rows of a batch are written and its entries deleted in one transaction, so a batch interrupted by a failure
+ * or a crash is written again by the next drain. The drain runs whatever the mode, so that the entries left when
+ * switching back to the synchronous audit are written too.
+ * <p>
+ * Envers orders the history of an entity by revision number, so the revisions must be allocated in the order the
+ * changes were made. Only one node of the cluster drains the queue at a time, holding a Hazelcast lock: the other
+ * nodes skip their drain while it is held. Batches written concurrently by several nodes would allocate the revisions
+ * of later changes before those of earlier ones.
+ * <p>
+ * The age of the oldest entry left in the queue after a drain is published as the {@code moneylogger.audit.queue.lag}
+ * gauge, in seconds, and the written entries are counted in the {@code moneylogger.audit.queue.written} counter.
+ */
+@Service
+public class AuditQueueService {
+
+    static final String WRITER_LOCK_MAP_NAME = "audit-queue-writer";
+
+    static final String WRITER_LOCK = "writer";
+
+    private final Logger log = LoggerFactory.getLogger(AuditQueueService.class);
+
+    private final AuditQueueEntryRepository auditQueueEntryRepository;
+
+    private final AuditQueueWriteRepository auditQueueWriteRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private final Counter writtenCounter;
+
+    private final IMap<String, Boolean> writerLocks;
+
+    public AuditQueueService(
+        AuditQueueEntryRepository auditQueueEntryRepository,
+        AuditQueueWriteRepository auditQueueWriteRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        HazelcastInstance hazelcastInstance
+    ) {
+        this.writerLocks = hazelcastInstance.getMap(WRITER_LOCK_MAP_NAME);
+        this.auditQueueEntryRepository = auditQueueEntryRepository;
+        this.auditQueueWriteRepository = auditQueueWriteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = applicationProperties.getAudit().getBatchSize();
+        Gauge
+            .builder("moneylogger.audit.queue.lag", lagSeconds, AtomicLong::get)
+            .description("Age of the oldest change not yet written to the audit tables")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        this.writtenCounter =
+            Counter.builder("moneylogger.audit.queue.written").description("Changes written from the audit queue").register(meterRegistry);
+    }
+
+    /**
+     * Drain the audit queue, one batch per transaction, until it has no more unlocked entries. Does nothing while
+     * another node drains it.
+     */
+    @Scheduled(
+        initialDelayString = "${application.audit.poll-interval-millis:1000}",
+        fixedDelayString = "${application.audit.poll-interval-millis:1000}"
+    )
+    public void writePending() {
+        if (!writerLocks.tryLock(WRITER_LOCK)) {
+            log.debug("The audit queue is drained by another node");
+            return;
+        }
+        try {
+            Integer written;
+            do {
+                written = transactionTemplate.execute(status -> writeBatch());
+            } while (written != null && written == batchSize);
+            lagSeconds.set(
+                auditQueueEntryRepository
+                    .findOldestCapturedDate()
+                    .map(oldest -> Math.max(0, Duration.between(oldest, Instant.now()).getSeconds()))
+                    .orElse(0L)
+            );
+        } catch (RuntimeException e) {
+            log.warn("Unable to write the audit queue, retrying at the next poll: {}", e.toString());
+        } finally {
+            writerLocks.unlock(WRITER_LOCK);
+        }
+    }
+
+    /**
+     * @return the age of the oldest change not yet written to the audit tables, at the end of the last drain.
+     */
+    public Duration getLag() {
+        return Duration.ofSeconds(lagSeconds.get());
+    }
+
+    private int writeBatch() {
+        List<AuditQueueEntry> entries = auditQueueEntryRepository.findNextForUpdate(PageRequest.of(0, batchSize));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        auditQueueWriteRepository.write(entries);
+        auditQueueEntryRepository.deleteInBatch(entries);
+        writtenCounter.increment(entries.size());
+        log.debug("Wrote {} changes from the audit queue", entries.size());
+        return entries.size();
+    }
+}
@@ -0,0 +1,84 @@
+package dev.tphucnha.moneylogger.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicates;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache of the ids of the categories of each user, by name key (see
+ * {@link dev.tphucnha.moneylogger.domain.Category#nameKey(String)}), shared by the nodes of the cluster in a Hazelcast
+ * map.
+ * <p>
+ * Ids are only cached once the transaction which read or created them has committed, so that a rolled back category
+ * is never cached. A renamed or deleted category is evicted at once and again after commit, so that a lookup made
+ * meanwhile from its old name cannot leave it cached.
+ */
+@Component
+public class CategoryNameCache {
+
+    static final String MAP_NAME = "category-ids-by-name";
+
+    private final IMap<String, Long> ids;
+
+    private final long ttlSeconds;
+
+    public CategoryNameCache(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties) {
+        this.ids = hazelcastInstance.getMap(MAP_NAME);
+        this.ttlSeconds = applicationProperties.getCategoryNames().getTtlSeconds();
+    }
+
+    /**
+     * @param owner   the login of the owner of the category.
+     * @param nameKey the name key of the category.
+     * @return the id of the category, or empty if it is not cached.
+     */
+    public Optional<Long> get(String owner, String nameKey) {
+        return Optional.ofNullable(ids.get(key(owner, nameKey)));
+    }
+
+    /**
+     * Cache the id of a category, once the current transaction has committed.
+     *
+     * @param owner   the login of the owner of the category.
+     * @param nameKey the name key of the category.
+     * @param id      the id of the category.
+     */
+    public void put(String owner, String nameKey, Long id) {
+        afterCommit(() -> ids.set(key(owner, nameKey), id, ttlSeconds, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Evict a category renamed or deleted in the current transaction.
+     *
+     * @param id the id of the category.
+     */
+    public void evict(Long id) {
+        ids.removeAll(Predicates.equal("this", id));
+        afterCommit(() -> ids.removeAll(Predicates.equal("this", id)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            }
+        );
+    }
+
+    private static String key(String owner, String nameKey) {
+        return owner + ':' + nameKey;
+    }
+}
@@ -4,6 +4,7 @@ import dev.tphucnha.moneylogger.domain.Category;
 import dev.tphucnha.moneylogger.domain.Category_;
 import dev.tphucnha.moneylogger.domain.Transaction_;
 import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
 import dev.tphucnha.moneylogger.security.SecurityUtils;
 import dev.tphucnha.moneylogger.service.criteria.CategoryCriteria;
 import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
@@ -14,6 +15,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.service.QueryService;
 
@@ -30,15 +32,28 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class CategoryQueryService extends QueryService<Category> {
 
+    private static final String ENTITY_NAME = "category";
+
     private final Logger log = LoggerFactory.getLogger(CategoryQueryService.class);
 
     private final CategoryRepository categoryRepository;
 
     private final CategoryMapper categoryMapper;
 
-    public CategoryQueryService(CategoryRepository categoryRepository, CategoryMapper categoryMapper) {
+    private final PagedQueryExecutor pagedQueryExecutor;
+
+    private final UserKeyStore userKeyStore;
+
+    public CategoryQueryService(
+        CategoryRepository categoryRepository,
+        CategoryMapper categoryMapper,
+        PagedQueryExecutor pagedQueryExecutor,
+        UserKeyStore userKeyStore
+    ) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
+        this.pagedQueryExecutor = pagedQueryExecutor;
+        this.userKeyStore = userKeyStore;
     }
 
     /**
@@ -65,7 +80,25 @@ public class CategoryQueryService extends QueryService<Category> {
     public Page<CategoryDTO> findByCriteria(CategoryCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
         final Specification<Category> specification = createSpecification(criteria);
-        return categoryRepository.findAll(specification, page).map(categoryMapper::toDto);
+        return pagedQueryExecutor
+            .findSerially(ENTITY_NAME, () -> categoryRepository.findAll(specification, page))
+            .map(categoryMapper::toDto);
+    }
+
+    /**
+     * Return a {@link Page} of {@link CategoryDTO} which matches the criteria from the database, running the content
+     * and the count queries concurrently on separate read-only connections.
+     * No transaction is held by the caller while both queries run.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page     The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<CategoryDTO> findByCriteriaConcurrently(CategoryCriteria criteria, Pageable page) {
+        log.debug("find by criteria concurrently : {}, page: {}", criteria, page);
+        final Specification<Category> specification = createSpecification(criteria);
+        return pagedQueryExecutor.findConcurrently(ENTITY_NAME, Category.class, specification, page).map(categoryMapper::toDto);
     }
 
     /**
@@ -88,8 +121,9 @@ public class CategoryQueryService extends QueryService<Category> {
      * @return the matching {@link Specification} of the entity.
      */
     protected Specification<Category> createSpecification(CategoryCriteria criteria) {
+        int ownerKey = userKeyStore.find(SecurityUtils.getCurrentUserLogin().orElse(""));
         Specification<Category> specification = Specification.where((root, query, criteriaBuilder) ->
-            criteriaBuilder.equal(root.get(Category_.createdBy), SecurityUtils.getCurrentUserLogin().orElse("")));
+            criteriaBuilder.equal(root.get(Category_.ownerId), ownerKey));
         if (criteria != null) {
             if (criteria.getId() != null) {
                 specification = specification.and(buildRangeSpecification(criteria.getId(), Category_.id));
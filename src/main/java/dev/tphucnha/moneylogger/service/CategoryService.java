@@ -18,10 +18,32 @@ public interface CategoryService {
     CategoryDTO save(CategoryDTO categoryDTO);
 
     /**
-     * Partially updates a category.
+     * Get the id of the category of the current user with the given name, whatever its case, creating the category if
+     * the user has none.
+     * <p>
+     * The id is usually found in a cluster-wide cache. Concurrent creations of the same name are decided by the unique
+     * constraint on the name key of the categories.
+     *
+     * @param name the name of the category.
+     * @return the id of the category.
+     */
+    Long findOrCreateIdByName(String name);
+
+    /**
+     * Update a category of the current user, in one statement guarded by its owner, and by its version when given.
+     *
+     * @param categoryDTO the entity to update.
+     * @return the persisted entity, or empty if the category does not exist.
+     * @throws EntityVersionMismatchException if the category no longer has the version of the DTO.
+     */
+    Optional<CategoryDTO> update(CategoryDTO categoryDTO);
+
+    /**
+     * Partially updates a category, in one statement guarded by its owner, and by its version when given.
      *
      * @param categoryDTO the entity to update partially.
-     * @return the persisted entity.
+     * @return the persisted entity, or empty if the category does not exist.
+     * @throws EntityVersionMismatchException if the category no longer has the version of the DTO.
      */
     Optional<CategoryDTO> partialUpdate(CategoryDTO categoryDTO);
 
@@ -42,9 +64,20 @@ public interface CategoryService {
     Optional<CategoryDTO> findOne(Long id);
 
     /**
-     * Delete the "id" category.
+     * Delete the "id" category. Its transactions are left without category.
      *
      * @param id the id of the entity.
      */
     void delete(Long id);
+
+    /**
+     * Delete the "id" category, moving its transactions to another category of the user in one statement.
+     *
+     * @param id         the id of the entity.
+     * @param reassignTo the id of the category the transactions are moved to, or {@code null} to leave them without
+     *                   category.
+     * @throws org.springframework.dao.InvalidDataAccessResourceUsageException if the target category is the deleted
+     * one, or is not a category of the user.
+     */
+    void delete(Long id, Long reassignTo);
 }
@@ -0,0 +1,162 @@
+package dev.tphucnha.moneylogger.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.dto.ChangeNotificationDTO;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service pushing compact change notifications to the users' change feeds.
+ * <p>
+ * Once the transaction of a change has committed, a notification is published to a Hazelcast topic, so that every
+ * node of the cluster delivers it to the subscribers of the entity's owner it serves locally.
+ * <p>
+ * The new total amount of the owner is only read by the nodes serving a subscriber of the owner, once per change, so
+ * the changes of users without an open feed cost no query.
+ */
+@Service
+public class ChangeFeedService {
+
+    public static final String TOPIC_NAME = "moneylogger-change-feed";
+
+    private final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private final Map<String, Set<Consumer<ChangeNotificationDTO>>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final ITopic<ChangeNotificationDTO> topic;
+
+    private final TransactionRepository transactionRepository;
+
+    private final TransactionArchiveService transactionArchiveService;
+
+    private final Executor executor;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Timer fanOutTimer;
+
+    public ChangeFeedService(
+        HazelcastInstance hazelcastInstance,
+        TransactionRepository transactionRepository,
+        TransactionArchiveService transactionArchiveService,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry
+    ) {
+        this.topic = hazelcastInstance.getTopic(TOPIC_NAME);
+        this.transactionRepository = transactionRepository;
+        this.transactionArchiveService = transactionArchiveService;
+        this.executor = taskExecutor;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        meterRegistry.gauge("moneylogger.changefeed.connections", connections);
+        this.fanOutTimer =
+            Timer
+                .builder("moneylogger.changefeed.fanout")
+                .description("Delay between the publication of a change after commit and its delivery to the subscribers")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void listen() {
+        topic.addMessageListener(message -> deliver(message.getMessageObject()));
+    }
+
+    /**
+     * Subscribe to the changes of a user.
+     *
+     * @param owner    the login of the user.
+     * @param consumer the consumer of the notifications, called from a task executor thread.
+     * @return the action cancelling the subscription, which may safely be called several times.
+     */
+    public Runnable subscribe(String owner, Consumer<ChangeNotificationDTO> consumer) {
+        log.debug("Subscribing to the change feed of : {}", owner);
+        subscribers.compute(
+            owner,
+            (key, consumers) -> {
+                Set<Consumer<ChangeNotificationDTO>> result = consumers == null ? new CopyOnWriteArraySet<>() : consumers;
+                result.add(consumer);
+                return result;
+            }
+        );
+        connections.incrementAndGet();
+        AtomicBoolean subscribed = new AtomicBoolean(true);
+        return () -> {
+            if (subscribed.compareAndSet(true, false)) {
+                log.debug("Unsubscribing from the change feed of : {}", owner);
+                subscribers.computeIfPresent(
+                    owner,
+                    (key, consumers) -> {
+                        consumers.remove(consumer);
+                        return consumers.isEmpty() ? null : consumers;
+                    }
+                );
+                connections.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Publish a change to the cluster, once its transaction has committed, off the request thread.
+     *
+     * @param event the change.
+     */
+    @Async
+    @TransactionalEventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        log.debug("Publishing change : {}", event);
+        ChangeNotificationDTO notification = new ChangeNotificationDTO();
+        notification.setEntityName(event.getEntityName());
+        notification.setEntityId(event.getEntityId());
+        notification.setType(event.getType().name());
+        notification.setChangeSequence(event.getChangeSequence());
+        notification.setOwner(event.getOwner());
+        notification.setEmittedAt(System.currentTimeMillis());
+        topic.publish(notification);
+    }
+
+    private void deliver(ChangeNotificationDTO notification) {
+        Set<Consumer<ChangeNotificationDTO>> consumers = subscribers.get(notification.getOwner());
+        if (consumers == null || consumers.isEmpty()) {
+            return;
+        }
+        // Do not block the Hazelcast event thread on slow clients
+        executor.execute(
+            () -> {
+                if (SyncService.TRANSACTION.equals(notification.getEntityName())) {
+                    notification.setTotalAmount(readOnlyTransactionTemplate.execute(status -> getTotalAmount(notification.getOwner())));
+                }
+                consumers.forEach(consumer -> consumer.accept(notification));
+                fanOutTimer.record(System.currentTimeMillis() - notification.getEmittedAt(), TimeUnit.MILLISECONDS);
+            }
+        );
+    }
+
+    private BigDecimal getTotalAmount(String owner) {
+        return transactionArchiveService.addArchivedTotalAmount(owner, transactionRepository.getTotalAmountByUser(owner));
+    }
+}
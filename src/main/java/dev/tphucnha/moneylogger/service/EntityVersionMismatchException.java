@@ -0,0 +1,31 @@
+package dev.tphucnha.moneylogger.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Thrown when an entity is updated with the version it was read at, but was changed by someone else since.
+ */
+public class EntityVersionMismatchException extends OptimisticLockingFailureException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String VERSION_MISMATCH = "versionmismatch";
+
+    private final String entityName;
+
+    private final Long expectedVersion;
+
+    public EntityVersionMismatchException(String entityName, Long id, Long expectedVersion) {
+        super("The " + entityName + " " + id + " is no longer at version " + expectedVersion);
+        this.entityName = entityName;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,33 @@
+package dev.tphucnha.moneylogger.service;
+
+/**
+ * Thrown by the {@link IdempotencyService} when a request with an idempotency key is neither executed nor replayed.
+ */
+public class IdempotencyKeyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String KEY_INVALID = "idempotencykeyinvalid";
+
+    public static final String KEY_REUSED = "idempotencykeyreused";
+
+    public static final String IN_PROGRESS = "idempotencyinprogress";
+
+    private final String entityName;
+
+    private final String reason;
+
+    public IdempotencyKeyException(String message, String entityName, String reason) {
+        super(message);
+        this.entityName = entityName;
+        this.reason = reason;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,257 @@
+package dev.tphucnha.moneylogger.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service making create requests idempotent, when clients send an {@code Idempotency-Key} header.
+ * <p>
+ * The first request with a key claims it in a Hazelcast map, keyed by user and key, and its successful response is
+ * stored there for {@code application.idempotency.ttl-seconds}. Retries get the stored response without touching the
+ * database. Retries arriving while the first request still runs wait for its response, so concurrent duplicates
+ * result in a single insert; they get a conflict if it does not complete in time. A key reused with another request
+ * body is rejected.
+ * <p>
+ * Failed requests release their key, so that they can be retried. The claim of a request expires after
+ * {@code application.idempotency.pending-ttl-seconds}, in case its node crashes before storing the response.
+ * <p>
+ * Requests are counted in the {@code moneylogger.idempotency.requests} counter, tagged by entity and outcome, from
+ * which the replay rate is derived.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    public static final String OUTCOME_EXECUTED = "executed";
+
+    public static final String OUTCOME_REPLAYED = "replayed";
+
+    public static final String OUTCOME_COALESCED = "coalesced";
+
+    static final String MAP_NAME = "idempotency-keys";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final long MAX_POLL_INTERVAL_MILLIS = 200;
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IMap<String, StoredResponse> responses;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.Idempotency properties;
+
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyService(
+        HazelcastInstance hazelcastInstance,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.responses = hazelcastInstance.getMap(MAP_NAME);
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getIdempotency();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Execute a request at most once per idempotency key of the current user.
+     *
+     * @param entityName the name of the created entity, used as a metric tag.
+     * @param key        the idempotency key sent by the client, or {@code null} to always execute the request.
+     * @param request    the request body, which retries must repeat.
+     * @param bodyType   the type of the response body, to read it back when replayed.
+     * @param action     the execution of the request.
+     * @return the response of the request, executed or replayed.
+     * @throws IdempotencyKeyException if the key is invalid, used by another request, or still in progress.
+     */
+    public <T> ResponseEntity<T> execute(
+        String entityName,
+        String key,
+        Object request,
+        TypeReference<T> bodyType,
+        Supplier<ResponseEntity<T>> action
+    ) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException("Invalid idempotency key", entityName, IdempotencyKeyException.KEY_INVALID);
+        }
+        String mapKey = SecurityUtils.getCurrentUserLogin().orElse("") + ':' + key;
+        StoredResponse pending = StoredResponse.pending(fingerprint(entityName, request));
+
+        long deadline = System.currentTimeMillis() + properties.getWaitTimeoutMillis();
+        long pollInterval = 10;
+        boolean waited = false;
+        while (true) {
+            StoredResponse existing = responses.putIfAbsent(mapKey, pending, properties.getPendingTtlSeconds(), TimeUnit.SECONDS);
+            if (existing == null) {
+                return executeClaimed(entityName, mapKey, pending, action);
+            }
+            if (!existing.fingerprint.equals(pending.fingerprint)) {
+                count(entityName, IdempotencyKeyException.KEY_REUSED);
+                throw new IdempotencyKeyException(
+                    "Idempotency key already used by another request",
+                    entityName,
+                    IdempotencyKeyException.KEY_REUSED
+                );
+            }
+            if (existing.completed) {
+                count(entityName, waited ? OUTCOME_COALESCED : OUTCOME_REPLAYED);
+                return replay(existing, bodyType);
+            }
+            if (System.currentTimeMillis() + pollInterval > deadline || !pause(pollInterval)) {
+                count(entityName, IdempotencyKeyException.IN_PROGRESS);
+                throw new IdempotencyKeyException(
+                    "A request with this idempotency key is in progress",
+                    entityName,
+                    IdempotencyKeyException.IN_PROGRESS
+                );
+            }
+            waited = true;
+            pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private <T> ResponseEntity<T> executeClaimed(
+        String entityName,
+        String mapKey,
+        StoredResponse pending,
+        Supplier<ResponseEntity<T>> action
+    ) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            responses.remove(mapKey, pending);
+            throw e;
+        }
+        count(entityName, OUTCOME_EXECUTED);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            responses.remove(mapKey, pending);
+            return response;
+        }
+        try {
+            StoredResponse completed = pending.complete(response, objectMapper.writeValueAsString(response.getBody()));
+            responses.set(mapKey, completed, properties.getTtlSeconds(), TimeUnit.SECONDS);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not store the response of idempotency key {}: {}", mapKey, e.getMessage());
+            responses.remove(mapKey, pending);
+        }
+        return response;
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, TypeReference<T> bodyType) {
+        HttpHeaders headers = new HttpHeaders();
+        stored.headers.forEach(headers::addAll);
+        headers.set(REPLAYED_HEADER, "true");
+        try {
+            return ResponseEntity.status(stored.status).headers(headers).body(objectMapper.readValue(stored.body, bodyType));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read a stored response", e);
+        }
+    }
+
+    private String fingerprint(String entityName, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(entityName.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint the request", e);
+        }
+    }
+
+    private boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void count(String entityName, String outcome) {
+        meterRegistry.counter("moneylogger.idempotency.requests", "entity", entityName, "outcome", outcome).increment();
+    }
+
+    /**
+     * Entry of the Hazelcast map: the claim of a running request, or its stored response.
+     */
+    static final class StoredResponse implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String token;
+
+        private final String fingerprint;
+
+        private final boolean completed;
+
+        private final int status;
+
+        private final LinkedHashMap<String, ArrayList<String>> headers;
+
+        private final String body;
+
+        private StoredResponse(
+            String token,
+            String fingerprint,
+            boolean completed,
+            int status,
+            LinkedHashMap<String, ArrayList<String>> headers,
+            String body
+        ) {
+            this.token = token;
+            this.fingerprint = fingerprint;
+            this.completed = completed;
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        static StoredResponse pending(String fingerprint) {
+            // The token tells the claims of concurrent requests apart, when one of them is released
+            return new StoredResponse(UUID.randomUUID().toString(), fingerprint, false, 0, new LinkedHashMap<>(), null);
+        }
+
+        StoredResponse complete(ResponseEntity<?> response, String body) {
+            LinkedHashMap<String, ArrayList<String>> headers = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+                headers.put(header.getKey(), new ArrayList<>(header.getValue()));
+            }
+            return new StoredResponse(token, fingerprint, true, response.getStatusCodeValue(), headers, body);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dev.tphucnha.moneylogger.service;
+
+/**
+ * Thrown by the {@link TransactionIngestService} when a request is not accepted in the ingest buffer.
+ */
+public class IngestRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String QUEUE_FULL = "ingestqueuefull";
+
+    public static final String SHUTTING_DOWN = "ingestshuttingdown";
+
+    private final String entityName;
+
+    private final String reason;
+
+    public IngestRejectedException(String message, String entityName, String reason) {
+        super(message);
+        this.entityName = entityName;
+        this.reason = reason;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
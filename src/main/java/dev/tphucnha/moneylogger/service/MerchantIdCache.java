@@ -0,0 +1,84 @@
+package dev.tphucnha.moneylogger.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache of the ids of the merchants of each user, by key (see
+ * {@link dev.tphucnha.moneylogger.domain.Merchant#nameKey(String)}), shared by the nodes of the cluster in a Hazelcast
+ * map.
+ * <p>
+ * As in {@link CategoryNameCache}, ids are only cached once the transaction which read or created them has committed.
+ * Merchants never change, so are never evicted before their time to live.
+ */
+@Component
+public class MerchantIdCache {
+
+    static final String MAP_NAME = "merchant-ids-by-key";
+
+    private final IMap<String, Long> ids;
+
+    private final long ttlSeconds;
+
+    public MerchantIdCache(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties) {
+        this.ids = hazelcastInstance.getMap(MAP_NAME);
+        this.ttlSeconds = applicationProperties.getMerchants().getTtlSeconds();
+    }
+
+    /**
+     * @param owner    the login of the owner of the merchants.
+     * @param nameKeys the keys of the merchants.
+     * @return the cached ids of the merchants, by key.
+     */
+    public Map<String, Long> getAll(String owner, Collection<String> nameKeys) {
+        Set<String> keys = nameKeys.stream().map(nameKey -> key(owner, nameKey)).collect(Collectors.toSet());
+        Map<String, Long> cached = new HashMap<>();
+        // Fetched in one call to the cluster, however many keys
+        ids.getAll(keys).forEach((key, id) -> cached.put(key.substring(owner.length() + 1), id));
+        return cached;
+    }
+
+    /**
+     * Cache the ids of merchants, once the current transaction has committed.
+     *
+     * @param owner the login of the owner of the merchants.
+     * @param idsByNameKey the ids of the merchants, by key.
+     */
+    public void putAll(String owner, Map<String, Long> idsByNameKey) {
+        if (idsByNameKey.isEmpty()) {
+            return;
+        }
+        Map<String, Long> entries = new HashMap<>();
+        idsByNameKey.forEach((nameKey, id) -> entries.put(key(owner, nameKey), id));
+        afterCommit(() -> entries.forEach((key, id) -> ids.set(key, id, ttlSeconds, TimeUnit.SECONDS)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            }
+        );
+    }
+
+    private static String key(String owner, String nameKey) {
+        return owner + ':' + nameKey;
+    }
+}
@@ -0,0 +1,219 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.Merchant;
+import dev.tphucnha.moneylogger.repository.MerchantBulkRepository;
+import dev.tphucnha.moneylogger.repository.MerchantRepository;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.dto.MerchantTotalDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service managing the {@link Merchant} dictionary of each user.
+ * <p>
+ * Every write of a transaction resolves the merchant of its details: from the {@link MerchantIdCache} first, then
+ * from the database, creating the merchant when the user has none of that key. Transactions written before the
+ * dictionary are backfilled in the background, so that the merchant aggregates, grouped on the merchant id instead of
+ * the details, eventually cover all of them.
+ */
+@Service
+@Transactional
+public class MerchantService {
+
+    private final Logger log = LoggerFactory.getLogger(MerchantService.class);
+
+    private final MerchantRepository merchantRepository;
+
+    private final MerchantBulkRepository merchantBulkRepository;
+
+    private final MerchantIdCache merchantIdCache;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int backfillBatchSize;
+
+    /**
+     * Set once a run of the backfill has found no transaction without merchant, which every write now resolves.
+     */
+    private final AtomicBoolean backfilled = new AtomicBoolean();
+
+    public MerchantService(
+        MerchantRepository merchantRepository,
+        MerchantBulkRepository merchantBulkRepository,
+        MerchantIdCache merchantIdCache,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.merchantRepository = merchantRepository;
+        this.merchantBulkRepository = merchantBulkRepository;
+        this.merchantIdCache = merchantIdCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillBatchSize = applicationProperties.getMerchants().getBackfillBatchSize();
+    }
+
+    /**
+     * @param owner   the login of the owner of the transaction.
+     * @param details the details of the transaction.
+     * @return the id of the merchant of the details, created if needed, or {@code null} if there are no details.
+     */
+    public Long resolveId(String owner, String details) {
+        if (details == null) {
+            return null;
+        }
+        return resolveIds(owner, List.of(details)).get(details);
+    }
+
+    /**
+     * Resolve the merchants of the details of many transactions, with one cache call and one query for all of them.
+     *
+     * @param owner   the login of the owner of the transactions.
+     * @param details the details of the transactions.
+     * @return the id of the merchant of each of the details, created if needed.
+     */
+    public Map<String, Long> resolveIds(String owner, Collection<String> details) {
+        // The first details of a key name the merchant when it is created
+        Map<String, String> namesByKey = new LinkedHashMap<>();
+        for (String detail : details) {
+            if (detail != null) {
+                namesByKey.putIfAbsent(Merchant.nameKey(detail), detail);
+            }
+        }
+        Map<String, Long> idsByKey = new HashMap<>();
+        if (!namesByKey.isEmpty()) {
+            idsByKey.putAll(merchantIdCache.getAll(owner, namesByKey.keySet()));
+        }
+        List<String> missing = namesByKey.keySet().stream().filter(key -> !idsByKey.containsKey(key)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            Map<String, Long> found = merchantRepository
+                .findByCreatedByAndNameKeyIn(owner, missing)
+                .stream()
+                .collect(Collectors.toMap(Merchant::getNameKey, Merchant::getId));
+            for (String key : missing) {
+                found.computeIfAbsent(key, nameKey -> create(owner, namesByKey.get(nameKey), nameKey));
+            }
+            idsByKey.putAll(found);
+            merchantIdCache.putAll(owner, found);
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        for (String detail : details) {
+            if (detail != null) {
+                ids.put(detail, idsByKey.get(Merchant.nameKey(detail)));
+            }
+        }
+        return ids;
+    }
+
+    private Long create(String owner, String name, String nameKey) {
+        return merchantBulkRepository
+            .insertIfAbsent(owner, name, nameKey)
+            .orElseGet(
+                () ->
+                    // Created by a concurrent transaction, which has committed since the lookup
+                    merchantRepository
+                        .findByCreatedByAndNameKeyIn(owner, List.of(nameKey))
+                        .stream()
+                        .findFirst()
+                        .map(Merchant::getId)
+                        .orElseThrow(() -> new DataIntegrityViolationException("Merchant not found after conflict: " + nameKey))
+            );
+    }
+
+    /**
+     * Get the merchants of the current user with the most transactions.
+     *
+     * @param size the maximum number of merchants to return.
+     * @return the number and total amount of the transactions of the merchants, by descending number of transactions.
+     */
+    @Transactional(readOnly = true)
+    public List<MerchantTotalDTO> getTotals(int size) {
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        log.debug("Request to get the totals of the Merchants of {}", owner);
+        List<MerchantRepository.MerchantTotal> totals = merchantRepository.findTotalsByOwner(owner, PageRequest.of(0, size));
+        if (totals.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> merchantIds = totals.stream().map(MerchantRepository.MerchantTotal::getMerchantId).collect(Collectors.toList());
+        Map<Long, String> names = merchantRepository
+            .findByIdInAndCreatedBy(merchantIds, owner)
+            .stream()
+            .collect(Collectors.toMap(Merchant::getId, Merchant::getName));
+        return totals
+            .stream()
+            .map(
+                total ->
+                    new MerchantTotalDTO(total.getMerchantId(), names.get(total.getMerchantId()), total.getCount(), total.getTotalAmount())
+            )
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Backfill the merchant of the transactions written before the dictionary, one batch of distinct details per
+     * transaction, until none is left.
+     */
+    @Scheduled(
+        initialDelayString = "${application.merchants.backfill-interval-millis:60000}",
+        fixedDelayString = "${application.merchants.backfill-interval-millis:60000}"
+    )
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillMerchants() {
+        if (backfilled.get()) {
+            return;
+        }
+        try {
+            long updated = 0;
+            Integer batch;
+            do {
+                batch = transactionTemplate.execute(status -> backfillBatch());
+                updated += batch != null ? batch : 0;
+            } while (batch != null && batch > 0);
+            backfilled.set(true);
+            if (updated > 0) {
+                log.info("Backfilled the merchant of {} transactions", updated);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to backfill the merchants of the transactions, retrying at the next run: {}", e.toString());
+        }
+    }
+
+    /**
+     * Resolve the merchants of one batch of distinct details of transactions without merchant.
+     *
+     * @return the number of transactions updated, 0 when all the transactions have a merchant.
+     */
+    int backfillBatch() {
+        List<String[]> rows = merchantBulkRepository.findDetailsWithoutMerchant(backfillBatchSize);
+        Map<String, List<String>> detailsByOwner = rows
+            .stream()
+            .collect(Collectors.groupingBy(row -> row[0], LinkedHashMap::new, Collectors.mapping(row -> row[1], Collectors.toList())));
+        int updated = 0;
+        for (Map.Entry<String, List<String>> ownerDetails : detailsByOwner.entrySet()) {
+            String owner = ownerDetails.getKey();
+            Map<Long, List<String>> detailsByMerchant = resolveIds(owner, ownerDetails.getValue())
+                .entrySet()
+                .stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+            for (Map.Entry<Long, List<String>> merchantDetails : detailsByMerchant.entrySet()) {
+                updated += merchantBulkRepository.setMerchant(owner, merchantDetails.getValue(), merchantDetails.getKey());
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,132 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.OutboxEvent;
+import dev.tphucnha.moneylogger.repository.OutboxEventRepository;
+import dev.tphucnha.moneylogger.service.dto.OutboxEventDTO;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
+import dev.tphucnha.moneylogger.service.mapper.OutboxEventMapper;
+import dev.tphucnha.moneylogger.service.outbox.OutboxSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service of the transactional outbox, the reliable feed of the changes of the synchronized entities for the
+ * downstream consumers (caches of other nodes, analytics, notifications).
+ * <p>
+ * Every {@link EntityChangedEvent} is recorded as an {@link OutboxEvent} just before its transaction commits, so a
+ * change is recorded if and only if it is committed, without adding a remote call to the write.
+ * <p>
+ * Every node drains the outbox every {@code application.outbox.poll-interval-millis}, in batches of
+ * {@code batch-size} events: each batch is locked with {@code for update skip locked}, so that the nodes drain
+ * distinct batches concurrently, published to all the {@link OutboxSink}s, and deleted in the same transaction.
+ * A batch which fails to publish is left in the outbox and published again at the next poll, so events are delivered
+ * at least once, in the order they were recorded within a batch. Consumers needing the order of the changes of an
+ * entity should use their change sequence.
+ * <p>
+ * The published events are counted in the {@code moneylogger.outbox.published} counter.
+ */
+@Service
+public class OutboxService {
+
+    private final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final OutboxEventMapper outboxEventMapper;
+
+    private final List<OutboxSink> sinks;
+
+    private final EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final Counter publishedCounter;
+
+    public OutboxService(
+        OutboxEventRepository outboxEventRepository,
+        OutboxEventMapper outboxEventMapper,
+        ObjectProvider<OutboxSink> sinks,
+        EntityManager em,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventMapper = outboxEventMapper;
+        this.sinks = sinks.orderedStream().collect(Collectors.toList());
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = applicationProperties.getOutbox().getBatchSize();
+        this.publishedCounter =
+            Counter.builder("moneylogger.outbox.published").description("Events published from the outbox").register(meterRegistry);
+    }
+
+    /**
+     * Record a change in the outbox, in the transaction of the change.
+     *
+     * @param event the change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void record(EntityChangedEvent event) {
+        log.debug("Recording change in the outbox : {}", event);
+        if (event.getChangeSequence() == null) {
+            // The change sequence of a saved entity is assigned at flush time
+            em.flush();
+        }
+        outboxEventRepository.save(
+            new OutboxEvent()
+                .entityName(event.getEntityName())
+                .entityId(event.getEntityId())
+                .createdBy(event.getOwner())
+                .changeType(event.getType().name())
+                .changeSequence(event.getChangeSequence())
+        );
+    }
+
+    /**
+     * Drain the outbox, one batch per transaction, until it has no more unlocked events.
+     */
+    @Scheduled(
+        initialDelayString = "${application.outbox.poll-interval-millis:1000}",
+        fixedDelayString = "${application.outbox.poll-interval-millis:1000}"
+    )
+    public void publishPending() {
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch());
+            } while (published != null && published == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Unable to publish the outbox, retrying at the next poll: {}", e.toString());
+        }
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findNextForUpdate(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<OutboxEventDTO> eventDTOs = outboxEventMapper.toDto(events);
+        sinks.forEach(sink -> sink.publish(eventDTOs));
+        outboxEventRepository.deleteInBatch(events);
+        publishedCounter.increment(events.size());
+        log.debug("Published {} events from the outbox", events.size());
+        return events.size();
+    }
+}
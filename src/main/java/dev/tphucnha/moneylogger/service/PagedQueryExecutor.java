@@ -0,0 +1,332 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executes the content and the count queries of a paged listing.
+ * <p>
+ * In serial mode both queries run one after the other in the caller's transaction, as Spring Data does.
+ * In concurrent mode each query runs in its own read-only transaction (hence on its own connection) on the
+ * bounded {@code queryExecutor}, and the results are joined into a {@link Page}. If one query fails, the statement
+ * of the other one is cancelled, which releases its connection.
+ * <p>
+ * Both modes are timed in the {@code moneylogger.query.page} timer, tagged by entity and mode, with a percentile
+ * histogram so that their tail latencies can be compared.
+ * <p>
+ * With {@code application.query.stateless-reads}, the queries run in a read-only transaction do not flush the
+ * persistence context, and their entities are loaded read-only (without a snapshot of their state), streamed, and
+ * detached as soon as they are mapped: the persistence context holds at most one of them at a time. In a read-write
+ * transaction the queries run as usual, since the caller may still change the entities it reads.
+ */
+@Component
+public class PagedQueryExecutor {
+
+    public static final String MODE_SERIAL = "serial";
+
+    public static final String MODE_CONCURRENT = "concurrent";
+
+    private static final int STATELESS_FETCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(PagedQueryExecutor.class);
+
+    private final EntityManager em;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Executor executor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ApplicationProperties applicationProperties;
+
+    public PagedQueryExecutor(
+        EntityManager em,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("queryExecutor") Executor queryExecutor,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.em = em;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.readOnlyTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // The specifications read the current user, so the security context must follow the queries
+        this.executor = new DelegatingSecurityContextExecutor(queryExecutor);
+        this.meterRegistry = meterRegistry;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Time a paged query executed serially by the caller.
+     *
+     * @param entityName the name of the queried entity, used as a metric tag.
+     * @param query      the query returning the page.
+     * @return the page.
+     */
+    public <T> Page<T> findSerially(String entityName, Supplier<Page<T>> query) {
+        return timer(entityName, MODE_SERIAL).record(query);
+    }
+
+    /**
+     * Execute the content and the count queries of a paged listing concurrently.
+     * The caller should not hold a transaction, otherwise it keeps a connection idle while waiting.
+     *
+     * @param domainClass   the queried entity class.
+     * @param entityName    the name of the queried entity, used as a metric tag.
+     * @param specification the filters the entities should match.
+     * @param pageable      the page which should be returned.
+     * @return the page of matching entities.
+     */
+    public <T> Page<T> findConcurrently(String entityName, Class<T> domainClass, Specification<T> specification, Pageable pageable) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (pageable.isUnpaged()) {
+                return new PageImpl<>(readOnly(() -> findContent(domainClass, specification, pageable)));
+            }
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            RunningQuery contentQuery = new RunningQuery();
+            RunningQuery countQuery = new RunningQuery();
+            CompletableFuture<List<T>> content = CompletableFuture.supplyAsync(
+                () -> contentQuery.run(() -> findContent(domainClass, specification, pageable)),
+                executor
+            );
+            CompletableFuture<Long> total = CompletableFuture.supplyAsync(
+                () -> countQuery.run(() -> count(domainClass, specification)),
+                executor
+            );
+            cancelOnFailure(content, total, countQuery, failure);
+            cancelOnFailure(total, content, contentQuery, failure);
+            try {
+                return new PageImpl<>(content.join(), pageable, total.join());
+            } catch (CancellationException | CompletionException e) {
+                throw unwrap(failure.get() != null ? failure.get() : e);
+            }
+        } finally {
+            sample.stop(timer(entityName, MODE_CONCURRENT));
+        }
+    }
+
+    /**
+     * Execute the content and, unless the content tells the total, the count queries of a paged listing serially, in
+     * the caller's transaction, mapping the entities as they are read.
+     *
+     * @param domainClass   the queried entity class.
+     * @param specification the filters the entities should match.
+     * @param pageable      the page which should be returned.
+     * @param mapper        the mapping of the entities, to DTOs.
+     * @return the page of the mapped matching entities.
+     */
+    public <T, R> Page<R> findPage(
+        Class<T> domainClass,
+        Specification<T> specification,
+        Pageable pageable,
+        Function<? super T, R> mapper
+    ) {
+        List<R> content = findContent(domainClass, specification, pageable, mapper);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(domainClass, specification));
+    }
+
+    /**
+     * Execute the content query of a paged listing only, in the caller's transaction.
+     *
+     * @param domainClass   the queried entity class.
+     * @param specification the filters the entities should match.
+     * @param pageable      the page which should be returned.
+     * @return the matching entities of the page.
+     */
+    public <T> List<T> findContent(Class<T> domainClass, Specification<T> specification, Pageable pageable) {
+        return findContent(domainClass, specification, pageable, Function.identity());
+    }
+
+    /**
+     * Execute the content query of a paged listing only, in the caller's transaction, mapping the entities as they are
+     * read: with stateless reads, the entities are detached once mapped.
+     *
+     * @param domainClass   the queried entity class.
+     * @param specification the filters the entities should match.
+     * @param pageable      the page which should be returned.
+     * @param mapper        the mapping of the entities, to DTOs.
+     * @return the mapped matching entities of the page.
+     */
+    public <T, R> List<R> findContent(
+        Class<T> domainClass,
+        Specification<T> specification,
+        Pageable pageable,
+        Function<? super T, R> mapper
+    ) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root);
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+        TypedQuery<T> typedQuery = em.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        if (!isStatelessRead()) {
+            return typedQuery.getResultList().stream().map(mapper).collect(Collectors.toList());
+        }
+        typedQuery.setFlushMode(FlushModeType.COMMIT);
+        typedQuery.setHint(QueryHints.HINT_READONLY, true);
+        typedQuery.setHint(QueryHints.HINT_FETCH_SIZE, STATELESS_FETCH_SIZE);
+        try (Stream<T> entities = typedQuery.getResultStream()) {
+            return entities
+                .map(
+                    entity -> {
+                        R result = mapper.apply(entity);
+                        em.detach(entity);
+                        return result;
+                    }
+                )
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Execute the count query of a listing, in the caller's transaction.
+     *
+     * @param domainClass   the queried entity class.
+     * @param specification the filters the entities should match.
+     * @return the number of matching entities.
+     */
+    public <T> long count(Class<T> domainClass, Specification<T> specification) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(domainClass);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        TypedQuery<Long> typedQuery = em.createQuery(query);
+        if (isStatelessRead()) {
+            typedQuery.setFlushMode(FlushModeType.COMMIT);
+        }
+        return typedQuery.getSingleResult();
+    }
+
+    private boolean isStatelessRead() {
+        return applicationProperties.getQuery().isStatelessReads() && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private <R> R readOnly(Supplier<R> work) {
+        return readOnlyTransactionTemplate.execute(status -> work.get());
+    }
+
+    private void cancelOnFailure(
+        CompletableFuture<?> source,
+        CompletableFuture<?> other,
+        RunningQuery otherQuery,
+        AtomicReference<Throwable> failure
+    ) {
+        source.whenComplete(
+            (result, error) -> {
+                if (error != null && failure.compareAndSet(null, error)) {
+                    log.debug("Paged query failed, cancelling its sibling: {}", error.getMessage());
+                    // Cancelling the future does not interrupt the query, its statement is cancelled on the database
+                    otherQuery.cancel();
+                    other.cancel(true);
+                }
+            }
+        );
+    }
+
+    private RuntimeException unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private Timer timer(String entityName, String mode) {
+        return Timer
+            .builder("moneylogger.query.page")
+            .description("Latency of paged listings, content and count queries included")
+            .tag("entity", entityName)
+            .tag("mode", mode)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * A query run in its own read-only transaction, which another thread may cancel: the statement being executed by
+     * its session is cancelled, and the query is not started if cancelled before.
+     */
+    private final class RunningQuery {
+
+        private final AtomicReference<Session> session = new AtomicReference<>();
+
+        private volatile boolean cancelled;
+
+        <R> R run(Supplier<R> work) {
+            return readOnly(
+                () -> {
+                    session.set(em.unwrap(Session.class));
+                    try {
+                        if (cancelled) {
+                            throw new CancellationException("Sibling query failed");
+                        }
+                        return work.get();
+                    } finally {
+                        session.set(null);
+                    }
+                }
+            );
+        }
+
+        void cancel() {
+            cancelled = true;
+            Session running = session.get();
+            if (running != null) {
+                running.cancelQuery();
+            }
+        }
+    }
+}
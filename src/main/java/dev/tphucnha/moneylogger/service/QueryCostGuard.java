@@ -0,0 +1,380 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.criteria.CategoryCriteria;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.InstantFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Guards the listings of {@link TransactionQueryService} and {@link CategoryQueryService} against pathological
+ * criteria, sorts and page sizes.
+ * <p>
+ * For each listing the guard:
+ * <ul>
+ *     <li>rejects sorts on properties which are not backed by an index;</li>
+ *     <li>caps the page size;</li>
+ *     <li>estimates the number of rows read from the criteria shape and the row count of the user, weighting text
+ *     searches which cannot use an index. Costly text searches without a lower date bound get one;</li>
+ *     <li>rejects the listing if it is still too costly, or routes it to the slow lane, where only a few listings run
+ *     at a time.</li>
+ * </ul>
+ * Decisions are counted in the {@code moneylogger.query.guard} counter, tagged by entity, outcome and reason, and the
+ * estimated costs are recorded in the {@code moneylogger.query.guard.cost} summary.
+ * <p>
+ * The row counts of each user are cached in a Hazelcast map, with a time to live and a maximum size per node, see
+ * {@link dev.tphucnha.moneylogger.config.CacheConfiguration}.
+ */
+@Service
+public class QueryCostGuard {
+
+    public static final String TRANSACTION = "transaction";
+
+    public static final String CATEGORY = "category";
+
+    public static final String PAGE_SIZE_CAPPED = "pagesizecapped";
+
+    public static final String DATE_BOUNDED = "datebounded";
+
+    public static final String STATISTICS_MAP_NAME = "query-guard-statistics";
+
+    static final Set<String> TRANSACTION_SORTS = Set.of("id", "date");
+
+    static final Set<String> CATEGORY_SORTS = Set.of("id", "name");
+
+    /**
+     * Weight of the rows read by a {@code contains} search, which cannot use an index.
+     */
+    static final int TEXT_SEARCH_WEIGHT = 4;
+
+    private static final String REJECTED = "rejected";
+
+    private final Logger log = LoggerFactory.getLogger(QueryCostGuard.class);
+
+    private final TransactionRepository transactionRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final ApplicationProperties.QueryGuard properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Semaphore slowLane;
+
+    private final IMap<String, Statistics> statistics;
+
+    public QueryCostGuard(
+        TransactionRepository transactionRepository,
+        CategoryRepository categoryRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        HazelcastInstance hazelcastInstance
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.categoryRepository = categoryRepository;
+        this.properties = applicationProperties.getQueryGuard();
+        this.statistics = hazelcastInstance.getMap(STATISTICS_MAP_NAME);
+        this.meterRegistry = meterRegistry;
+        this.slowLane = new Semaphore(properties.getSlowLanePermits(), true);
+        meterRegistry.gauge(
+            "moneylogger.query.guard.slowlane.active",
+            slowLane,
+            lane -> (double) properties.getSlowLanePermits() - lane.availablePermits()
+        );
+    }
+
+    /**
+     * Check a listing of transactions. Unpaged listings, such as counts, are not capped.
+     *
+     * @param criteria the criteria of the listing.
+     * @param pageable the page of the listing.
+     * @return the decision, with the criteria and page to execute.
+     * @throws QueryRejectedException if the listing must not be executed.
+     */
+    public QueryDecision<TransactionCriteria> checkTransactions(TransactionCriteria criteria, Pageable pageable) {
+        return checkTransactions(criteria, pageable, properties.getMaxPageSize());
+    }
+
+    /**
+     * Check an export of transactions, which allows larger pages than a listing.
+     *
+     * @param criteria the criteria of the export.
+     * @param pageable the page of the export.
+     * @return the decision, with the criteria and page to execute.
+     * @throws QueryRejectedException if the export must not be executed.
+     */
+    public QueryDecision<TransactionCriteria> checkTransactionExport(TransactionCriteria criteria, Pageable pageable) {
+        return checkTransactions(criteria, pageable, properties.getMaxExportPageSize());
+    }
+
+    /**
+     * Check a listing of categories. Unpaged listings, such as counts, are not capped.
+     *
+     * @param criteria the criteria of the listing.
+     * @param pageable the page of the listing.
+     * @return the decision, with the criteria and page to execute.
+     * @throws QueryRejectedException if the listing must not be executed.
+     */
+    public QueryDecision<CategoryCriteria> checkCategories(CategoryCriteria criteria, Pageable pageable) {
+        CategoryCriteria checked = criteria != null ? criteria.copy() : new CategoryCriteria();
+        if (!properties.isEnabled()) {
+            return new QueryDecision<>(CATEGORY, QueryDecision.Outcome.ACCEPTED, checked, pageable, 0, List.of());
+        }
+        checkSort(CATEGORY, pageable.getSort(), CATEGORY_SORTS);
+        List<String> rewrites = new ArrayList<>();
+        Pageable capped = capPageSize(pageable, properties.getMaxPageSize(), rewrites);
+
+        long cost;
+        if (isIdLookup(checked.getId())) {
+            cost = idLookupCost(checked.getId());
+        } else {
+            String owner = currentOwner();
+            Statistics stats = statistics(CATEGORY, owner, () -> new Statistics(categoryRepository.countByOwner(owner), null));
+            cost = stats.rows * (isTextSearch(checked.getName()) ? TEXT_SEARCH_WEIGHT : 1);
+        }
+        return decide(CATEGORY, checked, capped, cost + offset(capped), rewrites);
+    }
+
+    /**
+     * Execute a listing in the lane chosen by the guard.
+     *
+     * @param decision the decision of the guard.
+     * @param query    the listing.
+     * @return the result of the listing.
+     * @throws QueryRejectedException if the slow lane stays busy.
+     */
+    public <R> R execute(QueryDecision<?> decision, Supplier<R> query) {
+        if (decision.getOutcome() != QueryDecision.Outcome.SLOW_LANE) {
+            return query.get();
+        }
+        boolean acquired;
+        try {
+            acquired = slowLane.tryAcquire(properties.getSlowLaneTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw reject(
+                decision.getEntityName(),
+                QueryRejectedException.SLOW_LANE_BUSY,
+                decision.getCost(),
+                "Too many costly queries are running, retry later"
+            );
+        }
+        try {
+            return query.get();
+        } finally {
+            slowLane.release();
+        }
+    }
+
+    private QueryDecision<TransactionCriteria> checkTransactions(TransactionCriteria criteria, Pageable pageable, int maxPageSize) {
+        TransactionCriteria checked = criteria != null ? criteria.copy() : new TransactionCriteria();
+        if (!properties.isEnabled()) {
+            return new QueryDecision<>(TRANSACTION, QueryDecision.Outcome.ACCEPTED, checked, pageable, 0, List.of());
+        }
+        checkSort(TRANSACTION, pageable.getSort(), TRANSACTION_SORTS);
+        List<String> rewrites = new ArrayList<>();
+        Pageable capped = capPageSize(pageable, maxPageSize, rewrites);
+
+        long cost = estimateTransactions(checked) + offset(capped);
+        if (cost > properties.getSlowLaneCost() && isTextSearch(checked.getDetails()) && !hasLowerBound(checked.getDate())) {
+            Instant bound = Instant.now().minus(properties.getTextSearchWindowDays(), ChronoUnit.DAYS);
+            checked.date().setGreaterThanOrEqual(bound);
+            rewrites.add(DATE_BOUNDED);
+            cost = estimateTransactions(checked) + offset(capped);
+        }
+        return decide(TRANSACTION, checked, capped, cost, rewrites);
+    }
+
+    private long estimateTransactions(TransactionCriteria criteria) {
+        if (isIdLookup(criteria.getId())) {
+            return idLookupCost(criteria.getId());
+        }
+        String owner = currentOwner();
+        Statistics stats = statistics(
+            TRANSACTION,
+            owner,
+            () -> new Statistics(transactionRepository.countByOwner(owner), transactionRepository.getOldestDateByUser(owner))
+        );
+        double rows = stats.rows * dateSelectivity(criteria.getDate(), stats.oldest);
+        if (isTextSearch(criteria.getDetails())) {
+            rows *= TEXT_SEARCH_WEIGHT;
+        }
+        return (long) Math.ceil(rows);
+    }
+
+    private <C> QueryDecision<C> decide(String entityName, C criteria, Pageable pageable, long cost, List<String> rewrites) {
+        DistributionSummary
+            .builder("moneylogger.query.guard.cost")
+            .description("Estimated number of rows read by the guarded listings")
+            .tag("entity", entityName)
+            .register(meterRegistry)
+            .record(cost);
+        if (cost > properties.getRejectCost()) {
+            throw reject(entityName, QueryRejectedException.TOO_COSTLY, cost, "The query is too costly, narrow the criteria");
+        }
+        QueryDecision.Outcome outcome;
+        if (cost > properties.getSlowLaneCost()) {
+            outcome = QueryDecision.Outcome.SLOW_LANE;
+        } else if (rewrites.isEmpty()) {
+            outcome = QueryDecision.Outcome.ACCEPTED;
+        } else {
+            outcome = QueryDecision.Outcome.REWRITTEN;
+        }
+        QueryDecision<C> decision = new QueryDecision<>(entityName, outcome, criteria, pageable, cost, rewrites);
+        log.debug("Query guard decision: {}", decision);
+        counter(entityName, outcome.name().toLowerCase(), rewrites.isEmpty() ? "none" : String.join(",", rewrites)).increment();
+        return decision;
+    }
+
+    private void checkSort(String entityName, Sort sort, Set<String> sortable) {
+        for (Sort.Order order : sort) {
+            if (!sortable.contains(order.getProperty())) {
+                throw reject(
+                    entityName,
+                    QueryRejectedException.SORT_NOT_INDEXED,
+                    0,
+                    "Sorting by " + order.getProperty() + " is not supported, use one of " + sortable
+                );
+            }
+        }
+    }
+
+    private Pageable capPageSize(Pageable pageable, int maxPageSize, List<String> rewrites) {
+        if (pageable.isPaged() && pageable.getPageSize() > maxPageSize) {
+            rewrites.add(PAGE_SIZE_CAPPED);
+            return PageRequest.of(pageable.getPageNumber(), maxPageSize, pageable.getSort());
+        }
+        return pageable;
+    }
+
+    private QueryRejectedException reject(String entityName, String reason, long cost, String message) {
+        counter(entityName, REJECTED, reason).increment();
+        log.debug("Query guard rejected a {} query, reason: {}, cost: {}", entityName, reason, cost);
+        return new QueryRejectedException(message, entityName, reason, cost);
+    }
+
+    private Counter counter(String entityName, String outcome, String reason) {
+        return Counter
+            .builder("moneylogger.query.guard")
+            .description("Decisions of the query cost guard")
+            .tag("entity", entityName)
+            .tag("outcome", outcome)
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private Statistics statistics(String entityName, String owner, Supplier<Statistics> loader) {
+        String key = entityName + ":" + owner;
+        Statistics stats = statistics.get(key);
+        if (stats == null) {
+            stats = loader.get();
+            statistics.set(key, stats, properties.getStatisticsTtlSeconds(), TimeUnit.SECONDS);
+        }
+        return stats;
+    }
+
+    private static String currentOwner() {
+        return SecurityUtils.getCurrentUserLogin().orElse("");
+    }
+
+    private static long offset(Pageable pageable) {
+        return pageable.isPaged() ? pageable.getOffset() : 0;
+    }
+
+    private static boolean isIdLookup(Filter<Long> id) {
+        return id != null && (id.getEquals() != null || id.getIn() != null);
+    }
+
+    private static long idLookupCost(Filter<Long> id) {
+        return id.getEquals() != null ? 1 : id.getIn().size();
+    }
+
+    private static boolean isTextSearch(StringFilter filter) {
+        return filter != null && filter.getEquals() == null && (filter.getContains() != null || filter.getDoesNotContain() != null);
+    }
+
+    private static boolean hasLowerBound(InstantFilter filter) {
+        return (
+            filter != null &&
+            (filter.getEquals() != null || filter.getIn() != null || filter.getGreaterThan() != null || filter.getGreaterThanOrEqual() != null)
+        );
+    }
+
+    /**
+     * Estimate the fraction of the rows in a date range, assuming that the dates are spread evenly between the
+     * oldest one and now.
+     */
+    static double dateSelectivity(InstantFilter filter, Instant oldest) {
+        if (filter == null || oldest == null) {
+            return 1;
+        }
+        if (filter.getEquals() != null || filter.getIn() != null) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        Instant lower = max(oldest, max(filter.getGreaterThan(), filter.getGreaterThanOrEqual()));
+        Instant upper = min(now, min(filter.getLessThan(), filter.getLessThanOrEqual()));
+        long span = Duration.between(oldest, now).getSeconds();
+        if (span <= 0) {
+            return 1;
+        }
+        long window = Math.max(0, Duration.between(lower, upper).getSeconds());
+        return Math.min(1, (double) window / span);
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isBefore(b) ? a : b;
+    }
+
+    static final class Statistics implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long rows;
+
+        private final Instant oldest;
+
+        Statistics(long rows, Instant oldest) {
+            this.rows = rows;
+            this.oldest = oldest;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dev.tphucnha.moneylogger.service;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * The decision of the {@link QueryCostGuard} for a listing: the criteria and page to execute, which may have been
+ * rewritten, and the lane to execute them in.
+ *
+ * @param <C> the criteria type.
+ */
+public class QueryDecision<C> {
+
+    public enum Outcome {
+        ACCEPTED,
+        REWRITTEN,
+        SLOW_LANE,
+    }
+
+    private final String entityName;
+
+    private final Outcome outcome;
+
+    private final C criteria;
+
+    private final Pageable pageable;
+
+    private final long cost;
+
+    private final List<String> rewrites;
+
+    QueryDecision(String entityName, Outcome outcome, C criteria, Pageable pageable, long cost, List<String> rewrites) {
+        this.entityName = entityName;
+        this.outcome = outcome;
+        this.criteria = criteria;
+        this.pageable = pageable;
+        this.cost = cost;
+        this.rewrites = List.copyOf(rewrites);
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public C getCriteria() {
+        return criteria;
+    }
+
+    public Pageable getPageable() {
+        return pageable;
+    }
+
+    /**
+     * @return the estimated number of rows the query reads.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * @return the rewrites applied to the criteria or the page, empty if none.
+     */
+    public List<String> getRewrites() {
+        return rewrites;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "QueryDecision{" +
+            "entityName='" +
+            entityName +
+            "'" +
+            ", outcome=" +
+            outcome +
+            ", cost=" +
+            cost +
+            ", rewrites=" +
+            rewrites +
+            "}"
+        );
+    }
+}
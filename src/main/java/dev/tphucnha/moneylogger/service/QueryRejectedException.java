@@ -0,0 +1,47 @@
+package dev.tphucnha.moneylogger.service;
+
+/**
+ * Thrown by the {@link QueryCostGuard} when a listing is not executed.
+ */
+public class QueryRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String SORT_NOT_INDEXED = "sortnotindexed";
+
+    public static final String TOO_COSTLY = "toocostly";
+
+    public static final String SLOW_LANE_BUSY = "slowlanebusy";
+
+    private final String entityName;
+
+    private final String reason;
+
+    private final long cost;
+
+    public QueryRejectedException(String message, String entityName, String reason, long cost) {
+        super(message);
+        this.entityName = entityName;
+        this.reason = reason;
+        this.cost = cost;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * @return whether the same query may succeed later, when the slow lane is less busy.
+     */
+    public boolean isRetryable() {
+        return SLOW_LANE_BUSY.equals(reason);
+    }
+}
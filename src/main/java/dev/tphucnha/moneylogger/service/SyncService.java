@@ -0,0 +1,156 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.domain.AbstractAuditingEntity;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.SyncTombstone;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.ChangeSequenceGenerator;
+import dev.tphucnha.moneylogger.repository.SyncTombstoneRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.dto.SyncDTO;
+import dev.tphucnha.moneylogger.service.dto.TombstoneDTO;
+import dev.tphucnha.moneylogger.service.mapper.CategoryMapper;
+import dev.tphucnha.moneylogger.service.mapper.TransactionMapper;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for the delta synchronization of offline-capable clients.
+ * <p>
+ * Every write of a {@link Transaction} or a {@link Category} stamps it with a new change sequence, and every delete
+ * records a {@link SyncTombstone} with its own change sequence. Changes are read in keyset-paged batches, ordered
+ * by change sequence, from the {@code (owner_id, change_sequence)} indexes.
+ * <p>
+ * The changes of a user commit in the order of their change sequences, see {@link ChangeSequenceGenerator}, and a
+ * batch is read from one snapshot: a change committing after the batch was read always has a greater change sequence
+ * than the batch, so clients resuming from {@link SyncDTO#getNext()} never skip it.
+ * <p>
+ * Rows written before change sequences existed have none, and are only synchronized after their next write: clients
+ * should do a full listing before their first synchronization.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SyncService {
+
+    public static final String TRANSACTION = "transaction";
+
+    public static final String CATEGORY = "category";
+
+    private final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    private final TransactionRepository transactionRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final SyncTombstoneRepository syncTombstoneRepository;
+
+    private final TransactionMapper transactionMapper;
+
+    private final CategoryMapper categoryMapper;
+
+    private final ChangeSequenceGenerator changeSequenceGenerator;
+
+    public SyncService(
+        TransactionRepository transactionRepository,
+        CategoryRepository categoryRepository,
+        SyncTombstoneRepository syncTombstoneRepository,
+        TransactionMapper transactionMapper,
+        CategoryMapper categoryMapper,
+        ChangeSequenceGenerator changeSequenceGenerator
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.categoryRepository = categoryRepository;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.transactionMapper = transactionMapper;
+        this.categoryMapper = categoryMapper;
+        this.changeSequenceGenerator = changeSequenceGenerator;
+    }
+
+    /**
+     * Get the changes of the current user after the given change sequence.
+     *
+     * @param since the last change sequence the client has seen.
+     * @param size  the maximum number of changes to return.
+     * @return the batch of changes.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SyncDTO findChangesSince(long since, int size) {
+        log.debug("Request to get changes since : {}, size: {}", since, size);
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        // One more than requested from each source tells whether another batch follows
+        Pageable batch = PageRequest.of(0, size + 1);
+        List<Transaction> transactions = transactionRepository.findByOwnerAndChangeSequenceGreaterThanOrderByChangeSequenceAsc(
+            owner,
+            since,
+            batch
+        );
+        List<Category> categories = categoryRepository.findByOwnerAndChangeSequenceGreaterThanOrderByChangeSequenceAsc(
+            owner,
+            since,
+            batch
+        );
+        List<SyncTombstone> tombstones = syncTombstoneRepository.findByOwnerAndChangeSequenceGreaterThanOrderByChangeSequenceAsc(
+            owner,
+            since,
+            batch
+        );
+
+        // The three sources share one sequence, so the first "size" values of their merge bound the batch
+        List<Long> sequences = Stream
+            .of(
+                transactions.stream().map(AbstractAuditingEntity::getChangeSequence),
+                categories.stream().map(AbstractAuditingEntity::getChangeSequence),
+                tombstones.stream().map(SyncTombstone::getChangeSequence)
+            )
+            .flatMap(s -> s)
+            .sorted()
+            .limit(size + 1L)
+            .collect(Collectors.toList());
+        boolean hasMore = sequences.size() > size;
+        long next = sequences.isEmpty() ? since : sequences.get(Math.min(size, sequences.size()) - 1);
+
+        SyncDTO result = new SyncDTO();
+        result.setTransactions(
+            transactions.stream().filter(t -> t.getChangeSequence() <= next).map(transactionMapper::toDto).collect(Collectors.toList())
+        );
+        result.setCategories(
+            categories.stream().filter(c -> c.getChangeSequence() <= next).map(categoryMapper::toDto).collect(Collectors.toList())
+        );
+        result.setDeleted(
+            tombstones
+                .stream()
+                .filter(t -> t.getChangeSequence() <= next)
+                .map(t -> new TombstoneDTO(t.getEntityName(), t.getEntityId(), t.getChangeSequence()))
+                .collect(Collectors.toList())
+        );
+        result.setNext(next);
+        result.setHasMore(hasMore);
+        return result;
+    }
+
+    /**
+     * Record the deletion of a synchronized entity.
+     *
+     * @param entityName the name of the deleted entity.
+     * @param entity     the deleted entity.
+     * @param id         the id of the deleted entity.
+     * @return the recorded tombstone.
+     */
+    @Transactional
+    public SyncTombstone recordDeletion(String entityName, AbstractAuditingEntity entity, Long id) {
+        log.debug("Request to record deletion of {} : {}", entityName, id);
+        // The identifier of the tombstone is its change sequence
+        changeSequenceGenerator.lockOwner(entity.getCreatedBy());
+        return syncTombstoneRepository.save(new SyncTombstone().entityName(entityName).entityId(id).createdBy(entity.getCreatedBy()));
+    }
+}
@@ -0,0 +1,428 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.ArchiveSegment;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.MinorUnits;
+import dev.tphucnha.moneylogger.repository.ArchiveSegmentRepository;
+import dev.tphucnha.moneylogger.repository.ArchivedTransaction;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.TransactionArchiveRepository;
+import dev.tphucnha.moneylogger.repository.TransactionArchiveStore;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.InstantFilter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Service managing the cold tier of the transactions: the transactions of the years older than
+ * {@code application.archive.age-years} are moved out of the database, to one immutable segment file per user and
+ * year, see {@link dev.tphucnha.moneylogger.repository.TransactionSegmentFile}.
+ * <p>
+ * When enabled, every day at {@code application.archive.cron}, the old years of every user are archived, one year per
+ * transaction: the rows are locked, written to a new segment file with the rows already archived for the year, the
+ * {@link ArchiveSegment} is registered, and the rows are deleted. The segment file it replaces is deleted once
+ * committed, and the new one if rolled back.
+ * <p>
+ * The months of the partitions detached by {@link TransactionPartitionService} are archived the same way, whether the
+ * yearly archiving is enabled or not, into the segment of their year.
+ * <p>
+ * Archived transactions are read only: they are listed, counted and summed with the ones of the database by
+ * {@link TransactionQueryService} and the aggregates, but are not found by id, updated nor deleted.
+ */
+@Service
+public class TransactionArchiveService {
+
+    /**
+     * The bounds of the dates of a segment lookup without date filter, within the range of SQL timestamps.
+     */
+    private static final Instant MIN_DATE = Instant.parse("0001-01-01T00:00:00Z");
+
+    private static final Instant MAX_DATE = Instant.parse("9999-12-31T23:59:59Z");
+
+    private static final Comparator<ArchivedTransaction> ARCHIVE_ORDER = Comparator
+        .comparing(ArchivedTransaction::getDate)
+        .thenComparingLong(ArchivedTransaction::getId);
+
+    private final Logger log = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private final TransactionArchiveRepository transactionArchiveRepository;
+
+    private final TransactionArchiveStore transactionArchiveStore;
+
+    private final ArchiveSegmentRepository archiveSegmentRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Archive properties;
+
+    public TransactionArchiveService(
+        TransactionArchiveRepository transactionArchiveRepository,
+        TransactionArchiveStore transactionArchiveStore,
+        ArchiveSegmentRepository archiveSegmentRepository,
+        CategoryRepository categoryRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.transactionArchiveRepository = transactionArchiveRepository;
+        this.transactionArchiveStore = transactionArchiveStore;
+        this.archiveSegmentRepository = archiveSegmentRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getArchive();
+    }
+
+    /**
+     * Archive the transactions of the years older than {@code application.archive.age-years}.
+     */
+    @Scheduled(cron = "${application.archive.cron:0 30 3 * * *}")
+    public void archiveOldTransactions() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            archiveBefore(LocalDate.now(ZoneOffset.UTC).getYear() - properties.getAgeYears());
+        } catch (RuntimeException e) {
+            log.warn("Unable to archive the old transactions, retrying at the next run: {}", e.toString());
+        }
+    }
+
+    /**
+     * Archive the transactions of all the users dated before a year.
+     *
+     * @param firstKeptYear the first year whose transactions are kept in the database.
+     * @return the number of archived transactions.
+     */
+    public int archiveBefore(int firstKeptYear) {
+        Map<String, Instant> oldestDates = transactionTemplate.execute(
+            status -> transactionArchiveRepository.findOldestDatesBefore(startOf(firstKeptYear))
+        );
+        int archived = 0;
+        for (Map.Entry<String, Instant> oldestDate : oldestDates.entrySet()) {
+            String owner = oldestDate.getKey();
+            for (int year = oldestDate.getValue().atOffset(ZoneOffset.UTC).getYear(); year < firstKeptYear; year++) {
+                int archivedYear = year;
+                try {
+                    Integer count = transactionTemplate.execute(status -> archiveYear(owner, archivedYear));
+                    archived += count != null ? count : 0;
+                } catch (RuntimeException e) {
+                    log.warn("Unable to archive the transactions of {} in {}, retrying at the next run: {}", owner, year, e.toString());
+                }
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Archive the transactions of all the users dated in a month, into the segments of its year.
+     *
+     * @param month the month.
+     * @return the number of archived transactions.
+     * @throws RuntimeException if the transactions of a user could not be archived, those of the users before them are.
+     */
+    public int archiveMonth(YearMonth month) {
+        Instant from = month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant to = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        List<String> owners = transactionTemplate.execute(status -> transactionArchiveRepository.findOwnersBetween(from, to));
+        int archived = 0;
+        for (String owner : owners) {
+            Integer count = transactionTemplate.execute(status -> archive(owner, month.getYear(), from, to));
+            archived += count != null ? count : 0;
+        }
+        return archived;
+    }
+
+    private int archiveYear(String owner, int year) {
+        return archive(owner, year, startOf(year), startOf(year + 1));
+    }
+
+    /**
+     * Archive the transactions of a user between two dates of a year, into the segment of the year.
+     */
+    private int archive(String owner, int year, Instant from, Instant to) {
+        List<ArchivedTransaction> rows = transactionArchiveRepository.findForArchive(owner, from, to);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Optional<ArchiveSegment> existing = archiveSegmentRepository.findByCreatedByAndYear(owner, year);
+        List<ArchivedTransaction> segmentRows = rows;
+        if (existing.isPresent()) {
+            segmentRows = new ArrayList<>(transactionArchiveStore.open(existing.get().getFileName()).readAll());
+            segmentRows.addAll(rows);
+            segmentRows.sort(ARCHIVE_ORDER);
+        }
+        String fileName = transactionArchiveStore.write(owner, year, segmentRows);
+        deleteSegmentFileAfterCompletion(existing.map(ArchiveSegment::getFileName).orElse(null), fileName);
+
+        ArchiveSegment segment = existing.orElseGet(() -> new ArchiveSegment().createdBy(owner).year(year));
+        segment.setFileName(fileName);
+        segment.setFirstDate(segmentRows.get(0).getDate());
+        segment.setLastDate(segmentRows.get(segmentRows.size() - 1).getDate());
+        segment.setRowCount(segmentRows.size());
+        segment.setTotalAmount(totalAmount(segmentRows));
+        segment.setCreatedDate(Instant.now());
+        // Registered first: the unique owner and year lets a single node archive a year
+        archiveSegmentRepository.saveAndFlush(segment);
+        transactionArchiveRepository.delete(rows.stream().map(ArchivedTransaction::getId).collect(Collectors.toList()));
+        log.info("Archived {} transactions of {} in {}", rows.size(), owner, year);
+        return rows.size();
+    }
+
+    /**
+     * Delete the replaced segment file once the transaction commits, or the new one if it rolls back.
+     */
+    private void deleteSegmentFileAfterCompletion(String replacedFileName, String newFileName) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    String unused = status == STATUS_COMMITTED ? replacedFileName : newFileName;
+                    if (unused != null) {
+                        try {
+                            transactionArchiveStore.delete(unused);
+                        } catch (RuntimeException e) {
+                            log.warn("Unable to delete the segment file {}: {}", unused, e.toString());
+                        }
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * @param owner the login of the user.
+     * @param date  the filter of the dates of the transactions, or {@code null}.
+     * @return the segments of the user which may hold transactions matching the date filter.
+     */
+    @Transactional(readOnly = true)
+    public List<ArchiveSegment> findSegments(String owner, InstantFilter date) {
+        Instant from = MIN_DATE;
+        Instant to = MAX_DATE;
+        if (date != null) {
+            if (date.getEquals() != null) {
+                from = date.getEquals();
+                to = date.getEquals();
+            } else if (date.getIn() != null && !date.getIn().isEmpty()) {
+                from = date.getIn().stream().min(Comparator.naturalOrder()).orElse(from);
+                to = date.getIn().stream().max(Comparator.naturalOrder()).orElse(to);
+            } else {
+                from = latest(from, date.getGreaterThan(), date.getGreaterThanOrEqual());
+                to = earliest(to, date.getLessThan(), date.getLessThanOrEqual());
+            }
+        }
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        return archiveSegmentRepository.findOverlapping(owner, from, to);
+    }
+
+    /**
+     * @param segments the segments to read, see {@link #findSegments(String, InstantFilter)}.
+     * @param criteria the filters the transactions should match, as in the database.
+     * @return the matching archived transactions, sorted by date then id.
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> findArchived(List<ArchiveSegment> segments, TransactionCriteria criteria) {
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        scan(segments, criteria, rows::add);
+        Set<Long> categoryIds = rows.stream().map(ArchivedTransaction::getCategoryId).filter(Objects::nonNull).collect(Collectors.toSet());
+        // The current name of the categories, those deleted since archived are left out
+        Map<Long, String> categoryNames = categoryRepository
+            .findAllById(categoryIds)
+            .stream()
+            .collect(Collectors.toMap(Category::getId, Category::getName));
+        return rows.stream().map(row -> toDto(row, categoryNames)).collect(Collectors.toList());
+    }
+
+    /**
+     * @param segments the segments to read, see {@link #findSegments(String, InstantFilter)}.
+     * @param criteria the filters the transactions should match, as in the database.
+     * @return the number of matching archived transactions.
+     */
+    public long countArchived(List<ArchiveSegment> segments, TransactionCriteria criteria) {
+        long[] count = { 0 };
+        scan(segments, criteria, row -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Add the amount of the archived transactions of a user to the total amount of their transactions in the database.
+     *
+     * @param owner       the login of the user.
+     * @param totalAmount the total amount in the database, {@code null} if none.
+     * @return the total amount of the transactions of the user, {@code null} if none.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal addArchivedTotalAmount(String owner, BigDecimal totalAmount) {
+        BigDecimal archivedAmount = archiveSegmentRepository.getTotalAmountByUser(owner);
+        if (archivedAmount == null) {
+            return totalAmount;
+        }
+        return totalAmount != null ? totalAmount.add(archivedAmount) : archivedAmount;
+    }
+
+    private static BigDecimal totalAmount(List<ArchivedTransaction> rows) {
+        MinorUnits.Sum sum = new MinorUnits.Sum();
+        for (ArchivedTransaction row : rows) {
+            if (row.hasAmountMinorUnits()) {
+                sum.add(row.getAmountMinorUnits());
+            } else {
+                sum.add(row.getAmount());
+            }
+        }
+        return sum.toBigDecimal();
+    }
+
+    private void scan(List<ArchiveSegment> segments, TransactionCriteria criteria, Consumer<ArchivedTransaction> consumer) {
+        InstantFilter date = criteria != null ? criteria.getDate() : null;
+        Instant from = date != null ? latest(null, date.getGreaterThan(), date.getGreaterThanOrEqual()) : null;
+        Instant to = date != null ? earliest(null, date.getLessThan(), date.getLessThanOrEqual()) : null;
+        for (ArchiveSegment segment : segments) {
+            transactionArchiveStore
+                .open(segment.getFileName())
+                .scan(
+                    from,
+                    to,
+                    row -> {
+                        if (matches(row, criteria)) {
+                            consumer.accept(row);
+                        }
+                    }
+                );
+        }
+    }
+
+    /**
+     * The filters of {@link TransactionQueryService#createSqlWhere(TransactionCriteria)}, on an archived transaction.
+     */
+    private static boolean matches(ArchivedTransaction row, TransactionCriteria criteria) {
+        if (criteria == null) {
+            return true;
+        }
+        return (
+            matchesRange(criteria.getId(), row.getId()) &&
+            (criteria.getAmount() == null || matchesRange(criteria.getAmount(), row.getAmount())) &&
+            matchesString(criteria.getDetails(), row.getDetails()) &&
+            matchesRange(criteria.getDate(), row.getDate()) &&
+            matches(criteria.getCategoryId(), row.getCategoryId())
+        );
+    }
+
+    private static <T extends Comparable<? super T>> boolean matches(Filter<T> filter, T value) {
+        if (filter == null) {
+            return true;
+        }
+        // As in SQL, a null value matches no comparison
+        if (filter.getEquals() != null) {
+            return value != null && filter.getEquals().compareTo(value) == 0;
+        }
+        if (filter.getIn() != null) {
+            return value != null && contains(filter.getIn(), value);
+        }
+        if (filter.getNotEquals() != null && (value == null || filter.getNotEquals().compareTo(value) == 0)) {
+            return false;
+        }
+        if (filter.getNotIn() != null && (value == null || contains(filter.getNotIn(), value))) {
+            return false;
+        }
+        return filter.getSpecified() == null || filter.getSpecified() == (value != null);
+    }
+
+    private static <T extends Comparable<? super T>> boolean matchesRange(RangeFilter<T> filter, T value) {
+        if (filter == null || filter.getEquals() != null || filter.getIn() != null) {
+            return matches(filter, value);
+        }
+        return (
+            matches(filter, value) &&
+            (filter.getGreaterThan() == null || value.compareTo(filter.getGreaterThan()) > 0) &&
+            (filter.getGreaterThanOrEqual() == null || value.compareTo(filter.getGreaterThanOrEqual()) >= 0) &&
+            (filter.getLessThan() == null || value.compareTo(filter.getLessThan()) < 0) &&
+            (filter.getLessThanOrEqual() == null || value.compareTo(filter.getLessThanOrEqual()) <= 0)
+        );
+    }
+
+    private static boolean matchesString(StringFilter filter, String value) {
+        if (filter == null || filter.getEquals() != null || filter.getIn() != null) {
+            return matches(filter, value);
+        }
+        String upperValue = value.toUpperCase();
+        return (
+            (filter.getContains() == null || upperValue.contains(filter.getContains().toUpperCase())) &&
+            (filter.getDoesNotContain() == null || !upperValue.contains(filter.getDoesNotContain().toUpperCase())) &&
+            matches(filter, value)
+        );
+    }
+
+    private static <T extends Comparable<? super T>> boolean contains(Collection<T> values, T value) {
+        return values.stream().anyMatch(candidate -> candidate.compareTo(value) == 0);
+    }
+
+    private static TransactionDTO toDto(ArchivedTransaction row, Map<Long, String> categoryNames) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setId(row.getId());
+        transactionDTO.setAmount(row.getAmount());
+        transactionDTO.setDetails(row.getDetails());
+        transactionDTO.setDate(row.getDate());
+        String categoryName = row.getCategoryId() != null ? categoryNames.get(row.getCategoryId()) : null;
+        if (categoryName != null) {
+            CategoryDTO categoryDTO = new CategoryDTO();
+            categoryDTO.setId(row.getCategoryId());
+            categoryDTO.setName(categoryName);
+            transactionDTO.setCategory(categoryDTO);
+        }
+        return transactionDTO;
+    }
+
+    private static Instant startOf(int year) {
+        return LocalDate.of(year, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private static Instant latest(Instant bound, Instant... others) {
+        Instant latest = bound;
+        for (Instant other : others) {
+            if (other != null && (latest == null || other.isAfter(latest))) {
+                latest = other;
+            }
+        }
+        return latest;
+    }
+
+    private static Instant earliest(Instant bound, Instant... others) {
+        Instant earliest = bound;
+        for (Instant other : others) {
+            if (other != null && (earliest == null || other.isBefore(earliest))) {
+                earliest = other;
+            }
+        }
+        return earliest;
+    }
+}
@@ -0,0 +1,198 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.ChangeSequenceGenerator;
+import dev.tphucnha.moneylogger.repository.TransactionBulkLoadRepository;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
+import dev.tphucnha.moneylogger.service.mapper.TransactionMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service loading large numbers of new transactions of the current user, for migrations and big imports.
+ * <p>
+ * Unlike {@link TransactionService#createAll}, which reports each rejected transaction, a load is all or nothing: it
+ * runs in a single database transaction, and fails on the first invalid transaction. The transactions are read from
+ * an iterator and written {@code application.bulk-load.chunk-size} at a time through
+ * {@link TransactionBulkLoadRepository}, with {@code COPY} on PostgreSQL, so the memory used by a load does not grow
+ * with its size.
+ */
+@Service
+@Transactional
+public class TransactionBulkLoadService {
+
+    private final Logger log = LoggerFactory.getLogger(TransactionBulkLoadService.class);
+
+    private final TransactionBulkLoadRepository transactionBulkLoadRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final CategoryService categoryService;
+
+    private final MerchantService merchantService;
+
+    private final ChangeSequenceGenerator changeSequenceGenerator;
+
+    private final TransactionMapper transactionMapper;
+
+    private final Validator validator;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final int chunkSize;
+
+    public TransactionBulkLoadService(
+        TransactionBulkLoadRepository transactionBulkLoadRepository,
+        CategoryRepository categoryRepository,
+        CategoryService categoryService,
+        MerchantService merchantService,
+        ChangeSequenceGenerator changeSequenceGenerator,
+        TransactionMapper transactionMapper,
+        Validator validator,
+        ApplicationEventPublisher applicationEventPublisher,
+        ApplicationProperties applicationProperties
+    ) {
+        this.transactionBulkLoadRepository = transactionBulkLoadRepository;
+        this.categoryRepository = categoryRepository;
+        this.categoryService = categoryService;
+        this.merchantService = merchantService;
+        this.changeSequenceGenerator = changeSequenceGenerator;
+        this.transactionMapper = transactionMapper;
+        this.validator = validator;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.chunkSize = applicationProperties.getBulkLoad().getChunkSize();
+    }
+
+    /**
+     * Load new transactions. Their categories are given by id, or by name only, in which case they are created when
+     * the user has no such category.
+     *
+     * @param transactionDTOs the transactions to load.
+     * @return the number of loaded transactions.
+     * @throws InvalidDataAccessResourceUsageException if a transaction is invalid, in which case none is loaded.
+     */
+    public long load(Iterator<TransactionDTO> transactionDTOs) {
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        log.debug("Request to bulk load Transactions of {}", owner);
+        Set<Long> ownedCategoryIds = new HashSet<>();
+        Map<String, Long> categoryIdsByName = new HashMap<>();
+        long loaded = 0;
+        long lastChangeSequence = 0;
+        List<TransactionDTO> chunk = new ArrayList<>(chunkSize);
+        while (transactionDTOs.hasNext()) {
+            chunk.clear();
+            while (chunk.size() < chunkSize && transactionDTOs.hasNext()) {
+                chunk.add(transactionDTOs.next());
+            }
+            List<Transaction> transactions = toEntities(owner, chunk, loaded, ownedCategoryIds, categoryIdsByName);
+
+            changeSequenceGenerator.reserve(owner, transactions.size());
+            for (Transaction transaction : transactions) {
+                transaction.setChangeSequence(changeSequenceGenerator.next(owner));
+                lastChangeSequence = Math.max(lastChangeSequence, transaction.getChangeSequence());
+            }
+            transactionBulkLoadRepository.insert(owner, transactions);
+            loaded += transactions.size();
+            log.debug("Bulk loaded {} Transactions of {}", loaded, owner);
+        }
+        if (loaded > 0) {
+            applicationEventPublisher.publishEvent(EntityChangedEvent.bulk(SyncService.TRANSACTION, owner, lastChangeSequence));
+        }
+        return loaded;
+    }
+
+    private List<Transaction> toEntities(
+        String owner,
+        List<TransactionDTO> chunk,
+        long first,
+        Set<Long> ownedCategoryIds,
+        Map<String, Long> categoryIdsByName
+    ) {
+        // The owner of the categories of the chunk not seen yet is checked at once
+        Set<Long> categoryIds = chunk
+            .stream()
+            .filter(transactionDTO -> transactionDTO != null && transactionDTO.getCategory() != null)
+            .map(transactionDTO -> transactionDTO.getCategory().getId())
+            .filter(id -> id != null && !ownedCategoryIds.contains(id))
+            .collect(Collectors.toSet());
+        if (!categoryIds.isEmpty()) {
+            ownedCategoryIds.addAll(categoryRepository.findIdsByIdInAndOwner(categoryIds, owner));
+        }
+
+        List<Transaction> transactions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            TransactionDTO transactionDTO = chunk.get(i);
+            validate(first + i, transactionDTO);
+            Transaction transaction = transactionMapper.toEntity(transactionDTO);
+            CategoryDTO category = transactionDTO.getCategory();
+            if (category != null) {
+                Long categoryId;
+                if (category.getId() != null) {
+                    if (!ownedCategoryIds.contains(category.getId())) {
+                        throw invalid(first + i, "invalid category");
+                    }
+                    categoryId = category.getId();
+                } else {
+                    String nameKey = Category.nameKey(category.getName());
+                    if (nameKey == null || nameKey.isEmpty()) {
+                        throw invalid(first + i, "invalid category");
+                    }
+                    categoryId =
+                        categoryIdsByName.computeIfAbsent(nameKey, key -> categoryService.findOrCreateIdByName(category.getName()));
+                }
+                transaction.setCategory(categoryRepository.getOne(categoryId));
+            }
+            transactions.add(transaction);
+        }
+        Map<String, Long> merchantIds = merchantService.resolveIds(
+            owner,
+            transactions.stream().map(Transaction::getDetails).collect(Collectors.toSet())
+        );
+        transactions.forEach(transaction -> transaction.setMerchantId(merchantIds.get(transaction.getDetails())));
+        return transactions;
+    }
+
+    private void validate(long index, TransactionDTO transactionDTO) {
+        if (transactionDTO == null) {
+            throw invalid(index, "a transaction is required");
+        }
+        if (transactionDTO.getId() != null) {
+            throw invalid(index, "a new transaction cannot already have an ID");
+        }
+        Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(transactionDTO);
+        if (!violations.isEmpty()) {
+            throw invalid(
+                index,
+                violations
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "))
+            );
+        }
+    }
+
+    private static InvalidDataAccessResourceUsageException invalid(long index, String message) {
+        return new InvalidDataAccessResourceUsageException("Invalid transaction at index " + index + ": " + message);
+    }
+}
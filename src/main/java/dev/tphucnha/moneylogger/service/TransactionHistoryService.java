@@ -0,0 +1,101 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.repository.TransactionHistoryRepository;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.dto.TransactionHistoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionRevisionDTO;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service reading the audit history of the transactions of the current user.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TransactionHistoryService {
+
+    private static final EntityChangedEvent.ChangeType[] CHANGE_TYPES = {
+        EntityChangedEvent.ChangeType.CREATED,
+        EntityChangedEvent.ChangeType.UPDATED,
+        EntityChangedEvent.ChangeType.DELETED,
+    };
+
+    private final Logger log = LoggerFactory.getLogger(TransactionHistoryService.class);
+
+    private final TransactionHistoryRepository transactionHistoryRepository;
+
+    public TransactionHistoryService(TransactionHistoryRepository transactionHistoryRepository) {
+        this.transactionHistoryRepository = transactionHistoryRepository;
+    }
+
+    /**
+     * Create the index of the history of a user at start up, on databases where the audit table was created after
+     * Liquibase ran.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void createIndexAtStartup() {
+        try {
+            transactionHistoryRepository.createOwnerIndexIfAbsent();
+        } catch (RuntimeException e) {
+            log.warn("Unable to create the index of the transaction history, retrying at the next start: {}", e.toString());
+        }
+    }
+
+    /**
+     * Get a page of the revisions of a transaction of the current user, newest first. The transactions of other users
+     * have no revisions.
+     *
+     * @param id             the id of the transaction.
+     * @param beforeRevision the last revision of the previous page, {@code null} for the first page.
+     * @param size           the size of the page.
+     * @return the page of revisions.
+     */
+    public TransactionHistoryDTO findByTransaction(Long id, Integer beforeRevision, int size) {
+        log.debug("Request to get the history of Transaction : {}, before revision : {}", id, beforeRevision);
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        // One more than requested tells whether another page follows
+        return toPage(transactionHistoryRepository.findByTransaction(id, owner, beforeRevision, size + 1), size);
+    }
+
+    /**
+     * Get a page of the revisions of all the transactions of the current user, newest first.
+     *
+     * @param beforeRevision the revision of the last revision of the previous page, {@code null} for the first page.
+     * @param beforeId       the transaction of the last revision of the previous page.
+     * @param size           the size of the page.
+     * @return the page of revisions.
+     */
+    public TransactionHistoryDTO findRecent(Integer beforeRevision, Long beforeId, int size) {
+        log.debug("Request to get the recent changes of Transactions, before revision : {} {}", beforeRevision, beforeId);
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        return toPage(transactionHistoryRepository.findByOwner(owner, beforeRevision, beforeId, size + 1), size);
+    }
+
+    private static TransactionHistoryDTO toPage(List<TransactionHistoryRepository.Revision> revisions, int size) {
+        TransactionHistoryDTO page = new TransactionHistoryDTO();
+        page.setHasMore(revisions.size() > size);
+        page.setRevisions(revisions.stream().limit(size).map(TransactionHistoryService::toDto).collect(Collectors.toList()));
+        return page;
+    }
+
+    private static TransactionRevisionDTO toDto(TransactionHistoryRepository.Revision revision) {
+        TransactionRevisionDTO revisionDTO = new TransactionRevisionDTO();
+        revisionDTO.setRevision(revision.getRevision());
+        revisionDTO.setRevisionDate(revision.getTimestamp());
+        revisionDTO.setType(CHANGE_TYPES[revision.getRevisionType()].name());
+        revisionDTO.setTransactionId(revision.getTransactionId());
+        revisionDTO.setAmount(revision.getAmount());
+        revisionDTO.setDetails(revision.getDetails());
+        revisionDTO.setDate(revision.getDate());
+        revisionDTO.setCategoryId(revision.getCategoryId());
+        return revisionDTO;
+    }
+}
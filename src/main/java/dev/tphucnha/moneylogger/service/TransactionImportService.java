@@ -0,0 +1,261 @@
+package dev.tphucnha.moneylogger.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicates;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.ImportJobDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import dev.tphucnha.moneylogger.service.statement.StatementFormat;
+import dev.tphucnha.moneylogger.service.statement.StatementParser;
+import dev.tphucnha.moneylogger.service.statement.StatementRow;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service importing bank statements as transactions of the current user.
+ * <p>
+ * The statement is read as a stream, {@code application.statement-import.chunk-size} rows at a time. The chunks are
+ * parsed in parallel on the {@code importExecutor}, while the caller inserts the parsed chunks in order, each in its
+ * own database transaction through {@link TransactionService#createAll}. No more than
+ * {@code max-chunks-in-flight} chunks are read ahead of the inserted one, so the memory used by an import is bounded
+ * whatever the size of the statement.
+ * <p>
+ * Category names are resolved through a name to id map held by the import: names missing from the map are looked up
+ * once per chunk, and created when the user has no such category.
+ * <p>
+ * The status of the import is kept in a Hazelcast map for {@code job-ttl-seconds}, keyed by user and job, and updated
+ * after each chunk. The chunks inserted before a failure remain committed.
+ */
+@Service
+public class TransactionImportService {
+
+    static final String MAP_NAME = "import-jobs";
+
+    private final Logger log = LoggerFactory.getLogger(TransactionImportService.class);
+
+    private final TransactionService transactionService;
+
+    private final CategoryService categoryService;
+
+    private final CategoryRepository categoryRepository;
+
+    private final AsyncTaskExecutor executor;
+
+    private final IMap<String, ImportJobDTO> jobs;
+
+    private final ApplicationProperties.StatementImport properties;
+
+    public TransactionImportService(
+        TransactionService transactionService,
+        CategoryService categoryService,
+        CategoryRepository categoryRepository,
+        @Qualifier("importExecutor") AsyncTaskExecutor importExecutor,
+        HazelcastInstance hazelcastInstance,
+        ApplicationProperties applicationProperties
+    ) {
+        this.transactionService = transactionService;
+        this.categoryService = categoryService;
+        this.categoryRepository = categoryRepository;
+        this.executor = importExecutor;
+        this.jobs = hazelcastInstance.getMap(MAP_NAME);
+        this.properties = applicationProperties.getStatementImport();
+    }
+
+    /**
+     * Import a statement. The caller should not hold a transaction, so that each chunk is committed on its own.
+     *
+     * @param format the format of the statement.
+     * @param reader the statement.
+     * @return the status of the import, completed or failed.
+     */
+    public ImportJobDTO importStatement(StatementFormat format, Reader reader) {
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        ImportJobDTO job = new ImportJobDTO();
+        job.setId(UUID.randomUUID().toString());
+        job.setFormat(format.name());
+        job.setStatus(ImportJobDTO.Status.RUNNING);
+        job.setStartedAt(Instant.now());
+        String mapKey = owner + ':' + job.getId();
+        store(mapKey, job);
+        log.debug("Request to import a {} statement, job {}", format, job.getId());
+
+        Map<String, Long> categoryIds = new HashMap<>();
+        Deque<Future<List<StatementRow>>> inFlight = new ArrayDeque<>();
+        try {
+            StatementParser parser = format.open(new BufferedReader(reader));
+            List<String> records;
+            while (!(records = parser.readRecords(properties.getChunkSize())).isEmpty()) {
+                long first = job.getRowsRead() + 1;
+                List<String> chunk = records;
+                inFlight.add(executor.submit(() -> parse(parser, first, chunk)));
+                job.setRowsRead(job.getRowsRead() + chunk.size());
+                if (inFlight.size() >= properties.getMaxChunksInFlight()) {
+                    insert(owner, inFlight.remove().get(), job, categoryIds);
+                    store(mapKey, job);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                insert(owner, inFlight.remove().get(), job, categoryIds);
+                store(mapKey, job);
+            }
+            job.setStatus(ImportJobDTO.Status.COMPLETED);
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, e);
+        } catch (IOException | RuntimeException e) {
+            fail(job, e);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            job.setFinishedAt(Instant.now());
+            store(mapKey, job);
+        }
+        return job;
+    }
+
+    /**
+     * Get the status of an import of the current user.
+     *
+     * @param id the id of the import.
+     * @return the status of the import, or empty if it is unknown or expired.
+     */
+    public Optional<ImportJobDTO> findJob(String id) {
+        return Optional.ofNullable(jobs.get(SecurityUtils.getCurrentUserLogin().orElse("") + ':' + id));
+    }
+
+    /**
+     * Get the imports of the current user, the most recent first.
+     *
+     * @return the status of the imports which have not expired.
+     */
+    public List<ImportJobDTO> findJobs() {
+        String prefix = SecurityUtils.getCurrentUserLogin().orElse("") + ':';
+        // "_" and "%" of logins are wildcards of the predicate, so keys are also checked here
+        return jobs
+            .entrySet(Predicates.like("__key", prefix + "%"))
+            .stream()
+            .filter(entry -> entry.getKey().startsWith(prefix))
+            .map(Map.Entry::getValue)
+            .sorted(Comparator.comparing(ImportJobDTO::getStartedAt).reversed())
+            .collect(Collectors.toList());
+    }
+
+    private List<StatementRow> parse(StatementParser parser, long first, List<String> records) {
+        List<StatementRow> rows = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            rows.add(parser.parse(first + i, records.get(i)));
+        }
+        return rows;
+    }
+
+    private void insert(String owner, List<StatementRow> rows, ImportJobDTO job, Map<String, Long> categoryIds) {
+        List<StatementRow> valid = rows.stream().filter(StatementRow::isValid).collect(Collectors.toList());
+        rows
+            .stream()
+            .filter(row -> !row.isValid())
+            .forEach(row -> reject(job, TransactionBatchResultDTO.rejected((int) row.getNumber(), "parse", row.getError())));
+        if (valid.isEmpty()) {
+            return;
+        }
+        resolveCategories(owner, valid, job, categoryIds);
+
+        List<TransactionDTO> transactionDTOs = valid.stream().map(row -> toDto(row, categoryIds)).collect(Collectors.toList());
+        List<TransactionBatchResultDTO> results = transactionService.createAll(transactionDTOs);
+        for (int i = 0; i < results.size(); i++) {
+            TransactionBatchResultDTO result = results.get(i);
+            if (result.getStatus() == TransactionBatchResultDTO.Status.CREATED) {
+                job.setCreated(job.getCreated() + 1);
+            } else {
+                result.setIndex((int) valid.get(i).getNumber());
+                reject(job, result);
+            }
+        }
+    }
+
+    /**
+     * Add the ids of the categories named in the rows to the map of the import, creating the missing categories.
+     */
+    private void resolveCategories(String owner, List<StatementRow> rows, ImportJobDTO job, Map<String, Long> categoryIds) {
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (StatementRow row : rows) {
+            if (row.getCategoryName() != null && !categoryIds.containsKey(key(row.getCategoryName()))) {
+                missing.putIfAbsent(key(row.getCategoryName()), row.getCategoryName());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        categoryRepository
+            .findByOwnerAndNameKeyIn(owner, missing.keySet())
+            .forEach(category -> categoryIds.putIfAbsent(category.getNameKey(), category.getId()));
+        for (Map.Entry<String, String> name : missing.entrySet()) {
+            if (!categoryIds.containsKey(name.getKey())) {
+                categoryIds.put(name.getKey(), categoryService.findOrCreateIdByName(name.getValue()));
+                job.setCategoriesCreated(job.getCategoriesCreated() + 1);
+            }
+        }
+    }
+
+    private TransactionDTO toDto(StatementRow row, Map<String, Long> categoryIds) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAmount(row.getAmount());
+        transactionDTO.setDate(row.getDate());
+        transactionDTO.setDetails(row.getDetails());
+        if (row.getCategoryName() != null) {
+            CategoryDTO category = new CategoryDTO();
+            category.setId(categoryIds.get(key(row.getCategoryName())));
+            category.setName(row.getCategoryName());
+            transactionDTO.setCategory(category);
+        }
+        return transactionDTO;
+    }
+
+    private void reject(ImportJobDTO job, TransactionBatchResultDTO result) {
+        job.setRejected(job.getRejected() + 1);
+        if (job.getErrors().size() < properties.getMaxErrors()) {
+            job.getErrors().add(result);
+        }
+    }
+
+    private void fail(ImportJobDTO job, Throwable e) {
+        log.warn("Import {} failed after {} rows: {}", job.getId(), job.getRowsRead(), e.toString());
+        job.setStatus(ImportJobDTO.Status.FAILED);
+        job.setMessage(e.getMessage());
+    }
+
+    private void store(String mapKey, ImportJobDTO job) {
+        jobs.set(mapKey, job, properties.getJobTtlSeconds(), TimeUnit.SECONDS);
+    }
+
+    private static String key(String categoryName) {
+        return Category.nameKey(categoryName);
+    }
+}
@@ -0,0 +1,405 @@
+package dev.tphucnha.moneylogger.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.dto.IngestTicketDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service ingesting transactions asynchronously, for producers sending them at high rates.
+ * <p>
+ * Accepted requests are appended to a bounded in-memory buffer, and answered with a ticket at once. Requests which do
+ * not fit in the buffer are rejected, so that producers back off. A single writer thread takes the buffered
+ * transactions in arrival order, and commits them in groups of up to {@code application.ingest.commit-size}, in one
+ * database transaction per group, through {@link TransactionService#createAll}. The transactions of a user are thus
+ * written in the order they were accepted, and the cost of a commit is shared by the whole group. A group failing as a
+ * whole is retried one user at a time, so that the transactions of a user do not fail those of the others.
+ * <p>
+ * The status of a ticket is kept in a Hazelcast map for {@code application.ingest.ticket-ttl-seconds}, keyed by user
+ * and ticket. On shutdown, new requests are rejected and the buffer is drained before the database is closed; the
+ * transactions still buffered when {@code application.ingest.drain-timeout-millis} elapses are not created, and their
+ * tickets are marked failed.
+ * <p>
+ * The buffer depth is exposed in the {@code moneylogger.ingest.queue.depth} gauge, and the commits are timed in the
+ * {@code moneylogger.ingest.commit} timer.
+ */
+@Service
+public class TransactionIngestService implements SmartLifecycle {
+
+    public static final String OUTCOME_ACCEPTED = "accepted";
+
+    static final String MAP_NAME = "ingest-tickets";
+
+    private static final String ENTITY_NAME = "moneyloggerTransaction";
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private static final long FAIL_TIMEOUT_MILLIS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(TransactionIngestService.class);
+
+    private final TransactionService transactionService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IMap<String, IngestTicketDTO> tickets;
+
+    private final ApplicationProperties.Ingest properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<IngestItem> queue;
+
+    private final Timer commitTimer;
+
+    private final DistributionSummary commitSize;
+
+    private final Object submitLock = new Object();
+
+    private volatile boolean accepting;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public TransactionIngestService(
+        TransactionService transactionService,
+        PlatformTransactionManager transactionManager,
+        HazelcastInstance hazelcastInstance,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tickets = hazelcastInstance.getMap(MAP_NAME);
+        this.properties = applicationProperties.getIngest();
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Gauge.builder("moneylogger.ingest.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.commitTimer = meterRegistry.timer("moneylogger.ingest.commit");
+        this.commitSize = meterRegistry.summary("moneylogger.ingest.commit.size");
+    }
+
+    /**
+     * Accept transactions of the current user, to be created asynchronously.
+     *
+     * @param transactionDTOs the transactions to create.
+     * @return the ticket of the request, queued.
+     * @throws IngestRejectedException if the buffer cannot hold the transactions, or the application is shutting down.
+     */
+    public IngestTicketDTO submit(List<TransactionDTO> transactionDTOs) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String ticket = UUID.randomUUID().toString();
+        String mapKey = mapKey(ticket);
+        IngestTicketDTO queued = IngestTicketDTO.queued(ticket, transactionDTOs.size());
+        // Stored before the transactions are buffered, so that it cannot overwrite the status written by the writer
+        tickets.set(mapKey, queued, properties.getTicketTtlSeconds(), TimeUnit.SECONDS);
+
+        PendingTicket pending = new PendingTicket(mapKey, queued);
+        synchronized (submitLock) {
+            if (!accepting) {
+                reject(mapKey, "The application is shutting down", IngestRejectedException.SHUTTING_DOWN);
+            }
+            // The writer only takes from the buffer, so the remaining capacity cannot shrink before the transactions are added
+            if (queue.remainingCapacity() < transactionDTOs.size()) {
+                reject(mapKey, "The ingest buffer is full", IngestRejectedException.QUEUE_FULL);
+            }
+            for (int i = 0; i < transactionDTOs.size(); i++) {
+                queue.add(new IngestItem(pending, i, transactionDTOs.get(i), authentication));
+            }
+        }
+        count(OUTCOME_ACCEPTED);
+        return queued;
+    }
+
+    /**
+     * Get the status of an ingest request of the current user.
+     *
+     * @param ticket the ticket of the request.
+     * @return the status of the request, or empty if the ticket is unknown or expired.
+     */
+    public Optional<IngestTicketDTO> findTicket(String ticket) {
+        return Optional.ofNullable(tickets.get(mapKey(ticket)));
+    }
+
+    private void reject(String mapKey, String message, String reason) {
+        tickets.delete(mapKey);
+        count(reason);
+        throw new IngestRejectedException(message, ENTITY_NAME, reason);
+    }
+
+    private String mapKey(String ticket) {
+        return SecurityUtils.getCurrentUserLogin().orElse("") + ':' + ticket;
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("moneylogger.ingest.requests", "outcome", outcome).increment();
+    }
+
+    private void write() {
+        while (running || !queue.isEmpty()) {
+            List<IngestItem> group = new ArrayList<>();
+            boolean interrupted = false;
+            try {
+                IngestItem first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collect(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+            }
+            if (interrupted) {
+                failBuffered();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add the transactions arriving within the commit delay to a group, up to the commit size.
+     */
+    private void collect(List<IngestItem> group) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getMaxDelayMillis());
+        while (group.size() < properties.getCommitSize()) {
+            queue.drainTo(group, properties.getCommitSize() - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= properties.getCommitSize() || remaining <= 0) {
+                return;
+            }
+            IngestItem next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<IngestItem> group) {
+        // Owners are locked in login order by the change sequences, see ChangeSequenceGenerator
+        Map<String, List<IngestItem>> byOwner = group
+            .stream()
+            .collect(Collectors.groupingBy(item -> item.pending.owner(), TreeMap::new, Collectors.toList()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<List<TransactionBatchResultDTO>> results = transactionTemplate.execute(
+                status -> byOwner.values().stream().map(this::createAll).collect(Collectors.toList())
+            );
+            int i = 0;
+            for (List<IngestItem> items : byOwner.values()) {
+                complete(items, results.get(i++));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} transactions failed, retrying per user: {}", group.size(), e.getMessage());
+            byOwner.values().forEach(this::commitAlone);
+        }
+        sample.stop(commitTimer);
+        commitSize.record(group.size());
+    }
+
+    private void commitAlone(List<IngestItem> items) {
+        try {
+            complete(items, transactionTemplate.execute(status -> createAll(items)));
+        } catch (RuntimeException e) {
+            log.error("Ingest of {} transactions failed", items.size(), e);
+            for (IngestItem item : items) {
+                item.pending.set(item.index, TransactionBatchResultDTO.rejected(item.index, "ingestfailed", e.getMessage()), true);
+            }
+            storeCompleted(items);
+        }
+    }
+
+    /**
+     * Reject the transactions left in the buffer, so that their tickets are failed instead of queued until they expire.
+     */
+    private void failBuffered() {
+        List<IngestItem> items = new ArrayList<>();
+        queue.drainTo(items);
+        log.warn("Ingest writer interrupted, {} buffered transactions are not created", items.size());
+        for (IngestItem item : items) {
+            item.pending.set(
+                item.index,
+                TransactionBatchResultDTO.rejected(
+                    item.index,
+                    "ingestshutdown",
+                    "The application shut down before the transaction was created"
+                ),
+                true
+            );
+        }
+        storeCompleted(items);
+    }
+
+    /**
+     * Create transactions of one user, as that user.
+     */
+    private List<TransactionBatchResultDTO> createAll(List<IngestItem> items) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(items.get(0).authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            return transactionService.createAll(items.stream().map(item -> item.transactionDTO).collect(Collectors.toList()));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void complete(List<IngestItem> items, List<TransactionBatchResultDTO> results) {
+        for (int i = 0; i < items.size(); i++) {
+            IngestItem item = items.get(i);
+            TransactionBatchResultDTO result = results.get(i);
+            result.setIndex(item.index);
+            item.pending.set(item.index, result, false);
+        }
+        storeCompleted(items);
+    }
+
+    private void storeCompleted(List<IngestItem> items) {
+        items
+            .stream()
+            .map(item -> item.pending)
+            .distinct()
+            .filter(PendingTicket::isCompleted)
+            .forEach(pending -> tickets.set(pending.mapKey, pending.toDto(), properties.getTicketTtlSeconds(), TimeUnit.SECONDS));
+    }
+
+    @Override
+    public void start() {
+        accepting = true;
+        running = true;
+        writer = new Thread(this::write, "ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (submitLock) {
+            accepting = false;
+        }
+        running = false;
+        log.info("Draining {} buffered transactions", queue.size());
+        try {
+            writer.join(properties.getDrainTimeoutMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+            // The writer fails the tickets of the buffered transactions before Hazelcast is shut down
+            try {
+                writer.join(FAIL_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stopped after the web server, once the requests in flight have completed, and before the database is closed
+        return DEFAULT_PHASE - 1024;
+    }
+
+    /**
+     * A buffered transaction.
+     */
+    private static final class IngestItem {
+
+        private final PendingTicket pending;
+
+        private final int index;
+
+        private final TransactionDTO transactionDTO;
+
+        private final Authentication authentication;
+
+        private IngestItem(PendingTicket pending, int index, TransactionDTO transactionDTO, Authentication authentication) {
+            this.pending = pending;
+            this.index = index;
+            this.transactionDTO = transactionDTO;
+            this.authentication = authentication;
+        }
+    }
+
+    /**
+     * The results of an ingest request, filled in by the writer thread only.
+     */
+    private static final class PendingTicket {
+
+        private final String mapKey;
+
+        private final IngestTicketDTO ticket;
+
+        private final TransactionBatchResultDTO[] results;
+
+        private int remaining;
+
+        private boolean failed;
+
+        private PendingTicket(String mapKey, IngestTicketDTO ticket) {
+            this.mapKey = mapKey;
+            this.ticket = ticket;
+            this.results = new TransactionBatchResultDTO[ticket.getSize()];
+            this.remaining = ticket.getSize();
+        }
+
+        private String owner() {
+            return mapKey.substring(0, mapKey.lastIndexOf(':'));
+        }
+
+        private void set(int index, TransactionBatchResultDTO result, boolean failure) {
+            results[index] = result;
+            remaining--;
+            failed |= failure;
+        }
+
+        private boolean isCompleted() {
+            return remaining == 0;
+        }
+
+        private IngestTicketDTO toDto() {
+            IngestTicketDTO completed = IngestTicketDTO.queued(ticket.getTicket(), ticket.getSize());
+            completed.setStatus(failed ? IngestTicketDTO.Status.FAILED : IngestTicketDTO.Status.COMMITTED);
+            completed.setResults(Arrays.asList(results));
+            return completed;
+        }
+    }
+}
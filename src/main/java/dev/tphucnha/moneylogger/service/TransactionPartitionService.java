@@ -0,0 +1,119 @@
+package dev.tphucnha.moneylogger.service;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.repository.DatabasePlatform;
+import dev.tphucnha.moneylogger.repository.TransactionPartitionRepository;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service managing the monthly partitions of the {@code transaction} table, when it is partitioned (on PostgreSQL).
+ * <p>
+ * At start up and every day at {@code application.partitioning.cron}, the partitions of the current month and of the
+ * next {@code months-ahead} months are created, so that new transactions never land in the default partition, and
+ * the partitions older than {@code detach-after-months}, if set, are detached. A single node manages the partitions
+ * at a time, under an advisory lock.
+ * <p>
+ * A partition is only detached once empty: the transactions of its month are first archived by
+ * {@link TransactionArchiveService#archiveMonth(YearMonth)}, so they stay listed, counted and summed, but are read
+ * only, and no tombstone is written for them: clients keep the copies they have synchronized. A partition whose month
+ * could not be fully archived is kept, and archived again at the next run.
+ */
+@Service
+public class TransactionPartitionService {
+
+    private final Logger log = LoggerFactory.getLogger(TransactionPartitionService.class);
+
+    private final TransactionPartitionRepository transactionPartitionRepository;
+
+    private final TransactionArchiveService transactionArchiveService;
+
+    private final DatabasePlatform databasePlatform;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Partitioning properties;
+
+    public TransactionPartitionService(
+        TransactionPartitionRepository transactionPartitionRepository,
+        TransactionArchiveService transactionArchiveService,
+        DatabasePlatform databasePlatform,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.transactionPartitionRepository = transactionPartitionRepository;
+        this.transactionArchiveService = transactionArchiveService;
+        this.databasePlatform = databasePlatform;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getPartitioning();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void managePartitionsAtStartup() {
+        managePartitions();
+    }
+
+    /**
+     * Create the partitions ahead of time, and archive then detach the old ones.
+     */
+    @Scheduled(cron = "${application.partitioning.cron:0 0 3 * * *}")
+    public void managePartitions() {
+        if (!databasePlatform.isPostgreSQL()) {
+            return;
+        }
+        try {
+            Map<YearMonth, String> oldPartitions = transactionTemplate.execute(status -> createPartitions(YearMonth.now(ZoneOffset.UTC)));
+            for (Map.Entry<YearMonth, String> partition : oldPartitions.entrySet()) {
+                // Each user in their own transaction, out of the lock of the partitions
+                int archived = transactionArchiveService.archiveMonth(partition.getKey());
+                log.info("Archived {} transactions of {} before detaching their partition", archived, partition.getKey());
+                Boolean detached = transactionTemplate.execute(
+                    status ->
+                        transactionPartitionRepository.tryLock() &&
+                        transactionPartitionRepository.detachPartitionIfEmpty(partition.getValue())
+                );
+                if (Boolean.TRUE.equals(detached)) {
+                    log.info("Detached the partition of the transactions of {}", partition.getKey());
+                } else {
+                    log.warn("The partition of the transactions of {} is not empty or locked, detaching it at the next run", partition.getKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to manage the partitions of the transaction table, retrying at the next run: {}", e.toString());
+        }
+    }
+
+    /**
+     * @return the partitions older than {@code detach-after-months}, empty if another node manages the partitions.
+     */
+    private Map<YearMonth, String> createPartitions(YearMonth currentMonth) {
+        if (!transactionPartitionRepository.isPartitioned() || !transactionPartitionRepository.tryLock()) {
+            return Map.of();
+        }
+        Map<YearMonth, String> partitions = transactionPartitionRepository.findMonthlyPartitions();
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            if (!partitions.containsKey(month)) {
+                log.info("Creating the partition of the transactions of {}", month);
+                transactionPartitionRepository.createPartition(month);
+            }
+        }
+        if (properties.getDetachAfterMonths() <= 0) {
+            return Map.of();
+        }
+        YearMonth oldestKept = currentMonth.minusMonths(properties.getDetachAfterMonths());
+        Map<YearMonth, String> oldPartitions = new TreeMap<>(partitions);
+        oldPartitions.keySet().removeIf(month -> !month.isBefore(oldestKept));
+        return oldPartitions;
+    }
+}
@@ -1,21 +1,40 @@
 package dev.tphucnha.moneylogger.service;
 
+import dev.tphucnha.moneylogger.domain.ArchiveSegment;
 import dev.tphucnha.moneylogger.domain.Category_;
 import dev.tphucnha.moneylogger.domain.Transaction;
 import dev.tphucnha.moneylogger.domain.Transaction_;
-import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dev.tphucnha.moneylogger.repository.DatabasePlatform;
+import dev.tphucnha.moneylogger.repository.SqlWhereBuilder;
+import dev.tphucnha.moneylogger.repository.TransactionJdbcRepository;
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
 import dev.tphucnha.moneylogger.security.SecurityUtils;
 import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
 import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
 import dev.tphucnha.moneylogger.service.mapper.TransactionMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 import javax.persistence.criteria.JoinType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.service.QueryService;
 
@@ -24,20 +43,53 @@ import tech.jhipster.service.QueryService;
  * The main input is a {@link TransactionCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
  * It returns a {@link List} of {@link TransactionDTO} or a {@link Page} of {@link TransactionDTO} which fulfills the criteria.
+ * <p>
+ * When the dates of the criteria cover archived years, see {@link TransactionArchiveService}, the archived transactions
+ * are merged with the ones of the database: a page then reads all the matching archived transactions, and the
+ * database ones up to the end of the page, merged in the order of the page.
+ * <p>
+ * The entities are read through the {@link PagedQueryExecutor}, which maps them to DTOs as they are read: in the
+ * read-only transactions of this service, they are not kept in the persistence context.
  */
 @Service
 @Transactional(readOnly = true)
 public class TransactionQueryService extends QueryService<Transaction> {
 
+    private static final String ENTITY_NAME = "transaction";
+
     private final Logger log = LoggerFactory.getLogger(TransactionQueryService.class);
 
-    private final TransactionRepository transactionRepository;
+    private final UserKeyStore userKeyStore;
 
     private final TransactionMapper transactionMapper;
 
-    public TransactionQueryService(TransactionRepository transactionRepository, TransactionMapper transactionMapper) {
-        this.transactionRepository = transactionRepository;
+    private final PagedQueryExecutor pagedQueryExecutor;
+
+    private final TransactionJdbcRepository transactionJdbcRepository;
+
+    private final DatabasePlatform databasePlatform;
+
+    private final ObjectWriter jsonWriter;
+
+    private final TransactionArchiveService transactionArchiveService;
+
+    public TransactionQueryService(
+        TransactionMapper transactionMapper,
+        PagedQueryExecutor pagedQueryExecutor,
+        TransactionJdbcRepository transactionJdbcRepository,
+        DatabasePlatform databasePlatform,
+        ObjectMapper objectMapper,
+        TransactionArchiveService transactionArchiveService,
+        UserKeyStore userKeyStore
+    ) {
         this.transactionMapper = transactionMapper;
+        this.pagedQueryExecutor = pagedQueryExecutor;
+        this.transactionJdbcRepository = transactionJdbcRepository;
+        this.databasePlatform = databasePlatform;
+        // The response stream is closed by the container, not by Jackson
+        this.jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.transactionArchiveService = transactionArchiveService;
+        this.userKeyStore = userKeyStore;
     }
 
     /**
@@ -49,7 +101,18 @@ public class TransactionQueryService extends QueryService<Transaction> {
     public List<TransactionDTO> findByCriteria(TransactionCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
         final Specification<Transaction> specification = createSpecification(criteria);
-        return transactionMapper.toDto(transactionRepository.findAll(specification));
+        List<TransactionDTO> transactions = pagedQueryExecutor.findContent(
+            Transaction.class,
+            specification,
+            Pageable.unpaged(),
+            transactionMapper::toDto
+        );
+        List<ArchiveSegment> segments = findArchiveSegments(criteria);
+        if (!segments.isEmpty()) {
+            transactions = new ArrayList<>(transactions);
+            transactions.addAll(transactionArchiveService.findArchived(segments, criteria));
+        }
+        return transactions;
     }
 
     /**
@@ -61,8 +124,69 @@ public class TransactionQueryService extends QueryService<Transaction> {
     @Transactional(readOnly = true)
     public Page<TransactionDTO> findByCriteria(TransactionCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        List<ArchiveSegment> segments = findArchiveSegments(criteria);
+        if (!segments.isEmpty()) {
+            return findMergedWithArchive(criteria, page, segments);
+        }
+        final Specification<Transaction> specification = createSpecification(criteria);
+        return pagedQueryExecutor.findSerially(
+            ENTITY_NAME,
+            () -> pagedQueryExecutor.findPage(Transaction.class, specification, page, transactionMapper::toDto)
+        );
+    }
+
+    /**
+     * Return a {@link Page} of {@link TransactionDTO} which matches the criteria from the database, running the content
+     * and the count queries concurrently on separate read-only connections.
+     * No transaction is held by the caller while both queries run.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page     The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<TransactionDTO> findByCriteriaConcurrently(TransactionCriteria criteria, Pageable page) {
+        log.debug("find by criteria concurrently : {}, page: {}", criteria, page);
+        List<ArchiveSegment> segments = findArchiveSegments(criteria);
+        if (!segments.isEmpty()) {
+            return findMergedWithArchive(criteria, page, segments);
+        }
         final Specification<Transaction> specification = createSpecification(criteria);
-        return transactionRepository.findAll(specification, page).map(transactionMapper::toDto);
+        return pagedQueryExecutor.findConcurrently(ENTITY_NAME, Transaction.class, specification, page).map(transactionMapper::toDto);
+    }
+
+    /**
+     * Write a page of {@link TransactionDTO} which matches the criteria from the database as a JSON array.
+     * On PostgreSQL the JSON is rendered by the database and streamed as is, see {@link TransactionJdbcRepository};
+     * on other databases the entities are loaded and serialized as for {@link #findByCriteria(TransactionCriteria, Pageable)}.
+     * No count query is executed.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page     The page, which should be written.
+     * @param out      The stream to write to, which is flushed but not closed.
+     * @throws IOException if the JSON cannot be written.
+     */
+    @Transactional(readOnly = true)
+    public void writeJsonByCriteria(TransactionCriteria criteria, Pageable page, OutputStream out) throws IOException {
+        log.debug("write JSON by criteria : {}, page: {}", criteria, page);
+        TransactionJdbcRepository.checkSortable(page.getSort());
+        List<ArchiveSegment> segments = findArchiveSegments(criteria);
+        if (!segments.isEmpty()) {
+            jsonWriter.writeValue(out, findMergedWithArchive(criteria, page, segments).getContent());
+            out.flush();
+        } else if (databasePlatform.isPostgreSQL()) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            transactionJdbcRepository.writeJson(createSqlWhere(criteria), page, writer);
+        } else {
+            List<TransactionDTO> transactions = pagedQueryExecutor.findContent(
+                Transaction.class,
+                createSpecification(criteria),
+                page,
+                transactionMapper::toDto
+            );
+            jsonWriter.writeValue(out, transactions);
+            out.flush();
+        }
     }
 
     /**
@@ -74,7 +198,97 @@ public class TransactionQueryService extends QueryService<Transaction> {
     public long countByCriteria(TransactionCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
         final Specification<Transaction> specification = createSpecification(criteria);
-        return transactionRepository.count(specification);
+        long count = pagedQueryExecutor.count(Transaction.class, specification);
+        List<ArchiveSegment> segments = findArchiveSegments(criteria);
+        return segments.isEmpty() ? count : count + transactionArchiveService.countArchived(segments, criteria);
+    }
+
+    /**
+     * @return the archive segments of the current user which may hold transactions matching the criteria.
+     */
+    private List<ArchiveSegment> findArchiveSegments(TransactionCriteria criteria) {
+        return transactionArchiveService.findSegments(
+            SecurityUtils.getCurrentUserLogin().orElse(""),
+            criteria != null ? criteria.getDate() : null
+        );
+    }
+
+    /**
+     * Return a page of the matching transactions of the database and of the archive segments: the database ones are
+     * read up to the end of the page, in the order of the page then by id, and merged with the archived ones.
+     */
+    private Page<TransactionDTO> findMergedWithArchive(TransactionCriteria criteria, Pageable page, List<ArchiveSegment> segments) {
+        TransactionJdbcRepository.checkSortable(page.getSort());
+        Sort sort = page.getSort().getOrderFor("id") != null ? page.getSort() : page.getSort().and(Sort.by("id"));
+        Comparator<TransactionDTO> order = comparator(sort);
+        List<TransactionDTO> archived = transactionArchiveService.findArchived(segments, criteria);
+        archived.sort(order);
+        if (page.isUnpaged()) {
+            List<TransactionDTO> transactions = new ArrayList<>(
+                pagedQueryExecutor.findContent(Transaction.class, createSpecification(criteria), page, transactionMapper::toDto)
+            );
+            transactions.addAll(archived);
+            transactions.sort(order);
+            return new PageImpl<>(transactions);
+        }
+
+        int end = Math.toIntExact(page.getOffset() + page.getPageSize());
+        final Specification<Transaction> specification = createSpecification(criteria);
+        Page<TransactionDTO> stored = pagedQueryExecutor.findSerially(
+            ENTITY_NAME,
+            () -> pagedQueryExecutor.findPage(Transaction.class, specification, PageRequest.of(0, end, sort), transactionMapper::toDto)
+        );
+
+        List<TransactionDTO> merged = new ArrayList<>(end);
+        int i = 0;
+        int j = 0;
+        List<TransactionDTO> storedContent = stored.getContent();
+        while (merged.size() < end && (i < storedContent.size() || j < archived.size())) {
+            if (j == archived.size() || (i < storedContent.size() && order.compare(storedContent.get(i), archived.get(j)) <= 0)) {
+                merged.add(storedContent.get(i++));
+            } else {
+                merged.add(archived.get(j++));
+            }
+        }
+        List<TransactionDTO> content = merged.subList(Math.min(Math.toIntExact(page.getOffset()), merged.size()), merged.size());
+        return new PageImpl<>(new ArrayList<>(content), page, stored.getTotalElements() + archived.size());
+    }
+
+    /**
+     * @return the order of a sort on the properties of {@link TransactionJdbcRepository#checkSortable(Sort)}. Missing
+     * values, such as the category of a transaction without one, are ordered as PostgreSQL does: last when ascending,
+     * first when descending.
+     */
+    private static Comparator<TransactionDTO> comparator(Sort sort) {
+        Comparator<TransactionDTO> comparator = (a, b) -> 0;
+        for (Sort.Order sortOrder : sort) {
+            Comparator<TransactionDTO> property;
+            switch (sortOrder.getProperty()) {
+                case "amount":
+                    property = nullsLast(TransactionDTO::getAmount);
+                    break;
+                case "details":
+                    property = nullsLast(TransactionDTO::getDetails);
+                    break;
+                case "date":
+                    property = nullsLast(TransactionDTO::getDate);
+                    break;
+                case "category.id":
+                    property = nullsLast(transaction -> transaction.getCategory() != null ? transaction.getCategory().getId() : null);
+                    break;
+                case "category.name":
+                    property = nullsLast(transaction -> transaction.getCategory() != null ? transaction.getCategory().getName() : null);
+                    break;
+                default:
+                    property = Comparator.comparing(TransactionDTO::getId);
+            }
+            comparator = comparator.thenComparing(sortOrder.isAscending() ? property : property.reversed());
+        }
+        return comparator;
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<TransactionDTO> nullsLast(Function<TransactionDTO, T> property) {
+        return Comparator.comparing(property, Comparator.nullsLast(Comparator.naturalOrder()));
     }
 
     /**
@@ -83,9 +297,9 @@ public class TransactionQueryService extends QueryService<Transaction> {
      * @return the matching {@link Specification} of the entity.
      */
     protected Specification<Transaction> createSpecification(TransactionCriteria criteria) {
+        int ownerKey = currentOwnerKey();
         Specification<Transaction> specification = Specification.where(
-            (root, query, criteriaBuilder) ->
-                criteriaBuilder.equal(root.get(Transaction_.createdBy), SecurityUtils.getCurrentUserLogin().orElse(""))
+            (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(Transaction_.ownerId), ownerKey)
         );
         if (criteria != null) {
             if (criteria.getId() != null) {
@@ -112,4 +326,31 @@ public class TransactionQueryService extends QueryService<Transaction> {
         }
         return specification;
     }
+
+    /**
+     * Function to convert {@link TransactionCriteria} to the SQL predicates of {@link TransactionJdbcRepository} and
+     * {@link dev.tphucnha.moneylogger.repository.TransactionBulkRepository}, the same as the ones of
+     * {@link #createSpecification(TransactionCriteria)}. The transactions are aliased {@code t}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link SqlWhereBuilder}.
+     */
+    public SqlWhereBuilder createSqlWhere(TransactionCriteria criteria) {
+        SqlWhereBuilder where = new SqlWhereBuilder().equal("t.owner_id", currentOwnerKey());
+        if (criteria != null) {
+            where
+                .rangeFilter("t.id", criteria.getId())
+                .rangeFilter("t.amount", criteria.getAmount())
+                .stringFilter("t.details", criteria.getDetails())
+                .rangeFilter("t.date", criteria.getDate())
+                .filter("t.category_id", criteria.getCategoryId());
+        }
+        return where;
+    }
+
+    /**
+     * @return the {@link dev.tphucnha.moneylogger.domain.UserKey} of the current user, resolved once per request.
+     */
+    private int currentOwnerKey() {
+        return userKeyStore.find(SecurityUtils.getCurrentUserLogin().orElse(""));
+    }
 }
@@ -1,8 +1,11 @@
 package dev.tphucnha.moneylogger.service;
 
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
 import dev.tphucnha.moneylogger.service.dto.TotalAmountDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
 import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,6 +14,7 @@ import java.util.Optional;
 public interface TransactionService {
     /**
      * Save a transaction.
+     * A category given by name, without id, is the category of the current user with that name, created if needed.
      *
      * @param transactionDTO the entity to save.
      * @return the persisted entity.
@@ -18,10 +22,33 @@ public interface TransactionService {
     TransactionDTO save(TransactionDTO transactionDTO);
 
     /**
-     * Partially updates a transaction.
+     * Create a batch of transactions, in one transaction.
+     * Invalid items are rejected individually, the others are created. Categories may be given by name, as for {@link #save}.
+     *
+     * @param transactionDTOs the entities to create.
+     * @return the result of each item, in the order of the items.
+     */
+    List<TransactionBatchResultDTO> createAll(List<TransactionDTO> transactionDTOs);
+
+    /**
+     * Update a transaction of the current user, with an update statement guarded by its owner, and by its
+     * version when given, which returns the updated row. The owner lock and the revision of the audit take statements
+     * of their own, as do the audit rows on databases other than PostgreSQL.
+     *
+     * @param transactionDTO the entity to update.
+     * @return the persisted entity, or empty if the transaction does not exist.
+     * @throws EntityVersionMismatchException if the transaction no longer has the version of the DTO.
+     */
+    Optional<TransactionDTO> update(TransactionDTO transactionDTO);
+
+    /**
+     * Partially updates a transaction, with an update statement guarded by its owner, and by its
+     * version when given, which returns the updated row. The owner lock and the revision of the audit take statements
+     * of their own, as do the audit rows on databases other than PostgreSQL.
      *
      * @param transactionDTO the entity to update partially.
-     * @return the persisted entity.
+     * @return the persisted entity, or empty if the transaction does not exist.
+     * @throws EntityVersionMismatchException if the transaction no longer has the version of the DTO.
      */
     Optional<TransactionDTO> partialUpdate(TransactionDTO transactionDTO);
 
@@ -48,6 +75,23 @@ public interface TransactionService {
      */
     void delete(Long id);
 
+    /**
+     * Set the category of all the transactions of the current user matching the criteria, in one statement.
+     *
+     * @param criteria   the criteria which the transactions should match.
+     * @param categoryId the id of the new category, or {@code null} to remove the category.
+     * @return the number of updated transactions.
+     */
+    long updateCategoryByCriteria(TransactionCriteria criteria, Long categoryId);
+
+    /**
+     * Delete all the transactions of the current user matching the criteria, in one statement.
+     *
+     * @param criteria the criteria which the transactions should match.
+     * @return the number of deleted transactions.
+     */
+    long deleteByCriteria(TransactionCriteria criteria);
+
     /**
      * Get sum of amount of all user's transactions
      * @return total amount of user's transactions
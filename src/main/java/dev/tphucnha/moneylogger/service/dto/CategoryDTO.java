@@ -14,6 +14,12 @@ public class CategoryDTO implements Serializable {
     @NotNull
     private String name;
 
+    /**
+     * The version of the entity, read from the database: when sent back in an update, the update only succeeds if
+     * the entity was not changed meanwhile.
+     */
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -30,6 +36,14 @@ public class CategoryDTO implements Serializable {
         this.name = name;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -57,6 +71,7 @@ public class CategoryDTO implements Serializable {
         return "CategoryDTO{" +
             "id=" + getId() +
             ", name='" + getName() + "'" +
+            ", version=" + getVersion() +
             "}";
     }
 }
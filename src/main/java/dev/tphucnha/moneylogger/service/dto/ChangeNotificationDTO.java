@@ -0,0 +1,97 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * A compact notification of a change, pushed to the change feed of the entity's owner.
+ */
+public class ChangeNotificationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String entityName;
+
+    private Long entityId;
+
+    private String type;
+
+    private Long changeSequence;
+
+    private BigDecimal totalAmount;
+
+    @JsonIgnore
+    private String owner;
+
+    @JsonIgnore
+    private long emittedAt;
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getEmittedAt() {
+        return emittedAt;
+    }
+
+    public void setEmittedAt(long emittedAt) {
+        this.emittedAt = emittedAt;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ChangeNotificationDTO{" +
+            "entityName='" + getEntityName() + "'" +
+            ", entityId=" + getEntityId() +
+            ", type='" + getType() + "'" +
+            ", changeSequence=" + getChangeSequence() +
+            ", totalAmount=" + getTotalAmount() +
+            "}";
+    }
+}
@@ -0,0 +1,146 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The status of the import of a bank statement.
+ * <p>
+ * The counters are updated as the chunks of the statement are inserted; {@code errors} holds the first rejected rows,
+ * with the number of the row in the statement as index.
+ */
+public class ImportJobDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private String id;
+
+    private String format;
+
+    private Status status;
+
+    private long rowsRead;
+
+    private long created;
+
+    private long rejected;
+
+    private long categoriesCreated;
+
+    private List<TransactionBatchResultDTO> errors = new ArrayList<>();
+
+    private String message;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getCategoriesCreated() {
+        return categoriesCreated;
+    }
+
+    public void setCategoriesCreated(long categoriesCreated) {
+        this.categoriesCreated = categoriesCreated;
+    }
+
+    public List<TransactionBatchResultDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<TransactionBatchResultDTO> errors) {
+        this.errors = errors;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ImportJobDTO{" +
+            "id='" + getId() + "'" +
+            ", format='" + getFormat() + "'" +
+            ", status=" + getStatus() +
+            ", rowsRead=" + getRowsRead() +
+            ", created=" + getCreated() +
+            ", rejected=" + getRejected() +
+            "}";
+    }
+}
@@ -0,0 +1,78 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The status of a request of the asynchronous ingest of {@link TransactionDTO}s.
+ * <p>
+ * Once the request is {@link Status#COMMITTED}, {@code results} holds the result of each item, as for a batch.
+ */
+public class IngestTicketDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        QUEUED,
+        COMMITTED,
+        FAILED,
+    }
+
+    private String ticket;
+
+    private Status status;
+
+    private int size;
+
+    private List<TransactionBatchResultDTO> results;
+
+    public static IngestTicketDTO queued(String ticket, int size) {
+        IngestTicketDTO ingestTicket = new IngestTicketDTO();
+        ingestTicket.setTicket(ticket);
+        ingestTicket.setStatus(Status.QUEUED);
+        ingestTicket.setSize(size);
+        return ingestTicket;
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public List<TransactionBatchResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<TransactionBatchResultDTO> results) {
+        this.results = results;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IngestTicketDTO{" +
+            "ticket='" + getTicket() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", size=" + getSize() +
+            "}";
+    }
+}
@@ -0,0 +1,72 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * The number and total amount of the transactions of a merchant.
+ */
+public class MerchantTotalDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long merchantId;
+
+    private String name;
+
+    private long count;
+
+    private BigDecimal totalAmount;
+
+    public MerchantTotalDTO() {}
+
+    public MerchantTotalDTO(Long merchantId, String name, long count, BigDecimal totalAmount) {
+        this.merchantId = merchantId;
+        this.name = name;
+        this.count = count;
+        this.totalAmount = totalAmount;
+    }
+
+    public Long getMerchantId() {
+        return merchantId;
+    }
+
+    public void setMerchantId(Long merchantId) {
+        this.merchantId = merchantId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MerchantTotalDTO{" +
+            "merchantId=" + getMerchantId() +
+            ", name='" + getName() + "'" +
+            ", count=" + getCount() +
+            ", totalAmount=" + getTotalAmount() +
+            "}";
+    }
+}
@@ -0,0 +1,46 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A single-use ticket opening the change feed stream, passed as its {@code ticket} request parameter.
+ */
+public class StreamTicketDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String ticket;
+
+    private long expiresInSeconds;
+
+    public StreamTicketDTO() {}
+
+    public StreamTicketDTO(String ticket, long expiresInSeconds) {
+        this.ticket = ticket;
+        this.expiresInSeconds = expiresInSeconds;
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public long getExpiresInSeconds() {
+        return expiresInSeconds;
+    }
+
+    public void setExpiresInSeconds(long expiresInSeconds) {
+        this.expiresInSeconds = expiresInSeconds;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StreamTicketDTO{" +
+            "expiresInSeconds=" + getExpiresInSeconds() +
+            "}";
+    }
+}
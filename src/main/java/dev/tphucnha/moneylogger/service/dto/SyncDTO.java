@@ -0,0 +1,75 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of the changes of the current user since a client-held change sequence.
+ * <p>
+ * Clients apply the batch, store {@code next} and ask again with {@code since=next} while {@code hasMore} is true.
+ */
+public class SyncDTO implements Serializable {
+
+    private List<TransactionDTO> transactions = new ArrayList<>();
+
+    private List<CategoryDTO> categories = new ArrayList<>();
+
+    private List<TombstoneDTO> deleted = new ArrayList<>();
+
+    private Long next;
+
+    private boolean hasMore;
+
+    public List<TransactionDTO> getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(List<TransactionDTO> transactions) {
+        this.transactions = transactions;
+    }
+
+    public List<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryDTO> categories) {
+        this.categories = categories;
+    }
+
+    public List<TombstoneDTO> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<TombstoneDTO> deleted) {
+        this.deleted = deleted;
+    }
+
+    public Long getNext() {
+        return next;
+    }
+
+    public void setNext(Long next) {
+        this.next = next;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncDTO{" +
+            "transactions=" + getTransactions().size() +
+            ", categories=" + getCategories().size() +
+            ", deleted=" + getDeleted().size() +
+            ", next=" + getNext() +
+            ", hasMore=" + isHasMore() +
+            "}";
+    }
+}
@@ -0,0 +1,57 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the {@link dev.tphucnha.moneylogger.domain.SyncTombstone} entity.
+ */
+public class TombstoneDTO implements Serializable {
+
+    private String entityName;
+
+    private Long entityId;
+
+    private Long changeSequence;
+
+    public TombstoneDTO() {}
+
+    public TombstoneDTO(String entityName, Long entityId, Long changeSequence) {
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.changeSequence = changeSequence;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TombstoneDTO{" +
+            "entityName='" + getEntityName() + "'" +
+            ", entityId=" + getEntityId() +
+            ", changeSequence=" + getChangeSequence() +
+            "}";
+    }
+}
@@ -0,0 +1,94 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The result of one item of a batch of {@link TransactionDTO}s, at the same index as the item in the batch.
+ */
+public class TransactionBatchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        CREATED,
+        REJECTED,
+    }
+
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private String errorKey;
+
+    private String message;
+
+    public static TransactionBatchResultDTO created(int index, Long id) {
+        TransactionBatchResultDTO result = new TransactionBatchResultDTO();
+        result.setIndex(index);
+        result.setStatus(Status.CREATED);
+        result.setId(id);
+        return result;
+    }
+
+    public static TransactionBatchResultDTO rejected(int index, String errorKey, String message) {
+        TransactionBatchResultDTO result = new TransactionBatchResultDTO();
+        result.setIndex(index);
+        result.setStatus(Status.REJECTED);
+        result.setErrorKey(errorKey);
+        result.setMessage(message);
+        return result;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getErrorKey() {
+        return errorKey;
+    }
+
+    public void setErrorKey(String errorKey) {
+        this.errorKey = errorKey;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TransactionBatchResultDTO{" +
+            "index=" + getIndex() +
+            ", status=" + getStatus() +
+            ", id=" + getId() +
+            ", errorKey='" + getErrorKey() + "'" +
+            "}";
+    }
+}
@@ -24,6 +24,12 @@ public class TransactionDTO implements Serializable {
 
     private CategoryDTO category;
 
+    /**
+     * The version of the entity, read from the database: when sent back in an update, the update only succeeds if
+     * the entity was not changed meanwhile.
+     */
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -64,6 +70,14 @@ public class TransactionDTO implements Serializable {
         this.category = category;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -94,6 +108,7 @@ public class TransactionDTO implements Serializable {
             ", details='" + getDetails() + "'" +
             ", date='" + getDate() + "'" +
             ", category=" + getCategory() +
+            ", version=" + getVersion() +
             "}";
     }
 }
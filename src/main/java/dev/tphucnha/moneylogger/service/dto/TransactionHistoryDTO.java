@@ -0,0 +1,34 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of revisions of transactions, newest first.
+ * <p>
+ * Clients ask for the next page with the {@code revision} and {@code transactionId} of the last revision of this one,
+ * while {@code hasMore} is true.
+ */
+public class TransactionHistoryDTO implements Serializable {
+
+    private List<TransactionRevisionDTO> revisions = new ArrayList<>();
+
+    private boolean hasMore;
+
+    public List<TransactionRevisionDTO> getRevisions() {
+        return revisions;
+    }
+
+    public void setRevisions(List<TransactionRevisionDTO> revisions) {
+        this.revisions = revisions;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
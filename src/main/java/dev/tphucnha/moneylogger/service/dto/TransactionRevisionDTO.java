@@ -0,0 +1,106 @@
+package dev.tphucnha.moneylogger.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A revision of a {@link dev.tphucnha.moneylogger.domain.Transaction}: the change made, when, and the values it left.
+ * The values of a deletion are empty.
+ */
+public class TransactionRevisionDTO implements Serializable {
+
+    private Integer revision;
+
+    private Instant revisionDate;
+
+    /**
+     * {@code CREATED}, {@code UPDATED} or {@code DELETED}.
+     */
+    private String type;
+
+    private Long transactionId;
+
+    private BigDecimal amount;
+
+    private String details;
+
+    private Instant date;
+
+    private Long categoryId;
+
+    public Integer getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Integer revision) {
+        this.revision = revision;
+    }
+
+    public Instant getRevisionDate() {
+        return revisionDate;
+    }
+
+    public void setRevisionDate(Instant revisionDate) {
+        this.revisionDate = revisionDate;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public void setDetails(String details) {
+        this.details = details;
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public void setDate(Instant date) {
+        this.date = date;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TransactionRevisionDTO{" +
+            "revision=" + getRevision() +
+            ", revisionDate='" + getRevisionDate() + "'" +
+            ", type='" + getType() + "'" +
+            ", transactionId=" + getTransactionId() +
+            "}";
+    }
+}
@@ -0,0 +1,118 @@
+package dev.tphucnha.moneylogger.service.event;
+
+import dev.tphucnha.moneylogger.domain.AbstractAuditingEntity;
+import dev.tphucnha.moneylogger.domain.SyncTombstone;
+
+/**
+ * Application event published by the services whenever a synchronized entity is created, updated or deleted.
+ * <p>
+ * The change sequence of an update is only assigned at flush time, so it is read from the entity when the event is
+ * handled after commit.
+ * <p>
+ * Changes of many entities at once, such as batch inserts, are published as a single {@link ChangeType#BULK} event
+ * without entity id: subscribers are expected to synchronize the changes since their last known change sequence.
+ */
+public class EntityChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        BULK,
+    }
+
+    private final String entityName;
+
+    private final Long entityId;
+
+    private final String owner;
+
+    private final ChangeType type;
+
+    private final AbstractAuditingEntity entity;
+
+    private final SyncTombstone tombstone;
+
+    private final Long changeSequence;
+
+    private EntityChangedEvent(
+        String entityName,
+        Long entityId,
+        String owner,
+        ChangeType type,
+        AbstractAuditingEntity entity,
+        SyncTombstone tombstone,
+        Long changeSequence
+    ) {
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.owner = owner;
+        this.type = type;
+        this.entity = entity;
+        this.tombstone = tombstone;
+        this.changeSequence = changeSequence;
+    }
+
+    public static EntityChangedEvent saved(String entityName, Long entityId, String owner, AbstractAuditingEntity entity, boolean created) {
+        return new EntityChangedEvent(entityName, entityId, owner, created ? ChangeType.CREATED : ChangeType.UPDATED, entity, null, null);
+    }
+
+    /**
+     * A change written without the entity, such as an owner-guarded update statement, whose change sequence is known.
+     */
+    public static EntityChangedEvent of(String entityName, Long entityId, String owner, ChangeType type, Long changeSequence) {
+        return new EntityChangedEvent(entityName, entityId, owner, type, null, null, changeSequence);
+    }
+
+    public static EntityChangedEvent bulk(String entityName, String owner, Long changeSequence) {
+        return new EntityChangedEvent(entityName, null, owner, ChangeType.BULK, null, null, changeSequence);
+    }
+
+    public static EntityChangedEvent deleted(SyncTombstone tombstone) {
+        return new EntityChangedEvent(
+            tombstone.getEntityName(),
+            tombstone.getEntityId(),
+            tombstone.getCreatedBy(),
+            ChangeType.DELETED,
+            null,
+            tombstone,
+            null
+        );
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    /**
+     * @return the change sequence of the change, once it has been flushed.
+     */
+    public Long getChangeSequence() {
+        if (changeSequence != null) {
+            return changeSequence;
+        }
+        return tombstone != null ? tombstone.getChangeSequence() : entity.getChangeSequence();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EntityChangedEvent{" +
+            "entityName='" + getEntityName() + "'" +
+            ", entityId=" + getEntityId() +
+            ", type=" + getType() +
+            "}";
+    }
+}
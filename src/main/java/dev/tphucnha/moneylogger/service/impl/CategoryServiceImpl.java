@@ -1,14 +1,25 @@
 package dev.tphucnha.moneylogger.service.impl;
 
 import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.repository.CategoryBulkRepository;
 import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.ChangeSequenceGenerator;
+import dev.tphucnha.moneylogger.repository.TransactionBulkRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
 import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.CategoryNameCache;
 import dev.tphucnha.moneylogger.service.CategoryService;
+import dev.tphucnha.moneylogger.service.EntityVersionMismatchException;
+import dev.tphucnha.moneylogger.service.SyncService;
 import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
 import dev.tphucnha.moneylogger.service.mapper.CategoryMapper;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -27,9 +38,40 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryMapper categoryMapper;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository, CategoryMapper categoryMapper) {
+    private final SyncService syncService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final CategoryBulkRepository categoryBulkRepository;
+
+    private final ChangeSequenceGenerator changeSequenceGenerator;
+
+    private final CategoryNameCache categoryNameCache;
+
+    private final TransactionBulkRepository transactionBulkRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    public CategoryServiceImpl(
+        CategoryRepository categoryRepository,
+        CategoryMapper categoryMapper,
+        SyncService syncService,
+        ApplicationEventPublisher applicationEventPublisher,
+        CategoryBulkRepository categoryBulkRepository,
+        ChangeSequenceGenerator changeSequenceGenerator,
+        CategoryNameCache categoryNameCache,
+        TransactionBulkRepository transactionBulkRepository,
+        TransactionRepository transactionRepository
+    ) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
+        this.syncService = syncService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.categoryBulkRepository = categoryBulkRepository;
+        this.changeSequenceGenerator = changeSequenceGenerator;
+        this.categoryNameCache = categoryNameCache;
+        this.transactionBulkRepository = transactionBulkRepository;
+        this.transactionRepository = transactionRepository;
     }
 
     @Override
@@ -37,24 +79,101 @@ public class CategoryServiceImpl implements CategoryService {
         log.debug("Request to save Category : {}", categoryDTO);
         validateDto(categoryDTO);
         Category category = categoryMapper.toEntity(categoryDTO);
-        category = categoryRepository.save(category);
+        // Flushed so that a name already used by the user fails here, on its unique constraint
+        category = categoryRepository.saveAndFlush(category);
+        if (categoryDTO.getId() != null) {
+            categoryNameCache.evict(category.getId());
+        }
+        categoryNameCache.put(category.getCreatedBy(), category.getNameKey(), category.getId());
+        publishSaved(category, categoryDTO.getId() == null);
         return categoryMapper.toDto(category);
     }
 
+    @Override
+    public Long findOrCreateIdByName(String name) {
+        log.debug("Request to find or create Category by name : {}", name);
+        String nameKey = Category.nameKey(name);
+        if (nameKey == null || nameKey.isEmpty()) {
+            throw new InvalidDataAccessResourceUsageException("Invalid category");
+        }
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        Optional<Long> cached = categoryNameCache.get(owner, nameKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Long id = categoryRepository.findIdByOwnerAndNameKey(owner, nameKey).orElseGet(() -> create(owner, name, nameKey));
+        categoryNameCache.put(owner, nameKey, id);
+        return id;
+    }
+
+    private Long create(String owner, String name, String nameKey) {
+        long changeSequence = changeSequenceGenerator.next(owner);
+        Optional<Long> created = categoryBulkRepository.insertIfAbsent(owner, name, changeSequence);
+        if (created.isEmpty()) {
+            // Created by a concurrent transaction, which has committed since the lookup
+            return categoryRepository
+                .findIdByOwnerAndNameKey(owner, nameKey)
+                .orElseThrow(() -> new InvalidDataAccessResourceUsageException("Invalid category"));
+        }
+        applicationEventPublisher.publishEvent(
+            EntityChangedEvent.of(SyncService.CATEGORY, created.get(), owner, EntityChangedEvent.ChangeType.CREATED, changeSequence)
+        );
+        return created.get();
+    }
+
+    @Override
+    public Optional<CategoryDTO> update(CategoryDTO categoryDTO) {
+        log.debug("Request to update Category : {}", categoryDTO);
+        return updateOwned(categoryDTO, false) ? Optional.of(categoryDTO) : Optional.empty();
+    }
+
     @Override
     public Optional<CategoryDTO> partialUpdate(CategoryDTO categoryDTO) {
         log.debug("Request to partially update Category : {}", categoryDTO);
-        validateDto(categoryDTO);
-        return categoryRepository
-            .findById(categoryDTO.getId())
-            .map(
-                existingCategory -> {
-                    categoryMapper.partialUpdate(existingCategory, categoryDTO);
-                    return existingCategory;
-                }
-            )
-            .map(categoryRepository::save)
-            .map(categoryMapper::toDto);
+        if (!updateOwned(categoryDTO, true)) {
+            return Optional.empty();
+        }
+        // The name is the only column, it is only read back when left unchanged
+        return categoryDTO.getName() != null
+            ? Optional.of(categoryDTO)
+            : categoryRepository.findById(categoryDTO.getId()).map(categoryMapper::toDto);
+    }
+
+    /**
+     * Update a category in one statement guarded by its owner, and by its version when the DTO has one, instead of
+     * loading and merging it. Why nothing was updated is only looked for when it happens.
+     *
+     * @return whether the category exists.
+     */
+    private boolean updateOwned(CategoryDTO categoryDTO, boolean partial) {
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        long changeSequence = changeSequenceGenerator.next(owner);
+        Long version = categoryDTO.getVersion();
+        if (categoryBulkRepository.update(categoryDTO.getId(), owner, categoryDTO.getName(), partial, version, changeSequence) == 0) {
+            Optional<String> createdBy = categoryRepository.findCreatedByById(categoryDTO.getId());
+            if (createdBy.isEmpty()) {
+                return false;
+            }
+            if (version != null && owner.equals(createdBy.get())) {
+                throw new EntityVersionMismatchException(SyncService.CATEGORY, categoryDTO.getId(), version);
+            }
+            throw new AccessDeniedException("Access denied");
+        }
+        if (version != null) {
+            categoryDTO.setVersion(version + 1);
+        }
+        if (categoryDTO.getName() != null) {
+            categoryNameCache.evict(categoryDTO.getId());
+        }
+        applicationEventPublisher.publishEvent(
+            EntityChangedEvent.of(SyncService.CATEGORY, categoryDTO.getId(), owner, EntityChangedEvent.ChangeType.UPDATED, changeSequence)
+        );
+        return true;
+    }
+
+    private void publishSaved(Category category, boolean created) {
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        applicationEventPublisher.publishEvent(EntityChangedEvent.saved(SyncService.CATEGORY, category.getId(), owner, category, created));
     }
 
     private void validateDto(CategoryDTO categoryDTO) {
@@ -87,10 +206,34 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public void delete(Long id) {
-        log.debug("Request to delete Category : {}", id);
+        delete(id, null);
+    }
+
+    @Override
+    public void delete(Long id, Long reassignTo) {
+        log.debug("Request to delete Category : {}, reassigning its transactions to : {}", id, reassignTo);
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
         Optional<Category> category = categoryRepository.findById(id);
         validateEntity(category);
+        if (
+            reassignTo != null &&
+            (Objects.equals(id, reassignTo) || categoryRepository.findIdsByIdInAndOwner(Set.of(reassignTo), owner).isEmpty())
+        ) {
+            throw new InvalidDataAccessResourceUsageException("Invalid category");
+        }
+        if (category.isPresent()) {
+            // One statement instead of loading the transactions of the category, before the category is removed
+            if (transactionBulkRepository.detachCategory(id, owner, reassignTo) > 0) {
+                applicationEventPublisher.publishEvent(
+                    EntityChangedEvent.bulk(SyncService.TRANSACTION, owner, transactionRepository.getLastChangeSequenceByUser(owner))
+                );
+            }
+            applicationEventPublisher.publishEvent(
+                EntityChangedEvent.deleted(syncService.recordDeletion(SyncService.CATEGORY, category.get(), id))
+            );
+        }
         categoryRepository.deleteById(id);
+        categoryNameCache.evict(id);
     }
 
     private void validateEntity(Optional<Category> category) {
@@ -1,25 +1,50 @@
 package dev.tphucnha.moneylogger.service.impl;
 
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
 import dev.tphucnha.moneylogger.domain.Category;
 import dev.tphucnha.moneylogger.domain.Transaction;
 import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.ChangeSequenceGenerator;
+import dev.tphucnha.moneylogger.repository.SyncTombstoneRepository;
+import dev.tphucnha.moneylogger.repository.TransactionBulkRepository;
 import dev.tphucnha.moneylogger.repository.TransactionRepository;
 import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.service.CategoryService;
+import dev.tphucnha.moneylogger.service.EntityVersionMismatchException;
+import dev.tphucnha.moneylogger.service.MerchantService;
 import dev.tphucnha.moneylogger.service.TransactionService;
+import dev.tphucnha.moneylogger.service.SyncService;
+import dev.tphucnha.moneylogger.service.TransactionArchiveService;
+import dev.tphucnha.moneylogger.service.TransactionQueryService;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
 import dev.tphucnha.moneylogger.service.dto.TotalAmountDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
 import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
-import dev.tphucnha.moneylogger.service.mapper.CategoryMapper;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
 import dev.tphucnha.moneylogger.service.mapper.TransactionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service Implementation for managing {@link Transaction}.
@@ -36,77 +61,263 @@ public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionMapper transactionMapper;
 
-    private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final ChangeSequenceGenerator changeSequenceGenerator;
+
+    private final EntityManager em;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionBulkRepository transactionBulkRepository;
+
+    private final TransactionQueryService transactionQueryService;
+
+    private final SyncTombstoneRepository syncTombstoneRepository;
+
+    private final CategoryService categoryService;
+
+    private final TransactionArchiveService transactionArchiveService;
+
+    private final MerchantService merchantService;
 
     public TransactionServiceImpl(
         TransactionRepository transactionRepository,
         CategoryRepository categoryRepository,
         TransactionMapper transactionMapper,
-        CategoryMapper categoryMapper
+        ApplicationEventPublisher applicationEventPublisher,
+        ChangeSequenceGenerator changeSequenceGenerator,
+        EntityManager em,
+        Validator validator,
+        ApplicationProperties applicationProperties,
+        TransactionBulkRepository transactionBulkRepository,
+        TransactionQueryService transactionQueryService,
+        SyncTombstoneRepository syncTombstoneRepository,
+        CategoryService categoryService,
+        TransactionArchiveService transactionArchiveService,
+        MerchantService merchantService
     ) {
         this.transactionRepository = transactionRepository;
         this.categoryRepository = categoryRepository;
         this.transactionMapper = transactionMapper;
-        this.categoryMapper = categoryMapper;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.changeSequenceGenerator = changeSequenceGenerator;
+        this.em = em;
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
+        this.transactionBulkRepository = transactionBulkRepository;
+        this.transactionQueryService = transactionQueryService;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.categoryService = categoryService;
+        this.transactionArchiveService = transactionArchiveService;
+        this.merchantService = merchantService;
     }
 
+    /**
+     * Create a transaction in one statement guarded by the owner of its category, as {@link #updateOwned} updates one:
+     * neither the category nor the transaction is read first. A DTO with an id updates the transaction instead.
+     */
     @Override
     public TransactionDTO save(TransactionDTO transactionDTO) {
         log.debug("Request to save Transaction : {}", transactionDTO);
-        validateDto(transactionDTO);
-        Transaction transaction = transactionMapper.toEntity(transactionDTO);
-
-        if (transactionDTO.getCategory() != null) {
-            if (transactionDTO.getCategory().getId() != null) {
-                // No need to validate the existing category's owner, the transactionDTO is validated already
-                Category existingCategory = categoryRepository.getOne(transactionDTO.getCategory().getId());
-                transaction.setCategory(existingCategory);
-            } else {
-                Category newCategory = categoryRepository.save(categoryMapper.toEntity(transactionDTO.getCategory()));
-                transaction.setCategory(newCategory);
-            }
+        if (transactionDTO.getId() != null) {
+            return updateOwned(transactionDTO, false)
+                .map(transactionMapper::toDto)
+                .orElseThrow(() -> new InvalidDataAccessResourceUsageException("Invalid transaction"));
         }
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        Transaction values = transactionMapper.toEntity(transactionDTO);
+        values.setCategory(category(transactionDTO));
+        values.setMerchantId(merchantService.resolveId(owner, values.getDetails()));
 
-        transaction = transactionRepository.save(transaction);
+        Transaction transaction = transactionBulkRepository
+            .insert(owner, values)
+            .orElseThrow(() -> new InvalidDataAccessResourceUsageException("Invalid category"));
+        applicationEventPublisher.publishEvent(
+            EntityChangedEvent.of(
+                SyncService.TRANSACTION,
+                transaction.getId(),
+                owner,
+                EntityChangedEvent.ChangeType.CREATED,
+                transaction.getChangeSequence()
+            )
+        );
         return transactionMapper.toDto(transaction);
     }
 
-    @Override
-    public Optional<TransactionDTO> partialUpdate(TransactionDTO transactionDTO) {
-        log.debug("Request to partially update Transaction : {}", transactionDTO);
-        validateDto(transactionDTO);
-        return transactionRepository
-            .findById(transactionDTO.getId())
-            .map(
-                existingTransaction -> {
-                    transactionMapper.partialUpdate(existingTransaction, transactionDTO);
-                    return existingTransaction;
-                }
-            )
-            .map(transactionRepository::save)
-            .map(transactionMapper::toDto);
+    /**
+     * @return the category of a transaction, as a reference: a category given by name only is the category of the user
+     * with that name, created if needed.
+     */
+    private Category category(TransactionDTO transactionDTO) {
+        if (transactionDTO.getCategory() == null) {
+            return null;
+        }
+        if (transactionDTO.getCategory().getId() != null) {
+            return categoryRepository.getOne(transactionDTO.getCategory().getId());
+        }
+        return categoryRepository.getOne(categoryService.findOrCreateIdByName(transactionDTO.getCategory().getName()));
     }
 
-    private void validateDto(TransactionDTO transactionDTO) {
-        // Validate category's owner
-        if (transactionDTO.getCategory() != null && transactionDTO.getCategory().getId() != null) {
-            Optional<Category> target = categoryRepository.findById(transactionDTO.getCategory().getId());
-            if (target.isEmpty()) throw new InvalidDataAccessResourceUsageException("Invalid category");
+    @Override
+    public List<TransactionBatchResultDTO> createAll(List<TransactionDTO> transactionDTOs) {
+        log.debug("Request to create a batch of {} Transactions", transactionDTOs.size());
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        // Validate the owner of all the categories at once
+        Set<Long> categoryIds = transactionDTOs
+            .stream()
+            .filter(Objects::nonNull)
+            .map(TransactionDTO::getCategory)
+            .filter(category -> category != null && category.getId() != null)
+            .map(CategoryDTO::getId)
+            .collect(Collectors.toSet());
+        Set<Long> ownedCategoryIds = categoryIds.isEmpty()
+            ? Collections.emptySet()
+            : categoryRepository.findIdsByIdInAndOwner(categoryIds, owner);
 
-            if (
-                !target.get().getCreatedBy().equals(SecurityUtils.getCurrentUserLogin().orElse(""))
-            ) throw new InvalidDataAccessResourceUsageException("Invalid category");
+        List<TransactionBatchResultDTO> results = new ArrayList<>(transactionDTOs.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(transactionDTOs.size());
+        for (int i = 0; i < transactionDTOs.size(); i++) {
+            TransactionBatchResultDTO rejection = validateBatchItem(i, transactionDTOs.get(i), ownedCategoryIds);
+            results.add(rejection);
+            if (rejection == null) {
+                acceptedIndexes.add(i);
+            }
+        }
+        if (acceptedIndexes.isEmpty()) {
+            return results;
+        }
+        // Categories given by name only are resolved before the inserts, not to flush them in the middle of a JDBC batch
+        Map<String, Long> categoryIdsByName = new HashMap<>();
+        for (Integer index : acceptedIndexes) {
+            CategoryDTO category = transactionDTOs.get(index).getCategory();
+            if (category != null && category.getId() == null) {
+                categoryIdsByName.computeIfAbsent(
+                    Category.nameKey(category.getName()),
+                    nameKey -> categoryService.findOrCreateIdByName(category.getName())
+                );
+            }
         }
+        Map<String, Long> merchantIds = merchantService.resolveIds(
+            owner,
+            acceptedIndexes.stream().map(index -> transactionDTOs.get(index).getDetails()).collect(Collectors.toSet())
+        );
 
-        // Validate transaction's owner
+        // The inserts are grouped in JDBC batches at flush time, the persistence context is cleared between flushes
+        changeSequenceGenerator.reserve(owner, acceptedIndexes.size());
+        int flushSize = applicationProperties.getBatch().getFlushSize();
+        long lastChangeSequence = 0;
+        for (int start = 0; start < acceptedIndexes.size(); start += flushSize) {
+            List<Integer> chunk = acceptedIndexes.subList(start, Math.min(start + flushSize, acceptedIndexes.size()));
+            List<Transaction> transactions = new ArrayList<>(chunk.size());
+            for (Integer index : chunk) {
+                TransactionDTO transactionDTO = transactionDTOs.get(index);
+                Transaction transaction = transactionMapper.toEntity(transactionDTO);
+                CategoryDTO category = transactionDTO.getCategory();
+                if (category != null) {
+                    Long categoryId = category.getId() != null
+                        ? category.getId()
+                        : categoryIdsByName.get(Category.nameKey(category.getName()));
+                    transaction.setCategory(categoryRepository.getOne(categoryId));
+                }
+                transaction.setMerchantId(merchantIds.get(transaction.getDetails()));
+                em.persist(transaction);
+                transactions.add(transaction);
+            }
+            em.flush();
+            em.clear();
+            for (int i = 0; i < chunk.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                results.set(chunk.get(i), TransactionBatchResultDTO.created(chunk.get(i), transaction.getId()));
+                lastChangeSequence = Math.max(lastChangeSequence, transaction.getChangeSequence());
+            }
+        }
+        applicationEventPublisher.publishEvent(EntityChangedEvent.bulk(SyncService.TRANSACTION, owner, lastChangeSequence));
+        return results;
+    }
+
+    private TransactionBatchResultDTO validateBatchItem(int index, TransactionDTO transactionDTO, Set<Long> ownedCategoryIds) {
+        if (transactionDTO == null) {
+            return TransactionBatchResultDTO.rejected(index, "itemnull", "A transaction is required");
+        }
         if (transactionDTO.getId() != null) {
-            Optional<Transaction> target = transactionRepository.findById(transactionDTO.getId());
-            if (target.isEmpty()) throw new InvalidDataAccessResourceUsageException("Invalid transaction");
+            return TransactionBatchResultDTO.rejected(index, "idexists", "A new transaction cannot already have an ID");
+        }
+        Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(transactionDTO);
+        if (!violations.isEmpty()) {
+            String message = violations
+                .stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+            return TransactionBatchResultDTO.rejected(index, "validation", message);
+        }
+        CategoryDTO category = transactionDTO.getCategory();
+        boolean validCategory =
+            category == null || (category.getId() != null ? ownedCategoryIds.contains(category.getId()) : isNamed(category));
+        if (!validCategory) {
+            return TransactionBatchResultDTO.rejected(index, "categoryinvalid", "Invalid category");
+        }
+        return null;
+    }
 
-            if (!target.get().getCreatedBy().equals(SecurityUtils.getCurrentUserLogin().orElse(""))) throw new AccessDeniedException(
-                "Access denied"
-            );
+    private static boolean isNamed(CategoryDTO category) {
+        String nameKey = Category.nameKey(category.getName());
+        return nameKey != null && !nameKey.isEmpty();
+    }
+
+    @Override
+    public Optional<TransactionDTO> update(TransactionDTO transactionDTO) {
+        log.debug("Request to update Transaction : {}", transactionDTO);
+        return updateOwned(transactionDTO, false).map(transactionMapper::toDto);
+    }
+
+    @Override
+    public Optional<TransactionDTO> partialUpdate(TransactionDTO transactionDTO) {
+        log.debug("Request to partially update Transaction : {}", transactionDTO);
+        return updateOwned(transactionDTO, true).map(transactionMapper::toDto);
+    }
+
+    /**
+     * Update a transaction in one statement guarded by its owner, and by its version when the DTO has one, instead of
+     * loading and merging it: the statement returns the updated row, the columns left unchanged by a partial update
+     * included. Why nothing was updated is only looked for when it happens.
+     *
+     * @return the transaction as updated, or empty if the transaction does not exist.
+     */
+    private Optional<Transaction> updateOwned(TransactionDTO transactionDTO, boolean partial) {
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        Transaction values = transactionMapper.toEntity(transactionDTO);
+        values.setCategory(category(transactionDTO));
+        values.setMerchantId(merchantService.resolveId(owner, values.getDetails()));
+
+        Optional<Transaction> updated = transactionBulkRepository.update(transactionDTO.getId(), owner, values, partial);
+        if (updated.isEmpty()) {
+            Optional<String> createdBy = transactionRepository.findCreatedByById(transactionDTO.getId());
+            if (createdBy.isEmpty()) {
+                return Optional.empty();
+            }
+            Category category = values.getCategory();
+            if (category != null && categoryRepository.findIdsByIdInAndOwner(Set.of(category.getId()), owner).isEmpty()) {
+                throw new InvalidDataAccessResourceUsageException("Invalid category");
+            }
+            if (values.getVersion() != null && owner.equals(createdBy.get())) {
+                throw new EntityVersionMismatchException(SyncService.TRANSACTION, transactionDTO.getId(), values.getVersion());
+            }
+            throw new AccessDeniedException("Access denied");
         }
+        applicationEventPublisher.publishEvent(
+            EntityChangedEvent.of(
+                SyncService.TRANSACTION,
+                values.getId(),
+                owner,
+                EntityChangedEvent.ChangeType.UPDATED,
+                updated.get().getChangeSequence()
+            )
+        );
+        return updated;
     }
 
     //    @Override
@@ -128,14 +339,53 @@ public class TransactionServiceImpl implements TransactionService {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Transaction : {}", id);
-        Optional<Transaction> transaction = transactionRepository.findById(id);
-        validateEntity(transaction);
-        transactionRepository.deleteById(id);
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        long changeSequence = changeSequenceGenerator.next(owner);
+        if (transactionBulkRepository.delete(id, owner, changeSequence) == 0) {
+            if (transactionRepository.findCreatedByById(id).isEmpty()) {
+                // As Spring Data's deleteById
+                throw new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!", Transaction.class, id), 1);
+            }
+            throw new AccessDeniedException("Access denied");
+        }
+        applicationEventPublisher.publishEvent(
+            EntityChangedEvent.of(SyncService.TRANSACTION, id, owner, EntityChangedEvent.ChangeType.DELETED, changeSequence)
+        );
+    }
+
+    @Override
+    public long updateCategoryByCriteria(TransactionCriteria criteria, Long categoryId) {
+        log.debug("Request to update the category of Transactions by criteria : {}, category : {}", criteria, categoryId);
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        if (categoryId != null && categoryRepository.findIdsByIdInAndOwner(Set.of(categoryId), owner).isEmpty()) {
+            throw new InvalidDataAccessResourceUsageException("Invalid category");
+        }
+        long updated = transactionBulkRepository.updateCategory(transactionQueryService.createSqlWhere(criteria), categoryId, owner);
+        if (updated > 0) {
+            applicationEventPublisher.publishEvent(
+                EntityChangedEvent.bulk(SyncService.TRANSACTION, owner, transactionRepository.getLastChangeSequenceByUser(owner))
+            );
+        }
+        return updated;
+    }
+
+    @Override
+    public long deleteByCriteria(TransactionCriteria criteria) {
+        log.debug("Request to delete Transactions by criteria : {}", criteria);
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        long deleted = transactionBulkRepository.delete(transactionQueryService.createSqlWhere(criteria), owner);
+        if (deleted > 0) {
+            applicationEventPublisher.publishEvent(
+                EntityChangedEvent.bulk(SyncService.TRANSACTION, owner, syncTombstoneRepository.getLastChangeSequenceByUser(owner))
+            );
+        }
+        return deleted;
     }
 
     @Override
     public TotalAmountDTO getTotalAmount() {
-        BigDecimal totalAmount = transactionRepository.getTotalAmountByUser(SecurityUtils.getCurrentUserLogin().orElse(""));
+        String owner = SecurityUtils.getCurrentUserLogin().orElse("");
+        BigDecimal totalAmount = transactionArchiveService.addArchivedTotalAmount(owner, transactionRepository.getTotalAmountByUser(owner));
         return new TotalAmountDTO(totalAmount);
     }
 
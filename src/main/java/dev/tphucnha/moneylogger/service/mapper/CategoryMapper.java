@@ -13,5 +13,6 @@ public interface CategoryMapper extends EntityMapper<CategoryDTO, Category> {
     @BeanMapping(ignoreByDefault = true)
     @Mapping(target = "id", source = "id")
     @Mapping(target = "name", source = "name")
+    @Mapping(target = "version", source = "version")
     CategoryDTO toDtoId(Category category);
 }
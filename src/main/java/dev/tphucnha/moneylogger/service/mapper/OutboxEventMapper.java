@@ -0,0 +1,11 @@
+package dev.tphucnha.moneylogger.service.mapper;
+
+import dev.tphucnha.moneylogger.domain.OutboxEvent;
+import dev.tphucnha.moneylogger.service.dto.OutboxEventDTO;
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link OutboxEvent} and its DTO {@link OutboxEventDTO}.
+ */
+@Mapper(componentModel = "spring", uses = {})
+public interface OutboxEventMapper extends EntityMapper<OutboxEventDTO, OutboxEvent> {}
@@ -0,0 +1,30 @@
+package dev.tphucnha.moneylogger.service.outbox;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import dev.tphucnha.moneylogger.service.dto.OutboxEventDTO;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default {@link OutboxSink}, publishing each event to a Hazelcast topic of the cluster.
+ * Disabled by setting {@code application.outbox.hazelcast-topic-enabled} to {@code false}.
+ */
+@Component
+@ConditionalOnProperty(name = "application.outbox.hazelcast-topic-enabled", havingValue = "true", matchIfMissing = true)
+public class HazelcastTopicOutboxSink implements OutboxSink {
+
+    public static final String TOPIC_NAME = "moneylogger-outbox";
+
+    private final ITopic<OutboxEventDTO> topic;
+
+    public HazelcastTopicOutboxSink(HazelcastInstance hazelcastInstance) {
+        this.topic = hazelcastInstance.getTopic(TOPIC_NAME);
+    }
+
+    @Override
+    public void publish(List<OutboxEventDTO> events) {
+        events.forEach(topic::publish);
+    }
+}
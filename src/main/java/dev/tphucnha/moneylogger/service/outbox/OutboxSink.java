@@ -0,0 +1,20 @@
+package dev.tphucnha.moneylogger.service.outbox;
+
+import dev.tphucnha.moneylogger.service.dto.OutboxEventDTO;
+import java.util.List;
+
+/**
+ * Destination of the events drained from the outbox. Every Spring bean implementing this interface receives every
+ * event.
+ * <p>
+ * A batch is removed from the outbox only once all the sinks have accepted it: a sink throwing an exception gets the
+ * batch again, as do the sinks which had already accepted it. Sinks must therefore tolerate duplicates.
+ */
+public interface OutboxSink {
+    /**
+     * Publish a batch of events, in the order they were recorded.
+     *
+     * @param events the events.
+     */
+    void publish(List<OutboxEventDTO> events);
+}
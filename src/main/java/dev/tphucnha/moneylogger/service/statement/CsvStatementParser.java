@@ -0,0 +1,131 @@
+package dev.tphucnha.moneylogger.service.statement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parser of CSV statements, with one transaction per line.
+ * <p>
+ * The first line names the columns: {@code date}, {@code amount} and {@code details} are required, {@code category}
+ * is optional, other columns are ignored. Fields may be quoted, with {@code ""} escaping a quote; quoted fields cannot
+ * span lines. Dates are ISO-8601 instants, or local dates taken at midnight UTC.
+ */
+class CsvStatementParser implements StatementParser {
+
+    private static final char SEPARATOR = ',';
+
+    private static final char QUOTE = '"';
+
+    private final BufferedReader reader;
+
+    private final int dateColumn;
+
+    private final int amountColumn;
+
+    private final int detailsColumn;
+
+    private final int categoryColumn;
+
+    CsvStatementParser(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("The statement is empty");
+        }
+        // A byte order mark may precede the header
+        List<String> columns = split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        this.dateColumn = column(columns, "date", true);
+        this.amountColumn = column(columns, "amount", true);
+        this.detailsColumn = column(columns, "details", true);
+        this.categoryColumn = column(columns, "category", false);
+    }
+
+    @Override
+    public List<String> readRecords(int max) throws IOException {
+        List<String> records = new ArrayList<>(max);
+        String line;
+        while (records.size() < max && (line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                records.add(line);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public StatementRow parse(long number, String record) {
+        List<String> fields = split(record);
+        if (fields.size() <= Math.max(Math.max(dateColumn, amountColumn), detailsColumn)) {
+            return StatementRow.invalid(number, "Missing columns");
+        }
+        Instant date;
+        try {
+            date = parseDate(fields.get(dateColumn).trim());
+        } catch (DateTimeParseException e) {
+            return StatementRow.invalid(number, "Invalid date: " + fields.get(dateColumn));
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(fields.get(amountColumn).trim());
+        } catch (NumberFormatException e) {
+            return StatementRow.invalid(number, "Invalid amount: " + fields.get(amountColumn));
+        }
+        String category = categoryColumn >= 0 && categoryColumn < fields.size() ? fields.get(categoryColumn).trim() : "";
+        return StatementRow.of(number, amount, date, fields.get(detailsColumn).trim(), category.isEmpty() ? null : category);
+    }
+
+    private static Instant parseDate(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+        return Instant.parse(value);
+    }
+
+    private static int column(List<String> columns, String name, boolean required) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).trim().toLowerCase(Locale.ROOT).equals(name)) {
+                return i;
+            }
+        }
+        if (required) {
+            throw new IllegalArgumentException("The statement has no " + name + " column");
+        }
+        return -1;
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == QUOTE && i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                    field.append(QUOTE);
+                    i++;
+                } else if (c == QUOTE) {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
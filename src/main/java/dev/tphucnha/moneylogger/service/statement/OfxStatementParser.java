@@ -0,0 +1,166 @@
+package dev.tphucnha.moneylogger.service.statement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parser of OFX statements, in the SGML (1.x) or XML (2.x) syntax, with one transaction per {@code STMTTRN} aggregate.
+ * <p>
+ * The amount is read from {@code TRNAMT}, the date from {@code DTPOSTED}, and the details from {@code NAME} and
+ * {@code MEMO}. The statement is read in blocks, and may be on any number of lines.
+ */
+class OfxStatementParser implements StatementParser {
+
+    private static final String RECORD_START = "<STMTTRN>";
+
+    private static final String RECORD_END = "</STMTTRN>";
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final int BLOCK_SIZE = 8192;
+
+    private final BufferedReader reader;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private final char[] block = new char[BLOCK_SIZE];
+
+    private boolean eof;
+
+    OfxStatementParser(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public List<String> readRecords(int max) throws IOException {
+        List<String> records = new ArrayList<>(max);
+        while (records.size() < max) {
+            String record = nextRecord();
+            if (record == null) {
+                break;
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * @return the content of the next {@code STMTTRN} aggregate, or {@code null} at the end of the statement.
+     */
+    private String nextRecord() throws IOException {
+        while (true) {
+            int start = indexOfIgnoreCase(buffer, RECORD_START, 0);
+            if (start >= 0) {
+                int end = indexOfIgnoreCase(buffer, RECORD_END, start);
+                if (end >= 0) {
+                    String record = buffer.substring(start + RECORD_START.length(), end);
+                    buffer.delete(0, end + RECORD_END.length());
+                    return record;
+                }
+                buffer.delete(0, start);
+            } else {
+                // Only a possibly truncated start tag needs to be kept
+                buffer.delete(0, Math.max(0, buffer.length() - RECORD_START.length()));
+            }
+            if (eof) {
+                return null;
+            }
+            int read = reader.read(block);
+            if (read < 0) {
+                eof = true;
+            } else {
+                buffer.append(block, 0, read);
+            }
+        }
+    }
+
+    @Override
+    public StatementRow parse(long number, String record) {
+        Map<String, String> elements = elements(record);
+        String amount = elements.get("TRNAMT");
+        String posted = elements.get("DTPOSTED");
+        if (amount == null || posted == null) {
+            return StatementRow.invalid(number, "Missing TRNAMT or DTPOSTED");
+        }
+        BigDecimal value;
+        try {
+            // Some banks use a decimal comma
+            value = new BigDecimal(amount.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return StatementRow.invalid(number, "Invalid amount: " + amount);
+        }
+        LocalDateTime date;
+        try {
+            date = parseDate(posted);
+        } catch (DateTimeParseException e) {
+            return StatementRow.invalid(number, "Invalid date: " + posted);
+        }
+        String name = elements.getOrDefault("NAME", "");
+        String memo = elements.getOrDefault("MEMO", "");
+        String details = name.isEmpty() || memo.isEmpty() ? name + memo : name + " - " + memo;
+        return StatementRow.of(number, value, date.toInstant(ZoneOffset.UTC), details, null);
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        // YYYYMMDD, optionally followed by HHMMSS, milliseconds and a time zone such as [-5:EST], which is ignored
+        String digits = value.length() > 14 ? value.substring(0, 14) : value;
+        if (digits.length() == 14) {
+            return LocalDateTime.parse(digits, DATE_TIME);
+        }
+        return LocalDate.parse(digits.substring(0, Math.min(8, digits.length())), DATE).atStartOfDay();
+    }
+
+    /**
+     * @return the values of the leaf elements of an aggregate, by upper case tag name.
+     */
+    private static Map<String, String> elements(String record) {
+        Map<String, String> elements = new HashMap<>();
+        int i = record.indexOf('<');
+        while (i >= 0) {
+            int close = record.indexOf('>', i);
+            if (close < 0) {
+                break;
+            }
+            int next = record.indexOf('<', close);
+            String tag = record.substring(i + 1, close).trim().toUpperCase(Locale.ROOT);
+            if (!tag.startsWith("/")) {
+                String value = record.substring(close + 1, next < 0 ? record.length() : next).trim();
+                if (!value.isEmpty()) {
+                    elements.putIfAbsent(tag, unescape(value));
+                }
+            }
+            i = next;
+        }
+        return elements;
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+    }
+
+    private static int indexOfIgnoreCase(StringBuilder buffer, String tag, int from) {
+        for (int i = from; i <= buffer.length() - tag.length(); i++) {
+            int j = 0;
+            while (j < tag.length() && Character.toUpperCase(buffer.charAt(i + j)) == tag.charAt(j)) {
+                j++;
+            }
+            if (j == tag.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.tphucnha.moneylogger.service.statement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The formats of bank statements which can be imported.
+ */
+public enum StatementFormat {
+    CSV("text/csv"),
+    OFX("application/x-ofx");
+
+    private final String mediaType;
+
+    StatementFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Open a parser of a statement in this format.
+     *
+     * @param reader the statement.
+     * @return the parser.
+     * @throws IOException if the headers of the statement cannot be read.
+     */
+    public StatementParser open(BufferedReader reader) throws IOException {
+        return this == CSV ? new CsvStatementParser(reader) : new OfxStatementParser(reader);
+    }
+
+    /**
+     * @param mediaType a media type, without parameters.
+     * @return the format of the media type, if any.
+     */
+    public static Optional<StatementFormat> fromMediaType(String mediaType) {
+        return Arrays.stream(values()).filter(format -> format.mediaType.equalsIgnoreCase(mediaType)).findFirst();
+    }
+}
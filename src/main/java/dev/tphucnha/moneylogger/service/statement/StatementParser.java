@@ -0,0 +1,30 @@
+package dev.tphucnha.moneylogger.service.statement;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Parser of a bank statement read as a stream.
+ * <p>
+ * The statement is split into raw records by a single reader, chunk by chunk, so that only the chunks in progress are
+ * held in memory. The records are then parsed independently, possibly concurrently.
+ */
+public interface StatementParser {
+    /**
+     * Read the next records of the statement. Not thread-safe.
+     *
+     * @param max the maximum number of records to read.
+     * @return the raw records, empty at the end of the statement.
+     * @throws IOException if the statement cannot be read.
+     */
+    List<String> readRecords(int max) throws IOException;
+
+    /**
+     * Parse a raw record. Thread-safe.
+     *
+     * @param number the 1-based number of the record in the statement.
+     * @param record the raw record.
+     * @return the parsed row, invalid if the record cannot be parsed.
+     */
+    StatementRow parse(long number, String record);
+}
@@ -0,0 +1,76 @@
+package dev.tphucnha.moneylogger.service.statement;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A row of a bank statement: the values of a transaction, or the reason why it could not be parsed.
+ */
+public final class StatementRow {
+
+    private final long number;
+
+    private final BigDecimal amount;
+
+    private final Instant date;
+
+    private final String details;
+
+    private final String categoryName;
+
+    private final String error;
+
+    private StatementRow(long number, BigDecimal amount, Instant date, String details, String categoryName, String error) {
+        this.number = number;
+        this.amount = amount;
+        this.date = date;
+        this.details = details;
+        this.categoryName = categoryName;
+        this.error = error;
+    }
+
+    public static StatementRow of(long number, BigDecimal amount, Instant date, String details, String categoryName) {
+        return new StatementRow(number, amount, date, details, categoryName, null);
+    }
+
+    public static StatementRow invalid(long number, String error) {
+        return new StatementRow(number, null, null, null, null, error);
+    }
+
+    /**
+     * @return the 1-based number of the row in the statement, not counting headers.
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    /**
+     * @return the name of the category of the row, or {@code null} if it has none.
+     */
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    /**
+     * @return why the row could not be parsed, or {@code null} if it is valid.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
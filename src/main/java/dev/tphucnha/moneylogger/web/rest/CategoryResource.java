@@ -1,7 +1,11 @@
 package dev.tphucnha.moneylogger.web.rest;
 
-import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
 import dev.tphucnha.moneylogger.service.CategoryQueryService;
+import dev.tphucnha.moneylogger.service.IdempotencyService;
+import dev.tphucnha.moneylogger.service.QueryCostGuard;
+import dev.tphucnha.moneylogger.service.QueryDecision;
 import dev.tphucnha.moneylogger.service.CategoryService;
 import dev.tphucnha.moneylogger.service.criteria.CategoryCriteria;
 import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
@@ -11,11 +15,14 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
@@ -43,38 +50,58 @@ public class CategoryResource {
 
     private final CategoryService categoryService;
 
-    private final CategoryRepository categoryRepository;
-
     private final CategoryQueryService categoryQueryService;
 
+    private final ApplicationProperties applicationProperties;
+
+    private final QueryCostGuard queryCostGuard;
+
+    private final IdempotencyService idempotencyService;
+
     public CategoryResource(
         CategoryService categoryService,
-        CategoryRepository categoryRepository,
-        CategoryQueryService categoryQueryService
+        CategoryQueryService categoryQueryService,
+        ApplicationProperties applicationProperties,
+        QueryCostGuard queryCostGuard,
+        IdempotencyService idempotencyService
     ) {
         this.categoryService = categoryService;
-        this.categoryRepository = categoryRepository;
         this.categoryQueryService = categoryQueryService;
+        this.applicationProperties = applicationProperties;
+        this.queryCostGuard = queryCostGuard;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
      * {@code POST  /categories} : Create a new category.
      *
-     * @param categoryDTO the categoryDTO to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new categoryDTO, or with status {@code 400 (Bad Request)} if the category has already an ID.
-     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     * @param categoryDTO    the categoryDTO to create.
+     * @param idempotencyKey the optional key making retries of the request return its first response.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new categoryDTO, or with status {@code 400 (Bad Request)} if the category has already an ID,
+     * or if the user already has a category of that name, whatever its case.
      */
     @PostMapping("/categories")
-    public ResponseEntity<CategoryDTO> createCategory(@Valid @RequestBody CategoryDTO categoryDTO) throws URISyntaxException {
+    public ResponseEntity<CategoryDTO> createCategory(
+        @Valid @RequestBody CategoryDTO categoryDTO,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
         log.debug("REST request to save Category : {}", categoryDTO);
         if (categoryDTO.getId() != null) {
             throw new BadRequestAlertException("A new category cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        CategoryDTO result = categoryService.save(categoryDTO);
-        return ResponseEntity
-            .created(new URI("/api/categories/" + result.getId()))
-            .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+        return idempotencyService.execute(
+            ENTITY_NAME,
+            idempotencyKey,
+            categoryDTO,
+            new TypeReference<CategoryDTO>() {},
+            () -> {
+                CategoryDTO result = saveUniqueName(() -> categoryService.save(categoryDTO));
+                return ResponseEntity
+                    .created(URI.create("/api/categories/" + result.getId()))
+                    .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+                    .body(result);
+            }
+        );
     }
 
     /**
@@ -82,15 +109,18 @@ public class CategoryResource {
      *
      * @param id the id of the categoryDTO to save.
      * @param categoryDTO the categoryDTO to update.
+     * @param ifMatch the optional entity tag of the version the category must still have, else the version in the body, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated categoryDTO,
-     * or with status {@code 400 (Bad Request)} if the categoryDTO is not valid,
+     * or with status {@code 400 (Bad Request)} if the categoryDTO is not valid, or if its name is already used by another category,
+     * or with status {@code 412 (Precondition Failed)} if the category was changed since that version,
      * or with status {@code 500 (Internal Server Error)} if the categoryDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/categories/{id}")
     public ResponseEntity<CategoryDTO> updateCategory(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody CategoryDTO categoryDTO
+        @Valid @RequestBody CategoryDTO categoryDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Category : {}, {}", id, categoryDTO);
         if (categoryDTO.getId() == null) {
@@ -99,15 +129,15 @@ public class CategoryResource {
         if (!Objects.equals(id, categoryDTO.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        categoryDTO.setVersion(VersionHeaderUtil.expectedVersion(ifMatch, categoryDTO.getVersion(), ENTITY_NAME));
 
-        if (!categoryRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        CategoryDTO result = categoryService.save(categoryDTO);
+        // The update is guarded by the owner in the statement itself, a missing category is only found then
+        CategoryDTO result = saveUniqueName(() -> categoryService.update(categoryDTO))
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, categoryDTO.getId().toString()))
+            .headers(VersionHeaderUtil.createETagHeaders(result.getVersion()))
             .body(result);
     }
 
@@ -116,16 +146,19 @@ public class CategoryResource {
      *
      * @param id the id of the categoryDTO to save.
      * @param categoryDTO the categoryDTO to update.
+     * @param ifMatch the optional entity tag of the version the category must still have, else the version in the body, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated categoryDTO,
-     * or with status {@code 400 (Bad Request)} if the categoryDTO is not valid,
+     * or with status {@code 400 (Bad Request)} if the categoryDTO is not valid, or if its name is already used by another category,
      * or with status {@code 404 (Not Found)} if the categoryDTO is not found,
+     * or with status {@code 412 (Precondition Failed)} if the category was changed since that version,
      * or with status {@code 500 (Internal Server Error)} if the categoryDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/categories/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<CategoryDTO> partialUpdateCategory(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody CategoryDTO categoryDTO
+        @NotNull @RequestBody CategoryDTO categoryDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Category partially : {}, {}", id, categoryDTO);
         if (categoryDTO.getId() == null) {
@@ -134,31 +167,51 @@ public class CategoryResource {
         if (!Objects.equals(id, categoryDTO.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        categoryDTO.setVersion(VersionHeaderUtil.expectedVersion(ifMatch, categoryDTO.getVersion(), ENTITY_NAME));
 
-        if (!categoryRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<CategoryDTO> result = categoryService.partialUpdate(categoryDTO);
+        CategoryDTO result = saveUniqueName(() -> categoryService.partialUpdate(categoryDTO))
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, categoryDTO.getId().toString()))
+            .headers(VersionHeaderUtil.createETagHeaders(result.getVersion()))
+            .body(result);
+    }
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, categoryDTO.getId().toString())
-        );
+    /**
+     * Names are unique per user regardless of case, which the unique constraint on their name key enforces.
+     */
+    private static <T> T saveUniqueName(Supplier<T> save) {
+        try {
+            return save.get();
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestAlertException("A category with this name already exists", ENTITY_NAME, "nameexists");
+        }
     }
 
     /**
      * {@code GET  /categories} : get all the categories.
+     * The listing goes through the {@link QueryCostGuard}, whose decision is reported in the {@code X-Query-*} headers.
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of categories in body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of categories in body,
+     * or with status {@code 400 (Bad Request)} if the query is rejected, or with status {@code 429 (Too Many Requests)}
+     * if the query is too costly to run now.
      */
     @GetMapping("/categories")
     public ResponseEntity<List<CategoryDTO>> getAllCategories(CategoryCriteria criteria, Pageable pageable) {
         log.debug("REST request to get Categories by criteria: {}", criteria);
-        Page<CategoryDTO> page = categoryQueryService.findByCriteria(criteria, pageable);
+        QueryDecision<CategoryCriteria> decision = queryCostGuard.checkCategories(criteria, pageable);
+        Page<CategoryDTO> page = queryCostGuard.execute(
+            decision,
+            () ->
+                applicationProperties.getQuery().isConcurrentCount()
+                    ? categoryQueryService.findByCriteriaConcurrently(decision.getCriteria(), decision.getPageable())
+                    : categoryQueryService.findByCriteria(decision.getCriteria(), decision.getPageable())
+        );
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        headers.addAll(QueryGuardHeaderUtil.createQueryDecisionHeaders(decision));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -171,11 +224,16 @@ public class CategoryResource {
     @GetMapping("/categories/count")
     public ResponseEntity<Long> countCategories(CategoryCriteria criteria) {
         log.debug("REST request to count Categories by criteria: {}", criteria);
-        return ResponseEntity.ok().body(categoryQueryService.countByCriteria(criteria));
+        QueryDecision<CategoryCriteria> decision = queryCostGuard.checkCategories(criteria, Pageable.unpaged());
+        return ResponseEntity
+            .ok()
+            .headers(QueryGuardHeaderUtil.createQueryDecisionHeaders(decision))
+            .body(queryCostGuard.execute(decision, () -> categoryQueryService.countByCriteria(decision.getCriteria())));
     }
 
     /**
      * {@code GET  /categories/:id} : get the "id" category.
+     * Its version is given in the {@code ETag} header, to send back in the {@code If-Match} header of its updates.
      *
      * @param id the id of the categoryDTO to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the categoryDTO, or with status {@code 404 (Not Found)}.
@@ -184,19 +242,27 @@ public class CategoryResource {
     public ResponseEntity<CategoryDTO> getCategory(@PathVariable Long id) {
         log.debug("REST request to get Category : {}", id);
         Optional<CategoryDTO> categoryDTO = categoryService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(categoryDTO);
+        HttpHeaders headers = VersionHeaderUtil.createETagHeaders(categoryDTO.map(CategoryDTO::getVersion).orElse(null));
+        return ResponseUtil.wrapOrNotFound(categoryDTO, headers);
     }
 
     /**
      * {@code DELETE  /categories/:id} : delete the "id" category.
      *
-     * @param id the id of the categoryDTO to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @param id         the id of the categoryDTO to delete.
+     * @param reassignTo the id of the category its transactions are moved to, if any: they are left without category
+     *                   otherwise.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 400 (Bad Request)} if the category to reassign the transactions to is not valid.
      */
     @DeleteMapping("/categories/{id}")
-    public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
-        log.debug("REST request to delete Category : {}", id);
-        categoryService.delete(id);
+    public ResponseEntity<Void> deleteCategory(@PathVariable Long id, @RequestParam(required = false) Long reassignTo) {
+        log.debug("REST request to delete Category : {}, reassigning its transactions to : {}", id, reassignTo);
+        try {
+            categoryService.delete(id, reassignTo);
+        } catch (InvalidDataAccessResourceUsageException e) {
+            throw new BadRequestAlertException("Invalid data access", ENTITY_NAME, e.getMessage());
+        }
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
@@ -0,0 +1,91 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.security.SecurityUtils;
+import dev.tphucnha.moneylogger.security.jwt.JWTFilter;
+import dev.tphucnha.moneylogger.security.jwt.StreamTicketProvider;
+import dev.tphucnha.moneylogger.service.ChangeFeedService;
+import dev.tphucnha.moneylogger.service.dto.StreamTicketDTO;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller streaming the change notifications of the current user as server-sent events.
+ * <p>
+ * The stream is served asynchronously: no servlet thread is held while a connection is open. It is opened with a
+ * single-use ticket taken just before, {@code EventSource} cannot send the {@code Authorization} header.
+ */
+@RestController
+public class ChangeFeedResource {
+
+    private final Logger log = LoggerFactory.getLogger(ChangeFeedResource.class);
+
+    private final ChangeFeedService changeFeedService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final StreamTicketProvider streamTicketProvider;
+
+    public ChangeFeedResource(
+        ChangeFeedService changeFeedService,
+        ApplicationProperties applicationProperties,
+        StreamTicketProvider streamTicketProvider
+    ) {
+        this.changeFeedService = changeFeedService;
+        this.applicationProperties = applicationProperties;
+        this.streamTicketProvider = streamTicketProvider;
+    }
+
+    /**
+     * {@code POST  /api/changes/stream-ticket} : create a ticket opening the change feed stream of the current user.
+     *
+     * @return the ticket, to pass once as the {@code ticket} parameter of {@code GET /api/changes/stream}.
+     */
+    @PostMapping("/api/changes/stream-ticket")
+    public StreamTicketDTO createStreamTicket() {
+        log.debug("REST request to create a change feed stream ticket");
+        String ticket = streamTicketProvider.createTicket(SecurityContextHolder.getContext().getAuthentication());
+        return new StreamTicketDTO(ticket, applicationProperties.getChangeFeed().getTicketTtlSeconds());
+    }
+
+    /**
+     * {@code GET  /api/changes/stream} : stream the change notifications of the user of the {@code ticket} parameter.
+     *
+     * @return the {@link SseEmitter} sending a {@code change} event per notification.
+     */
+    @GetMapping(value = JWTFilter.EVENT_STREAM_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        String owner = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new AccessDeniedException("Access denied"));
+        log.debug("REST request to stream changes of : {}", owner);
+        SseEmitter emitter = new SseEmitter(applicationProperties.getChangeFeed().getTimeoutMillis());
+        Runnable unsubscribe = changeFeedService.subscribe(
+            owner,
+            notification -> {
+                try {
+                    emitter.send(
+                        SseEmitter
+                            .event()
+                            .name("change")
+                            .id(String.valueOf(notification.getChangeSequence()))
+                            .data(notification, MediaType.APPLICATION_JSON)
+                    );
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Closing the change feed of {}: {}", owner, e.getMessage());
+                    emitter.completeWithError(e);
+                }
+            }
+        );
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+}
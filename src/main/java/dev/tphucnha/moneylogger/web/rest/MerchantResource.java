@@ -0,0 +1,47 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.service.MerchantService;
+import dev.tphucnha.moneylogger.service.dto.MerchantTotalDTO;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the aggregates of the transactions by {@link dev.tphucnha.moneylogger.domain.Merchant}.
+ */
+@RestController
+@RequestMapping("/api")
+public class MerchantResource {
+
+    private static final int DEFAULT_SIZE = 20;
+
+    private static final int MAX_SIZE = 200;
+
+    private final Logger log = LoggerFactory.getLogger(MerchantResource.class);
+
+    private final MerchantService merchantService;
+
+    public MerchantResource(MerchantService merchantService) {
+        this.merchantService = merchantService;
+    }
+
+    /**
+     * {@code GET  /merchants/totals} : get the merchants of the current user with the most transactions.
+     *
+     * @param size the maximum number of merchants to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number and total amount of the
+     * transactions of each merchant in body, by descending number of transactions.
+     */
+    @GetMapping("/merchants/totals")
+    public ResponseEntity<List<MerchantTotalDTO>> getMerchantTotals(
+        @RequestParam(value = "size", defaultValue = "" + DEFAULT_SIZE) int size
+    ) {
+        log.debug("REST request to get the totals of Merchants : {}", size);
+        return ResponseEntity.ok().body(merchantService.getTotals(Math.max(1, Math.min(size, MAX_SIZE))));
+    }
+}
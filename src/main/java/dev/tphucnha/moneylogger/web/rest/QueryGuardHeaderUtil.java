@@ -0,0 +1,35 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.service.QueryDecision;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Utility class for the headers reporting the decisions of the {@link dev.tphucnha.moneylogger.service.QueryCostGuard}.
+ */
+final class QueryGuardHeaderUtil {
+
+    static final String DECISION_HEADER = "X-Query-Decision";
+
+    static final String REWRITES_HEADER = "X-Query-Rewrites";
+
+    static final String COST_HEADER = "X-Query-Cost";
+
+    private QueryGuardHeaderUtil() {}
+
+    /**
+     * Create the headers telling the client how its listing was executed, in particular whether its criteria or its
+     * page were rewritten.
+     *
+     * @param decision the decision of the guard.
+     * @return the headers.
+     */
+    static HttpHeaders createQueryDecisionHeaders(QueryDecision<?> decision) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(DECISION_HEADER, decision.getOutcome().name().toLowerCase());
+        headers.add(COST_HEADER, Long.toString(decision.getCost()));
+        if (!decision.getRewrites().isEmpty()) {
+            headers.add(REWRITES_HEADER, String.join(",", decision.getRewrites()));
+        }
+        return headers;
+    }
+}
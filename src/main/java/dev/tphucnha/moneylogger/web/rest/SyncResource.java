@@ -0,0 +1,48 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.service.SyncService;
+import dev.tphucnha.moneylogger.service.dto.SyncDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the delta synchronization of offline-capable clients.
+ */
+@RestController
+@RequestMapping("/api")
+public class SyncResource {
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(SyncResource.class);
+
+    private final SyncService syncService;
+
+    public SyncResource(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * {@code GET  /sync?since=:since} : get the changed and deleted entities of the current user since a change sequence.
+     *
+     * @param since the last change sequence the client has seen, {@code 0} for all the changes.
+     * @param size  the maximum number of changes to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the batch of changes in body.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<SyncDTO> getChanges(
+        @RequestParam(value = "since", defaultValue = "0") long since,
+        @RequestParam(value = "size", defaultValue = "" + DEFAULT_BATCH_SIZE) int size
+    ) {
+        log.debug("REST request to get changes since : {}", since);
+        int batchSize = Math.max(1, Math.min(size, MAX_BATCH_SIZE));
+        return ResponseEntity.ok().body(syncService.findChangesSince(since, batchSize));
+    }
+}
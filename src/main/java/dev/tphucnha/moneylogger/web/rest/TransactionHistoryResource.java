@@ -0,0 +1,76 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.service.TransactionHistoryService;
+import dev.tphucnha.moneylogger.service.dto.TransactionHistoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the audit history of {@link dev.tphucnha.moneylogger.domain.Transaction}s.
+ * <p>
+ * The histories are paged by keyset, newest first: the next page is asked for with the revision, and for the recent
+ * changes the transaction, of the last revision of the previous page.
+ */
+@RestController
+@RequestMapping("/api")
+public class TransactionHistoryResource {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final Logger log = LoggerFactory.getLogger(TransactionHistoryResource.class);
+
+    private final TransactionHistoryService transactionHistoryService;
+
+    public TransactionHistoryResource(TransactionHistoryService transactionHistoryService) {
+        this.transactionHistoryService = transactionHistoryService;
+    }
+
+    /**
+     * {@code GET  /transactions/:id/history} : get the revisions of the "id" transaction, newest first.
+     *
+     * @param id             the id of the transaction.
+     * @param beforeRevision the revision of the last revision of the previous page, none for the first page.
+     * @param size           the maximum number of revisions to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of revisions in body, empty for the
+     * transactions of other users.
+     */
+    @GetMapping("/transactions/{id}/history")
+    public ResponseEntity<TransactionHistoryDTO> getTransactionHistory(
+        @PathVariable Long id,
+        @RequestParam(value = "beforeRevision", required = false) Integer beforeRevision,
+        @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        log.debug("REST request to get the history of Transaction : {}", id);
+        return ResponseEntity.ok().body(transactionHistoryService.findByTransaction(id, beforeRevision, pageSize(size)));
+    }
+
+    /**
+     * {@code GET  /transactions/history} : get the recent changes of the transactions of the current user, newest first.
+     *
+     * @param beforeRevision the revision of the last revision of the previous page, none for the first page.
+     * @param beforeId       the transaction of the last revision of the previous page.
+     * @param size           the maximum number of revisions to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of revisions in body.
+     */
+    @GetMapping("/transactions/history")
+    public ResponseEntity<TransactionHistoryDTO> getRecentChanges(
+        @RequestParam(value = "beforeRevision", required = false) Integer beforeRevision,
+        @RequestParam(value = "beforeId", required = false) Long beforeId,
+        @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        log.debug("REST request to get the recent changes of Transactions before revision : {} {}", beforeRevision, beforeId);
+        return ResponseEntity.ok().body(transactionHistoryService.findRecent(beforeRevision, beforeId, pageSize(size)));
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
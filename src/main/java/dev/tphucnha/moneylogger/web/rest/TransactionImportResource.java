@@ -0,0 +1,123 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.service.TransactionImportService;
+import dev.tphucnha.moneylogger.service.dto.ImportJobDTO;
+import dev.tphucnha.moneylogger.service.statement.StatementFormat;
+import dev.tphucnha.moneylogger.web.rest.errors.BadRequestAlertException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import javax.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for the import of bank statements as {@link dev.tphucnha.moneylogger.domain.Transaction}s.
+ */
+@RestController
+@RequestMapping("/api")
+public class TransactionImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(TransactionImportResource.class);
+
+    private static final String ENTITY_NAME = "moneyloggerTransaction";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final TransactionImportService transactionImportService;
+
+    public TransactionImportResource(TransactionImportService transactionImportService) {
+        this.transactionImportService = transactionImportService;
+    }
+
+    /**
+     * {@code POST  /transactions/import} : Import a bank statement, sent as the request body.
+     * <p>
+     * The statement is streamed: it is parsed and inserted as it is received. Its progress can be followed with
+     * {@code GET /transactions/import} while it runs.
+     *
+     * @param format  the format of the statement, {@code csv} or {@code ofx}, by default given by the content type.
+     * @param request the request, whose body is the statement.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the status of the import, completed
+     * or failed, or with status {@code 400 (Bad Request)} if the format is unknown.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping("/transactions/import")
+    public ResponseEntity<ImportJobDTO> importTransactions(
+        @RequestParam(value = "format", required = false) String format,
+        HttpServletRequest request
+    ) throws IOException {
+        MediaType contentType = contentType(request);
+        StatementFormat statementFormat = format != null
+            ? statementFormat(format)
+            : StatementFormat
+                .fromMediaType(contentType.getType() + '/' + contentType.getSubtype())
+                .orElseThrow(() -> new BadRequestAlertException("Unknown statement format", ENTITY_NAME, "formatinvalid"));
+        log.debug("REST request to import a {} statement", statementFormat);
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            ImportJobDTO job = transactionImportService.importStatement(statementFormat, reader);
+            String created = String.valueOf(job.getCreated());
+            return ResponseEntity
+                .ok()
+                .headers(HeaderUtil.createAlert(applicationName, created + " transactions imported", created))
+                .body(job);
+        }
+    }
+
+    /**
+     * {@code GET  /transactions/import} : get the imports of the current user, the most recent first.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of imports in body.
+     */
+    @GetMapping("/transactions/import")
+    public List<ImportJobDTO> getImportJobs() {
+        log.debug("REST request to get import jobs");
+        return transactionImportService.findJobs();
+    }
+
+    /**
+     * {@code GET  /transactions/import/:id} : get the "id" import.
+     *
+     * @param id the id of the import.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/transactions/import/{id}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String id) {
+        log.debug("REST request to get import job : {}", id);
+        return ResponseUtil.wrapOrNotFound(transactionImportService.findJob(id));
+    }
+
+    private static StatementFormat statementFormat(String format) {
+        try {
+            return StatementFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Unknown statement format", ENTITY_NAME, "formatinvalid");
+        }
+    }
+
+    private static MediaType contentType(HttpServletRequest request) {
+        try {
+            return request.getContentType() != null ? MediaType.parseMediaType(request.getContentType()) : MediaType.TEXT_PLAIN;
+        } catch (InvalidMediaTypeException e) {
+            throw new BadRequestAlertException("Invalid content type", ENTITY_NAME, "formatinvalid");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.service.TransactionIngestService;
+import dev.tphucnha.moneylogger.service.dto.IngestTicketDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import dev.tphucnha.moneylogger.web.rest.errors.BadRequestAlertException;
+import java.net.URI;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for the asynchronous ingest of {@link dev.tphucnha.moneylogger.domain.Transaction}s.
+ */
+@RestController
+@RequestMapping("/api")
+public class TransactionIngestResource {
+
+    private final Logger log = LoggerFactory.getLogger(TransactionIngestResource.class);
+
+    private static final String ENTITY_NAME = "moneyloggerTransaction";
+
+    private final TransactionIngestService transactionIngestService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public TransactionIngestResource(TransactionIngestService transactionIngestService, ApplicationProperties applicationProperties) {
+        this.transactionIngestService = transactionIngestService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * {@code POST  /transactions/ingest} : Accept a batch of transactions, to be created asynchronously.
+     * <p>
+     * Items are validated and created as by {@code POST /transactions/batch}, once the request is committed; its
+     * status and the result of each item are then read from the ticket.
+     *
+     * @param transactionDTOs the transactionDTOs to create.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the queued ticket,
+     * or with status {@code 400 (Bad Request)} if the batch is empty or too large,
+     * or with status {@code 429 (Too Many Requests)} if the ingest buffer is full.
+     */
+    @PostMapping("/transactions/ingest")
+    public ResponseEntity<IngestTicketDTO> ingestTransactions(@RequestBody List<TransactionDTO> transactionDTOs) {
+        log.debug("REST request to ingest a batch of {} Transactions", transactionDTOs.size());
+        if (transactionDTOs.isEmpty()) {
+            throw new BadRequestAlertException("A batch cannot be empty", ENTITY_NAME, "batchempty");
+        }
+        int maxSize = applicationProperties.getBatch().getMaxSize();
+        if (transactionDTOs.size() > maxSize) {
+            throw new BadRequestAlertException("A batch cannot be larger than " + maxSize, ENTITY_NAME, "batchtoolarge");
+        }
+        IngestTicketDTO ticket = transactionIngestService.submit(transactionDTOs);
+        return ResponseEntity
+            .accepted()
+            .location(URI.create("/api/transactions/ingest/" + ticket.getTicket()))
+            .body(ticket);
+    }
+
+    /**
+     * {@code GET  /transactions/ingest/:ticket} : get the status of an ingest request.
+     *
+     * @param ticket the ticket of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ticket, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/transactions/ingest/{ticket}")
+    public ResponseEntity<IngestTicketDTO> getIngestTicket(@PathVariable String ticket) {
+        log.debug("REST request to get ingest ticket : {}", ticket);
+        return ResponseUtil.wrapOrNotFound(transactionIngestService.findTicket(ticket));
+    }
+}
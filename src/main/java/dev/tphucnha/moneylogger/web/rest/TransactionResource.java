@@ -1,10 +1,15 @@
 package dev.tphucnha.moneylogger.web.rest;
 
-import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.service.IdempotencyService;
+import dev.tphucnha.moneylogger.service.QueryCostGuard;
+import dev.tphucnha.moneylogger.service.QueryDecision;
 import dev.tphucnha.moneylogger.service.TransactionQueryService;
 import dev.tphucnha.moneylogger.service.TransactionService;
 import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
 import dev.tphucnha.moneylogger.service.dto.TotalAmountDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
 import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
 import dev.tphucnha.moneylogger.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
@@ -14,6 +19,7 @@ import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -21,8 +27,11 @@ import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -45,42 +54,101 @@ public class TransactionResource {
 
     private final TransactionService transactionService;
 
-    private final TransactionRepository transactionRepository;
-
     private final TransactionQueryService transactionQueryService;
 
+    private final ApplicationProperties applicationProperties;
+
+    private final QueryCostGuard queryCostGuard;
+
+    private final IdempotencyService idempotencyService;
+
     public TransactionResource(
         TransactionService transactionService,
-        TransactionRepository transactionRepository,
-        TransactionQueryService transactionQueryService
+        TransactionQueryService transactionQueryService,
+        ApplicationProperties applicationProperties,
+        QueryCostGuard queryCostGuard,
+        IdempotencyService idempotencyService
     ) {
         this.transactionService = transactionService;
-        this.transactionRepository = transactionRepository;
         this.transactionQueryService = transactionQueryService;
+        this.applicationProperties = applicationProperties;
+        this.queryCostGuard = queryCostGuard;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
      * {@code POST  /transactions} : Create a new transaction.
      *
      * @param transactionDTO the transactionDTO to create.
+     * @param idempotencyKey the optional key making retries of the request return its first response.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new transactionDTO, or with status {@code 400 (Bad Request)} if the transaction has already an ID.
-     * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/transactions")
-    public ResponseEntity<TransactionDTO> createTransaction(@Valid @RequestBody TransactionDTO transactionDTO) throws URISyntaxException {
+    public ResponseEntity<TransactionDTO> createTransaction(
+        @Valid @RequestBody TransactionDTO transactionDTO,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
         log.debug("REST request to save Transaction : {}", transactionDTO);
         if (transactionDTO.getId() != null) {
             throw new BadRequestAlertException("A new transaction cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        try {
-            TransactionDTO result = transactionService.save(transactionDTO);
-            return ResponseEntity
-                .created(new URI("/api/transactions/" + result.getId()))
-                .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
-                .body(result);
-        } catch (InvalidDataAccessResourceUsageException e) {
-            throw new BadRequestAlertException("Invalid data access", ENTITY_NAME, e.getMessage());
+        return idempotencyService.execute(
+            ENTITY_NAME,
+            idempotencyKey,
+            transactionDTO,
+            new TypeReference<TransactionDTO>() {},
+            () -> {
+                try {
+                    TransactionDTO result = transactionService.save(transactionDTO);
+                    return ResponseEntity
+                        .created(URI.create("/api/transactions/" + result.getId()))
+                        .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+                        .body(result);
+                } catch (InvalidDataAccessResourceUsageException e) {
+                    throw new BadRequestAlertException("Invalid data access", ENTITY_NAME, e.getMessage());
+                }
+            }
+        );
+    }
+
+    /**
+     * {@code POST  /transactions/batch} : Create a batch of transactions.
+     * <p>
+     * Items are validated individually: invalid items are rejected, the others are created in one transaction, with
+     * batched inserts.
+     *
+     * @param transactionDTOs the transactionDTOs to create.
+     * @param idempotencyKey  the optional key making retries of the request return its first response.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each item, in order,
+     * or with status {@code 400 (Bad Request)} if the batch is empty or too large.
+     */
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<List<TransactionBatchResultDTO>> createTransactions(
+        @RequestBody List<TransactionDTO> transactionDTOs,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
+        log.debug("REST request to save a batch of {} Transactions", transactionDTOs.size());
+        if (transactionDTOs.isEmpty()) {
+            throw new BadRequestAlertException("A batch cannot be empty", ENTITY_NAME, "batchempty");
+        }
+        int maxSize = applicationProperties.getBatch().getMaxSize();
+        if (transactionDTOs.size() > maxSize) {
+            throw new BadRequestAlertException("A batch cannot be larger than " + maxSize, ENTITY_NAME, "batchtoolarge");
         }
+        return idempotencyService.execute(
+            ENTITY_NAME,
+            idempotencyKey,
+            transactionDTOs,
+            new TypeReference<List<TransactionBatchResultDTO>>() {},
+            () -> {
+                List<TransactionBatchResultDTO> results = transactionService.createAll(transactionDTOs);
+                long created = results.stream().filter(result -> result.getStatus() == TransactionBatchResultDTO.Status.CREATED).count();
+                return ResponseEntity
+                    .ok()
+                    .headers(HeaderUtil.createAlert(applicationName, created + " transactions created", String.valueOf(created)))
+                    .body(results);
+            }
+        );
     }
 
     /**
@@ -88,15 +156,18 @@ public class TransactionResource {
      *
      * @param id the id of the transactionDTO to save.
      * @param transactionDTO the transactionDTO to update.
+     * @param ifMatch the optional entity tag of the version the transaction must still have, else the version in the body, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated transactionDTO,
      * or with status {@code 400 (Bad Request)} if the transactionDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the transaction was changed since that version,
      * or with status {@code 500 (Internal Server Error)} if the transactionDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/transactions/{id}")
     public ResponseEntity<TransactionDTO> updateTransaction(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody TransactionDTO transactionDTO
+        @Valid @RequestBody TransactionDTO transactionDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Transaction : {}, {}", id, transactionDTO);
         if (transactionDTO.getId() == null) {
@@ -105,16 +176,17 @@ public class TransactionResource {
         if (!Objects.equals(id, transactionDTO.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
-
-        if (!transactionRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        transactionDTO.setVersion(VersionHeaderUtil.expectedVersion(ifMatch, transactionDTO.getVersion(), ENTITY_NAME));
 
         try {
-            TransactionDTO result = transactionService.save(transactionDTO);
+            // The update is guarded by the owner in the statement itself, a missing transaction is only found then
+            TransactionDTO result = transactionService
+                .update(transactionDTO)
+                .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
             return ResponseEntity
                 .ok()
                 .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, transactionDTO.getId().toString()))
+                .headers(VersionHeaderUtil.createETagHeaders(result.getVersion()))
                 .body(result);
         } catch (InvalidDataAccessResourceUsageException e) {
             throw new BadRequestAlertException("Invalid data access", ENTITY_NAME, e.getMessage());
@@ -126,16 +198,19 @@ public class TransactionResource {
      *
      * @param id the id of the transactionDTO to save.
      * @param transactionDTO the transactionDTO to update.
+     * @param ifMatch the optional entity tag of the version the transaction must still have, else the version in the body, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated transactionDTO,
      * or with status {@code 400 (Bad Request)} if the transactionDTO is not valid,
      * or with status {@code 404 (Not Found)} if the transactionDTO is not found,
+     * or with status {@code 412 (Precondition Failed)} if the transaction was changed since that version,
      * or with status {@code 500 (Internal Server Error)} if the transactionDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/transactions/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<TransactionDTO> partialUpdateTransaction(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody TransactionDTO transactionDTO
+        @NotNull @RequestBody TransactionDTO transactionDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Transaction partially : {}, {}", id, transactionDTO);
         if (transactionDTO.getId() == null) {
@@ -144,18 +219,17 @@ public class TransactionResource {
         if (!Objects.equals(id, transactionDTO.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
-
-        if (!transactionRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        transactionDTO.setVersion(VersionHeaderUtil.expectedVersion(ifMatch, transactionDTO.getVersion(), ENTITY_NAME));
 
         try {
-            Optional<TransactionDTO> result = transactionService.partialUpdate(transactionDTO);
-
-            return ResponseUtil.wrapOrNotFound(
-                result,
-                HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, transactionDTO.getId().toString())
-            );
+            TransactionDTO result = transactionService
+                .partialUpdate(transactionDTO)
+                .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+            return ResponseEntity
+                .ok()
+                .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, transactionDTO.getId().toString()))
+                .headers(VersionHeaderUtil.createETagHeaders(result.getVersion()))
+                .body(result);
         } catch (InvalidDataAccessResourceUsageException e) {
             throw new BadRequestAlertException("Invalid data access", ENTITY_NAME, e.getMessage());
         }
@@ -164,18 +238,71 @@ public class TransactionResource {
     /**
      * {@code GET  /transactions} : get all the transactions.
      *
+     * The listing goes through the {@link QueryCostGuard}, which may cap the page size, bound the criteria or reject it;
+     * the decision is reported in the {@code X-Query-*} headers.
+     *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of transactions in body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of transactions in body,
+     * or with status {@code 400 (Bad Request)} if the query is rejected, or with status {@code 429 (Too Many Requests)}
+     * if the query is too costly to run now.
      */
     @GetMapping("/transactions")
     public ResponseEntity<List<TransactionDTO>> getAllTransactions(TransactionCriteria criteria, Pageable pageable) {
         log.debug("REST request to get Transactions by criteria: {}", criteria);
-        Page<TransactionDTO> page = transactionQueryService.findByCriteria(criteria, pageable);
+        QueryDecision<TransactionCriteria> decision = queryCostGuard.checkTransactions(criteria, pageable);
+        Page<TransactionDTO> page = queryCostGuard.execute(
+            decision,
+            () ->
+                applicationProperties.getQuery().isConcurrentCount()
+                    ? transactionQueryService.findByCriteriaConcurrently(decision.getCriteria(), decision.getPageable())
+                    : transactionQueryService.findByCriteria(decision.getCriteria(), decision.getPageable())
+        );
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        headers.addAll(QueryGuardHeaderUtil.createQueryDecisionHeaders(decision));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /transactions/json} : get a page of the transactions, streamed as a JSON array.
+     * <p>
+     * Meant for large pages and exports: on PostgreSQL the JSON is rendered by the database, without hydrating the
+     * entities. The elements have the shape of {@link TransactionDTO}. Unlike {@code GET /transactions}, no count
+     * query is executed and no pagination headers are returned.
+     *
+     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
+     * @param response the response the JSON array of transactions is written to, with status {@code 200 (OK)},
+     * or with status {@code 400 (Bad Request)} if the query is rejected by the {@link QueryCostGuard},
+     * or with status {@code 429 (Too Many Requests)} if the query is too costly to run now.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping(value = "/transactions/json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getAllTransactionsAsJson(TransactionCriteria criteria, Pageable pageable, HttpServletResponse response)
+        throws IOException {
+        log.debug("REST request to get Transactions as JSON by criteria: {}", criteria);
+        QueryDecision<TransactionCriteria> decision = queryCostGuard.checkTransactionExport(criteria, pageable);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        QueryGuardHeaderUtil
+            .createQueryDecisionHeaders(decision)
+            .forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        try {
+            queryCostGuard.execute(
+                decision,
+                () -> {
+                    try {
+                        transactionQueryService.writeJsonByCriteria(decision.getCriteria(), decision.getPageable(), response.getOutputStream());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return null;
+                }
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     /**
      * {@code GET  /transactions/count} : count all the transactions.
      *
@@ -185,9 +312,64 @@ public class TransactionResource {
     @GetMapping("/transactions/count")
     public ResponseEntity<Long> countTransactions(TransactionCriteria criteria) {
         log.debug("REST request to count Transactions by criteria: {}", criteria);
-        return ResponseEntity.ok().body(transactionQueryService.countByCriteria(criteria));
+        QueryDecision<TransactionCriteria> decision = queryCostGuard.checkTransactions(criteria, Pageable.unpaged());
+        return ResponseEntity
+            .ok()
+            .headers(QueryGuardHeaderUtil.createQueryDecisionHeaders(decision))
+            .body(queryCostGuard.execute(decision, () -> transactionQueryService.countByCriteria(decision.getCriteria())));
+    }
+
+
+    /**
+     * {@code POST  /transactions/bulk-update} : set the category of all the transactions matching the criteria.
+     *
+     * @param criteria         the criteria which the transactions should match, at least one filter is required.
+     * @param targetCategoryId the id of the new category, or none to remove the category.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of updated transactions in body,
+     * or with status {@code 400 (Bad Request)} if the criteria are empty or the category is not valid.
+     */
+    @PostMapping("/transactions/bulk-update")
+    public ResponseEntity<Long> bulkUpdateTransactions(
+        TransactionCriteria criteria,
+        @RequestParam(value = "targetCategoryId", required = false) Long targetCategoryId
+    ) {
+        log.debug("REST request to update the category of Transactions by criteria: {}, category: {}", criteria, targetCategoryId);
+        checkBulkCriteria(criteria);
+        try {
+            long updated = transactionService.updateCategoryByCriteria(criteria, targetCategoryId);
+            return ResponseEntity
+                .ok()
+                .headers(HeaderUtil.createAlert(applicationName, updated + " transactions updated", String.valueOf(updated)))
+                .body(updated);
+        } catch (InvalidDataAccessResourceUsageException e) {
+            throw new BadRequestAlertException("Invalid data access", ENTITY_NAME, e.getMessage());
+        }
     }
 
+    /**
+     * {@code POST  /transactions/bulk-delete} : delete all the transactions matching the criteria.
+     *
+     * @param criteria the criteria which the transactions should match, at least one filter is required.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of deleted transactions in body,
+     * or with status {@code 400 (Bad Request)} if the criteria are empty.
+     */
+    @PostMapping("/transactions/bulk-delete")
+    public ResponseEntity<Long> bulkDeleteTransactions(TransactionCriteria criteria) {
+        log.debug("REST request to delete Transactions by criteria: {}", criteria);
+        checkBulkCriteria(criteria);
+        long deleted = transactionService.deleteByCriteria(criteria);
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createAlert(applicationName, deleted + " transactions deleted", String.valueOf(deleted)))
+            .body(deleted);
+    }
+
+    private void checkBulkCriteria(TransactionCriteria criteria) {
+        // Writing all the transactions of a user must not happen by mistake
+        if (criteria == null || criteria.equals(new TransactionCriteria())) {
+            throw new BadRequestAlertException("At least one filter is required", ENTITY_NAME, "criteriaempty");
+        }
+    }
 
     /**
      * {@code GET  /transactions/totalAmount} : sum amounts of all the transactions.
@@ -203,6 +385,7 @@ public class TransactionResource {
 
     /**
      * {@code GET  /transactions/:id} : get the "id" transaction.
+     * Its version is given in the {@code ETag} header, to send back in the {@code If-Match} header of its updates.
      *
      * @param id the id of the transactionDTO to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the transactionDTO, or with status {@code 404 (Not Found)}.
@@ -211,7 +394,8 @@ public class TransactionResource {
     public ResponseEntity<TransactionDTO> getTransaction(@PathVariable Long id) {
         log.debug("REST request to get Transaction : {}", id);
         Optional<TransactionDTO> transactionDTO = transactionService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(transactionDTO);
+        HttpHeaders headers = VersionHeaderUtil.createETagHeaders(transactionDTO.map(TransactionDTO::getVersion).orElse(null));
+        return ResponseUtil.wrapOrNotFound(transactionDTO, headers);
     }
 
     /**
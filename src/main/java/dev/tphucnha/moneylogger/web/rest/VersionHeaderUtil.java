@@ -0,0 +1,57 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import dev.tphucnha.moneylogger.web.rest.errors.BadRequestAlertException;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Utility class for the {@code ETag} and {@code If-Match} headers, whose entity tags are the versions of the entities.
+ */
+final class VersionHeaderUtil {
+
+    private VersionHeaderUtil() {}
+
+    /**
+     * Create the {@code ETag} header of an entity.
+     *
+     * @param version the version of the entity, or {@code null} when it is not known.
+     * @return the headers, empty when the version is not known.
+     */
+    static HttpHeaders createETagHeaders(Long version) {
+        HttpHeaders headers = new HttpHeaders();
+        if (version != null) {
+            headers.setETag("\"" + version + "\"");
+        }
+        return headers;
+    }
+
+    /**
+     * Read the version an update is conditional on, from its {@code If-Match} header, else from its body.
+     *
+     * @param ifMatch     the {@code If-Match} header, which holds a single entity tag, weak or not.
+     * @param bodyVersion the version sent in the body.
+     * @param entityName  the name of the entity, for the error.
+     * @return the expected version, or {@code null} when the update is not conditional.
+     * @throws BadRequestAlertException if the header is not the tag of a version.
+     */
+    static Long expectedVersion(String ifMatch, Long bodyVersion, String entityName) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return bodyVersion;
+        }
+        String tag = ifMatch.trim();
+        if ("*".equals(tag)) {
+            // The entity only needs to exist, which the update checks anyway
+            return null;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new BadRequestAlertException("Invalid If-Match header", entityName, "ifmatchinvalid");
+    }
+}
@@ -9,6 +9,10 @@ public final class ErrorConstants {
     public static final String PROBLEM_BASE_URL = "https://www.jhipster.tech/problem";
     public static final URI DEFAULT_TYPE = URI.create(PROBLEM_BASE_URL + "/problem-with-message");
     public static final URI CONSTRAINT_VIOLATION_TYPE = URI.create(PROBLEM_BASE_URL + "/constraint-violation");
+    public static final URI QUERY_REJECTED_TYPE = URI.create(PROBLEM_BASE_URL + "/query-rejected");
+    public static final URI IDEMPOTENCY_KEY_TYPE = URI.create(PROBLEM_BASE_URL + "/idempotency-key");
+    public static final URI INGEST_REJECTED_TYPE = URI.create(PROBLEM_BASE_URL + "/ingest-rejected");
+    public static final URI VERSION_MISMATCH_TYPE = URI.create(PROBLEM_BASE_URL + "/version-mismatch");
 
     private ErrorConstants() {}
 }
@@ -1,5 +1,9 @@
 package dev.tphucnha.moneylogger.web.rest.errors;
 
+import dev.tphucnha.moneylogger.service.EntityVersionMismatchException;
+import dev.tphucnha.moneylogger.service.IdempotencyKeyException;
+import dev.tphucnha.moneylogger.service.IngestRejectedException;
+import dev.tphucnha.moneylogger.service.QueryRejectedException;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
@@ -14,6 +18,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -43,6 +48,7 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
     private static final String MESSAGE_KEY = "message";
     private static final String PATH_KEY = "path";
     private static final String VIOLATIONS_KEY = "violations";
+    private static final String COST_KEY = "cost";
 
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
@@ -131,6 +137,94 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(ex, problem, request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleEntityVersionMismatch(EntityVersionMismatchException ex, NativeWebRequest request) {
+        Problem problem = Problem
+            .builder()
+            .withType(ErrorConstants.VERSION_MISMATCH_TYPE)
+            .withTitle(Status.PRECONDITION_FAILED.getReasonPhrase())
+            .withStatus(Status.PRECONDITION_FAILED)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, "error." + EntityVersionMismatchException.VERSION_MISMATCH)
+            .with("params", ex.getEntityName())
+            .build();
+        HttpHeaders headers = HeaderUtil.createFailureAlert(
+            applicationName,
+            false,
+            ex.getEntityName(),
+            EntityVersionMismatchException.VERSION_MISMATCH,
+            ex.getMessage()
+        );
+        return create(ex, problem, request, headers);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleQueryRejected(QueryRejectedException ex, NativeWebRequest request) {
+        Problem problem = Problem
+            .builder()
+            .withType(ErrorConstants.QUERY_REJECTED_TYPE)
+            .withTitle(ex.isRetryable() ? "Query deferred" : "Query rejected")
+            .withStatus(ex.isRetryable() ? Status.TOO_MANY_REQUESTS : Status.BAD_REQUEST)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, "error." + ex.getReason())
+            .with("params", ex.getEntityName())
+            .with(COST_KEY, ex.getCost())
+            .build();
+        HttpHeaders headers = HeaderUtil.createFailureAlert(applicationName, false, ex.getEntityName(), ex.getReason(), ex.getMessage());
+        if (ex.isRetryable()) {
+            headers.add(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return create(ex, problem, request, headers);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleIdempotencyKey(IdempotencyKeyException ex, NativeWebRequest request) {
+        Status status;
+        switch (ex.getReason()) {
+            case IdempotencyKeyException.IN_PROGRESS:
+                status = Status.CONFLICT;
+                break;
+            case IdempotencyKeyException.KEY_REUSED:
+                status = Status.UNPROCESSABLE_ENTITY;
+                break;
+            default:
+                status = Status.BAD_REQUEST;
+        }
+        Problem problem = Problem
+            .builder()
+            .withType(ErrorConstants.IDEMPOTENCY_KEY_TYPE)
+            .withTitle(status.getReasonPhrase())
+            .withStatus(status)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, "error." + ex.getReason())
+            .with("params", ex.getEntityName())
+            .build();
+        HttpHeaders headers = HeaderUtil.createFailureAlert(applicationName, false, ex.getEntityName(), ex.getReason(), ex.getMessage());
+        if (status == Status.CONFLICT) {
+            headers.add(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return create(ex, problem, request, headers);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleIngestRejected(IngestRejectedException ex, NativeWebRequest request) {
+        Status status = IngestRejectedException.QUEUE_FULL.equals(ex.getReason())
+            ? Status.TOO_MANY_REQUESTS
+            : Status.SERVICE_UNAVAILABLE;
+        Problem problem = Problem
+            .builder()
+            .withType(ErrorConstants.INGEST_REJECTED_TYPE)
+            .withTitle(status.getReasonPhrase())
+            .withStatus(status)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, "error." + ex.getReason())
+            .with("params", ex.getEntityName())
+            .build();
+        HttpHeaders headers = HeaderUtil.createFailureAlert(applicationName, false, ex.getEntityName(), ex.getReason(), ex.getMessage());
+        headers.add(HttpHeaders.RETRY_AFTER, "1");
+        return create(ex, problem, request, headers);
+    }
+
     @Override
     public ProblemBuilder prepare(final Throwable throwable, final StatusType status, final URI type) {
         Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
@@ -0,0 +1,88 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.domain.MinorUnits;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the summation of the amounts of a history of transactions, as when a year is archived: {@link BigDecimal}
+ * additions against a {@link MinorUnits.Sum} of longs. The history is made of daily expenses of a few units to a few
+ * hundreds, and of a monthly income, with two decimals. Run with {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmountSummationBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int historySize;
+
+    private BigDecimal[] decimalAmounts;
+
+    private long[] minorUnitAmounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        decimalAmounts = new BigDecimal[historySize];
+        minorUnitAmounts = new long[historySize];
+        for (int i = 0; i < historySize; i++) {
+            long amount = i % 30 == 0 ? 250_000 + random.nextInt(100_000) : -(100 + (long) Math.abs(random.nextGaussian() * 4_000));
+            decimalAmounts[i] = MinorUnits.toBigDecimal(amount);
+            minorUnitAmounts[i] = amount;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            sum = sum.add(amount);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public BigDecimal minorUnits() {
+        MinorUnits.Sum sum = new MinorUnits.Sum();
+        for (long amount : minorUnitAmounts) {
+            sum.add(amount);
+        }
+        return sum.toBigDecimal();
+    }
+
+    /**
+     * The amounts read as {@link BigDecimal}s and summed in minor units, as rows not fitting them would be.
+     */
+    @Benchmark
+    public BigDecimal bigDecimalToMinorUnits() {
+        MinorUnits.Sum sum = new MinorUnits.Sum();
+        for (BigDecimal amount : decimalAmounts) {
+            sum.add(amount);
+        }
+        return sum.toBigDecimal();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AmountSummationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.service.TransactionService;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures the latency of {@link TransactionService#save} creating a transaction in a category, with each
+ * {@code application.audit.mode}: audit rows written by Envers in the transaction ({@code sync}), changes queued in the
+ * transaction and written by the background writer ({@code async}, which keeps draining during the measurement), and
+ * no audit ({@code disabled}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AuditModeBenchmark {
+
+    @Param({ "sync", "async", "disabled" })
+    public String auditMode;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private CategoryDTO categoryDTO;
+
+    private Instant date;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication("application.audit.mode=" + auditMode);
+        transactionService = context.getBean(TransactionService.class);
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        Category category = new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+            .execute(status -> categoryRepository.save(new Category().name("Groceries")));
+        categoryDTO = new CategoryDTO();
+        categoryDTO.setId(category.getId());
+        date = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionDTO save() {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAmount(BigDecimal.TEN);
+        transactionDTO.setDetails("Audited");
+        transactionDTO.setDate(date);
+        transactionDTO.setCategory(categoryDTO);
+        return transactionService.save(transactionDTO);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AuditModeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
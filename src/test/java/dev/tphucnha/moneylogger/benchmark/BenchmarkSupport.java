@@ -0,0 +1,39 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.MoneyloggerApp;
+import java.util.Collections;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Helpers shared by the JMH benchmarks.
+ * <p>
+ * The benchmarks are not run by the build: run their {@code main} method, with the test classpath. They boot the application against a PostgreSQL container, through the {@code testcontainers} profile, so Docker
+ * must be available.
+ */
+final class BenchmarkSupport {
+
+    static final String USER = "benchmark";
+
+    private BenchmarkSupport() {}
+
+    /**
+     * Boot the application on a random port, and authenticate {@link #USER} on all threads.
+     *
+     * @param properties additional properties, as {@code key=value}.
+     * @return the application context, to be closed at tear down.
+     */
+    static ConfigurableApplicationContext startApplication(String... properties) {
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder
+            .getContext()
+            .setAuthentication(new UsernamePasswordAuthenticationToken(USER, USER, Collections.emptyList()));
+        return new SpringApplicationBuilder(MoneyloggerApp.class)
+            .profiles("testcontainers")
+            .properties("server.port=0")
+            .properties(properties)
+            .run();
+    }
+}
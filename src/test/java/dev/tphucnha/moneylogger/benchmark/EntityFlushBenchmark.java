@@ -0,0 +1,123 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures a bulk update through the persistence context: {@link #LOADED} transactions are loaded, {@code modified}
+ * of them are changed, and the persistence context is flushed, in a transaction which is rolled back.
+ * <p>
+ * {@link #load()} is the same work without the change and the flush, so the difference of both is the flush time.
+ * With the entities enhanced for dirty tracking, the flush only visits the changed attributes instead of comparing
+ * every loaded entity with its snapshot. Run with {@code -prof gc}, on this build and on a build without the
+ * {@code hibernate-enhance-maven-plugin}, to compare the flush times and allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EntityFlushBenchmark {
+
+    static final int LOADED = 10_000;
+
+    @Param({ "0", "100", "10000" })
+    public int modified;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        em = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        int ownerKey = context.getBean(UserKeyStore.class).getOrCreate(BenchmarkSupport.USER);
+        jdbcTemplate.update(
+            "insert into transaction (id, amount, details, date, created_by, created_date, change_sequence, version, owner_id) " +
+            "select nextval('sequence_generator'), (i % 10000) / 100.0, 'Transaction ' || i, " +
+            "localtimestamp - (i % 1000) * interval '1 day', ?, localtimestamp, i, 0, ? " +
+            "from generate_series(1, ?) i",
+            BenchmarkSupport.USER,
+            ownerKey,
+            LOADED
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.update("delete from transaction");
+        context.close();
+    }
+
+    @Benchmark
+    public int load() {
+        return transactionTemplate.execute(
+            status -> {
+                status.setRollbackOnly();
+                return findAll().size();
+            }
+        );
+    }
+
+    @Benchmark
+    public int loadModifyAndFlush() {
+        return transactionTemplate.execute(
+            status -> {
+                status.setRollbackOnly();
+                List<Transaction> transactions = findAll();
+                for (int i = 0; i < modified; i++) {
+                    Transaction transaction = transactions.get(i);
+                    transaction.setAmount(transaction.getAmount().add(BigDecimal.ONE));
+                }
+                em.flush();
+                return transactions.size();
+            }
+        );
+    }
+
+    private List<Transaction> findAll() {
+        return em
+            .createQuery("select t from Transaction t where t.createdBy = :login order by t.id", Transaction.class)
+            .setParameter("login", BenchmarkSupport.USER)
+            .setMaxResults(LOADED)
+            .getResultList();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EntityFlushBenchmark.class.getSimpleName()).build()).run();
+    }
+}
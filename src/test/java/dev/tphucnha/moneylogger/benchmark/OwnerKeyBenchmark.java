@@ -0,0 +1,119 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Compares the {@code owner_id} index of the transactions with the {@code created_by} index it replaces, on
+ * {@link #ROWS} transactions of {@link #USERS} users with logins of typical length.
+ * <p>
+ * The sizes of both indexes are printed at set up; the benchmarks measure the latency of the same monthly aggregate
+ * of one user through each index. No results have been recorded yet: the gain of the owner key is to be confirmed by
+ * running it, as described in {@link BenchmarkSupport}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerKeyBenchmark {
+
+    static final int ROWS = 5_000_000;
+
+    static final int USERS = 1000;
+
+    private static final String LOGIN_PREFIX = "benchmark-user-";
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private int firstKey;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UserKeyStore userKeyStore = context.getBean(UserKeyStore.class);
+        for (int user = 0; user < USERS; user++) {
+            userKeyStore.getOrCreate(LOGIN_PREFIX + user);
+        }
+        firstKey = userKeyStore.find(LOGIN_PREFIX + 0);
+        jdbcTemplate.update(
+            "insert into transaction (id, amount, details, date, created_by, created_date, change_sequence, version, owner_id) " +
+            "select nextval('sequence_generator'), (i % 10000) / 100.0, 'Transaction ' || i, " +
+            "localtimestamp - (i % 1000) * interval '1 day', ?, localtimestamp, i, 0, ? + i % ? " +
+            "from generate_series(1, ?) i",
+            LOGIN_PREFIX,
+            firstKey,
+            USERS,
+            ROWS
+        );
+        // The logins of the keys, written separately so that the generated rows stay consistent with user_key
+        jdbcTemplate.update("update transaction t set created_by = k.login from user_key k where k.id = t.owner_id");
+        jdbcTemplate.execute("create index idx_benchmark_created_by_date on transaction (created_by, date)");
+        jdbcTemplate.execute("analyze transaction");
+        System.out.printf(
+            "%nIndex sizes: (owner_id, date) %s, (created_by, date) %s%n",
+            indexSize("idx_transaction_owner_date"),
+            indexSize("idx_benchmark_created_by_date")
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("drop index idx_benchmark_created_by_date");
+        jdbcTemplate.update("delete from transaction");
+        context.close();
+    }
+
+    @Benchmark
+    public Object byOwnerKey() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return jdbcTemplate.queryForMap(
+            "select count(*), sum(amount) from transaction t where t.owner_id = ? and t.date >= localtimestamp - interval '30 days'",
+            firstKey + user
+        );
+    }
+
+    @Benchmark
+    public Object byLogin() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return jdbcTemplate.queryForMap(
+            "select count(*), sum(amount) from transaction t where t.created_by = ? and t.date >= localtimestamp - interval '30 days'",
+            LOGIN_PREFIX + user
+        );
+    }
+
+    private String indexSize(String index) {
+        // The size of a partitioned index is the sum of the sizes of its partitions
+        return jdbcTemplate.queryForObject(
+            "select pg_size_pretty(sum(pg_relation_size(relid))) from pg_partition_tree(?::regclass)",
+            String.class,
+            index
+        );
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OwnerKeyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
+import dev.tphucnha.moneylogger.service.TransactionQueryService;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the memory of {@link #PAGE_SIZE}-row pages of transactions read with and without
+ * {@code application.query.stateless-reads}.
+ * <p>
+ * The heap retained while the read-only transaction of a page is still open, its persistence context included, is
+ * printed at set up, measured after a full GC so approximate. The benchmark measures the latency of a page: run with
+ * {@code -prof gc} to compare the bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StatelessReadBenchmark {
+
+    static final int PAGE_SIZE = 10_000;
+
+    @Param({ "true", "false" })
+    public boolean statelessReads;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionQueryService transactionQueryService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication("application.query.stateless-reads=" + statelessReads);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionQueryService = context.getBean(TransactionQueryService.class);
+        int ownerKey = context.getBean(UserKeyStore.class).getOrCreate(BenchmarkSupport.USER);
+        jdbcTemplate.update(
+            "insert into transaction (id, amount, details, date, created_by, created_date, change_sequence, version, owner_id) " +
+            "select nextval('sequence_generator'), (i % 10000) / 100.0, 'Transaction ' || i, " +
+            "localtimestamp - (i % 1000) * interval '1 day', ?, localtimestamp, i, 0, ? " +
+            "from generate_series(1, ?) i",
+            BenchmarkSupport.USER,
+            ownerKey,
+            PAGE_SIZE * 2
+        );
+        printRetainedHeap();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.update("delete from transaction");
+        context.close();
+    }
+
+    @Benchmark
+    public Page<TransactionDTO> page() {
+        return transactionQueryService.findByCriteria(null, PageRequest.of(0, PAGE_SIZE, Sort.by("date")));
+    }
+
+    private void printRetainedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransactionTemplate.setReadOnly(true);
+        memory.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        long retained = readOnlyTransactionTemplate.execute(
+            status -> {
+                Page<TransactionDTO> page = page();
+                memory.gc();
+                long used = memory.getHeapMemoryUsage().getUsed() - before;
+                // Keeps the page reachable until measured
+                return page.getNumberOfElements() > 0 ? used : 0;
+            }
+        );
+        System.out.printf("%nHeap retained by a page, stateless reads %s: %d KB%n", statelessReads, retained / 1024);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StatelessReadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.service.TransactionService;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures the rows inserted per second by {@link TransactionService#createAll}, one batch of {@link #BATCH_SIZE}
+ * transactions per invocation. The target is over 10k rows/s on a laptop-class PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(TransactionBatchInsertBenchmark.BATCH_SIZE)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionBatchInsertBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private List<TransactionDTO> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication();
+        transactionService = context.getBean(TransactionService.class);
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        Category category = new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+            .execute(status -> categoryRepository.save(new Category().name("Groceries")));
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setId(category.getId());
+
+        Instant date = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            TransactionDTO transactionDTO = new TransactionDTO();
+            transactionDTO.setAmount(BigDecimal.valueOf(i, 2));
+            transactionDTO.setDetails("Transaction " + i);
+            transactionDTO.setDate(date.minusSeconds(i));
+            transactionDTO.setCategory(i % 2 == 0 ? categoryDTO : null);
+            batch.add(transactionDTO);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TransactionBatchResultDTO> createAll() {
+        return transactionService.createAll(batch);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransactionBatchInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.service.TransactionBulkLoadService;
+import dev.tphucnha.moneylogger.service.TransactionService;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures the rows inserted per second when loading {@link #ROWS} transactions, with
+ * {@link TransactionBulkLoadService#load} ({@code COPY}) and with {@link TransactionService#createAll} in batches of
+ * {@link #BATCH_SIZE} (batched {@code INSERT}s). Each invocation loads all the rows, which are deleted after each
+ * iteration so that every load starts from the same table size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(TransactionBulkLoadBenchmark.ROWS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class TransactionBulkLoadBenchmark {
+
+    static final int ROWS = 1_000_000;
+
+    static final int BATCH_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionBulkLoadService transactionBulkLoadService;
+
+    private TransactionService transactionService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CategoryDTO categoryDTO;
+
+    private Instant date;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication();
+        transactionBulkLoadService = context.getBean(TransactionBulkLoadService.class);
+        transactionService = context.getBean(TransactionService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        Category category = transactionTemplate.execute(status -> categoryRepository.save(new Category().name("Groceries")));
+        categoryDTO = new CategoryDTO();
+        categoryDTO.setId(category.getId());
+        date = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteTransactions() {
+        jdbcTemplate.update("delete from transaction_aud");
+        jdbcTemplate.update("delete from transaction");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long bulkLoad() {
+        return transactionBulkLoadService.load(transactions());
+    }
+
+    @Benchmark
+    public long createAll() {
+        Iterator<TransactionDTO> transactions = transactions();
+        long created = 0;
+        while (transactions.hasNext()) {
+            List<TransactionDTO> batch = new ArrayList<>(BATCH_SIZE);
+            while (batch.size() < BATCH_SIZE && transactions.hasNext()) {
+                batch.add(transactions.next());
+            }
+            created += transactionService.createAll(batch).size();
+        }
+        return created;
+    }
+
+    /**
+     * @return the transactions to load, created as they are read so that the rows of a load are never all in memory.
+     */
+    private Iterator<TransactionDTO> transactions() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < ROWS;
+            }
+
+            @Override
+            public TransactionDTO next() {
+                TransactionDTO transactionDTO = new TransactionDTO();
+                transactionDTO.setAmount(BigDecimal.valueOf(index, 2));
+                transactionDTO.setDetails("Transaction " + index);
+                transactionDTO.setDate(date.minusSeconds(index));
+                transactionDTO.setCategory(index % 2 == 0 ? categoryDTO : null);
+                index++;
+                return transactionDTO;
+            }
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransactionBulkLoadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+package dev.tphucnha.moneylogger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.TransactionQueryService;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the two ways of rendering a page of transactions as JSON: loading the entities, mapping them to
+ * {@link TransactionDTO} and serializing them with Jackson, versus rendering the JSON in PostgreSQL with
+ * {@link TransactionQueryService#writeJsonByCriteria}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionJsonRenderingBenchmark {
+
+    private static final int ROWS = 20_000;
+
+    @Param({ "100", "1000", "10000" })
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionQueryService transactionQueryService;
+
+    private ObjectMapper objectMapper;
+
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication();
+        transactionQueryService = context.getBean(TransactionQueryService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        pageable = PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "date"));
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void hydrated(Blackhole blackhole) throws IOException {
+        List<TransactionDTO> transactions = transactionQueryService.findByCriteria(new TransactionCriteria(), pageable).getContent();
+        objectMapper.writeValue(new BlackholeOutputStream(blackhole), transactions);
+    }
+
+    @Benchmark
+    public void databaseRendered(Blackhole blackhole) throws IOException {
+        transactionQueryService.writeJsonByCriteria(new TransactionCriteria(), pageable, new BlackholeOutputStream(blackhole));
+    }
+
+    private void seed() {
+        TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+            .executeWithoutResult(
+                status -> {
+                    Category category = categoryRepository.save(new Category().name("Groceries"));
+                    Instant date = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+                    List<Transaction> transactions = new ArrayList<>(ROWS);
+                    for (int i = 0; i < ROWS; i++) {
+                        Transaction transaction = new Transaction()
+                            .amount(BigDecimal.valueOf(i, 2))
+                            .details("Transaction " + i)
+                            .date(date.minusSeconds(i))
+                            .category(i % 2 == 0 ? category : null);
+                        transactions.add(transaction);
+                    }
+                    transactionRepository.saveAll(transactions);
+                }
+            );
+    }
+
+    /**
+     * Discards the JSON, without letting the JIT eliminate its rendering.
+     */
+    private static class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransactionJsonRenderingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
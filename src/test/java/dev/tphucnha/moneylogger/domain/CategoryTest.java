@@ -3,6 +3,9 @@ package dev.tphucnha.moneylogger.domain;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import dev.tphucnha.moneylogger.web.rest.TestUtil;
+import java.util.HashSet;
+import java.util.Set;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
 import org.junit.jupiter.api.Test;
 
 class CategoryTest {
@@ -20,4 +23,53 @@ class CategoryTest {
         category1.setId(null);
         assertThat(category1).isNotEqualTo(category2);
     }
+
+    @Test
+    void entitiesAreEnhanced() {
+        assertThat(new Category()).isInstanceOf(SelfDirtinessTracker.class);
+        assertThat(new Transaction()).isInstanceOf(SelfDirtinessTracker.class);
+    }
+
+    @Test
+    void addAndRemoveTransactionUpdateBothSides() {
+        Category category = new Category();
+        Transaction transaction = new Transaction();
+
+        category.addTransaction(transaction);
+
+        assertThat(category.getTransactions()).containsExactly(transaction);
+        assertThat(transaction.getCategory()).isSameAs(category);
+
+        category.removeTransaction(transaction);
+
+        assertThat(category.getTransactions()).isEmpty();
+        assertThat(transaction.getCategory()).isNull();
+    }
+
+    @Test
+    void settingTheCategoryOfATransactionLeavesTheCategoryTransactions() {
+        Category category = new Category();
+        Transaction transaction = new Transaction();
+
+        transaction.setCategory(category);
+
+        assertThat(transaction.getCategory()).isSameAs(category);
+        assertThat(category.getTransactions()).isEmpty();
+    }
+
+    @Test
+    void settingTheTransactionsReplacesThem() {
+        Category category = new Category();
+        Transaction removed = new Transaction();
+        Transaction kept = new Transaction();
+        Transaction added = new Transaction();
+        category.addTransaction(removed).addTransaction(kept);
+
+        category.setTransactions(new HashSet<>(Set.of(kept, added)));
+
+        assertThat(category.getTransactions()).containsExactlyInAnyOrder(kept, added);
+        assertThat(removed.getCategory()).isNull();
+        assertThat(kept.getCategory()).isSameAs(category);
+        assertThat(added.getCategory()).isSameAs(category);
+    }
 }
@@ -0,0 +1,44 @@
+package dev.tphucnha.moneylogger.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class MinorUnitsTest {
+
+    @Test
+    void amountsAreConvertedWithoutLoss() {
+        assertThat(MinorUnits.of(new BigDecimal("12.34"))).isEqualTo(1234L);
+        assertThat(MinorUnits.of(new BigDecimal("-0.5"))).isEqualTo(-50L);
+        assertThat(MinorUnits.of(new BigDecimal("7"))).isEqualTo(700L);
+        assertThat(MinorUnits.of(new BigDecimal("1.500"))).isEqualTo(150L);
+        assertThat(MinorUnits.toBigDecimal(-1234L)).isEqualTo(new BigDecimal("-12.34"));
+    }
+
+    @Test
+    void amountsNotFittingAreRejected() {
+        BigDecimal large = new BigDecimal("9999999999999999999.99");
+
+        assertThat(MinorUnits.fits(new BigDecimal("89999999999999999.99"))).isTrue();
+        assertThat(MinorUnits.fits(large)).isFalse();
+        assertThat(MinorUnits.fits(new BigDecimal("0.001"))).isFalse();
+        assertThatThrownBy(() -> MinorUnits.of(large)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void sumFallsBackToBigDecimalOnOverflow() {
+        MinorUnits.Sum sum = new MinorUnits.Sum().add(Long.MAX_VALUE).add(Long.MAX_VALUE).add(-1L);
+
+        assertThat(sum.toBigDecimal())
+            .isEqualTo(MinorUnits.toBigDecimal(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)).subtract(new BigDecimal("0.01")));
+    }
+
+    @Test
+    void sumMixesMinorUnitsAndBigDecimals() {
+        MinorUnits.Sum sum = new MinorUnits.Sum().add(150L).add(new BigDecimal("9999999999999999999.99")).add(new BigDecimal("-1.50"));
+
+        assertThat(sum.toBigDecimal()).isEqualByComparingTo("9999999999999999999.99");
+    }
+}
@@ -0,0 +1,199 @@
+package dev.tphucnha.moneylogger.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.AuditQueueEntry;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link AuditTable}, and for the audit rows written by the native writers: every audited
+ * column of their latest audit row must have the value of the entity row, so a field made {@code @Audited} without
+ * being written by one of them fails here.
+ */
+@IntegrationTest
+@WithMockUser
+@Transactional
+class AuditTableIT {
+
+    private static final String OWNER = "user";
+
+    @Autowired
+    private TransactionBulkRepository transactionBulkRepository;
+
+    @Autowired
+    private TransactionBulkLoadRepository transactionBulkLoadRepository;
+
+    @Autowired
+    private CategoryBulkRepository categoryBulkRepository;
+
+    @Autowired
+    private AuditQueueWriteRepository auditQueueWriteRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ChangeSequenceGenerator changeSequenceGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    private Category category;
+
+    private Transaction transaction;
+
+    @BeforeEach
+    public void initTest() {
+        category = categoryRepository.saveAndFlush(new Category().name("Audited " + UUID.randomUUID()));
+        transaction =
+            transactionRepository.saveAndFlush(
+                new Transaction().amount(BigDecimal.TEN).details("Audited").date(Instant.now().truncatedTo(ChronoUnit.SECONDS))
+            );
+    }
+
+    @Test
+    void auditedColumnsAreReadFromEnvers() {
+        assertThat(auditTable(Transaction.class).getName()).isEqualTo("transaction_aud");
+        assertThat(auditTable(Transaction.class).getColumns())
+            .containsExactlyInAnyOrder("amount", "details", "date", "category_id", "created_by");
+        assertThat(auditTable(Category.class).getName()).isEqualTo("category_aud");
+        assertThat(auditTable(Category.class).getColumns()).containsExactly("name");
+    }
+
+    @Test
+    void missingAuditedValueIsRejected() {
+        assertThatThrownBy(() -> auditTable(Category.class).values(Collections.emptyMap()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("name");
+    }
+
+    @Test
+    void updateIsAuditedAsWritten() {
+        Transaction values = new Transaction()
+            .amount(BigDecimal.ONE)
+            .details("Updated")
+            .date(Instant.now().truncatedTo(ChronoUnit.SECONDS))
+            .category(category);
+
+        assertThat(transactionBulkRepository.update(transaction.getId(), OWNER, values, false)).isPresent();
+
+        assertAuditedAsWritten(Transaction.class, "transaction", transaction.getId());
+        assertAuditedAsWritten(Category.class, "category", category.getId());
+    }
+
+    @Test
+    void partialUpdateIsAuditedAsWritten() {
+        Transaction values = new Transaction().details("Patched");
+
+        assertThat(transactionBulkRepository.update(transaction.getId(), OWNER, values, true)).isPresent();
+
+        assertAuditedAsWritten(Transaction.class, "transaction", transaction.getId());
+    }
+
+    @Test
+    void categoryUpdateIsAuditedAsWritten() {
+        SqlWhereBuilder where = new SqlWhereBuilder().equal("t.id", transaction.getId()).equal("t.created_by", OWNER);
+
+        assertThat(transactionBulkRepository.updateCategory(where, category.getId(), OWNER)).isEqualTo(1);
+
+        assertAuditedAsWritten(Transaction.class, "transaction", transaction.getId());
+        assertAuditedAsWritten(Category.class, "category", category.getId());
+    }
+
+    @Test
+    void deleteKeepsTheOwnerOnly() {
+        SqlWhereBuilder where = new SqlWhereBuilder().equal("t.id", transaction.getId()).equal("t.created_by", OWNER);
+
+        assertThat(transactionBulkRepository.delete(where, OWNER)).isEqualTo(1);
+
+        Map<String, Object> audited = latestAuditRow(Transaction.class, transaction.getId());
+        assertThat(audited.get("created_by")).isEqualTo(OWNER);
+        assertThat(audited).containsEntry("amount", null).containsEntry("details", null).containsEntry("category_id", null);
+    }
+
+    @Test
+    void categoryWritesAreAuditedAsWritten() {
+        Long id = categoryBulkRepository.insertIfAbsent(OWNER, "Inserted " + UUID.randomUUID(), changeSequenceGenerator.next(OWNER)).get();
+        assertAuditedAsWritten(Category.class, "category", id);
+
+        String name = "Renamed " + UUID.randomUUID();
+        assertThat(categoryBulkRepository.update(id, OWNER, name, false, null, changeSequenceGenerator.next(OWNER))).isEqualTo(1);
+        assertAuditedAsWritten(Category.class, "category", id);
+    }
+
+    @Test
+    void bulkLoadIsAuditedAsWritten() {
+        Transaction loaded = new Transaction()
+            .amount(new BigDecimal("12.34"))
+            .details("Loaded")
+            .date(Instant.now().truncatedTo(ChronoUnit.SECONDS))
+            .category(category);
+        loaded.setChangeSequence(changeSequenceGenerator.next(OWNER));
+
+        transactionBulkLoadRepository.insert(OWNER, Collections.singletonList(loaded));
+
+        assertAuditedAsWritten(Transaction.class, "transaction", loaded.getId());
+        assertAuditedAsWritten(Category.class, "category", category.getId());
+    }
+
+    @Test
+    void queuedChangeIsAuditedAsWritten() {
+        AuditQueueEntry entry = new AuditQueueEntry();
+        entry.setTransactionId(UUID.randomUUID().toString());
+        entry.setCapturedDate(Instant.now());
+        entry.setEntityName(AuditCaptureIntegrator.TRANSACTION);
+        entry.setEntityId(transaction.getId());
+        entry.setRevisionType(1);
+        entry.setAmount(transaction.getAmount());
+        entry.setDetails(transaction.getDetails());
+        entry.setDate(transaction.getDate());
+        entry.setCreatedBy(transaction.getCreatedBy());
+
+        auditQueueWriteRepository.write(Collections.singletonList(entry));
+
+        assertAuditedAsWritten(Transaction.class, "transaction", transaction.getId());
+    }
+
+    private AuditTable auditTable(Class<?> entityClass) {
+        return AuditTable.of(em.getEntityManagerFactory(), entityClass);
+    }
+
+    private Map<String, Object> latestAuditRow(Class<?> entityClass, Long id) {
+        AuditTable audit = auditTable(entityClass);
+        return jdbcTemplate.queryForMap(
+            "select " + String.join(", ", audit.getColumns()) + " from " + audit.getName() + " where id = ? order by rev desc limit 1",
+            id
+        );
+    }
+
+    private void assertAuditedAsWritten(Class<?> entityClass, String table, Long id) {
+        em.flush();
+        Map<String, Object> written = jdbcTemplate.queryForMap(
+            "select " + String.join(", ", auditTable(entityClass).getColumns()) + " from " + table + " where id = ?",
+            id
+        );
+        assertThat(latestAuditRow(entityClass, id)).as("Audit row of %s %d", table, id).isEqualTo(written);
+    }
+}
@@ -0,0 +1,144 @@
+package dev.tphucnha.moneylogger.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.service.TransactionService;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import dev.tphucnha.moneylogger.service.mapper.CategoryMapper;
+import dev.tphucnha.moneylogger.service.mapper.TransactionMapper;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@code Category.transactions} association of the enhanced entities, which setting the
+ * category of a transaction must not load, and for their dirty tracking.
+ */
+@IntegrationTest
+@WithMockUser
+@Transactional
+class CategoryTransactionsIT {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void transactionAddedOnTheCategoryIsStored() {
+        Category category = categoryRepository.saveAndFlush(category());
+        Transaction transaction = transaction();
+
+        category.addTransaction(transaction);
+        transactionRepository.saveAndFlush(transaction);
+        em.clear();
+
+        Category stored = categoryRepository.findById(category.getId()).orElseThrow();
+        assertThat(stored.getTransactions()).extracting(Transaction::getId).containsExactly(transaction.getId());
+    }
+
+    @Test
+    void categorySetOnALoadedTransactionDoesNotLoadTheCategoryTransactions() {
+        Category groceries = categoryRepository.saveAndFlush(category());
+        Category rent = categoryRepository.saveAndFlush(category());
+        Transaction transaction = transactionRepository.saveAndFlush(transaction().category(groceries));
+        em.clear();
+        groceries = categoryRepository.findById(groceries.getId()).orElseThrow();
+        rent = categoryRepository.findById(rent.getId()).orElseThrow();
+        transaction = transactionRepository.findById(transaction.getId()).orElseThrow();
+
+        transaction.setCategory(rent);
+
+        assertThat(Hibernate.isInitialized(groceries.getTransactions())).isFalse();
+        assertThat(Hibernate.isInitialized(rent.getTransactions())).isFalse();
+        em.flush();
+        em.clear();
+        assertThat(transactionRepository.findById(transaction.getId()).orElseThrow().getCategory().getId()).isEqualTo(rent.getId());
+    }
+
+    @Test
+    void transactionRemovedFromTheCategoryIsDetached() {
+        Category category = categoryRepository.saveAndFlush(category());
+        Transaction transaction = transactionRepository.saveAndFlush(transaction().category(category));
+
+        category.removeTransaction(transaction);
+        em.flush();
+        em.clear();
+
+        assertThat(transactionRepository.findById(transaction.getId()).orElseThrow().getCategory()).isNull();
+        assertThat(categoryRepository.findById(category.getId()).orElseThrow().getTransactions()).isEmpty();
+    }
+
+    @Test
+    void createdTransactionsDoNotLoadTheCategoryTransactions() {
+        Category category = categoryRepository.saveAndFlush(category());
+        em.clear();
+        category = categoryRepository.findById(category.getId()).orElseThrow();
+        TransactionDTO transactionDTO = transactionMapper.toDto(transaction());
+        transactionDTO.setCategory(categoryMapper.toDtoId(category));
+
+        transactionService.createAll(Collections.singletonList(transactionDTO));
+
+        assertThat(Hibernate.isInitialized(category.getTransactions())).isFalse();
+    }
+
+    @Test
+    void updatedTransactionDoesNotLoadTheCategoryTransactions() {
+        Category groceries = categoryRepository.saveAndFlush(category());
+        Category rent = categoryRepository.saveAndFlush(category());
+        Transaction transaction = transactionRepository.saveAndFlush(transaction().category(groceries));
+        em.clear();
+        groceries = categoryRepository.findById(groceries.getId()).orElseThrow();
+        rent = categoryRepository.findById(rent.getId()).orElseThrow();
+        TransactionDTO transactionDTO = transactionMapper.toDto(transactionRepository.findById(transaction.getId()).orElseThrow());
+        transactionDTO.setCategory(categoryMapper.toDtoId(rent));
+
+        assertThat(transactionService.update(transactionDTO)).isPresent();
+
+        assertThat(Hibernate.isInitialized(groceries.getTransactions())).isFalse();
+        assertThat(Hibernate.isInitialized(rent.getTransactions())).isFalse();
+    }
+
+    @Test
+    void onlyTheChangedAttributesAreDirty() {
+        Transaction transaction = transactionRepository.saveAndFlush(transaction());
+        em.clear();
+        transaction = transactionRepository.findById(transaction.getId()).orElseThrow();
+
+        transaction.setAmount(BigDecimal.ONE);
+
+        assertThat(((SelfDirtinessTracker) transaction).$$_hibernate_getDirtyAttributes()).containsExactly("amount");
+    }
+
+    private static Category category() {
+        return new Category().name("Category " + UUID.randomUUID());
+    }
+
+    private static Transaction transaction() {
+        return new Transaction().amount(BigDecimal.TEN).details("Bidirectional").date(Instant.now());
+    }
+}
@@ -0,0 +1,59 @@
+package dev.tphucnha.moneylogger.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class TransactionJdbcRepositoryTest {
+
+    @Test
+    void jsonHasTheShapeOfTheDto() {
+        CategoryDTO category = new CategoryDTO();
+        category.setId(1L);
+        category.setName("Food");
+        category.setVersion(2L);
+        TransactionDTO transaction = new TransactionDTO();
+        transaction.setId(3L);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setDetails("Lunch");
+        transaction.setDate(Instant.parse("2021-05-13T06:37:21Z"));
+        transaction.setCategory(category);
+        transaction.setVersion(4L);
+        JsonNode json = new ObjectMapper().registerModule(new JavaTimeModule()).valueToTree(transaction);
+
+        // The keys of json_build_object, nested objects included, in order
+        List<String> keys = new ArrayList<>();
+        Matcher key = Pattern.compile("'(\\w+)', ").matcher(TransactionJdbcRepository.JSON_SELECT);
+        while (key.find()) {
+            keys.add(key.group(1));
+        }
+
+        assertThat(keys).containsExactlyElementsOf(fieldNames(json));
+    }
+
+    private static List<String> fieldNames(JsonNode json) {
+        List<String> names = new ArrayList<>();
+        json
+            .fields()
+            .forEachRemaining(
+                field -> {
+                    names.add(field.getKey());
+                    if (field.getValue().isObject()) {
+                        names.addAll(fieldNames(field.getValue()));
+                    }
+                }
+            );
+        return names;
+    }
+}
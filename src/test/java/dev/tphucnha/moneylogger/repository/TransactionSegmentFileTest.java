@@ -0,0 +1,95 @@
+package dev.tphucnha.moneylogger.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransactionSegmentFileTest {
+
+    private static final Instant START = Instant.parse("2015-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rowsAreReadBack() throws IOException {
+        List<ArchivedTransaction> rows = rows(1000);
+        Path path = directory.resolve("2015.seg");
+
+        TransactionSegmentFile.write(path, rows, 64);
+        TransactionSegmentFile segment = TransactionSegmentFile.open(path);
+
+        assertThat(segment.getRowCount()).isEqualTo(1000);
+        assertThat(segment.readAll())
+            .usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(rows);
+        assertThat(Files.list(directory)).containsExactly(path);
+    }
+
+    @Test
+    void amountsNotFittingInMinorUnitsAreReadBack() throws IOException {
+        BigDecimal large = new BigDecimal("-9999999999999999999.99");
+        List<ArchivedTransaction> rows = List.of(
+            new ArchivedTransaction(1, large, "Large", START, null),
+            new ArchivedTransaction(2, new BigDecimal("0.01"), "Small", START.plusSeconds(1), 1L)
+        );
+        Path path = directory.resolve("2015.seg");
+
+        TransactionSegmentFile.write(path, rows, 64);
+        List<ArchivedTransaction> read = TransactionSegmentFile.open(path).readAll();
+
+        assertThat(read.get(0).hasAmountMinorUnits()).isFalse();
+        assertThat(read.get(0).getAmount()).isEqualTo(large);
+        assertThat(read.get(1).getAmountMinorUnits()).isEqualTo(1L);
+    }
+
+    @Test
+    void scanOnlyReadsTheOverlappingBlocks() throws IOException {
+        Path path = directory.resolve("2015.seg");
+        TransactionSegmentFile.write(path, rows(1000), 64);
+        TransactionSegmentFile segment = TransactionSegmentFile.open(path);
+        List<ArchivedTransaction> scanned = new ArrayList<>();
+
+        segment.scan(START.plusSeconds(3600L * 500), START.plusSeconds(3600L * 510), scanned::add);
+
+        // The rows of the block holding the range, one row an hour
+        assertThat(scanned).extracting(ArchivedTransaction::getId).contains(500L, 510L).hasSize(64);
+    }
+
+    @Test
+    void scanOutOfTheSegmentReadsNothing() throws IOException {
+        Path path = directory.resolve("2015.seg");
+        TransactionSegmentFile.write(path, rows(100), 64);
+        List<ArchivedTransaction> scanned = new ArrayList<>();
+
+        TransactionSegmentFile.open(path).scan(START.minusSeconds(7200), START.minusSeconds(3600), scanned::add);
+
+        assertThat(scanned).isEmpty();
+    }
+
+    private static List<ArchivedTransaction> rows(int count) {
+        return IntStream
+            .range(0, count)
+            .mapToObj(
+                i ->
+                    new ArchivedTransaction(
+                        i,
+                        BigDecimal.valueOf(i * 125L - 5000, 2),
+                        "Transaction " + i,
+                        START.plusSeconds(3600L * i).plusNanos(i * 1000L),
+                        i % 3 == 0 ? null : (long) i % 7
+                    )
+            )
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+package dev.tphucnha.moneylogger.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.service.TransactionQueryService;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Integration tests for the {@link UserKeyStore}, and for the owner key predicates of the transactions.
+ */
+@IntegrationTest
+@WithMockUser
+@Transactional
+class UserKeyStoreIT {
+
+    @Autowired
+    private UserKeyStore userKeyStore;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void keysAreCreatedOncePerLogin() {
+        String login = "key-" + UUID.randomUUID().toString().substring(0, 8);
+
+        assertThat(userKeyStore.find(login)).isEqualTo(UserKeyStore.NONE);
+        int key = userKeyStore.getOrCreate(login);
+
+        assertThat(key).isNotEqualTo(UserKeyStore.NONE);
+        assertThat(userKeyStore.getOrCreate(login)).isEqualTo(key);
+        assertThat(userKeyStore.find(login)).isEqualTo(key);
+        assertThat(userKeyStore.getOrCreate(login + "-other")).isNotEqualTo(key);
+    }
+
+    @Test
+    void savedTransactionsAreStampedWithTheKeyOfTheirOwner() {
+        Transaction transaction = transactionRepository.saveAndFlush(
+            new Transaction().amount(BigDecimal.TEN).details("Owner key").date(Instant.now())
+        );
+
+        assertThat(transaction.getOwnerId()).isEqualTo(userKeyStore.find("user"));
+        assertThat(transactionRepository.countByOwner("user")).isPositive();
+    }
+
+    @Test
+    void transactionsOfOtherKeysAreNotListed() {
+        String details = "Owner key " + UUID.randomUUID();
+        Transaction transaction = transactionRepository.saveAndFlush(
+            new Transaction().amount(BigDecimal.TEN).details(details).date(Instant.now())
+        );
+        TransactionCriteria criteria = new TransactionCriteria();
+        StringFilter detailsFilter = new StringFilter();
+        detailsFilter.setEquals(details);
+        criteria.setDetails(detailsFilter);
+        assertThat(transactionQueryService.findByCriteria(criteria)).extracting(TransactionDTO::getId).containsExactly(transaction.getId());
+
+        em
+            .createNativeQuery("update transaction set owner_id = :ownerId where id = :id")
+            .setParameter("ownerId", userKeyStore.getOrCreate("another-user"))
+            .setParameter("id", transaction.getId())
+            .executeUpdate();
+
+        assertThat(transactionQueryService.findByCriteria(criteria)).isEmpty();
+        assertThat(transactionQueryService.countByCriteria(criteria)).isZero();
+    }
+}
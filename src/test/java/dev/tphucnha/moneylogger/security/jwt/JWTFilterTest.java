@@ -1,11 +1,15 @@
 package dev.tphucnha.moneylogger.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 import dev.tphucnha.moneylogger.security.AuthoritiesConstants;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import java.util.Collections;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
@@ -22,6 +26,8 @@ class JWTFilterTest {
 
     private TokenProvider tokenProvider;
 
+    private StreamTicketProvider streamTicketProvider;
+
     private JWTFilter jwtFilter;
 
     @BeforeEach
@@ -33,7 +39,8 @@ class JWTFilterTest {
         ReflectionTestUtils.setField(tokenProvider, "key", Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
 
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
-        jwtFilter = new JWTFilter(tokenProvider);
+        streamTicketProvider = mock(StreamTicketProvider.class);
+        jwtFilter = new JWTFilter(tokenProvider, streamTicketProvider);
         SecurityContextHolder.getContext().setAuthentication(null);
     }
 
@@ -69,6 +76,68 @@ class JWTFilterTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
 
+    @Test
+    void testJWTFilterTicketParameterOnEventStream() throws Exception {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            "test-user",
+            null,
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+        );
+        when(streamTicketProvider.redeem("test-ticket")).thenReturn(Optional.of(authentication));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter(JWTFilter.TICKET_PARAMETER, "test-ticket");
+        request.setRequestURI(JWTFilter.EVENT_STREAM_PATH);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+        jwtFilter.doFilter(request, response, filterChain);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("test-user");
+    }
+
+    @Test
+    void testJWTFilterUnknownTicketOnEventStream() throws Exception {
+        when(streamTicketProvider.redeem("test-ticket")).thenReturn(Optional.empty());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter(JWTFilter.TICKET_PARAMETER, "test-ticket");
+        request.setRequestURI(JWTFilter.EVENT_STREAM_PATH);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+        jwtFilter.doFilter(request, response, filterChain);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testJWTFilterTicketParameterIgnoredElsewhere() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter(JWTFilter.TICKET_PARAMETER, "test-ticket");
+        request.setRequestURI("/api/test");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+        jwtFilter.doFilter(request, response, filterChain);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(streamTicketProvider);
+    }
+
+    @Test
+    void testJWTFilterAccessTokenParameterIgnoredOnEventStream() throws Exception {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            "test-user",
+            "test-password",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+        );
+        String jwt = tokenProvider.createToken(authentication, false);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("access_token", jwt);
+        request.setRequestURI(JWTFilter.EVENT_STREAM_PATH);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+        jwtFilter.doFilter(request, response, filterChain);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
     @Test
     void testJWTFilterMissingAuthorization() throws Exception {
         MockHttpServletRequest request = new MockHttpServletRequest();
@@ -0,0 +1,248 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.AuditQueueEntryRepository;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.ChangeSequenceGenerator;
+import dev.tphucnha.moneylogger.repository.TransactionBulkRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.hibernate.envers.AuditReaderFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link AuditQueueService}, with the asynchronous audit. The scheduled drain is delayed, so
+ * that the tests drain the queue themselves. The changes are made through the repositories, the native write paths
+ * included.
+ * <p>
+ * The changes must be committed to be queued, so the tests are not transactional and delete what they create.
+ */
+@IntegrationTest
+@WithMockUser
+@TestPropertySource(properties = { "application.audit.mode=async", "application.audit.poll-interval-millis=3600000" })
+class AuditQueueServiceIT {
+
+    @Autowired
+    private AuditQueueService auditQueueService;
+
+    @Autowired
+    private AuditQueueEntryRepository auditQueueEntryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionBulkRepository transactionBulkRepository;
+
+    @Autowired
+    private ChangeSequenceGenerator changeSequenceGenerator;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> created = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        auditQueueService.writePending();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        created.forEach(categoryRepository::deleteById);
+        auditQueueService.writePending();
+    }
+
+    @Test
+    void changesAreWrittenFromTheQueue() {
+        // Created then updated in the same transaction: queued as a single insert
+        Transaction transaction = transactionTemplate.execute(
+            status -> {
+                Category category = categoryRepository.save(new Category().name("Audit " + UUID.randomUUID()));
+                created.add(category.getId());
+                Transaction saved = transactionRepository.saveAndFlush(
+                    new Transaction().amount(BigDecimal.TEN).details("Audited").date(Instant.now()).category(category)
+                );
+                saved.setDetails("Updated");
+                return saved;
+            }
+        );
+        Long categoryId = transaction.getCategory().getId();
+
+        assertThat(auditQueueEntryRepository.count()).isEqualTo(2);
+        assertThat(revisions(Transaction.class, transaction.getId())).isEmpty();
+
+        auditQueueService.writePending();
+
+        assertThat(auditQueueEntryRepository.count()).isZero();
+        List<Number> transactionRevisions = revisions(Transaction.class, transaction.getId());
+        assertThat(transactionRevisions).hasSize(1);
+        assertThat(revisions(Category.class, categoryId)).isEqualTo(transactionRevisions);
+        Transaction audited = transactionTemplate.execute(
+            status -> AuditReaderFactory.get(em).find(Transaction.class, transaction.getId(), transactionRevisions.get(0))
+        );
+        assertThat(audited.getDetails()).isEqualTo("Updated");
+        assertThat(auditQueueService.getLag()).isZero();
+
+        // Removing a transaction from a category gives the category a revision, as with Envers
+        transactionTemplate.execute(
+            status -> {
+                transactionRepository.deleteById(transaction.getId());
+                return null;
+            }
+        );
+        auditQueueService.writePending();
+
+        assertThat(revisions(Transaction.class, transaction.getId())).hasSize(2);
+        assertThat(revisions(Category.class, categoryId)).hasSize(2);
+    }
+
+    @Test
+    void nativeWritesAreQueued() {
+        Transaction transaction = transactionTemplate.execute(
+            status -> {
+                Category category = categoryRepository.save(new Category().name("Audit " + UUID.randomUUID()));
+                created.add(category.getId());
+                return transactionRepository.saveAndFlush(
+                    new Transaction().amount(BigDecimal.TEN).details("Audited").date(Instant.now()).category(category)
+                );
+            }
+        );
+        auditQueueService.writePending();
+
+        transactionTemplate.execute(
+            status -> transactionBulkRepository.update(transaction.getId(), "user", new Transaction().details("Updated"), true)
+        );
+
+        assertThat(auditQueueEntryRepository.count()).isEqualTo(1);
+        assertThat(revisions(Transaction.class, transaction.getId())).hasSize(1);
+
+        auditQueueService.writePending();
+
+        List<Number> transactionRevisions = revisions(Transaction.class, transaction.getId());
+        assertThat(transactionRevisions).hasSize(2);
+        Transaction audited = transactionTemplate.execute(
+            status -> AuditReaderFactory.get(em).find(Transaction.class, transaction.getId(), transactionRevisions.get(1))
+        );
+        assertThat(audited.getDetails()).isEqualTo("Updated");
+        assertThat(audited.getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+
+        transactionTemplate.execute(
+            status -> transactionBulkRepository.delete(transaction.getId(), "user", changeSequenceGenerator.next("user"))
+        );
+        auditQueueService.writePending();
+
+        assertThat(revisions(Transaction.class, transaction.getId())).hasSize(3);
+        // The category left by the deleted transaction gets a revision, as with Envers
+        assertThat(revisions(Category.class, transaction.getCategory().getId())).hasSize(2);
+    }
+
+    @Test
+    void rolledBackChangeIsNotQueued() {
+        transactionTemplate.execute(
+            status -> {
+                categoryRepository.save(new Category().name("Audit " + UUID.randomUUID()));
+                status.setRollbackOnly();
+                return null;
+            }
+        );
+
+        assertThat(auditQueueEntryRepository.count()).isZero();
+    }
+
+    @Test
+    void revisionsFollowTheCaptureOrder() {
+        String name = "Audit " + UUID.randomUUID();
+        Category category = transactionTemplate.execute(status -> categoryRepository.save(new Category().name(name)));
+        created.add(category.getId());
+        transactionTemplate.execute(
+            status -> {
+                categoryRepository.findById(category.getId()).orElseThrow().setName(name + " renamed");
+                return null;
+            }
+        );
+        // As if the update had been captured by a node allocating lower ids
+        transactionTemplate.execute(
+            status ->
+                em
+                    .createNativeQuery("update audit_queue set id = id - 1000000 where entity_id = :id and revision_type = 1")
+                    .setParameter("id", category.getId())
+                    .executeUpdate()
+        );
+
+        auditQueueService.writePending();
+
+        List<Number> categoryRevisions = revisions(Category.class, category.getId());
+        assertThat(categoryRevisions).hasSize(2);
+        Category first = transactionTemplate.execute(
+            status -> AuditReaderFactory.get(em).find(Category.class, category.getId(), categoryRevisions.get(0))
+        );
+        Category last = transactionTemplate.execute(
+            status -> AuditReaderFactory.get(em).find(Category.class, category.getId(), categoryRevisions.get(1))
+        );
+        assertThat(first.getName()).isEqualTo(name);
+        assertThat(last.getName()).isEqualTo(name + " renamed");
+    }
+
+    @Test
+    void queueIsNotDrainedWhileAnotherNodeDrainsIt() throws Exception {
+        Category category = transactionTemplate.execute(
+            status -> categoryRepository.save(new Category().name("Audit " + UUID.randomUUID()))
+        );
+        created.add(category.getId());
+        IMap<String, Boolean> writerLocks = hazelcastInstance.getMap(AuditQueueService.WRITER_LOCK_MAP_NAME);
+        // Hazelcast locks are owned by a thread, the other node is played by another thread
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        try {
+            otherNode.submit(() -> writerLocks.lock(AuditQueueService.WRITER_LOCK)).get(10, TimeUnit.SECONDS);
+
+            auditQueueService.writePending();
+            assertThat(auditQueueEntryRepository.count()).isEqualTo(1);
+
+            otherNode.submit(() -> writerLocks.unlock(AuditQueueService.WRITER_LOCK)).get(10, TimeUnit.SECONDS);
+        } finally {
+            otherNode.shutdownNow();
+        }
+
+        auditQueueService.writePending();
+        assertThat(auditQueueEntryRepository.count()).isZero();
+        assertThat(revisions(Category.class, category.getId())).hasSize(1);
+    }
+
+    private List<Number> revisions(Class<?> entityClass, Long id) {
+        return transactionTemplate.execute(status -> AuditReaderFactory.get(em).getRevisions(entityClass, id));
+    }
+}
@@ -0,0 +1,103 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.dto.ChangeNotificationDTO;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+/**
+ * Integration tests for the {@link ChangeFeedService}.
+ * <p>
+ * Notifications are delivered asynchronously, after the commit of the changes, so the tests are not transactional and
+ * delete what they create.
+ */
+@IntegrationTest
+@WithMockUser(ChangeFeedServiceIT.OWNER)
+class ChangeFeedServiceIT {
+
+    static final String OWNER = "feed-owner";
+
+    private static final String OTHER_OWNER = "feed-other-owner";
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Transaction transaction;
+
+    @BeforeEach
+    public void initTest() {
+        transaction =
+            transactionRepository.saveAndFlush(new Transaction().amount(new BigDecimal("12.50")).details("Feed").date(Instant.now()));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionRepository.deleteById(transaction.getId());
+    }
+
+    @Test
+    void changesAreDeliveredToTheSubscribersOfTheirOwnerOnly() throws InterruptedException {
+        BlockingQueue<ChangeNotificationDTO> ownerFeed = new LinkedBlockingQueue<>();
+        BlockingQueue<ChangeNotificationDTO> otherFeed = new LinkedBlockingQueue<>();
+        Runnable unsubscribeOwner = changeFeedService.subscribe(OWNER, ownerFeed::add);
+        Runnable unsubscribeOther = changeFeedService.subscribe(OTHER_OWNER, otherFeed::add);
+        try {
+            changeFeedService.onEntityChanged(
+                EntityChangedEvent.of(SyncService.TRANSACTION, transaction.getId(), OWNER, EntityChangedEvent.ChangeType.UPDATED, 5L)
+            );
+
+            ChangeNotificationDTO notification = ownerFeed.poll(10, TimeUnit.SECONDS);
+            assertThat(notification).isNotNull();
+            assertThat(notification.getEntityName()).isEqualTo(SyncService.TRANSACTION);
+            assertThat(notification.getEntityId()).isEqualTo(transaction.getId());
+            assertThat(notification.getType()).isEqualTo(EntityChangedEvent.ChangeType.UPDATED.name());
+            assertThat(notification.getChangeSequence()).isEqualTo(5L);
+            assertThat(notification.getTotalAmount()).isEqualByComparingTo("12.50");
+            assertThat(otherFeed.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        } finally {
+            unsubscribeOwner.run();
+            unsubscribeOther.run();
+        }
+    }
+
+    @Test
+    void unsubscribedConsumersAreNoLongerCalled() throws InterruptedException {
+        double connections = connections();
+        BlockingQueue<ChangeNotificationDTO> feed = new LinkedBlockingQueue<>();
+        Runnable unsubscribe = changeFeedService.subscribe(OWNER, feed::add);
+        assertThat(connections()).isEqualTo(connections + 1);
+
+        unsubscribe.run();
+        unsubscribe.run();
+
+        assertThat(connections()).isEqualTo(connections);
+        changeFeedService.onEntityChanged(
+            EntityChangedEvent.of(SyncService.TRANSACTION, transaction.getId(), OWNER, EntityChangedEvent.ChangeType.UPDATED, 6L)
+        );
+        assertThat(feed.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    private double connections() {
+        return meterRegistry.get("moneylogger.changefeed.connections").gauge().value();
+    }
+}
@@ -0,0 +1,136 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.test.context.support.WithMockUser;
+
+/**
+ * Integration tests for the {@link IdempotencyService}, on the Hazelcast instance of the application.
+ */
+@IntegrationTest
+@WithMockUser
+class IdempotencyServiceIT {
+
+    private static final String ENTITY_NAME = "category";
+
+    private static final TypeReference<CategoryDTO> BODY_TYPE = new TypeReference<CategoryDTO>() {};
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentDuplicatesAreCoalesced() throws Exception {
+        String key = UUID.randomUUID().toString();
+        CategoryDTO request = category(null, "coffee");
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<ResponseEntity<CategoryDTO>> action = () -> {
+            executions.incrementAndGet();
+            running.countDown();
+            await(release);
+            return ResponseEntity.ok(category(1L, "coffee"));
+        };
+        double coalescedBefore = count(IdempotencyService.OUTCOME_COALESCED);
+
+        // The security context of the test is propagated to the request threads
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(2));
+        try {
+            Future<ResponseEntity<CategoryDTO>> first = executor.submit(
+                () -> idempotencyService.execute(ENTITY_NAME, key, request, BODY_TYPE, action)
+            );
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<ResponseEntity<CategoryDTO>> duplicate = executor.submit(
+                () -> idempotencyService.execute(ENTITY_NAME, key, request, BODY_TYPE, action)
+            );
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getBody().getId()).isEqualTo(1L);
+            ResponseEntity<CategoryDTO> replayed = duplicate.get(5, TimeUnit.SECONDS);
+            assertThat(replayed.getBody().getId()).isEqualTo(1L);
+            assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(executions).hasValue(1);
+        assertThat(count(IdempotencyService.OUTCOME_COALESCED)).isEqualTo(coalescedBefore + 1);
+    }
+
+    @Test
+    void failedRequestReleasesItsKey() {
+        String key = UUID.randomUUID().toString();
+        CategoryDTO request = category(null, "rent");
+
+        assertThatThrownBy(
+            () ->
+                idempotencyService.execute(
+                    ENTITY_NAME,
+                    key,
+                    request,
+                    BODY_TYPE,
+                    () -> {
+                        throw new IllegalStateException("failure");
+                    }
+                )
+        )
+            .isInstanceOf(IllegalStateException.class);
+
+        ResponseEntity<CategoryDTO> retried = idempotencyService.execute(
+            ENTITY_NAME,
+            key,
+            request,
+            BODY_TYPE,
+            () -> ResponseEntity.ok(category(2L, "rent"))
+        );
+        assertThat(retried.getBody().getId()).isEqualTo(2L);
+        assertThat(retried.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    void blankKeyIsRejected() {
+        assertThatThrownBy(() -> idempotencyService.execute(ENTITY_NAME, " ", category(null, "rent"), BODY_TYPE, () -> null))
+            .isInstanceOf(IdempotencyKeyException.class)
+            .extracting("reason")
+            .isEqualTo(IdempotencyKeyException.KEY_INVALID);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.counter("moneylogger.idempotency.requests", "entity", ENTITY_NAME, "outcome", outcome).count();
+    }
+
+    private static CategoryDTO category(Long id, String name) {
+        CategoryDTO category = new CategoryDTO();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
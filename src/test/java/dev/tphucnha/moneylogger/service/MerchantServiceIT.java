@@ -0,0 +1,127 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Merchant;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.MerchantRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.dto.MerchantTotalDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link MerchantService}.
+ */
+@IntegrationTest
+@WithMockUser
+@Transactional
+class MerchantServiceIT {
+
+    @Autowired
+    private MerchantService merchantService;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private String marker;
+
+    @BeforeEach
+    public void initTest() {
+        // Letters only, as the digits of the details are not part of their key
+        marker = "Shop " + UUID.randomUUID().toString().replaceAll("[^a-f]", "");
+    }
+
+    @Test
+    void nameKeyDropsDigitsAndPunctuation() {
+        assertThat(Merchant.nameKey("  COFFEE-House #123 ")).isEqualTo("coffee house");
+        assertThat(Merchant.nameKey("Coffee House 2021/10/05")).isEqualTo("coffee house");
+        assertThat(Merchant.nameKey("12345")).isEqualTo("12345");
+    }
+
+    @Test
+    void detailsOfTheSameKeyResolveToOneMerchant() {
+        Map<String, Long> ids = merchantService.resolveIds("user", List.of(marker + " #1", marker.toUpperCase() + " 22"));
+
+        assertThat(ids.get(marker + " #1")).isNotNull().isEqualTo(ids.get(marker.toUpperCase() + " 22"));
+        assertThat(merchantService.resolveId("user", marker)).isEqualTo(ids.get(marker + " #1"));
+        // Merchants are per user
+        assertThat(merchantService.resolveId("another-user", marker)).isNotEqualTo(ids.get(marker + " #1"));
+        Merchant merchant = merchantRepository.findById(ids.get(marker + " #1")).orElseThrow();
+        assertThat(merchant.getName()).isEqualTo(marker + " #1");
+    }
+
+    @Test
+    void savedTransactionsReferenceTheirMerchant() {
+        TransactionDTO saved = transactionService.save(transactionDTO(marker + " 1", "1.00"));
+        TransactionDTO other = transactionService.save(transactionDTO(marker + " 2", "1.00"));
+
+        Long merchantId = transactionRepository.findById(saved.getId()).orElseThrow().getMerchantId();
+        assertThat(merchantId).isNotNull();
+        assertThat(transactionRepository.findById(other.getId()).orElseThrow().getMerchantId()).isEqualTo(merchantId);
+        // The details remain as written
+        assertThat(transactionRepository.findById(other.getId()).orElseThrow().getDetails()).isEqualTo(marker + " 2");
+    }
+
+    @Test
+    void transactionsWithoutMerchantAreBackfilled() {
+        Transaction transaction = transactionRepository.saveAndFlush(
+            new Transaction().amount(BigDecimal.ONE).details(marker).date(Instant.now())
+        );
+        em.clear();
+        assertThat(transactionRepository.findById(transaction.getId()).orElseThrow().getMerchantId()).isNull();
+
+        // Other tests may have left transactions without merchant
+        for (int run = 0; run < 100 && merchantService.backfillBatch() > 0; run++) {}
+        em.clear();
+
+        assertThat(transactionRepository.findById(transaction.getId()).orElseThrow().getMerchantId())
+            .isEqualTo(merchantService.resolveId("user", marker));
+    }
+
+    @Test
+    void totalsAreGroupedByMerchant() {
+        transactionService.save(transactionDTO(marker + " 1", "10.00"));
+        transactionService.save(transactionDTO(marker + " 2", "-2.50"));
+        em.flush();
+
+        List<MerchantTotalDTO> totals = merchantService.getTotals(200);
+
+        MerchantTotalDTO total = totals
+            .stream()
+            .filter(merchantTotal -> merchantTotal.getMerchantId().equals(merchantService.resolveId("user", marker)))
+            .findFirst()
+            .orElseThrow();
+        assertThat(total.getCount()).isEqualTo(2);
+        assertThat(total.getTotalAmount()).isEqualByComparingTo("7.50");
+        assertThat(total.getName()).isEqualTo(marker + " 1");
+    }
+
+    private static TransactionDTO transactionDTO(String details, String amount) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAmount(new BigDecimal(amount));
+        transactionDTO.setDetails(details);
+        transactionDTO.setDate(Instant.now());
+        return transactionDTO;
+    }
+}
@@ -0,0 +1,120 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.OutboxEventRepository;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.OutboxEventDTO;
+import dev.tphucnha.moneylogger.service.outbox.HazelcastTopicOutboxSink;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link OutboxService}, publishing to the Hazelcast topic of the application.
+ * <p>
+ * The changes must be committed to be recorded, so the tests are not transactional and delete what they create.
+ */
+@IntegrationTest
+@WithMockUser
+class OutboxServiceIT {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<OutboxEventDTO> received = new CopyOnWriteArrayList<>();
+
+    private final List<Long> created = new CopyOnWriteArrayList<>();
+
+    private ITopic<OutboxEventDTO> topic;
+
+    private UUID listener;
+
+    @BeforeEach
+    public void initTest() {
+        topic = hazelcastInstance.getTopic(HazelcastTopicOutboxSink.TOPIC_NAME);
+        listener = topic.addMessageListener(message -> received.add(message.getMessageObject()));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        topic.removeMessageListener(listener);
+        created.forEach(categoryRepository::deleteById);
+    }
+
+    @Test
+    void committedChangeIsPublished() throws Exception {
+        CategoryDTO category = categoryService.save(category());
+        created.add(category.getId());
+
+        // The scheduled drain may publish the event first, either way it is published once drained
+        outboxService.publishPending();
+
+        // Topic messages are delivered asynchronously
+        for (int i = 0; i < 50 && !isReceived(category.getId()); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(received)
+            .filteredOn(event -> category.getId().equals(event.getEntityId()))
+            .singleElement()
+            .satisfies(
+                event -> {
+                    assertThat(event.getEntityName()).isEqualTo(SyncService.CATEGORY);
+                    assertThat(event.getChangeType()).isEqualTo("CREATED");
+                    assertThat(event.getCreatedBy()).isEqualTo("user");
+                    assertThat(event.getChangeSequence()).isNotNull();
+                }
+            );
+        assertThat(outboxEventRepository.findAll()).noneMatch(event -> category.getId().equals(event.getEntityId()));
+    }
+
+    @Test
+    void rolledBackChangeIsNotRecorded() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Long id = transactionTemplate.execute(
+            status -> {
+                Long categoryId = categoryService.save(category()).getId();
+                status.setRollbackOnly();
+                return categoryId;
+            }
+        );
+
+        assertThat(outboxEventRepository.findAll()).noneMatch(event -> id.equals(event.getEntityId()));
+    }
+
+    private boolean isReceived(Long id) {
+        return received.stream().anyMatch(event -> id.equals(event.getEntityId()));
+    }
+
+    private static CategoryDTO category() {
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setName("Outbox " + UUID.randomUUID());
+        return categoryDTO;
+    }
+}
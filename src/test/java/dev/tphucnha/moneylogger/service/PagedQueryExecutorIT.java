@@ -0,0 +1,121 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Category_;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+
+/**
+ * Integration tests for the {@link PagedQueryExecutor}.
+ * <p>
+ * The concurrent queries run in transactions of their own, so the tests are not transactional and delete what they
+ * create.
+ */
+@IntegrationTest
+@WithMockUser("pager")
+class PagedQueryExecutorIT {
+
+    @Autowired
+    private PagedQueryExecutor pagedQueryExecutor;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<Long> created = new CopyOnWriteArrayList<>();
+
+    private String marker;
+
+    @BeforeEach
+    public void initTest() {
+        marker = "Pager " + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            created.add(categoryRepository.saveAndFlush(new Category().name(marker + " " + i)).getId());
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        created.forEach(categoryRepository::deleteById);
+    }
+
+    @Test
+    void concurrentPageIsTheSerialPage() {
+        PageRequest pageable = PageRequest.of(1, 2, Sort.by("id"));
+
+        Page<Category> serial = pagedQueryExecutor.findSerially(
+            "category",
+            () -> pagedQueryExecutor.findPage(Category.class, byMarker(), pageable, category -> category)
+        );
+        Page<Category> concurrent = pagedQueryExecutor.findConcurrently("category", Category.class, byMarker(), pageable);
+
+        assertThat(concurrent.getContent()).extracting(Category::getId).containsExactlyElementsOf(created.subList(2, 4));
+        assertThat(concurrent.getContent()).extracting(Category::getId).isEqualTo(serial.map(Category::getId).getContent());
+        assertThat(concurrent.getTotalElements()).isEqualTo(5).isEqualTo(serial.getTotalElements());
+        assertThat(meterRegistry.get("moneylogger.query.page").tag("mode", PagedQueryExecutor.MODE_CONCURRENT).timer().count())
+            .isPositive();
+        assertThat(meterRegistry.get("moneylogger.query.page").tag("mode", PagedQueryExecutor.MODE_SERIAL).timer().count())
+            .isPositive();
+    }
+
+    @Test
+    void concurrentQueriesRunAsTheCaller() {
+        List<String> users = new CopyOnWriteArrayList<>();
+        Specification<Category> specification = (root, query, cb) -> {
+            users.add(SecurityContextHolder.getContext().getAuthentication().getName());
+            return byMarker().toPredicate(root, query, cb);
+        };
+
+        pagedQueryExecutor.findConcurrently("category", Category.class, specification, PageRequest.of(0, 2));
+
+        assertThat(users).containsExactly("pager", "pager");
+    }
+
+    @Test
+    void failureOfOneQueryIsThrownAndReleasesBothConnections() throws InterruptedException {
+        Specification<Category> specification = (root, query, cb) -> {
+            if (Long.class.equals(query.getResultType())) {
+                throw new IllegalStateException("Count failed");
+            }
+            return byMarker().toPredicate(root, query, cb);
+        };
+
+        assertThatThrownBy(() -> pagedQueryExecutor.findConcurrently("category", Category.class, specification, PageRequest.of(0, 2)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Count failed");
+
+        HikariDataSource hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+        for (int i = 0; i < 50 && hikariDataSource.getHikariPoolMXBean().getActiveConnections() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(hikariDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    private Specification<Category> byMarker() {
+        return (root, query, cb) -> cb.like(root.get(Category_.name), marker + "%");
+    }
+}
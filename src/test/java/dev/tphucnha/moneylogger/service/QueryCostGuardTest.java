@@ -0,0 +1,216 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.criteria.CategoryCriteria;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import tech.jhipster.service.filter.InstantFilter;
+
+class QueryCostGuardTest {
+
+    private static final Instant TEN_YEARS_AGO = Instant.now().minus(3650, ChronoUnit.DAYS);
+
+    private TransactionRepository transactionRepository;
+
+    private CategoryRepository categoryRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IMap<String, QueryCostGuard.Statistics> statistics;
+
+    private QueryCostGuard guard;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        transactionRepository = mock(TransactionRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getQueryGuard().setSlowLaneCost(1000);
+        applicationProperties.getQueryGuard().setRejectCost(10000);
+        applicationProperties.getQueryGuard().setSlowLanePermits(1);
+        applicationProperties.getQueryGuard().setSlowLaneTimeoutMillis(10);
+        meterRegistry = new SimpleMeterRegistry();
+        statistics = mock(IMap.class);
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.<String, QueryCostGuard.Statistics>getMap(QueryCostGuard.STATISTICS_MAP_NAME)).thenReturn(statistics);
+        guard = new QueryCostGuard(transactionRepository, categoryRepository, applicationProperties, meterRegistry, hazelcastInstance);
+        when(transactionRepository.getOldestDateByUser(anyString())).thenReturn(TEN_YEARS_AGO);
+    }
+
+    @Test
+    void testCheapListingIsAccepted() {
+        when(transactionRepository.countByOwner(anyString())).thenReturn(100L);
+
+        QueryDecision<TransactionCriteria> decision = guard.checkTransactions(new TransactionCriteria(), PageRequest.of(0, 20));
+
+        assertThat(decision.getOutcome()).isEqualTo(QueryDecision.Outcome.ACCEPTED);
+        assertThat(decision.getCost()).isEqualTo(100L);
+        assertThat(meterRegistry.get("moneylogger.query.guard").tag("outcome", "accepted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testStatisticsAreCachedWithATimeToLive() {
+        when(transactionRepository.countByOwner(anyString())).thenReturn(100L);
+
+        guard.checkTransactions(new TransactionCriteria(), PageRequest.of(0, 20));
+
+        verify(statistics).set(eq(QueryCostGuard.TRANSACTION + ":"), any(QueryCostGuard.Statistics.class), eq(300L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testUnindexedSortIsRejected() {
+        Pageable pageable = PageRequest.of(0, 20, Sort.by("amount"));
+
+        assertThatThrownBy(() -> guard.checkTransactions(new TransactionCriteria(), pageable))
+            .isInstanceOf(QueryRejectedException.class)
+            .extracting("reason")
+            .isEqualTo(QueryRejectedException.SORT_NOT_INDEXED);
+        assertThat(meterRegistry.get("moneylogger.query.guard").tag("outcome", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testPageSizeIsCapped() {
+        when(transactionRepository.countByOwner(anyString())).thenReturn(100L);
+
+        QueryDecision<TransactionCriteria> decision = guard.checkTransactions(
+            new TransactionCriteria(),
+            PageRequest.of(1, 5000, Sort.by("date"))
+        );
+
+        assertThat(decision.getOutcome()).isEqualTo(QueryDecision.Outcome.REWRITTEN);
+        assertThat(decision.getRewrites()).containsExactly(QueryCostGuard.PAGE_SIZE_CAPPED);
+        assertThat(decision.getPageable()).isEqualTo(PageRequest.of(1, 200, Sort.by("date")));
+    }
+
+    @Test
+    void testCostlyTextSearchGetsDateBound() {
+        when(transactionRepository.countByOwner(anyString())).thenReturn(2000L);
+        TransactionCriteria criteria = new TransactionCriteria();
+        criteria.details().setContains("coffee");
+
+        QueryDecision<TransactionCriteria> decision = guard.checkTransactions(criteria, PageRequest.of(0, 20));
+
+        // 2000 rows over ten years, weighted by 4, bounded to the last year
+        assertThat(decision.getRewrites()).containsExactly(QueryCostGuard.DATE_BOUNDED);
+        assertThat(decision.getCriteria().getDate().getGreaterThanOrEqual()).isAfter(Instant.now().minus(366, ChronoUnit.DAYS));
+        assertThat(decision.getCost()).isBetween(700L, 900L);
+        assertThat(decision.getOutcome()).isEqualTo(QueryDecision.Outcome.REWRITTEN);
+        assertThat(criteria.getDate()).as("the criteria of the caller are left untouched").isNull();
+    }
+
+    @Test
+    void testBoundedTextSearchIsNotRewritten() {
+        when(transactionRepository.countByOwner(anyString())).thenReturn(2000L);
+        TransactionCriteria criteria = new TransactionCriteria();
+        criteria.details().setContains("coffee");
+        criteria.date().setGreaterThan(TEN_YEARS_AGO);
+
+        QueryDecision<TransactionCriteria> decision = guard.checkTransactions(criteria, PageRequest.of(0, 20));
+
+        assertThat(decision.getRewrites()).isEmpty();
+        assertThat(decision.getOutcome()).isEqualTo(QueryDecision.Outcome.SLOW_LANE);
+    }
+
+    @Test
+    void testTooCostlyListingIsRejected() {
+        when(transactionRepository.countByOwner(anyString())).thenReturn(20000L);
+
+        assertThatThrownBy(() -> guard.checkTransactions(new TransactionCriteria(), PageRequest.of(0, 20)))
+            .isInstanceOf(QueryRejectedException.class)
+            .extracting("reason")
+            .isEqualTo(QueryRejectedException.TOO_COSTLY);
+    }
+
+    @Test
+    void testIdLookupIsCheap() {
+        TransactionCriteria criteria = new TransactionCriteria();
+        criteria.id().setEquals(1L);
+
+        QueryDecision<TransactionCriteria> decision = guard.checkTransactions(criteria, PageRequest.of(0, 20));
+
+        assertThat(decision.getCost()).isEqualTo(1L);
+    }
+
+    @Test
+    void testCategoryTextSearchIsWeighted() {
+        when(categoryRepository.countByOwner(anyString())).thenReturn(300L);
+        CategoryCriteria criteria = new CategoryCriteria();
+        criteria.name().setContains("food");
+
+        QueryDecision<CategoryCriteria> decision = guard.checkCategories(criteria, PageRequest.of(0, 20));
+
+        assertThat(decision.getCost()).isEqualTo(1200L);
+        assertThat(decision.getOutcome()).isEqualTo(QueryDecision.Outcome.SLOW_LANE);
+    }
+
+    @Test
+    void testBusySlowLaneRejectsQuery() throws Exception {
+        when(transactionRepository.countByOwner(anyString())).thenReturn(5000L);
+        QueryDecision<TransactionCriteria> decision = guard.checkTransactions(new TransactionCriteria(), PageRequest.of(0, 20));
+        assertThat(decision.getOutcome()).isEqualTo(QueryDecision.Outcome.SLOW_LANE);
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread slowQuery = new Thread(
+            () ->
+                guard.execute(
+                    decision,
+                    () -> {
+                        running.countDown();
+                        try {
+                            return release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return false;
+                        }
+                    }
+                )
+        );
+        slowQuery.start();
+        try {
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(() -> guard.execute(decision, () -> true))
+                .isInstanceOf(QueryRejectedException.class)
+                .matches(e -> ((QueryRejectedException) e).isRetryable());
+        } finally {
+            release.countDown();
+            slowQuery.join();
+        }
+        assertThat(guard.execute(decision, () -> true)).isTrue();
+    }
+
+    @Test
+    void testDateSelectivity() {
+        InstantFilter lastYear = new InstantFilter();
+        lastYear.setGreaterThanOrEqual(Instant.now().minus(365, ChronoUnit.DAYS));
+
+        assertThat(QueryCostGuard.dateSelectivity(null, TEN_YEARS_AGO)).isEqualTo(1);
+        assertThat(QueryCostGuard.dateSelectivity(lastYear, null)).isEqualTo(1);
+        assertThat(QueryCostGuard.dateSelectivity(lastYear, TEN_YEARS_AGO)).isBetween(0.09, 0.11);
+    }
+}
@@ -0,0 +1,135 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.SyncDTO;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link SyncService}, with concurrent writes of the same user.
+ * <p>
+ * The writes commit in transactions of their own, so the tests are not transactional and delete what they create.
+ */
+@IntegrationTest
+class SyncServiceIT {
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> created = new CopyOnWriteArrayList<>();
+
+    private ExecutorService executor;
+
+    private TransactionTemplate transactionTemplate;
+
+    private String login;
+
+    @BeforeEach
+    public void initTest() {
+        executor = Executors.newCachedThreadPool();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        login = "syncer-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        executor.shutdownNow();
+        created.forEach(categoryRepository::deleteById);
+    }
+
+    @Test
+    void changeCommittedAfterALaterOneIsNotSkipped() throws Exception {
+        long since = as(login, () -> syncService.findChangesSince(0, 100)).getNext();
+        CountDownLatch allocated = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        // The first write takes its change sequence, then waits before committing
+        Future<Category> first = executor.submit(
+            () ->
+                as(
+                    login,
+                    () ->
+                        transactionTemplate.execute(
+                            status -> {
+                                Category category = save();
+                                allocated.countDown();
+                                await(commit);
+                                return category;
+                            }
+                        )
+                )
+        );
+        assertThat(allocated.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<Category> second = executor.submit(() -> as(login, () -> transactionTemplate.execute(status -> save())));
+        Future<Category> ofAnotherUser = executor.submit(() -> as(login + "-other", () -> transactionTemplate.execute(status -> save())));
+
+        assertThat(ofAnotherUser.get(10, TimeUnit.SECONDS).getChangeSequence()).isNotNull();
+        assertThatThrownBy(() -> second.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        SyncDTO between = as(login, () -> syncService.findChangesSince(since, 100));
+        assertThat(between.getCategories()).isEmpty();
+        assertThat(between.getNext()).isEqualTo(since);
+
+        commit.countDown();
+        Category firstCategory = first.get(10, TimeUnit.SECONDS);
+        Category secondCategory = second.get(10, TimeUnit.SECONDS);
+
+        assertThat(secondCategory.getChangeSequence()).isGreaterThan(firstCategory.getChangeSequence());
+        SyncDTO after = as(login, () -> syncService.findChangesSince(between.getNext(), 100));
+        assertThat(after.getCategories()).extracting(CategoryDTO::getId).containsExactly(firstCategory.getId(), secondCategory.getId());
+        assertThat(after.getNext()).isEqualTo(secondCategory.getChangeSequence());
+    }
+
+    private Category save() {
+        Category category = categoryRepository.saveAndFlush(new Category().name("Sync " + UUID.randomUUID()));
+        created.add(category.getId());
+        return category;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T as(String login, Callable<T> work) throws Exception {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(login, login));
+        SecurityContextHolder.setContext(context);
+        try {
+            return work.call();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
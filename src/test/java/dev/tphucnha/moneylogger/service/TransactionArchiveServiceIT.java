@@ -0,0 +1,181 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.ArchiveSegment;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.ArchiveSegmentRepository;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.filter.InstantFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Integration tests for the {@link TransactionArchiveService}, and for the archived transactions merged by the
+ * {@link TransactionQueryService} and the total amount.
+ * <p>
+ * The segment file written by a test is deleted when its transaction is rolled back.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "application.archive.directory=target/archive-test")
+@WithMockUser
+@Transactional
+class TransactionArchiveServiceIT {
+
+    private static final int ARCHIVED_YEAR = LocalDate.now(ZoneOffset.UTC).getYear() - 10;
+
+    private static final int FIRST_KEPT_YEAR = ARCHIVED_YEAR + 5;
+
+    @Autowired
+    private TransactionArchiveService transactionArchiveService;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ArchiveSegmentRepository archiveSegmentRepository;
+
+    private String marker;
+
+    private Transaction march;
+
+    private Transaction june;
+
+    private Transaction recent;
+
+    @BeforeEach
+    public void initTest() {
+        marker = "Archive " + UUID.randomUUID();
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setName(marker);
+        Category category = categoryRepository.getOne(categoryService.save(categoryDTO).getId());
+        march = transactionRepository.saveAndFlush(transaction("10.50", dateIn(ARCHIVED_YEAR, 3)));
+        june = transactionRepository.saveAndFlush(transaction("-4.25", dateIn(ARCHIVED_YEAR, 6)).category(category));
+        recent = transactionRepository.saveAndFlush(transaction("7.00", Instant.now()));
+    }
+
+    @Test
+    void oldTransactionsAreMovedToASegment() {
+        BigDecimal totalAmount = transactionService.getTotalAmount().getValue();
+
+        assertThat(transactionArchiveService.archiveBefore(FIRST_KEPT_YEAR)).isGreaterThanOrEqualTo(2);
+
+        assertThat(transactionRepository.findById(march.getId())).isEmpty();
+        assertThat(transactionRepository.findById(june.getId())).isEmpty();
+        assertThat(transactionRepository.findById(recent.getId())).isPresent();
+        ArchiveSegment segment = archiveSegmentRepository.findByCreatedByAndYear("user", ARCHIVED_YEAR).orElseThrow();
+        assertThat(segment.getFirstDate()).isBeforeOrEqualTo(march.getDate());
+        assertThat(segment.getLastDate()).isAfterOrEqualTo(june.getDate());
+        // The total amount includes the archived transactions
+        assertThat(transactionService.getTotalAmount().getValue()).isEqualByComparingTo(totalAmount);
+    }
+
+    @Test
+    void archivedTransactionsAreMergedInPages() {
+        transactionArchiveService.archiveBefore(FIRST_KEPT_YEAR);
+        TransactionCriteria criteria = criteria();
+
+        Page<TransactionDTO> first = transactionQueryService.findByCriteria(criteria, PageRequest.of(0, 2, Sort.by("date")));
+        Page<TransactionDTO> second = transactionQueryService.findByCriteria(criteria, PageRequest.of(1, 2, Sort.by("date")));
+
+        assertThat(first.getContent()).extracting(TransactionDTO::getId).containsExactly(march.getId(), june.getId());
+        assertThat(second.getContent()).extracting(TransactionDTO::getId).containsExactly(recent.getId());
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent().get(0).getAmount()).isEqualByComparingTo("10.50");
+        assertThat(first.getContent().get(1).getCategory().getName()).isEqualTo(marker);
+        assertThat(transactionQueryService.countByCriteria(criteria)).isEqualTo(3);
+        assertThat(transactionQueryService.findByCriteria(criteria)).hasSize(3);
+    }
+
+    @Test
+    void archivedTransactionsAreMergedInPagesSortedByCategory() {
+        transactionArchiveService.archiveBefore(FIRST_KEPT_YEAR);
+        TransactionCriteria criteria = criteria();
+
+        for (String property : new String[] { "category.id", "category.name" }) {
+            Page<TransactionDTO> page = transactionQueryService.findByCriteria(criteria, PageRequest.of(0, 10, Sort.by(property)));
+
+            // The archived march transaction has no category
+            assertThat(page.getContent())
+                .as("Sorted by %s", property)
+                .extracting(TransactionDTO::getId)
+                .containsExactlyInAnyOrder(march.getId(), june.getId(), recent.getId());
+        }
+    }
+
+    @Test
+    void archivedTransactionsAreFilteredOnDates() {
+        transactionArchiveService.archiveBefore(FIRST_KEPT_YEAR);
+        TransactionCriteria criteria = criteria();
+        InstantFilter date = new InstantFilter();
+        date.setLessThan(june.getDate());
+        criteria.setDate(date);
+
+        assertThat(transactionQueryService.findByCriteria(criteria, PageRequest.of(0, 10)).getContent())
+            .extracting(TransactionDTO::getId)
+            .containsExactly(march.getId());
+        assertThat(transactionQueryService.countByCriteria(criteria)).isOne();
+    }
+
+    @Test
+    void archivedYearIsRewrittenWithNewTransactions() {
+        transactionArchiveService.archiveBefore(FIRST_KEPT_YEAR);
+        int rowCount = archiveSegmentRepository.findByCreatedByAndYear("user", ARCHIVED_YEAR).orElseThrow().getRowCount();
+        Transaction september = transactionRepository.saveAndFlush(transaction("1.00", dateIn(ARCHIVED_YEAR, 9)));
+
+        transactionArchiveService.archiveBefore(FIRST_KEPT_YEAR);
+
+        assertThat(archiveSegmentRepository.findByCreatedByAndYear("user", ARCHIVED_YEAR).orElseThrow().getRowCount())
+            .isEqualTo(rowCount + 1);
+        assertThat(transactionQueryService.findByCriteria(criteria(), PageRequest.of(0, 10, Sort.by("date"))).getContent())
+            .extracting(TransactionDTO::getId)
+            .containsExactly(march.getId(), june.getId(), september.getId(), recent.getId());
+    }
+
+    private TransactionCriteria criteria() {
+        TransactionCriteria criteria = new TransactionCriteria();
+        StringFilter details = new StringFilter();
+        details.setContains(marker);
+        criteria.setDetails(details);
+        return criteria;
+    }
+
+    private Transaction transaction(String amount, Instant date) {
+        return new Transaction().amount(new BigDecimal(amount)).details(marker).date(date);
+    }
+
+    private static Instant dateIn(int year, int month) {
+        return LocalDate.of(year, month, 15).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+}
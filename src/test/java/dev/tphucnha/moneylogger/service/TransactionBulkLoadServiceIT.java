@@ -0,0 +1,128 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
+import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.envers.AuditReaderFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link TransactionBulkLoadService}, which loads through JDBC batches on H2.
+ */
+@IntegrationTest
+@WithMockUser
+@Transactional
+class TransactionBulkLoadServiceIT {
+
+    private static final Instant DATE = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @Autowired
+    private TransactionBulkLoadService transactionBulkLoadService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserKeyStore userKeyStore;
+
+    @Autowired
+    private EntityManager em;
+
+    private String marker;
+
+    private Category category;
+
+    @BeforeEach
+    public void initTest() {
+        marker = UUID.randomUUID().toString();
+        category = categoryRepository.saveAndFlush(new Category().name("Groceries " + marker));
+    }
+
+    @Test
+    void loadTransactions() {
+        CategoryDTO byId = new CategoryDTO();
+        byId.setId(category.getId());
+        CategoryDTO byName = new CategoryDTO();
+        byName.setName("Income " + marker);
+
+        long loaded = transactionBulkLoadService.load(
+            List.of(transaction("a", byId), transaction("b \"quoted\", with a comma", byName), transaction("c", null)).iterator()
+        );
+
+        assertThat(loaded).isEqualTo(3);
+        em.clear();
+        Map<String, Transaction> transactions = loaded();
+        assertThat(transactions).hasSize(3);
+        assertThat(transactions.values()).extracting(Transaction::getChangeSequence).doesNotHaveDuplicates();
+        for (Transaction transaction : transactions.values()) {
+            assertThat(transaction.getCreatedBy()).isEqualTo("user");
+            assertThat(transaction.getVersion()).isZero();
+            assertThat(transaction.getDate()).isEqualTo(DATE);
+            assertThat(AuditReaderFactory.get(em).getRevisions(Transaction.class, transaction.getId())).hasSize(1);
+        }
+        Transaction a = transactions.get(marker + " a");
+        assertThat(a.getAmount()).isEqualByComparingTo(new BigDecimal("-12.50"));
+        assertThat(a.getCategory().getId()).isEqualTo(category.getId());
+        assertThat(transactions.get(marker + " b \"quoted\", with a comma").getCategory().getName()).isEqualTo("Income " + marker);
+        assertThat(transactions.get(marker + " c").getCategory()).isNull();
+    }
+
+    @Test
+    void loadTransactionsWithCategoryOfAnotherUser() {
+        em
+            .createNativeQuery("update category set created_by = 'other', owner_id = :ownerId where id = :id")
+            .setParameter("ownerId", userKeyStore.getOrCreate("other"))
+            .setParameter("id", category.getId())
+            .executeUpdate();
+        CategoryDTO otherCategory = new CategoryDTO();
+        otherCategory.setId(category.getId());
+
+        List<TransactionDTO> transactions = List.of(transaction("a", null), transaction("b", otherCategory));
+
+        assertThatThrownBy(() -> transactionBulkLoadService.load(transactions.iterator()))
+            .isInstanceOf(InvalidDataAccessResourceUsageException.class)
+            .hasMessageContaining("index 1");
+        assertThat(loaded()).isEmpty();
+    }
+
+    private TransactionDTO transaction(String details, CategoryDTO category) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAmount(new BigDecimal("-12.50"));
+        transactionDTO.setDetails(marker + " " + details);
+        transactionDTO.setDate(DATE);
+        transactionDTO.setCategory(category);
+        return transactionDTO;
+    }
+
+    private Map<String, Transaction> loaded() {
+        return transactionRepository
+            .findAll()
+            .stream()
+            .filter(transaction -> transaction.getDetails().startsWith(marker))
+            .collect(Collectors.toMap(Transaction::getDetails, transaction -> transaction));
+    }
+}
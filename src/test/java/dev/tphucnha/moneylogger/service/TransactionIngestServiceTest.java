@@ -0,0 +1,111 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.service.dto.IngestTicketDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class TransactionIngestServiceTest {
+
+    private TransactionService transactionService;
+
+    private IMap<String, IngestTicketDTO> tickets;
+
+    private TransactionIngestService ingestService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        transactionService = mock(TransactionService.class);
+        tickets = mock(IMap.class);
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.<String, IngestTicketDTO>getMap(TransactionIngestService.MAP_NAME)).thenReturn(tickets);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().setCommitSize(1);
+        applicationProperties.getIngest().setMaxDelayMillis(0);
+        applicationProperties.getIngest().setDrainTimeoutMillis(100);
+        ingestService =
+            new TransactionIngestService(
+                transactionService,
+                mock(PlatformTransactionManager.class),
+                hazelcastInstance,
+                applicationProperties,
+                new SimpleMeterRegistry()
+            );
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken("user", "user"));
+        SecurityContextHolder.setContext(context);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void ticketsOfTheTransactionsLeftBufferedOnShutdownAreFailed() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        // The first commit does not complete before the drain timeout
+        when(transactionService.createAll(anyList()))
+            .thenAnswer(
+                invocation -> {
+                    writing.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    }
+                    return null;
+                }
+            );
+        ingestService.start();
+        IngestTicketDTO committing = ingestService.submit(List.of(new TransactionDTO()));
+        IngestTicketDTO buffered = ingestService.submit(List.of(new TransactionDTO(), new TransactionDTO()));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        ingestService.stop();
+
+        ArgumentCaptor<IngestTicketDTO> stored = ArgumentCaptor.forClass(IngestTicketDTO.class);
+        verify(tickets, atLeastOnce()).set(anyString(), stored.capture(), anyLong(), any(TimeUnit.class));
+        Map<String, IngestTicketDTO> completed = stored
+            .getAllValues()
+            .stream()
+            .filter(ticket -> ticket.getStatus() != IngestTicketDTO.Status.QUEUED)
+            .collect(Collectors.toMap(IngestTicketDTO::getTicket, Function.identity()));
+        assertThat(completed.get(committing.getTicket()).getStatus()).isEqualTo(IngestTicketDTO.Status.FAILED);
+        assertThat(completed.get(buffered.getTicket()).getStatus()).isEqualTo(IngestTicketDTO.Status.FAILED);
+        assertThat(completed.get(buffered.getTicket()).getResults())
+            .extracting(TransactionBatchResultDTO::getIndex, TransactionBatchResultDTO::getErrorKey)
+            .containsExactly(tuple(0, "ingestshutdown"), tuple(1, "ingestshutdown"));
+    }
+}
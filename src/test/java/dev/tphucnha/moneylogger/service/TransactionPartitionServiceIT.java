@@ -0,0 +1,158 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.ArchiveSegmentRepository;
+import dev.tphucnha.moneylogger.repository.SqlWhereBuilder;
+import dev.tphucnha.moneylogger.repository.TransactionPartitionRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.DockerClientFactory;
+import tech.jhipster.service.filter.InstantFilter;
+
+/**
+ * Integration tests for the {@link TransactionPartitionService}, and for the partition pruning of the criteria
+ * queries, checked on their {@code EXPLAIN} plans.
+ * <p>
+ * Partitioning needs PostgreSQL, so these tests run against a PostgreSQL container, with the schema of Liquibase
+ * updated by Hibernate, and are skipped when Docker is not available. DDL is transactional on PostgreSQL, so the
+ * partitions created by a test are rolled back with it, and the segment files it writes are deleted.
+ */
+@IntegrationTest
+@ActiveProfiles("testcontainers")
+@TestPropertySource(
+    properties = {
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.properties.hibernate.hbm2ddl.extra_physical_table_types=PARTITIONED TABLE",
+        "application.partitioning.detach-after-months=12",
+        "application.archive.directory=target/archive-test",
+    }
+)
+@EnabledIf("isDockerAvailable")
+@WithMockUser
+@Transactional
+class TransactionPartitionServiceIT {
+
+    @Autowired
+    private TransactionPartitionService transactionPartitionService;
+
+    @Autowired
+    private TransactionPartitionRepository transactionPartitionRepository;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchiveSegmentRepository archiveSegmentRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    static boolean isDockerAvailable() {
+        return DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @Test
+    void partitionsAreCreatedAhead() {
+        transactionPartitionService.managePartitions();
+
+        assertThat(transactionPartitionRepository.isPartitioned()).isTrue();
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        assertThat(transactionPartitionRepository.findMonthlyPartitions())
+            .containsKeys(currentMonth, currentMonth.plusMonths(1), currentMonth.plusMonths(2), currentMonth.plusMonths(3));
+    }
+
+    @Test
+    void createPartitionMovesTransactionsOutOfTheDefaultPartition() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).minusYears(5);
+        Transaction transaction = transactionRepository.saveAndFlush(
+            new Transaction().amount(BigDecimal.ONE).details("Old").date(month.atDay(10).atStartOfDay().toInstant(ZoneOffset.UTC))
+        );
+        assertThat(count("transaction_default", transaction.getId())).isOne();
+
+        transactionPartitionRepository.createPartition(month);
+
+        assertThat(transactionPartitionRepository.findMonthlyPartitions())
+            .containsEntry(month, "transaction_" + month.toString().replace('-', '_'));
+        assertThat(count("transaction_default", transaction.getId())).isZero();
+        assertThat(count("transaction", transaction.getId())).isOne();
+    }
+
+    @Test
+    void oldPartitionsAreArchivedBeforeBeingDetached() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).minusYears(5);
+        transactionPartitionRepository.createPartition(month);
+        String partition = transactionPartitionRepository.findMonthlyPartitions().get(month);
+        Transaction transaction = transactionRepository.saveAndFlush(
+            new Transaction().amount(BigDecimal.ONE).details("Old").date(month.atDay(10).atStartOfDay().toInstant(ZoneOffset.UTC))
+        );
+
+        transactionPartitionService.managePartitions();
+
+        assertThat(transactionPartitionRepository.findMonthlyPartitions()).doesNotContainKey(month);
+        // Detached empty, the transaction is in the segment of its year
+        assertThat(count(partition, transaction.getId())).isZero();
+        assertThat(archiveSegmentRepository.findByCreatedByAndYear("user", month.getYear()))
+            .hasValueSatisfying(segment -> assertThat(segment.getRowCount()).isOne());
+    }
+
+    @Test
+    void criteriaOnDatesArePruned() {
+        transactionPartitionService.managePartitions();
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        Map<YearMonth, String> partitions = transactionPartitionRepository.findMonthlyPartitions();
+        Instant monthStart = currentMonth.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        TransactionCriteria criteria = new TransactionCriteria();
+        InstantFilter date = new InstantFilter();
+        date.setGreaterThanOrEqual(monthStart);
+        date.setLessThan(monthStart.plusSeconds(10 * 24 * 3600));
+        criteria.setDate(date);
+
+        String plan = explain(transactionQueryService.createSqlWhere(criteria));
+
+        assertThat(plan)
+            .contains(partitions.get(currentMonth))
+            .doesNotContain(partitions.get(currentMonth.plusMonths(1)))
+            .doesNotContain("transaction_default");
+    }
+
+    @Test
+    void criteriaWithoutDatesScanAllPartitions() {
+        String plan = explain(transactionQueryService.createSqlWhere(new TransactionCriteria()));
+
+        assertThat(plan).contains("transaction_default");
+    }
+
+    private String explain(SqlWhereBuilder where) {
+        String sql = "explain select t.id, t.amount from transaction t where " + where.toSql();
+        return String.join("\n", jdbcTemplate.queryForList(sql, where.getParameters(), String.class));
+    }
+
+    private int count(String table, Long id) {
+        Integer count = jdbcTemplate.queryForObject(
+            "select count(*) from " + table + " where id = :id",
+            new MapSqlParameterSource("id", id),
+            Integer.class
+        );
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,126 @@
+package dev.tphucnha.moneylogger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.config.ApplicationProperties;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.criteria.TransactionCriteria;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Integration tests for the stateless reads of the {@link TransactionQueryService}.
+ * <p>
+ * The queries must run in a read-only transaction of their own, so the tests are not transactional and delete what
+ * they create.
+ */
+@IntegrationTest
+@WithMockUser
+class TransactionQueryServiceIT {
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private final List<Long> created = new CopyOnWriteArrayList<>();
+
+    private String marker;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @BeforeEach
+    public void initTest() {
+        marker = "Stateless " + UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            Transaction transaction = new Transaction().amount(BigDecimal.valueOf(i)).details(marker).date(Instant.now());
+            created.add(transactionRepository.saveAndFlush(transaction).getId());
+        }
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        applicationProperties.getQuery().setStatelessReads(true);
+        created.forEach(transactionRepository::deleteById);
+    }
+
+    @Test
+    void pageIsReadWithoutKeepingTheEntities() {
+        Integer managed = readOnlyTransactionTemplate.execute(
+            status -> {
+                Page<TransactionDTO> page = transactionQueryService.findByCriteria(criteria(), PageRequest.of(0, 2, Sort.by("id")));
+
+                assertThat(page.getContent()).extracting(TransactionDTO::getId).containsExactlyElementsOf(created.subList(0, 2));
+                assertThat(page.getTotalElements()).isEqualTo(3);
+                assertThat(transactionQueryService.findByCriteria(criteria())).hasSize(3);
+                assertThat(transactionQueryService.countByCriteria(criteria())).isEqualTo(3);
+                return managedTransactions();
+            }
+        );
+
+        assertThat(managed).isZero();
+    }
+
+    @Test
+    void pageIsReadIntoThePersistenceContextWithoutStatelessReads() {
+        applicationProperties.getQuery().setStatelessReads(false);
+
+        Integer managed = readOnlyTransactionTemplate.execute(
+            status -> {
+                transactionQueryService.findByCriteria(criteria(), PageRequest.of(0, 2, Sort.by("id")));
+                return managedTransactions();
+            }
+        );
+
+        assertThat(managed).isEqualTo(2);
+    }
+
+    private int managedTransactions() {
+        return (int) em
+            .unwrap(Session.class)
+            .getStatistics()
+            .getEntityKeys()
+            .stream()
+            .filter(key -> Transaction.class.getName().equals(key.getEntityName()))
+            .count();
+    }
+
+    private TransactionCriteria criteria() {
+        TransactionCriteria criteria = new TransactionCriteria();
+        StringFilter details = new StringFilter();
+        details.setContains(marker);
+        criteria.setDetails(details);
+        return criteria;
+    }
+}
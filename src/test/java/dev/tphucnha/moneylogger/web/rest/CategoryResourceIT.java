@@ -6,12 +6,15 @@ import dev.tphucnha.moneylogger.domain.Transaction;
 import dev.tphucnha.moneylogger.domain.Transaction_;
 import dev.tphucnha.moneylogger.repository.CategoryRepository;
 import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.repository.UserKeyStore;
 import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
 import dev.tphucnha.moneylogger.service.mapper.CategoryMapper;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -53,6 +56,9 @@ class CategoryResourceIT {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private UserKeyStore userKeyStore;
+
     @Autowired
     private CategoryMapper categoryMapper;
 
@@ -125,6 +131,20 @@ class CategoryResourceIT {
         assertThat(categoryList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    void createCategoryWithExistingName() throws Exception {
+        categoryRepository.saveAndFlush(category);
+
+        // Names are unique per user, whatever their case
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setName(DEFAULT_NAME.toLowerCase());
+        restCategoryMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(categoryDTO)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.nameexists"));
+    }
+
     @Test
     @Transactional
     void checkNameIsRequired() throws Exception {
@@ -363,6 +383,63 @@ class CategoryResourceIT {
         assertThat(testCategory.getName()).isEqualTo(UPDATED_NAME);
     }
 
+    @Test
+    @Transactional
+    void putCategoryInOneStatement() throws Exception {
+        // Initialize the database
+        categoryRepository.saveAndFlush(category);
+        Long version = category.getVersion();
+        CategoryDTO categoryDTO = categoryMapper.toDto(category);
+        categoryDTO.setName(UPDATED_NAME);
+        em.clear();
+
+        Statistics statistics = TestUtil.clearStatistics(em);
+        restCategoryMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, categoryDTO.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(categoryDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+
+        // The category is not read: revision id and row, audit row, update
+        assertThat(statistics.getEntityStatistics(Category.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(categoryRepository.findById(category.getId()).orElseThrow().getName()).isEqualTo(UPDATED_NAME);
+    }
+
+    @Test
+    @Transactional
+    void putCategoryWithStaleVersion() throws Exception {
+        // Initialize the database
+        categoryRepository.saveAndFlush(category);
+        Long version = category.getVersion();
+        CategoryDTO categoryDTO = categoryMapper.toDto(category);
+        categoryDTO.setName(UPDATED_NAME);
+
+        restCategoryMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, categoryDTO.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(categoryDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""));
+
+        // The version sent back in the body is the one read, which the first update changed
+        categoryDTO.setName(DEFAULT_NAME);
+        restCategoryMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, categoryDTO.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(categoryDTO))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        assertThat(categoryRepository.findById(category.getId()).orElseThrow().getName()).isEqualTo(UPDATED_NAME);
+    }
+
     @Test
     @Transactional
     void putNonExistingCategory() throws Exception {
@@ -795,4 +872,71 @@ class CategoryResourceIT {
         assertThat(transactionList).hasSize(transactionDbSizeBeforeCreate + 2);
         assertThat(uncategorizedTransactionList).hasSize(uncategorizedTransactionsCount + 2);
     }
+
+    @Test
+    @Transactional
+    void deleteACategoryReassigningItsTransactions() throws Exception {
+        category = categoryRepository.saveAndFlush(category);
+        Category target = categoryRepository.saveAndFlush(createUpdatedEntity(em));
+        Transaction firstTransaction = TransactionResourceIT.createEntity(em);
+        Transaction secondTransaction = TransactionResourceIT.createUpdatedEntity(em);
+        firstTransaction.setCategory(category);
+        secondTransaction.setCategory(category);
+        transactionRepository.saveAndFlush(firstTransaction);
+        transactionRepository.saveAndFlush(secondTransaction);
+        // The second transaction is left in the persistence context
+        em.detach(firstTransaction);
+
+        restCategoryMockMvc
+            .perform(
+                delete(ENTITY_API_URL_ID, category.getId())
+                    .param("reassignTo", target.getId().toString())
+                    .accept(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isNoContent());
+
+        assertThat(categoryRepository.findById(category.getId())).isEmpty();
+        assertThat(transactionRepository.findById(firstTransaction.getId()))
+            .hasValueSatisfying(transaction -> assertThat(transaction.getCategory().getId()).isEqualTo(target.getId()));
+        assertThat(secondTransaction.getCategory().getId()).isEqualTo(target.getId());
+        assertThat(secondTransaction.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @Transactional
+    void deleteACategoryReassigningItsTransactionsToItself() throws Exception {
+        category = categoryRepository.saveAndFlush(category);
+
+        restCategoryMockMvc
+            .perform(
+                delete(ENTITY_API_URL_ID, category.getId())
+                    .param("reassignTo", category.getId().toString())
+                    .accept(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isBadRequest());
+
+        assertThat(categoryRepository.findById(category.getId())).isPresent();
+    }
+
+    @Test
+    @Transactional
+    void deleteACategoryReassigningItsTransactionsToACategoryOfAnotherUser() throws Exception {
+        category = categoryRepository.saveAndFlush(category);
+        Category target = categoryRepository.saveAndFlush(createUpdatedEntity(em));
+        em
+            .createNativeQuery("update category set created_by = 'another-user', owner_id = :ownerId where id = :id")
+            .setParameter("ownerId", userKeyStore.getOrCreate("another-user"))
+            .setParameter("id", target.getId())
+            .executeUpdate();
+
+        restCategoryMockMvc
+            .perform(
+                delete(ENTITY_API_URL_ID, category.getId())
+                    .param("reassignTo", target.getId().toString())
+                    .accept(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isBadRequest());
+
+        assertThat(categoryRepository.findById(category.getId())).isPresent();
+    }
 }
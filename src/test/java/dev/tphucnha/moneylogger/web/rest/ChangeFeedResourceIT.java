@@ -0,0 +1,114 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.anonymous;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.jayway.jsonpath.JsonPath;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.security.jwt.JWTFilter;
+import dev.tphucnha.moneylogger.security.jwt.TokenProvider;
+import dev.tphucnha.moneylogger.service.ChangeFeedService;
+import dev.tphucnha.moneylogger.service.SyncService;
+import dev.tphucnha.moneylogger.service.event.EntityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Integration tests for the {@link ChangeFeedResource} REST controller.
+ * <p>
+ * The stream requests are anonymous, they are only authenticated by their ticket.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(ChangeFeedResourceIT.OWNER)
+class ChangeFeedResourceIT {
+
+    static final String OWNER = "feed-stream-owner";
+
+    private static final String TICKET_API_URL = "/api/changes/stream-ticket";
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc restChangeFeedMockMvc;
+
+    @Test
+    void streamIsOpenedOnceByATicketAndClosedWithItsSubscription() throws Exception {
+        String ticket = createTicket();
+        double connections = connections();
+
+        MvcResult stream = restChangeFeedMockMvc
+            .perform(get(JWTFilter.EVENT_STREAM_PATH).param(JWTFilter.TICKET_PARAMETER, ticket).with(anonymous()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(connections()).isEqualTo(connections + 1);
+
+        changeFeedService.onEntityChanged(
+            EntityChangedEvent.of(SyncService.CATEGORY, 1L, "feed-stream-other", EntityChangedEvent.ChangeType.UPDATED, 1L)
+        );
+        changeFeedService.onEntityChanged(
+            EntityChangedEvent.of(SyncService.CATEGORY, 2L, OWNER, EntityChangedEvent.ChangeType.UPDATED, 2L)
+        );
+        for (int i = 0; i < 100 && !stream.getResponse().getContentAsString().contains("\"entityId\":2"); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(stream.getResponse().getContentAsString())
+            .contains("event:change")
+            .contains("\"entityId\":2")
+            .doesNotContain("\"entityId\":1");
+
+        stream.getRequest().getAsyncContext().complete();
+        assertThat(connections()).isEqualTo(connections);
+
+        restChangeFeedMockMvc
+            .perform(get(JWTFilter.EVENT_STREAM_PATH).param(JWTFilter.TICKET_PARAMETER, ticket).with(anonymous()))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void streamIsNotOpenedByAnAccessTokenParameter() throws Exception {
+        String jwt = tokenProvider.createToken(SecurityContextHolder.getContext().getAuthentication(), false);
+
+        restChangeFeedMockMvc
+            .perform(get(JWTFilter.EVENT_STREAM_PATH).param("access_token", jwt).with(anonymous()))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void streamIsNotOpenedByAnUnknownTicket() throws Exception {
+        restChangeFeedMockMvc
+            .perform(get(JWTFilter.EVENT_STREAM_PATH).param(JWTFilter.TICKET_PARAMETER, "unknown").with(anonymous()))
+            .andExpect(status().isUnauthorized());
+    }
+
+    private String createTicket() throws Exception {
+        String content = restChangeFeedMockMvc
+            .perform(post(TICKET_API_URL))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ticket").isString())
+            .andExpect(jsonPath("$.expiresInSeconds").value(30))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return JsonPath.read(content, "$.ticket");
+    }
+
+    private double connections() {
+        return meterRegistry.get("moneylogger.changefeed.connections").gauge().value();
+    }
+}
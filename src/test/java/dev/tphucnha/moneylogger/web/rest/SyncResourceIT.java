@@ -0,0 +1,112 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link SyncResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class SyncResourceIT {
+
+    private static final String SYNC_API_URL = "/api/sync";
+
+    private static final String TRANSACTION_API_URL_ID = "/api/transactions/{id}";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restSyncMockMvc;
+
+    private Transaction transaction;
+
+    @BeforeEach
+    public void initTest() {
+        transaction = TransactionResourceIT.createEntity(em);
+    }
+
+    @Test
+    @Transactional
+    void writesAreStampedWithIncreasingChangeSequences() {
+        transactionRepository.saveAndFlush(transaction);
+        Long created = transaction.getChangeSequence();
+        assertThat(created).isNotNull();
+
+        transaction.setDetails("updated");
+        transactionRepository.saveAndFlush(transaction);
+        assertThat(transaction.getChangeSequence()).isGreaterThan(created);
+    }
+
+    @Test
+    @Transactional
+    void getChangesSince() throws Exception {
+        transactionRepository.saveAndFlush(transaction);
+        long since = transaction.getChangeSequence() - 1;
+
+        restSyncMockMvc
+            .perform(get(SYNC_API_URL + "?since=" + since))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.transactions.[*].id").value(hasItem(transaction.getId().intValue())))
+            .andExpect(jsonPath("$.next").value(transaction.getChangeSequence().intValue()));
+
+        restSyncMockMvc
+            .perform(get(SYNC_API_URL + "?since=" + transaction.getChangeSequence()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transactions.[*].id").value(not(hasItem(transaction.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    void getChangesSinceReturnsTombstones() throws Exception {
+        transactionRepository.saveAndFlush(transaction);
+        long since = transaction.getChangeSequence();
+
+        restSyncMockMvc
+            .perform(delete(TRANSACTION_API_URL_ID, transaction.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        restSyncMockMvc
+            .perform(get(SYNC_API_URL + "?since=" + since))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.deleted.[*].entityId").value(hasItem(transaction.getId().intValue())))
+            .andExpect(jsonPath("$.deleted.[*].entityName").value(hasItem("transaction")));
+    }
+
+    @Test
+    @Transactional
+    void getChangesIsKeysetPaged() throws Exception {
+        transactionRepository.saveAndFlush(transaction);
+        transactionRepository.saveAndFlush(TransactionResourceIT.createEntity(em));
+        long since = transaction.getChangeSequence() - 1;
+
+        restSyncMockMvc
+            .perform(get(SYNC_API_URL + "?since=" + since + "&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transactions.[*].id").value(hasItem(transaction.getId().intValue())))
+            .andExpect(jsonPath("$.next").value(transaction.getChangeSequence().intValue()))
+            .andExpect(jsonPath("$.hasMore").value(true));
+    }
+}
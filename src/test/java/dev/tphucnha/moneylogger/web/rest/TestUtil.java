@@ -19,6 +19,8 @@ import javax.persistence.criteria.Root;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 import org.hamcrest.TypeSafeMatcher;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.format.support.FormattingConversionService;
@@ -202,5 +204,17 @@ public final class TestUtil {
         return allQuery.getResultList();
     }
 
+    /**
+     * Enables and clears the Hibernate statistics, to count the statements run by the code under test.
+     * @param em The instance of the EntityManager
+     * @return the statistics of the session factory
+     */
+    public static Statistics clearStatistics(EntityManager em) {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
+
     private TestUtil() {}
 }
@@ -0,0 +1,141 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.service.TransactionService;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link TransactionHistoryResource} REST controller.
+ * <p>
+ * The audit rows of Envers are written when the changes commit, so the tests are not transactional.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TransactionHistoryResourceIT {
+
+    private static final String HISTORY_API_URL = "/api/transactions/{id}/history";
+
+    private static final String RECENT_CHANGES_API_URL = "/api/transactions/history";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restTransactionHistoryMockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long id;
+
+    @BeforeEach
+    public void initTest() {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAmount(BigDecimal.ONE);
+        transactionDTO.setDetails("Created");
+        transactionDTO.setDate(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        TransactionDTO created = transactionService.save(transactionDTO);
+        id = created.getId();
+        created.setDetails("Updated");
+        created.setVersion(null);
+        transactionService.update(created);
+        transactionService.delete(id);
+    }
+
+    @Test
+    void historyOfAUserIsIndexed() {
+        // The audit table is created by Hibernate after Liquibase ran, the index by the application
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.indexes where lower(index_name) = 'idx_transaction_aud_created_by_rev'",
+                Integer.class
+            )
+        )
+            .isPositive();
+    }
+
+    @Test
+    void getTransactionHistory() throws Exception {
+        restTransactionHistoryMockMvc
+            .perform(get(HISTORY_API_URL, id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisions", hasSize(3)))
+            .andExpect(jsonPath("$.revisions[0].type").value("DELETED"))
+            .andExpect(jsonPath("$.revisions[0].details").doesNotExist())
+            .andExpect(jsonPath("$.revisions[1].type").value("UPDATED"))
+            .andExpect(jsonPath("$.revisions[1].details").value("Updated"))
+            .andExpect(jsonPath("$.revisions[2].type").value("CREATED"))
+            .andExpect(jsonPath("$.revisions[2].details").value("Created"))
+            .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void getTransactionHistoryByPages() throws Exception {
+        JsonNode firstPage = objectMapper.readTree(
+            restTransactionHistoryMockMvc
+                .perform(get(HISTORY_API_URL + "?size=2", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revisions", hasSize(2)))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+        );
+        int lastRevision = firstPage.get("revisions").get(1).get("revision").asInt();
+
+        restTransactionHistoryMockMvc
+            .perform(get(HISTORY_API_URL + "?size=2&beforeRevision=" + lastRevision, id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisions", hasSize(1)))
+            .andExpect(jsonPath("$.revisions[0].type").value("CREATED"))
+            .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void getTransactionHistoryOfAnotherUser() throws Exception {
+        restTransactionHistoryMockMvc
+            .perform(get(HISTORY_API_URL, id).with(user("other")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisions", hasSize(0)));
+    }
+
+    @Test
+    void getRecentChanges() throws Exception {
+        restTransactionHistoryMockMvc
+            .perform(get(RECENT_CHANGES_API_URL + "?size=3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisions", hasSize(3)))
+            .andExpect(jsonPath("$.revisions[0].transactionId").value(id.intValue()))
+            .andExpect(jsonPath("$.revisions[0].type").value("DELETED"));
+
+        restTransactionHistoryMockMvc
+            .perform(get(RECENT_CHANGES_API_URL).with(user("other")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisions[*].transactionId", not(hasItem(id.intValue()))));
+    }
+}
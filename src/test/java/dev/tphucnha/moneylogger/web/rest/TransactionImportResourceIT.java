@@ -0,0 +1,152 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Category;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.CategoryRepository;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.dto.ImportJobDTO;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link TransactionImportResource} REST controller.
+ * <p>
+ * Each chunk of a statement is committed on its own, so the tests are not transactional and delete what they create.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TransactionImportResourceIT {
+
+    private static final String IMPORT_API_URL = "/api/transactions/import";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restImportMockMvc;
+
+    private String marker;
+
+    private Category existingCategory;
+
+    @BeforeEach
+    public void initTest() {
+        marker = UUID.randomUUID().toString();
+        existingCategory = new Category().name("Groceries " + marker);
+        categoryRepository.saveAndFlush(existingCategory);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionRepository.deleteAll(imported());
+        categoryRepository.deleteAll(
+            categoryRepository.findAll().stream().filter(category -> category.getName().contains(marker)).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    void importCsvStatement() throws Exception {
+        String statement =
+            "Date,Amount,Details,Category\n" +
+            "2021-03-01,-12.50,\"Bakery, " + marker + "\",groceries " + marker + "\n" +
+            "2021-03-02T10:15:30Z,2500," + marker + " salary,Income " + marker + "\n" +
+            "\n" +
+            "yesterday,1," + marker + " invalid,\n" +
+            "2021-03-03,-3.20," + marker + " coffee,\n";
+
+        restImportMockMvc
+            .perform(post(IMPORT_API_URL).contentType("text/csv").content(statement.getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.rowsRead").value(4))
+            .andExpect(jsonPath("$.created").value(3))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.categoriesCreated").value(1))
+            .andExpect(jsonPath("$.errors.[0].index").value(3))
+            .andExpect(jsonPath("$.errors.[0].errorKey").value("parse"));
+
+        Map<String, Transaction> transactions = imported()
+            .stream()
+            .collect(Collectors.toMap(Transaction::getDetails, transaction -> transaction));
+        assertThat(transactions).hasSize(3);
+        Transaction bakery = transactions.get("Bakery, " + marker);
+        assertThat(bakery.getAmount()).isEqualByComparingTo(new BigDecimal("-12.50"));
+        assertThat(bakery.getDate()).isEqualTo(Instant.parse("2021-03-01T00:00:00Z"));
+        // Category names are matched regardless of case
+        assertThat(bakery.getCategory().getId()).isEqualTo(existingCategory.getId());
+        assertThat(transactions.get(marker + " salary").getCategory().getName()).isEqualTo("Income " + marker);
+        assertThat(transactions.get(marker + " coffee").getCategory()).isNull();
+    }
+
+    @Test
+    void importOfxStatement() throws Exception {
+        String statement =
+            "OFXHEADER:100\nDATA:OFXSGML\n\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n" +
+            "<STMTTRN><TRNTYPE>DEBIT<DTPOSTED>20210301120000[-5:EST]<TRNAMT>-42.00<NAME>Fuel<MEMO>" +
+            marker +
+            "</STMTTRN>\n" +
+            "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+
+        String body = restImportMockMvc
+            .perform(post(IMPORT_API_URL + "?format=ofx").contentType("application/octet-stream").content(statement))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.created").value(1))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertThat(imported()).extracting(Transaction::getDetails).containsExactly("Fuel - " + marker);
+        String id = objectMapper.readValue(body, ImportJobDTO.class).getId();
+        restImportMockMvc.perform(get(IMPORT_API_URL)).andExpect(status().isOk()).andExpect(jsonPath("$.[*].id").value(hasItem(id)));
+        restImportMockMvc.perform(get(IMPORT_API_URL + "/{id}", id)).andExpect(status().isOk()).andExpect(jsonPath("$.created").value(1));
+    }
+
+    @Test
+    void importStatementWithoutRequiredColumn() throws Exception {
+        restImportMockMvc
+            .perform(post(IMPORT_API_URL).contentType("text/csv").content("Date,Amount\n2021-03-01,1\n"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("FAILED"))
+            .andExpect(jsonPath("$.created").value(0));
+    }
+
+    @Test
+    void importStatementOfUnknownFormat() throws Exception {
+        restImportMockMvc.perform(post(IMPORT_API_URL).contentType("text/plain").content("")).andExpect(status().isBadRequest());
+    }
+
+    private List<Transaction> imported() {
+        return transactionRepository
+            .findAll()
+            .stream()
+            .filter(transaction -> transaction.getDetails().contains(marker))
+            .collect(Collectors.toList());
+    }
+}
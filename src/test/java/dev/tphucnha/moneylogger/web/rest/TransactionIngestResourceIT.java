@@ -0,0 +1,159 @@
+package dev.tphucnha.moneylogger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.tphucnha.moneylogger.IntegrationTest;
+import dev.tphucnha.moneylogger.domain.Transaction;
+import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.dto.IngestTicketDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionBatchResultDTO;
+import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
+import dev.tphucnha.moneylogger.service.mapper.TransactionMapper;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link TransactionIngestResource} REST controller.
+ * <p>
+ * The transactions are committed by the ingest writer, outside of the test transaction, so the tests are not
+ * transactional and delete what they create.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TransactionIngestResourceIT {
+
+    private static final String INGEST_API_URL = "/api/transactions/ingest";
+
+    private static final String INGEST_API_URL_TICKET = INGEST_API_URL + "/{ticket}";
+
+    private static final long COMMIT_TIMEOUT_MILLIS = 5000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restIngestMockMvc;
+
+    @Test
+    void ingestTransactions() throws Exception {
+        TransactionDTO first = transactionMapper.toDto(TransactionResourceIT.createEntity(em));
+        TransactionDTO second = transactionMapper.toDto(TransactionResourceIT.createUpdatedEntity(em));
+        TransactionDTO withoutAmount = transactionMapper.toDto(TransactionResourceIT.createEntity(em));
+        withoutAmount.setAmount(null);
+
+        String body = restIngestMockMvc
+            .perform(
+                post(INGEST_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(first, second, withoutAmount)))
+            )
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists("Location"))
+            .andExpect(jsonPath("$.status").value("QUEUED"))
+            .andExpect(jsonPath("$.size").value(3))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        String ticket = objectMapper.readValue(body, IngestTicketDTO.class).getTicket();
+
+        IngestTicketDTO committed = awaitCommit(ticket);
+        try {
+            assertThat(committed.getStatus()).isEqualTo(IngestTicketDTO.Status.COMMITTED);
+            assertThat(committed.getResults())
+                .extracting(TransactionBatchResultDTO::getIndex, TransactionBatchResultDTO::getStatus)
+                .containsExactly(
+                    tuple(0, TransactionBatchResultDTO.Status.CREATED),
+                    tuple(1, TransactionBatchResultDTO.Status.CREATED),
+                    tuple(2, TransactionBatchResultDTO.Status.REJECTED)
+                );
+            // The transactions of a user are created in the order they were accepted
+            assertThat(committed.getResults().get(0).getId()).isLessThan(committed.getResults().get(1).getId());
+            Transaction created = transactionRepository.findById(committed.getResults().get(1).getId()).orElseThrow();
+            assertThat(created.getDetails()).isEqualTo(second.getDetails());
+            assertThat(created.getCreatedBy()).isEqualTo("user");
+        } finally {
+            createdIds(committed).forEach(transactionRepository::deleteById);
+        }
+    }
+
+    @Test
+    void getIngestTicketOfOtherUser() throws Exception {
+        TransactionDTO transactionDTO = transactionMapper.toDto(TransactionResourceIT.createEntity(em));
+        String body = restIngestMockMvc
+            .perform(
+                post(INGEST_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(transactionDTO)))
+            )
+            .andExpect(status().isAccepted())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        String ticket = objectMapper.readValue(body, IngestTicketDTO.class).getTicket();
+
+        IngestTicketDTO committed = awaitCommit(ticket);
+        try {
+            restIngestMockMvc.perform(get(INGEST_API_URL_TICKET, ticket).with(user("not-the-owner"))).andExpect(status().isNotFound());
+        } finally {
+            createdIds(committed).forEach(transactionRepository::deleteById);
+        }
+    }
+
+    @Test
+    void ingestEmptyBatch() throws Exception {
+        restIngestMockMvc
+            .perform(post(INGEST_API_URL).contentType(MediaType.APPLICATION_JSON).content("[]"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private IngestTicketDTO awaitCommit(String ticket) throws Exception {
+        long deadline = System.currentTimeMillis() + COMMIT_TIMEOUT_MILLIS;
+        while (true) {
+            String body = restIngestMockMvc
+                .perform(get(INGEST_API_URL_TICKET, ticket))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            IngestTicketDTO ingestTicket = objectMapper.readValue(body, IngestTicketDTO.class);
+            if (ingestTicket.getStatus() != IngestTicketDTO.Status.QUEUED || System.currentTimeMillis() > deadline) {
+                return ingestTicket;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<Long> createdIds(IngestTicketDTO ingestTicket) {
+        if (ingestTicket.getResults() == null) {
+            return List.of();
+        }
+        return ingestTicket
+            .getResults()
+            .stream()
+            .filter(result -> result.getStatus() == TransactionBatchResultDTO.Status.CREATED)
+            .map(TransactionBatchResultDTO::getId)
+            .collect(Collectors.toList());
+    }
+}
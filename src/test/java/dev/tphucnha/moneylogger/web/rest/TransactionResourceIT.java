@@ -5,15 +5,20 @@ import dev.tphucnha.moneylogger.domain.Category;
 import dev.tphucnha.moneylogger.domain.Transaction;
 import dev.tphucnha.moneylogger.repository.CategoryRepository;
 import dev.tphucnha.moneylogger.repository.TransactionRepository;
+import dev.tphucnha.moneylogger.service.IdempotencyKeyException;
+import dev.tphucnha.moneylogger.service.IdempotencyService;
 import dev.tphucnha.moneylogger.service.TransactionService;
 import dev.tphucnha.moneylogger.service.dto.CategoryDTO;
 import dev.tphucnha.moneylogger.service.dto.TransactionDTO;
 import dev.tphucnha.moneylogger.service.mapper.CategoryMapper;
 import dev.tphucnha.moneylogger.service.mapper.TransactionMapper;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -23,14 +28,18 @@ import javax.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static dev.tphucnha.moneylogger.web.rest.TestUtil.sameNumber;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -132,6 +141,144 @@ class TransactionResourceIT {
         assertThat(testTransaction.getDate()).isEqualTo(DEFAULT_DATE);
     }
 
+    @Test
+    @Transactional
+    void createTransactionWithIdempotencyKeyIsReplayed() throws Exception {
+        int databaseSizeBeforeCreate = transactionRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+        TransactionDTO transactionDTO = transactionMapper.toDto(transaction);
+
+        String location = restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(IdempotencyService.HEADER, idempotencyKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transactionDTO))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+
+        // The retry gets the first response, without a second insert
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(IdempotencyService.HEADER, idempotencyKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transactionDTO))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+            .andExpect(header().string(HttpHeaders.LOCATION, location))
+            .andExpect(jsonPath("$.details").value(DEFAULT_DETAILS));
+
+        assertThat(transactionRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    @Transactional
+    void createTransactionWithReusedIdempotencyKey() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(IdempotencyService.HEADER, idempotencyKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transactionMapper.toDto(transaction)))
+            )
+            .andExpect(status().isCreated());
+
+        int databaseSizeBeforeCreate = transactionRepository.findAll().size();
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(IdempotencyService.HEADER, idempotencyKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transactionMapper.toDto(createUpdatedEntity(em))))
+            )
+            .andExpect(status().isUnprocessableEntity())
+            .andExpect(jsonPath("$.message").value("error." + IdempotencyKeyException.KEY_REUSED));
+
+        assertThat(transactionRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createTransactionsInBatch() throws Exception {
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        em.flush();
+        int databaseSizeBeforeCreate = transactionRepository.findAll().size();
+
+        TransactionDTO withCategory = transactionMapper.toDto(transaction);
+        withCategory.setCategory(categoryMapper.toDto(category));
+        TransactionDTO withoutCategory = transactionMapper.toDto(createUpdatedEntity(em));
+        TransactionDTO withoutAmount = transactionMapper.toDto(createEntity(em));
+        withoutAmount.setAmount(null);
+        TransactionDTO withExistingId = transactionMapper.toDto(createEntity(em));
+        withExistingId.setId(1L);
+
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(withCategory, withoutCategory, withoutAmount, withExistingId)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(4)))
+            .andExpect(jsonPath("$.[0].status").value("CREATED"))
+            .andExpect(jsonPath("$.[0].id").isNumber())
+            .andExpect(jsonPath("$.[1].status").value("CREATED"))
+            .andExpect(jsonPath("$.[2].status").value("REJECTED"))
+            .andExpect(jsonPath("$.[2].errorKey").value("validation"))
+            .andExpect(jsonPath("$.[3].status").value("REJECTED"))
+            .andExpect(jsonPath("$.[3].errorKey").value("idexists"));
+
+        // Validate the Transactions in the database
+        List<Transaction> transactionList = transactionRepository.findAll();
+        assertThat(transactionList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(transactionList)
+            .filteredOn(created -> DEFAULT_DETAILS.equals(created.getDetails()))
+            .singleElement()
+            .satisfies(created -> assertThat(created.getCategory().getId()).isEqualTo(category.getId()));
+        assertThat(transactionList).extracting(Transaction::getChangeSequence).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    @Test
+    @Transactional
+    void createTransactionsInBatchWithCategoryOfOtherUser() throws Exception {
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        em.flush();
+        int databaseSizeBeforeCreate = transactionRepository.findAll().size();
+
+        TransactionDTO transactionDTO = transactionMapper.toDto(transaction);
+        transactionDTO.setCategory(categoryMapper.toDto(category));
+
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .with(user("not-the-owner"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(transactionDTO)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].status").value("REJECTED"))
+            .andExpect(jsonPath("$.[0].errorKey").value("categoryinvalid"));
+
+        assertThat(transactionRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createTransactionsInEmptyBatch() throws Exception {
+        restTransactionMockMvc
+            .perform(post(ENTITY_API_URL + "/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void createTransactionWithExistingId() throws Exception {
@@ -230,6 +377,70 @@ class TransactionResourceIT {
             .andExpect(jsonPath("$.[*].date").value(hasItem(DEFAULT_DATE.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllTransactionsAsJson() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        transaction.setCategory(category);
+        transactionRepository.saveAndFlush(transaction);
+
+        // Get all the transactionList as a JSON array, with the shape of the paged listing
+        restTransactionMockMvc
+            .perform(get(ENTITY_API_URL + "/json?sort=id,desc&id.equals=" + transaction.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(transaction.getId().intValue()))
+            .andExpect(jsonPath("$.[0].amount").value(sameNumber(DEFAULT_AMOUNT)))
+            .andExpect(jsonPath("$.[0].details").value(DEFAULT_DETAILS))
+            .andExpect(jsonPath("$.[0].date").value(DEFAULT_DATE.toString()))
+            .andExpect(jsonPath("$.[0].category.id").value(category.getId().intValue()))
+            .andExpect(jsonPath("$.[0].category.name").value(category.getName()));
+    }
+
+    @Test
+    @Transactional
+    void getAllTransactionsAsJsonOfOtherUser() throws Exception {
+        // Initialize the database
+        transactionRepository.saveAndFlush(transaction);
+
+        restTransactionMockMvc
+            .perform(get(ENTITY_API_URL + "/json?id.equals=" + transaction.getId()).with(user("other")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    void getAllTransactionsAsJsonWithUnsupportedSort() throws Exception {
+        restTransactionMockMvc.perform(get(ENTITY_API_URL + "/json?sort=createdBy,asc")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllTransactionsSortedByUnindexedProperty() throws Exception {
+        restTransactionMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=details,asc"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.sortnotindexed"));
+    }
+
+    @Test
+    @Transactional
+    void getAllTransactionsWithOversizedPage() throws Exception {
+        // Initialize the database
+        transactionRepository.saveAndFlush(transaction);
+
+        restTransactionMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=date,desc&size=1000"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Query-Decision", "rewritten"))
+            .andExpect(header().string("X-Query-Rewrites", "pagesizecapped"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(transaction.getId().intValue())));
+    }
+
     @Test
     @Transactional
     void getTransaction() throws Exception {
@@ -597,6 +808,34 @@ class TransactionResourceIT {
         assertThat(testTransaction.getDate()).isEqualTo(UPDATED_DATE);
     }
 
+    @Test
+    @Transactional
+    void putTransactionInOneStatement() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        transactionRepository.saveAndFlush(transaction);
+        TransactionDTO transactionDTO = transactionMapper.toDto(createUpdatedEntity(em).id(transaction.getId()).category(category));
+        em.clear();
+
+        Statistics statistics = TestUtil.clearStatistics(em);
+        restTransactionMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, transactionDTO.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transactionDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.category.name").value(category.getName()));
+
+        // The transaction is not read: revision id and row, transaction and category audit rows, update, category name
+        assertThat(statistics.getEntityStatistics(Transaction.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        Transaction testTransaction = transactionRepository.findById(transaction.getId()).orElseThrow();
+        assertThat(testTransaction.getDetails()).isEqualTo(UPDATED_DETAILS);
+        assertThat(testTransaction.getCategory().getId()).isEqualTo(category.getId());
+    }
+
     @Test
     @Transactional
     void putNonExistingTransaction() throws Exception {
@@ -682,7 +921,11 @@ class TransactionResourceIT {
                     .contentType("application/merge-patch+json")
                     .content(TestUtil.convertObjectToJsonBytes(partialUpdatedTransaction))
             )
-            .andExpect(status().isOk());
+            .andExpect(status().isOk())
+            // The columns left unchanged are returned by the update statement
+            .andExpect(jsonPath("$.amount").value(sameNumber(DEFAULT_AMOUNT)))
+            .andExpect(jsonPath("$.details").value(UPDATED_DETAILS))
+            .andExpect(jsonPath("$.version").value(transaction.getVersion().intValue() + 1));
 
         // Validate the Transaction in the database
         List<Transaction> transactionList = transactionRepository.findAll();
@@ -693,6 +936,68 @@ class TransactionResourceIT {
         assertThat(testTransaction.getDate()).isEqualTo(UPDATED_DATE);
     }
 
+    @Test
+    @Transactional
+    void partialUpdateTransactionWithIfMatch() throws Exception {
+        // Initialize the database
+        transactionRepository.saveAndFlush(transaction);
+        Long version = transaction.getVersion();
+
+        restTransactionMockMvc
+            .perform(get(ENTITY_API_URL_ID, transaction.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "\""))
+            .andExpect(jsonPath("$.version").value(version.intValue()));
+
+        Transaction partialUpdatedTransaction = new Transaction();
+        partialUpdatedTransaction.setId(transaction.getId());
+        partialUpdatedTransaction.details(UPDATED_DETAILS);
+
+        restTransactionMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedTransaction.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedTransaction))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""))
+            .andExpect(jsonPath("$.details").value(UPDATED_DETAILS));
+
+        // A concurrent edit made from the previous version is not lost, it fails
+        partialUpdatedTransaction.details(DEFAULT_DETAILS);
+        restTransactionMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedTransaction.getId())
+                    .header(HttpHeaders.IF_MATCH, "W/\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedTransaction))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.message").value("error.versionmismatch"));
+
+        Transaction testTransaction = transactionRepository.findById(transaction.getId()).orElseThrow();
+        assertThat(testTransaction.getDetails()).isEqualTo(UPDATED_DETAILS);
+        assertThat(testTransaction.getAmount()).isEqualByComparingTo(DEFAULT_AMOUNT);
+        assertThat(testTransaction.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @Transactional
+    void partialUpdateTransactionWithInvalidIfMatch() throws Exception {
+        // Initialize the database
+        transactionRepository.saveAndFlush(transaction);
+
+        restTransactionMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, transaction.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                    .contentType("application/merge-patch+json")
+                    .content("{\"id\":" + transaction.getId() + ",\"details\":\"" + UPDATED_DETAILS + "\"}")
+            )
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void fullUpdateTransactionWithPatch() throws Exception {
@@ -792,6 +1097,93 @@ class TransactionResourceIT {
         assertThat(transactionList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void bulkUpdateTransactions() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        Transaction first = transactionRepository.saveAndFlush(createEntity(em));
+        Transaction second = transactionRepository.saveAndFlush(createEntity(em));
+        Transaction other = transactionRepository.saveAndFlush(createUpdatedEntity(em));
+        Long changeSequenceBefore = first.getChangeSequence();
+
+        restTransactionMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk-update?details.equals=" + DEFAULT_DETAILS + "&targetCategoryId=" + category.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().string("2"));
+
+        // The statement bypasses the persistence context
+        em.clear();
+        assertThat(transactionRepository.findById(first.getId()).orElseThrow().getCategory().getId()).isEqualTo(category.getId());
+        assertThat(transactionRepository.findById(second.getId()).orElseThrow().getCategory().getId()).isEqualTo(category.getId());
+        assertThat(transactionRepository.findById(other.getId()).orElseThrow().getCategory()).isNull();
+        assertThat(transactionRepository.findById(first.getId()).orElseThrow().getChangeSequence()).isGreaterThan(changeSequenceBefore);
+        assertThat(AuditReaderFactory.get(em).getRevisions(Transaction.class, first.getId())).hasSize(1);
+        assertThat(AuditReaderFactory.get(em).getRevisions(Transaction.class, other.getId())).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void bulkUpdateTransactionsWithCategoryOfOtherUser() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        transactionRepository.saveAndFlush(transaction);
+
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk-update?details.equals=" + DEFAULT_DETAILS + "&targetCategoryId=" + category.getId())
+                    .with(user("not-the-owner"))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void bulkDeleteTransactions() throws Exception {
+        // Initialize the database
+        Transaction first = transactionRepository.saveAndFlush(createEntity(em));
+        Transaction second = transactionRepository.saveAndFlush(createEntity(em));
+        Transaction other = transactionRepository.saveAndFlush(createUpdatedEntity(em));
+
+        // Other users' transactions are not matched
+        restTransactionMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk-delete?details.equals=" + DEFAULT_DETAILS).with(user("not-the-owner")))
+            .andExpect(status().isOk())
+            .andExpect(content().string("0"));
+
+        restTransactionMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk-delete?details.equals=" + DEFAULT_DETAILS))
+            .andExpect(status().isOk())
+            .andExpect(content().string("2"));
+
+        // The statement bypasses the persistence context
+        em.clear();
+        assertThat(transactionRepository.existsById(first.getId())).isFalse();
+        assertThat(transactionRepository.existsById(second.getId())).isFalse();
+        assertThat(transactionRepository.existsById(other.getId())).isTrue();
+        assertThat(
+            em
+                .createQuery("select count(s) from SyncTombstone s where s.entityId in :ids", Long.class)
+                .setParameter("ids", List.of(first.getId(), second.getId()))
+                .getSingleResult()
+        )
+            .isEqualTo(2L);
+        assertThat(AuditReaderFactory.get(em).getRevisions(Transaction.class, first.getId())).hasSize(1);
+    }
+
+    @Test
+    @Transactional
+    void bulkDeleteTransactionsWithoutCriteria() throws Exception {
+        // Initialize the database
+        transactionRepository.saveAndFlush(transaction);
+
+        restTransactionMockMvc.perform(post(ENTITY_API_URL + "/bulk-delete")).andExpect(status().isBadRequest());
+
+        assertThat(transactionRepository.existsById(transaction.getId())).isTrue();
+    }
+
     @Test
     @Transactional
     void deleteTransaction() throws Exception {
@@ -810,6 +1202,24 @@ class TransactionResourceIT {
         assertThat(transactionList).hasSize(databaseSizeBeforeDelete - 1);
     }
 
+    @Test
+    @Transactional
+    void deleteTransactionInOneStatement() throws Exception {
+        // Initialize the database
+        transactionRepository.saveAndFlush(transaction);
+        em.clear();
+
+        Statistics statistics = TestUtil.clearStatistics(em);
+        restTransactionMockMvc
+            .perform(delete(ENTITY_API_URL_ID, transaction.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        // The transaction is not read: revision id and row, transaction and category audit rows, tombstone, delete
+        assertThat(statistics.getEntityStatistics(Transaction.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(transactionRepository.existsById(transaction.getId())).isFalse();
+    }
+
     @Test
     @Transactional
     @WithMockUser(username = "the-owner")
@@ -1149,6 +1559,63 @@ class TransactionResourceIT {
         assertThat(testTransaction.getDetails()).isEqualTo(DEFAULT_DETAILS);
     }
 
+    @Test
+    @Transactional
+    void createTransactionWithCategoryOfExistingName() throws Exception {
+        Category category = CategoryResourceIT.createEntity(em);
+        categoryRepository.saveAndFlush(category);
+        int categoryDbSizeBeforeCreate = categoryRepository.findAll().size();
+
+        // A category given by name only is the category of the user with that name, whatever its case
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setName(" " + category.getName().toLowerCase() + " ");
+        TransactionDTO transactionDTO = transactionMapper.toDto(transaction);
+        transactionDTO.setCategory(categoryDTO);
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(transactionDTO))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.category.id").value(category.getId().intValue()));
+
+        assertThat(categoryRepository.findAll()).hasSize(categoryDbSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createTransactionsInBatchWithCategoriesByName() throws Exception {
+        int categoryDbSizeBeforeCreate = categoryRepository.findAll().size();
+        int transactionDbSizeBeforeCreate = transactionRepository.findAll().size();
+
+        List<TransactionDTO> transactionDTOs = new ArrayList<>();
+        for (String name : List.of("Groceries", "GROCERIES", "groceries")) {
+            CategoryDTO categoryDTO = new CategoryDTO();
+            categoryDTO.setName(name);
+            TransactionDTO transactionDTO = transactionMapper.toDto(createEntity(em));
+            transactionDTO.setCategory(categoryDTO);
+            transactionDTOs.add(transactionDTO);
+        }
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transactionDTOs))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(everyItem(is("CREATED"))));
+
+        // One category is created, and used by all the transactions
+        List<Category> categoryList = categoryRepository.findAll();
+        assertThat(categoryList).hasSize(categoryDbSizeBeforeCreate + 1);
+        Category testCategory = categoryList.get(categoryList.size() - 1);
+        assertThat(testCategory.getName()).isEqualTo("Groceries");
+        List<Transaction> transactionList = transactionRepository.findAll();
+        assertThat(transactionList).hasSize(transactionDbSizeBeforeCreate + 3);
+        assertThat(transactionList)
+            .filteredOn(created -> created.getCategory() != null && testCategory.getId().equals(created.getCategory().getId()))
+            .hasSize(3);
+    }
+
     @Test
     @Transactional
     void deleteCategorizedTransactionWillNotDeleteTheCategory() throws Exception {
@@ -1208,6 +1675,29 @@ class TransactionResourceIT {
         assertThat(testTransaction.getCategory().getName()).isEqualTo(category.getName());
     }
 
+    @Test
+    @Transactional
+    void postTransactionInOneStatement() throws Exception {
+        Category category = CategoryResourceIT.createEntity(em);
+        categoryRepository.saveAndFlush(category);
+        transaction.setCategory(category);
+        TransactionDTO transactionDTO = transactionMapper.toDto(transaction);
+        em.clear();
+
+        Statistics statistics = TestUtil.clearStatistics(em);
+        restTransactionMockMvc
+            .perform(
+                post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(transactionDTO))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.category.name").value(category.getName()));
+
+        // Neither the category nor a transaction is read: revision id and row, insert, transaction and category audit rows
+        assertThat(statistics.getEntityStatistics(Category.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Transaction.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+    }
+
     @Test
     @Transactional
     void updateTransactionByUpdateItsCategory() throws Exception {